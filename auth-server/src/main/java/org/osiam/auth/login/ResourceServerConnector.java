@@ -23,66 +23,141 @@
 
 package org.osiam.auth.login;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import javax.inject.Inject;
 
-import org.osiam.auth.oauth_client.OsiamAuthServerClientProvider;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicResponseHandler;
+import org.apache.http.message.BasicNameValuePair;
+import org.osiam.auth.exception.OsiamException;
 import org.osiam.auth.token.OsiamAccessTokenProvider;
-import org.osiam.client.OsiamConnector;
-import org.osiam.client.query.Query;
-import org.osiam.client.query.QueryBuilder;
+import org.osiam.resources.helper.UserDeserializer;
 import org.osiam.resources.scim.SCIMSearchResult;
 import org.osiam.resources.scim.UpdateUser;
 import org.osiam.resources.scim.User;
+import org.osiam.security.helper.OsiamHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Performs the calls of the auth-server to the resource-server. All requests share the pooled connections of the
+ * {@link OsiamHttpClient}.
+ */
 @Service
 public class ResourceServerConnector {
 
+    private static final Logger LOGGER = Logger.getLogger(ResourceServerConnector.class.getName());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(
+            new SimpleModule("userDeserializerModule", Version.unknownVersion())
+                    .addDeserializer(User.class, new UserDeserializer(User.class)));
+
+    private static final JavaType USER_SEARCH_RESULT = MAPPER.getTypeFactory().constructParametricType(
+            SCIMSearchResult.class, User.class);
+
     @Value("${org.osiam.resource-server.home}")
     private String resourceServerHome;
 
-    @Value("${org.osiam.auth-server.home}")
-    private String authServerHome;
-
     @Inject
     private OsiamAccessTokenProvider osiamAccessTokenProvider;
 
     @Inject
-    private OsiamAuthServerClientProvider authServerClientProvider;
+    private OsiamHttpClient httpClient;
 
     public User getUserByUsername(final String userName) {
-        OsiamConnector osiamConnector = createOsiamConnector();
-        Query query = new QueryBuilder().filter("userName eq \"" + userName + "\""
-                + " and active eq \"true\"").build();
-
-        SCIMSearchResult<User> result = osiamConnector.searchUsers(query,
-                osiamAccessTokenProvider.createAccessToken());
-
-        if (result.getTotalResults() != 1) {
-            return null;
-        } else {
-            return result.getResources().get(0);
-        }
+        return searchSingleUser("userName eq \"" + userName + "\" and active eq \"true\"");
     }
 
     public User createUser(User user) {
-        OsiamConnector osiamConnector = createOsiamConnector();
-        return osiamConnector.createUser(user, osiamAccessTokenProvider.createAccessToken());
+        HttpPost request = new HttpPost(resourceServerHome + "/Users");
+        return executeWithBody(request, user);
     }
 
     public User updateUser(String userId, UpdateUser user) {
-        OsiamConnector osiamConnector = createOsiamConnector();
-        return osiamConnector.updateUser(userId, user, osiamAccessTokenProvider.createAccessToken());
+        HttpPatch request = new HttpPatch(resourceServerHome + "/Users/" + userId);
+        return executeWithBody(request, user.getScimConformUpdateUser());
     }
 
-    public User searchUserByUserNameAndPassword(String userName, String hashedPassword) {
-        OsiamConnector osiamConnector = createOsiamConnector();
-        Query query = new QueryBuilder().filter("userName eq \"" + userName + "\""
-                + " and password eq \"" + hashedPassword + "\"").build();
+    /**
+     * Lets the resource-server check the given credentials.
+     *
+     * @return a user containing only the id, the userName and the roles, or null if there is no active user with the
+     *         given userName and password
+     */
+    public User authenticateUser(String userName, String password) {
+        HttpPost request = new HttpPost(resourceServerHome + "/authentication/credentials");
+        request.setEntity(new UrlEncodedFormEntity(Arrays.<NameValuePair> asList(
+                new BasicNameValuePair("userName", userName), new BasicNameValuePair("password", password)),
+                ContentType.APPLICATION_FORM_URLENCODED.getCharset()));
+        try {
+            return MAPPER.readValue(executeAuthorized(request), User.class);
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw new OsiamException("Request to the resource-server failed: " + request.getRequestLine(), e);
+        } catch (IOException e) {
+            throw new OsiamException("Request to the resource-server failed: " + request.getRequestLine(), e);
+        }
+    }
 
-        SCIMSearchResult<User> result = osiamConnector.searchUsers(query,
-                osiamAccessTokenProvider.createAccessToken());
+    /**
+     * Tells the resource-server that the given access token was revoked, so it no longer serves it from its token
+     * validation cache. A failure is only logged, because the cache entry expires on its own anyway and signed tokens
+     * reach every resource-server node through the revocation list they pull.
+     *
+     * @param token
+     *            the revoked access token
+     */
+    public void evictCachedAccessToken(String token) {
+        HttpPost request = new HttpPost(resourceServerHome + "/token/revocation");
+        request.setEntity(new UrlEncodedFormEntity(Arrays.<NameValuePair> asList(new BasicNameValuePair("token",
+                token)), ContentType.APPLICATION_FORM_URLENCODED.getCharset()));
+
+        try {
+            execute(request);
+        } catch (OsiamException e) {
+            LOGGER.log(Level.WARNING, "Unable to evict the revoked access token from the resource-server cache", e);
+        }
+    }
+
+    private User searchSingleUser(String filter) {
+        URI uri;
+        try {
+            uri = new URIBuilder(resourceServerHome + "/Users").addParameter("filter", filter).build();
+        } catch (URISyntaxException e) {
+            throw new OsiamException("Unable to build the search request for the resource-server", e);
+        }
+
+        SCIMSearchResult<User> result;
+        try {
+            result = MAPPER.readValue(execute(new HttpGet(uri)), USER_SEARCH_RESULT);
+        } catch (IOException e) {
+            throw new OsiamException("Unable to read the search result of the resource-server", e);
+        }
 
         if (result.getTotalResults() != 1) {
             return null;
@@ -91,12 +166,45 @@ public class ResourceServerConnector {
         }
     }
 
-    private OsiamConnector createOsiamConnector() {
-        OsiamConnector.Builder oConBuilder = new OsiamConnector.Builder().
-                setAuthServerEndpoint(authServerHome).
-                setResourceServerEndpoint(resourceServerHome).
-                setClientId(OsiamAuthServerClientProvider.AUTH_SERVER_CLIENT_ID).
-                setClientSecret(authServerClientProvider.getClientSecret());
-        return oConBuilder.build();
+    private User executeWithBody(HttpEntityEnclosingRequestBase request, User user) {
+        try {
+            request.setEntity(new StringEntity(MAPPER.writeValueAsString(user), ContentType.APPLICATION_JSON));
+            return MAPPER.readValue(execute(request), User.class);
+        } catch (IOException e) {
+            throw new OsiamException("Unable to exchange the user with the resource-server", e);
+        }
+    }
+
+    private String execute(HttpUriRequest request) {
+        try {
+            return executeAuthorized(request);
+        } catch (IOException e) {
+            throw new OsiamException("Request to the resource-server failed: " + request.getRequestLine(), e);
+        }
+    }
+
+    /**
+     * Executes the given request with the shared access token of the auth-server. If the resource-server rejects the
+     * token, e.g. because it was revoked, the token is dropped and the request is repeated once with a new one.
+     */
+    private String executeAuthorized(HttpUriRequest request) throws IOException {
+        String token = authorize(request);
+        try {
+            return httpClient.execute(request, new BasicResponseHandler());
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+                throw e;
+            }
+            osiamAccessTokenProvider.invalidateAccessToken(token);
+            authorize(request);
+            return httpClient.execute(request, new BasicResponseHandler());
+        }
+    }
+
+    private String authorize(HttpRequest request) {
+        String token = osiamAccessTokenProvider.getAccessToken().getToken();
+        request.setHeader("Authorization", "Bearer " + token);
+        request.setHeader("Accept", "application/json");
+        return token;
     }
 }
@@ -33,7 +33,6 @@ import org.osiam.resources.scim.Role;
 import org.osiam.resources.scim.User;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.encoding.ShaPasswordEncoder;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -46,9 +45,6 @@ public class InternalAuthenticationProvider implements AuthenticationProvider {
     @Inject
     private ResourceServerConnector resourceServerConnector;
 
-    @Inject
-    private ShaPasswordEncoder passwordEncoder;
-
     @Override
     public Authentication authenticate(Authentication authentication) {
         Preconditions.checkArgument(authentication instanceof InternalAuthentication,
@@ -65,16 +61,9 @@ public class InternalAuthenticationProvider implements AuthenticationProvider {
             throw new BadCredentialsException("InternalAuthenticationProvider: Empty Password");
         }
 
-        // Determine username
-        User user = resourceServerConnector.getUserByUsername(username);
+        User user = resourceServerConnector.authenticateUser(username, password);
 
         if (user == null) {
-            throw new BadCredentialsException("The user with the username '" + username + "' not exists!");
-        }
-
-        String hashedPassword = passwordEncoder.encodePassword(password, user.getId());
-
-        if (resourceServerConnector.searchUserByUserNameAndPassword(username, hashedPassword) == null) {
             throw new BadCredentialsException("Bad credentials");
         }
 
@@ -78,7 +78,9 @@ public class OsiamAuthServerClientProvider {
                 }
 
                 if (clientEntity == null) {
-                    int validity = 10;
+                    // long enough for the shared access token to outlast its refresh margin, see
+                    // OsiamAccessTokenProvider
+                    int validity = 60;
                     
                     clientEntity = new ClientEntity();
                     Set<String> scopes = new HashSet<String>();
@@ -0,0 +1,445 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.auth.oauth_client;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.osiam.resources.scim.User;
+import org.osiam.security.helper.AccessTokenKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.AuthorizationRequest;
+import org.springframework.security.oauth2.provider.DefaultAuthorizationRequest;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * {@link TokenStore} which keeps the access and refresh tokens in the database of the auth-server, so that several
+ * auth-server nodes can share them and they survive a restart. Tokens are looked up by a hash of their value. An
+ * optional in-process cache answers repeated reads of the same access token without a database round trip. It is
+ * only invalidated on the node that removes a token, so with several nodes a token revoked elsewhere is still served
+ * until the entry expires; the cache is therefore disabled by default and its entries are kept only a few seconds.
+ * Revoked access tokens are kept on a revocation list until they expire, which the resource-server nodes pull to
+ * reject signed tokens and to evict opaque tokens from their caches. Expired tokens and revocations are purged periodically in batches.
+ */
+public class OsiamTokenStore implements TokenStore {
+
+    private static final Logger LOGGER = Logger.getLogger(OsiamTokenStore.class.getName());
+
+    private static final String INSERT_ACCESS_TOKEN = "INSERT INTO osiam_access_token (token_id, token,"
+            + " authentication_id, user_name, client_id, authentication, refresh_token, expiration)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_ACCESS_TOKEN = "SELECT token, authentication FROM osiam_access_token"
+            + " WHERE token_id = ?";
+    private static final String SELECT_ACCESS_TOKEN_BY_AUTHENTICATION = "SELECT token, authentication"
+            + " FROM osiam_access_token WHERE authentication_id = ?";
+    private static final String SELECT_ACCESS_TOKENS_BY_USER_NAME = "SELECT token, authentication"
+            + " FROM osiam_access_token WHERE user_name = ?";
+    private static final String SELECT_ACCESS_TOKENS_BY_CLIENT_ID = "SELECT token, authentication"
+            + " FROM osiam_access_token WHERE client_id = ?";
+    private static final String SELECT_ACCESS_TOKEN_IDS_BY_REFRESH_TOKEN = "SELECT token_id FROM osiam_access_token"
+            + " WHERE refresh_token = ?";
+    private static final String DELETE_ACCESS_TOKEN = "DELETE FROM osiam_access_token WHERE token_id = ?";
+    private static final String DELETE_ACCESS_TOKENS_BY_REFRESH_TOKEN = "DELETE FROM osiam_access_token"
+            + " WHERE refresh_token = ?";
+    private static final String PURGE_ACCESS_TOKENS = "DELETE FROM osiam_access_token WHERE token_id IN"
+            + " (SELECT token_id FROM osiam_access_token WHERE expiration < ? LIMIT ?)";
+
+    private static final String INSERT_REFRESH_TOKEN = "INSERT INTO osiam_refresh_token (token_id, token,"
+            + " authentication, expiration) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_REFRESH_TOKEN = "SELECT token, authentication FROM osiam_refresh_token"
+            + " WHERE token_id = ?";
+    private static final String DELETE_REFRESH_TOKEN = "DELETE FROM osiam_refresh_token WHERE token_id = ?";
+    private static final String PURGE_REFRESH_TOKENS = "DELETE FROM osiam_refresh_token WHERE token_id IN"
+            + " (SELECT token_id FROM osiam_refresh_token WHERE expiration < ? LIMIT ?)";
+
+    private static final String INSERT_REVOKED_ACCESS_TOKEN = "INSERT INTO osiam_revoked_access_token (token_id,"
+            + " expiration) VALUES (?, ?)";
+    private static final String SELECT_REVOKED_ACCESS_TOKENS = "SELECT token_id, expiration"
+            + " FROM osiam_revoked_access_token WHERE expiration >= ?";
+    private static final String PURGE_REVOKED_ACCESS_TOKENS = "DELETE FROM osiam_revoked_access_token"
+            + " WHERE token_id IN (SELECT token_id FROM osiam_revoked_access_token WHERE expiration < ? LIMIT ?)";
+
+    @Inject
+    private DataSource dataSource;
+
+    @Value("${org.osiam.auth-server.token-store.cache.enabled:false}")
+    private boolean cacheEnabled = false;
+
+    @Value("${org.osiam.auth-server.token-store.cache.max-size:10000}")
+    private long cacheMaxSize = 10000;
+
+    @Value("${org.osiam.auth-server.token-store.cache.max-age-seconds:5}")
+    private long cacheMaxAgeSeconds = 5;
+
+    @Value("${org.osiam.auth-server.token-store.purge.batch-size:1000}")
+    private int purgeBatchSize = 1000;
+
+    private final AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Cache<String, StoredToken<OAuth2AccessToken>> accessTokenCache;
+
+    @PostConstruct
+    private void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        accessTokenCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheEnabled ? cacheMaxSize : 0)
+                .expireAfterWrite(cacheMaxAgeSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        String tokenId = extractTokenKey(token.getValue());
+        String refreshTokenId = token.getRefreshToken() != null
+                ? extractTokenKey(token.getRefreshToken().getValue()) : null;
+        StoredAuthentication storedAuthentication = StoredAuthentication.of(authentication);
+
+        removeAccessTokenById(tokenId);
+        jdbcTemplate.update(INSERT_ACCESS_TOKEN, tokenId, SerializationUtils.serialize(token),
+                authenticationKeyGenerator.extractKey(authentication), storedAuthentication.userName,
+                storedAuthentication.clientId, SerializationUtils.serialize(storedAuthentication), refreshTokenId,
+                toTimestamp(token.getExpiration()));
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        StoredToken<OAuth2AccessToken> storedToken = readStoredAccessToken(extractTokenKey(tokenValue));
+        return storedToken != null ? storedToken.token : null;
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String tokenValue) {
+        StoredToken<OAuth2AccessToken> storedToken = readStoredAccessToken(extractTokenKey(tokenValue));
+        return storedToken != null ? storedToken.authentication : null;
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        removeAccessTokenById(extractTokenKey(token.getValue()));
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        List<StoredToken<OAuth2AccessToken>> storedTokens = jdbcTemplate.query(
+                SELECT_ACCESS_TOKEN_BY_AUTHENTICATION, new StoredTokenRowMapper<OAuth2AccessToken>(),
+                authenticationKeyGenerator.extractKey(authentication));
+        return storedTokens.isEmpty() ? null : storedTokens.get(0).token;
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByUserName(String userName) {
+        return tokensOf(jdbcTemplate.query(SELECT_ACCESS_TOKENS_BY_USER_NAME,
+                new StoredTokenRowMapper<OAuth2AccessToken>(), userName));
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return tokensOf(jdbcTemplate.query(SELECT_ACCESS_TOKENS_BY_CLIENT_ID,
+                new StoredTokenRowMapper<OAuth2AccessToken>(), clientId));
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        Date expiration = refreshToken instanceof ExpiringOAuth2RefreshToken
+                ? ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration() : null;
+
+        jdbcTemplate.update(INSERT_REFRESH_TOKEN, extractTokenKey(refreshToken.getValue()),
+                SerializationUtils.serialize(refreshToken),
+                SerializationUtils.serialize(StoredAuthentication.of(authentication)), toTimestamp(expiration));
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        StoredToken<OAuth2RefreshToken> storedToken = readStoredRefreshToken(tokenValue);
+        return storedToken != null ? storedToken.token : null;
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        StoredToken<OAuth2RefreshToken> storedToken = readStoredRefreshToken(token.getValue());
+        return storedToken != null ? storedToken.authentication : null;
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        jdbcTemplate.update(DELETE_REFRESH_TOKEN, extractTokenKey(token.getValue()));
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        String refreshTokenId = extractTokenKey(refreshToken.getValue());
+        accessTokenCache.invalidateAll(jdbcTemplate.queryForList(SELECT_ACCESS_TOKEN_IDS_BY_REFRESH_TOKEN,
+                String.class, refreshTokenId));
+        jdbcTemplate.update(DELETE_ACCESS_TOKENS_BY_REFRESH_TOKEN, refreshTokenId);
+    }
+
+    /**
+     * Puts the given access token on the revocation list, where it stays until its expiration. The resource-server
+     * nodes pull the list to reject signed tokens, which they otherwise validate without asking the auth-server, and to
+     * evict opaque tokens from their validation caches.
+     *
+     * @param token
+     *            the revoked access token
+     */
+    public void storeRevokedAccessToken(OAuth2AccessToken token) {
+        if (token.getExpiration() == null) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_REVOKED_ACCESS_TOKEN, extractTokenKey(token.getValue()),
+                    toTimestamp(token.getExpiration()));
+        } catch (DuplicateKeyException e) {
+            LOGGER.log(Level.FINE, "The access token is already on the revocation list", e);
+        }
+    }
+
+    /**
+     * @return the keys of the revoked access tokens that are not expired yet, mapped to their expiration in
+     *         milliseconds since the epoch
+     */
+    public Map<String, Long> findRevokedAccessTokens() {
+        final Map<String, Long> revokedTokens = new HashMap<>();
+        jdbcTemplate.query(SELECT_REVOKED_ACCESS_TOKENS, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                revokedTokens.put(rs.getString("token_id"), rs.getTimestamp("expiration").getTime());
+            }
+        }, new Timestamp(System.currentTimeMillis()));
+        return revokedTokens;
+    }
+
+    /**
+     * Deletes all expired access and refresh tokens. The rows are deleted in batches of the configured size, so a
+     * large backlog does not hold long locks on the token tables.
+     */
+    @Scheduled(fixedDelayString = "${org.osiam.auth-server.token-store.purge.interval-millis:600000}")
+    public void purgeExpiredTokens() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int accessTokens = purge(PURGE_ACCESS_TOKENS, now);
+        int refreshTokens = purge(PURGE_REFRESH_TOKENS, now);
+        int revokedTokens = purge(PURGE_REVOKED_ACCESS_TOKENS, now);
+        LOGGER.log(Level.FINE, "Purged {0} expired access tokens, {1} expired refresh tokens and {2} expired"
+                + " revocations", new Object[] { accessTokens, refreshTokens, revokedTokens });
+    }
+
+    private int purge(String statement, Timestamp now) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(statement, now, purgeBatchSize);
+            total += deleted;
+        } while (deleted >= purgeBatchSize);
+        return total;
+    }
+
+    private StoredToken<OAuth2AccessToken> readStoredAccessToken(String tokenId) {
+        StoredToken<OAuth2AccessToken> storedToken = accessTokenCache.getIfPresent(tokenId);
+        if (storedToken != null) {
+            return storedToken;
+        }
+
+        List<StoredToken<OAuth2AccessToken>> storedTokens = jdbcTemplate.query(SELECT_ACCESS_TOKEN,
+                new StoredTokenRowMapper<OAuth2AccessToken>(), tokenId);
+        if (storedTokens.isEmpty()) {
+            return null;
+        }
+
+        storedToken = storedTokens.get(0);
+        accessTokenCache.put(tokenId, storedToken);
+        return storedToken;
+    }
+
+    private StoredToken<OAuth2RefreshToken> readStoredRefreshToken(String tokenValue) {
+        List<StoredToken<OAuth2RefreshToken>> storedTokens = jdbcTemplate.query(SELECT_REFRESH_TOKEN,
+                new StoredTokenRowMapper<OAuth2RefreshToken>(), extractTokenKey(tokenValue));
+        return storedTokens.isEmpty() ? null : storedTokens.get(0);
+    }
+
+    private void removeAccessTokenById(String tokenId) {
+        accessTokenCache.invalidate(tokenId);
+        jdbcTemplate.update(DELETE_ACCESS_TOKEN, tokenId);
+    }
+
+    private List<OAuth2AccessToken> tokensOf(List<StoredToken<OAuth2AccessToken>> storedTokens) {
+        List<OAuth2AccessToken> tokens = new ArrayList<>(storedTokens.size());
+        for (StoredToken<OAuth2AccessToken> storedToken : storedTokens) {
+            tokens.add(storedToken.token);
+        }
+        return tokens;
+    }
+
+    private Timestamp toTimestamp(Date date) {
+        return date != null ? new Timestamp(date.getTime()) : null;
+    }
+
+    /**
+     * The tokens are stored under the MD5 hash of their value, so the database never has to index the raw token.
+     */
+    String extractTokenKey(String value) {
+        return AccessTokenKey.of(value);
+    }
+
+    private static final class StoredToken<T> {
+        private final T token;
+        private final OAuth2Authentication authentication;
+
+        private StoredToken(T token, OAuth2Authentication authentication) {
+            this.token = token;
+            this.authentication = authentication;
+        }
+    }
+
+    private static final class StoredTokenRowMapper<T> implements RowMapper<StoredToken<T>> {
+        @Override
+        public StoredToken<T> mapRow(ResultSet rs, int rowNum) throws SQLException {
+            T token = SerializationUtils.deserialize(rs.getBytes("token"));
+            StoredAuthentication authentication = SerializationUtils.deserialize(rs.getBytes("authentication"));
+            return new StoredToken<>(token, authentication.toOAuth2Authentication());
+        }
+    }
+
+    /**
+     * Serializable snapshot of an {@link OAuth2Authentication}. The SCIM {@link User} principal is not serializable,
+     * so only its user name and id are kept, which is all the auth-server puts into it.
+     */
+    private static final class StoredAuthentication implements Serializable {
+
+        private static final long serialVersionUID = -2516483364523837491L;
+
+        private String clientId;
+        private Set<String> scope;
+        private Set<String> resourceIds;
+        private Set<String> clientAuthorities;
+        private boolean approved;
+        private String redirectUri;
+        private Map<String, String> authorizationParameters;
+        private String userName;
+        private String userId;
+        private Set<String> userAuthorities;
+
+        private static StoredAuthentication of(OAuth2Authentication authentication) {
+            AuthorizationRequest request = authentication.getAuthorizationRequest();
+
+            StoredAuthentication stored = new StoredAuthentication();
+            stored.clientId = request.getClientId();
+            stored.scope = new HashSet<>(request.getScope());
+            stored.resourceIds = new HashSet<>(request.getResourceIds());
+            stored.clientAuthorities = authoritiesToStrings(request.getAuthorities());
+            stored.approved = request.isApproved();
+            stored.redirectUri = request.getRedirectUri();
+            stored.authorizationParameters = new HashMap<>(request.getAuthorizationParameters());
+
+            Authentication userAuthentication = authentication.getUserAuthentication();
+            if (userAuthentication != null) {
+                if (userAuthentication.getPrincipal() instanceof User) {
+                    User user = (User) userAuthentication.getPrincipal();
+                    stored.userName = user.getUserName();
+                    stored.userId = user.getId();
+                } else {
+                    stored.userName = userAuthentication.getName();
+                }
+                stored.userAuthorities = authoritiesToStrings(userAuthentication.getAuthorities());
+            }
+            return stored;
+        }
+
+        private OAuth2Authentication toOAuth2Authentication() {
+            DefaultAuthorizationRequest request = new DefaultAuthorizationRequest(authorizationParameters,
+                    new HashMap<String, String>(), clientId, scope);
+            request.setResourceIds(resourceIds);
+            request.setAuthorities(stringsToAuthorities(clientAuthorities));
+            request.setApproved(approved);
+            request.setRedirectUri(redirectUri);
+
+            Authentication userAuthentication = null;
+            if (userName != null) {
+                User user = new User.Builder(userName).setId(userId).build();
+                userAuthentication = new UsernamePasswordAuthenticationToken(user, null,
+                        stringsToAuthorities(userAuthorities));
+            }
+            return new OAuth2Authentication(request, userAuthentication);
+        }
+
+        private static Set<String> authoritiesToStrings(Collection<? extends GrantedAuthority> authorities) {
+            Set<String> result = new HashSet<>();
+            if (authorities != null) {
+                for (GrantedAuthority authority : authorities) {
+                    result.add(authority.getAuthority());
+                }
+            }
+            return result;
+        }
+
+        private static List<GrantedAuthority> stringsToAuthorities(Set<String> authorities) {
+            List<GrantedAuthority> result = new ArrayList<>();
+            for (String authority : authorities) {
+                result.add(new SimpleGrantedAuthority(authority));
+            }
+            return result;
+        }
+    }
+}
@@ -23,23 +23,29 @@
 
 package org.osiam.auth.token;
 
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
 import org.osiam.auth.oauth_client.OsiamAuthServerClientProvider;
 import org.osiam.client.oauth.AccessToken;
 import org.osiam.client.oauth.Scope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.provider.DefaultAuthorizationRequest;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
 import org.springframework.stereotype.Service;
 
 /**
- * TokenProvider which created an accesstoken for the auth server client
- * 
+ * Provides the access token of the auth server client. The token is shared by all threads and replaced by a new one
+ * shortly before it expires, so the calls to the resource server never carry a token that expires on the way. The
+ * refresh margin must therefore be longer than the connect, connection request and read timeouts of the HTTP client
+ * together, and shorter than the validity of the tokens of the auth server client.
  */
 @Service
 public class OsiamAccessTokenProvider {
@@ -47,22 +53,62 @@ public class OsiamAccessTokenProvider {
     @Inject
     private DefaultTokenServices tokenServices;
 
-    public AccessToken createAccessToken() {
+    @Value("${org.osiam.auth-server.service-token.refresh-margin-seconds:15}")
+    private long refreshMarginSeconds = 15;
+
+    private volatile OAuth2AccessToken accessToken;
+
+    public AccessToken getAccessToken() {
+        OAuth2AccessToken currentToken = accessToken;
+        if (needsRefresh(currentToken)) {
+            currentToken = refreshAccessToken();
+        }
+        return new AccessToken.Builder(currentToken.getValue()).build();
+    }
+
+    /**
+     * Drops the given token if it is the shared one, so the next call gets a new token. Called when the resource server
+     * rejects the token, e.g. because it was revoked or the resource server does not know it.
+     *
+     * @param token
+     *            the rejected access token
+     */
+    public synchronized void invalidateAccessToken(String token) {
+        if (accessToken != null && accessToken.getValue().equals(token)) {
+            accessToken = null;
+        }
+    }
+
+    private synchronized OAuth2AccessToken refreshAccessToken() {
+        if (needsRefresh(accessToken)) {
+            accessToken = tokenServices.createAccessToken(createAuthentication());
+        }
+        return accessToken;
+    }
+
+    private boolean needsRefresh(OAuth2AccessToken token) {
+        if (token == null) {
+            return true;
+        }
+        Date expiration = token.getExpiration();
+        return expiration != null
+                && expiration.getTime() - System.currentTimeMillis() <= TimeUnit.SECONDS.toMillis(refreshMarginSeconds);
+    }
+
+    private OAuth2Authentication createAuthentication() {
         Set<String> scopes = new HashSet<String>();
         scopes.add(Scope.GET.toString());
         scopes.add(Scope.POST.toString());
         scopes.add(Scope.PATCH.toString());
-        // Random scope, because the token services generates for every scope but same client
-        // a different access token. This is only made due to the token expired problem, when the auth server
-        // takes his actual access token, but the token is expired during the request to the resource server
+        // The token services hand out the existing token as long as it is valid for the same client and scopes.
+        // A marker scope per refresh lets the successor be issued while the current token is still in use by
+        // running requests; the current token then simply expires.
         scopes.add(new Scope(UUID.randomUUID().toString()).toString());
 
         DefaultAuthorizationRequest authorizationRequest = new DefaultAuthorizationRequest(
                 OsiamAuthServerClientProvider.AUTH_SERVER_CLIENT_ID, scopes);
         authorizationRequest.setApproved(true);
 
-        OAuth2Authentication oAuth2Authentication = new OAuth2Authentication(authorizationRequest, null);
-        
-        return new AccessToken.Builder(tokenServices.createAccessToken(oAuth2Authentication).getValue()).build();
+        return new OAuth2Authentication(authorizationRequest, null);
     }
 }
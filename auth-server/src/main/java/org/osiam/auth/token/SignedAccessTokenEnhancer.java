@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.auth.token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.osiam.auth.exception.OsiamException;
+import org.osiam.resources.scim.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenEnhancer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Joiner;
+
+/**
+ * Replaces the value of every issued access token with a self-contained, signed token, if enabled. The token carries
+ * the same fields the token validation endpoint returns (client id, user id, user name, scopes and expiration), so the
+ * resource-server can validate it with the shared secret alone, without asking the auth-server.
+ * <p>
+ * The format is {@code base64url(payload) + "." + base64url(HMAC-SHA256(base64url(payload)))}, where the payload is a
+ * JSON object with the fields {@code jti} (the random token value generated by Spring), {@code client_id},
+ * {@code user_name}, {@code user_id}, {@code scope} (space separated) and {@code expires_at} (milliseconds since the
+ * epoch).
+ */
+public class SignedAccessTokenEnhancer implements TokenEnhancer {
+
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Value("${org.osiam.auth-server.signed-tokens.enabled:false}")
+    private boolean enabled;
+
+    @Value("${org.osiam.auth-server.signed-tokens.secret:}")
+    private String secret;
+
+    private SecretKeySpec signingKey;
+
+    @PostConstruct
+    private void createSigningKey() {
+        if (!enabled) {
+            return;
+        }
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalStateException(
+                    "Signed access tokens are enabled, but org.osiam.auth-server.signed-tokens.secret is not set");
+        }
+        signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM);
+    }
+
+    /**
+     * @return true if the issued access tokens are signed
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+        if (!enabled) {
+            return accessToken;
+        }
+
+        DefaultOAuth2AccessToken signedToken = new DefaultOAuth2AccessToken(accessToken);
+        signedToken.setValue(sign(toPayload(accessToken, authentication)));
+        return signedToken;
+    }
+
+    private Map<String, Object> toPayload(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("jti", accessToken.getValue());
+        payload.put("client_id", authentication.getAuthorizationRequest().getClientId());
+
+        if (authentication.getUserAuthentication() != null && authentication.getPrincipal() instanceof User) {
+            User user = (User) authentication.getPrincipal();
+            payload.put("user_name", user.getUserName());
+            payload.put("user_id", user.getId());
+        }
+
+        payload.put("scope", Joiner.on(' ').join(accessToken.getScope()));
+        payload.put("expires_at", accessToken.getExpiration().getTime());
+        return payload;
+    }
+
+    private String sign(Map<String, Object> content) {
+        try {
+            String payload = Base64.encodeBase64URLSafeString(MAPPER.writeValueAsBytes(content));
+
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+
+            return payload + "." + Base64.encodeBase64URLSafeString(signature);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new OsiamException("Unable to sign the access token", e);
+        }
+    }
+}
@@ -23,9 +23,13 @@
 
 package org.osiam.security.controller;
 
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 
+import org.osiam.auth.login.ResourceServerConnector;
+import org.osiam.auth.oauth_client.OsiamTokenStore;
 import org.osiam.client.oauth.AccessToken;
 import org.osiam.client.oauth.Scope;
 import org.osiam.resources.scim.User;
@@ -54,6 +58,12 @@ public class TokenController {
     @Inject
     private DefaultTokenServices tokenServices;
 
+    @Inject
+    private ResourceServerConnector resourceServerConnector;
+
+    @Inject
+    private OsiamTokenStore tokenStore;
+
     @RequestMapping(value = "/validation", method = RequestMethod.POST)
     @ResponseBody
     public AccessToken tokenValidation(@RequestHeader("Authorization") final String authorization) {
@@ -83,7 +93,26 @@ public class TokenController {
     @ResponseBody
     public void tokenRevokation(@RequestHeader("Authorization") final String authorization) {
         String token = getToken(authorization);
-        tokenServices.revokeToken(token);
+        OAuth2AccessToken accessToken = tokenServices.readAccessToken(token);
+        // the resource-server nodes that miss the push evict the token from their cache by the revocation list
+        if (tokenServices.revokeToken(token)) {
+            tokenStore.storeRevokedAccessToken(accessToken);
+        }
+        resourceServerConnector.evictCachedAccessToken(token);
+    }
+
+    /**
+     * Lists the revoked access tokens that are not expired yet. The resource-server nodes pull the list at startup and
+     * periodically, because they validate signed tokens without asking the auth-server and keep validated opaque
+     * tokens in a cache. It contains only the hashes
+     * of the tokens, so it is readable without authentication.
+     *
+     * @return the keys of the revoked tokens mapped to their expiration in milliseconds since the epoch
+     */
+    @RequestMapping(value = "/revocations", method = RequestMethod.GET)
+    @ResponseBody
+    public Map<String, Long> revokedTokens() {
+        return tokenStore.findRevokedAccessTokens();
     }
 
     @ExceptionHandler
@@ -1,3 +1,6 @@
+drop table if exists osiam_revoked_access_token cascade;
+drop table if exists osiam_refresh_token cascade;
+drop table if exists osiam_access_token cascade;
 drop table if exists osiam_client_scopes cascade;
 drop table if exists osiam_client_grants cascade;
 drop table if exists osiam_client cascade;
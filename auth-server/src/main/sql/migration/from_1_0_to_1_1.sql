@@ -0,0 +1,60 @@
+-- Migrationscript from release auth version 1.0 to 1.1
+
+-- Token store shared by all auth-server nodes
+CREATE TABLE osiam_access_token (
+    token_id character varying(32) NOT NULL,
+    token bytea NOT NULL,
+    authentication_id character varying(32) NOT NULL,
+    user_name character varying(255),
+    client_id character varying(32) NOT NULL,
+    authentication bytea NOT NULL,
+    refresh_token character varying(32),
+    expiration timestamp without time zone
+);
+
+ALTER TABLE ONLY osiam_access_token
+    ADD CONSTRAINT osiam_access_token_pkey PRIMARY KEY (token_id);
+
+CREATE INDEX osiam_access_token_authentication_id_idx ON osiam_access_token (authentication_id);
+CREATE INDEX osiam_access_token_user_name_idx ON osiam_access_token (user_name);
+CREATE INDEX osiam_access_token_client_id_idx ON osiam_access_token (client_id);
+CREATE INDEX osiam_access_token_refresh_token_idx ON osiam_access_token (refresh_token);
+CREATE INDEX osiam_access_token_expiration_idx ON osiam_access_token (expiration);
+
+
+--
+-- Name: osiam_refresh_token; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE osiam_refresh_token (
+    token_id character varying(32) NOT NULL,
+    token bytea NOT NULL,
+    authentication bytea NOT NULL,
+    expiration timestamp without time zone
+);
+
+ALTER TABLE ONLY osiam_refresh_token
+    ADD CONSTRAINT osiam_refresh_token_pkey PRIMARY KEY (token_id);
+
+CREATE INDEX osiam_refresh_token_expiration_idx ON osiam_refresh_token (expiration);
+
+
+--
+-- Name: osiam_revoked_access_token; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE osiam_revoked_access_token (
+    token_id character varying(32) NOT NULL,
+    expiration timestamp without time zone NOT NULL
+);
+
+ALTER TABLE ONLY osiam_revoked_access_token
+    ADD CONSTRAINT osiam_revoked_access_token_pkey PRIMARY KEY (token_id);
+
+CREATE INDEX osiam_revoked_access_token_expiration_idx ON osiam_revoked_access_token (expiration);
+
+
+-- The shared access token of the auth-server is refreshed 15 seconds before it
+-- expires, which needs a longer validity than the former 10 seconds
+UPDATE osiam_client SET accesstokenvalidityseconds = 60, refreshtokenvalidityseconds = 60, validityinseconds = 60
+    WHERE id = 'auth-server';
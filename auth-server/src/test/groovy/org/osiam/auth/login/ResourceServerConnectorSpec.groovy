@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.auth.login
+
+import org.apache.http.HttpStatus
+import org.apache.http.client.HttpResponseException
+import org.osiam.auth.exception.OsiamException
+import org.osiam.auth.token.OsiamAccessTokenProvider
+import org.osiam.client.oauth.AccessToken
+import org.osiam.security.helper.OsiamHttpClient
+
+import spock.lang.Specification
+
+class ResourceServerConnectorSpec extends Specification {
+
+    OsiamAccessTokenProvider accessTokenProvider = Mock()
+    OsiamHttpClient httpClient = Mock()
+    ResourceServerConnector connector = new ResourceServerConnector(
+            resourceServerHome: 'http://localhost:8080/osiam-resource-server',
+            osiamAccessTokenProvider: accessTokenProvider, httpClient: httpClient)
+
+    def 'a request rejected with 401 is repeated once with a new service token'() {
+        when:
+        def user = connector.authenticateUser('marissa', 'koala')
+
+        then:
+        2 * accessTokenProvider.getAccessToken() >>> [token('rejected'), token('new')]
+        1 * httpClient.execute({ it.getFirstHeader('Authorization').value == 'Bearer rejected' }, _) >> {
+            throw new HttpResponseException(HttpStatus.SC_UNAUTHORIZED, 'Unauthorized')
+        }
+        1 * accessTokenProvider.invalidateAccessToken('rejected')
+        1 * httpClient.execute({ it.getFirstHeader('Authorization').value == 'Bearer new' }, _) >>
+                '{"id":"id","userName":"marissa"}'
+        user.userName == 'marissa'
+    }
+
+    def 'a request rejected with 401 twice fails'() {
+        given:
+        accessTokenProvider.getAccessToken() >> token('rejected')
+        httpClient.execute(_, _) >> { throw new HttpResponseException(HttpStatus.SC_UNAUTHORIZED, 'Unauthorized') }
+
+        when:
+        connector.authenticateUser('marissa', 'koala')
+
+        then:
+        thrown(OsiamException)
+    }
+
+    def 'other failures are not repeated'() {
+        given:
+        accessTokenProvider.getAccessToken() >> token('token')
+
+        when:
+        connector.authenticateUser('marissa', 'koala')
+
+        then:
+        1 * httpClient.execute(_, _) >> { throw new HttpResponseException(HttpStatus.SC_FORBIDDEN, 'Forbidden') }
+        0 * accessTokenProvider.invalidateAccessToken(_)
+        thrown(OsiamException)
+    }
+
+    private AccessToken token(String value) {
+        new AccessToken.Builder(value).build()
+    }
+}
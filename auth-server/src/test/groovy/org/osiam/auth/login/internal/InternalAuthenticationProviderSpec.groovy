@@ -23,6 +23,10 @@
 
 package org.osiam.auth.login.internal
 
+import org.osiam.auth.login.ResourceServerConnector
+import org.osiam.resources.scim.Role
+import org.osiam.resources.scim.User
+import org.springframework.security.authentication.BadCredentialsException
 import org.springframework.security.core.Authentication
 import org.springframework.security.core.GrantedAuthority
 
@@ -37,4 +41,35 @@ class InternalAuthenticationProviderSpec extends Specification {
         expect:
         provider.supports(InternalAuthentication)
     }
+
+    def 'the credentials are checked with a single call to the resource-server'() {
+        given:
+        def connector = Mock(ResourceServerConnector)
+        def provider = new InternalAuthenticationProvider(resourceServerConnector: connector)
+        def user = new User.Builder('marissa').setId('user-id')
+                .addRoles([new Role.Builder().setValue('USER').build()]).build()
+
+        when:
+        def authentication = provider.authenticate(new InternalAuthentication('marissa', 'koala', []))
+
+        then:
+        1 * connector.authenticateUser('marissa', 'koala') >> user
+        0 * connector._
+        authentication.principal.id == 'user-id'
+        authentication.principal.userName == 'marissa'
+        authentication.authorities*.authority == ['USER']
+    }
+
+    def 'bad credentials are rejected'() {
+        given:
+        def connector = Mock(ResourceServerConnector)
+        def provider = new InternalAuthenticationProvider(resourceServerConnector: connector)
+        connector.authenticateUser('marissa', 'wrong') >> null
+
+        when:
+        provider.authenticate(new InternalAuthentication('marissa', 'wrong', []))
+
+        then:
+        thrown(BadCredentialsException)
+    }
 }
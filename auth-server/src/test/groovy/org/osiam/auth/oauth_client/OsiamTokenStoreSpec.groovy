@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.auth.oauth_client
+
+import java.sql.ResultSet
+import java.sql.Timestamp
+
+import javax.sql.DataSource
+
+import org.osiam.resources.scim.User
+import org.springframework.dao.DuplicateKeyException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.core.authority.SimpleGrantedAuthority
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken
+import org.springframework.security.oauth2.provider.DefaultAuthorizationRequest
+import org.springframework.security.oauth2.provider.OAuth2Authentication
+
+import spock.lang.Specification
+
+class OsiamTokenStoreSpec extends Specification {
+
+    def jdbcTemplate = Mock(JdbcTemplate)
+    def tokenStore = new OsiamTokenStore(dataSource: Mock(DataSource), purgeBatchSize: 2, cacheEnabled: true)
+
+    def accessToken = new DefaultOAuth2AccessToken('access-token')
+    def authentication = new OAuth2Authentication(new DefaultAuthorizationRequest('example-client', ['GET'] as Set),
+            new UsernamePasswordAuthenticationToken(new User.Builder('marissa').setId('user-id').build(), null,
+            [new SimpleGrantedAuthority('ROLE_USER')]))
+
+    def setup() {
+        tokenStore.init()
+        tokenStore.jdbcTemplate = jdbcTemplate
+        accessToken.refreshToken = new DefaultOAuth2RefreshToken('refresh-token')
+    }
+
+    def 'a stored access token and its authentication can be read back'() {
+        given:
+        def row = [:]
+
+        when:
+        tokenStore.storeAccessToken(accessToken, authentication)
+        def token = tokenStore.readAccessToken('access-token')
+        def readAuthentication = tokenStore.readAuthentication('access-token')
+
+        then:
+        1 * jdbcTemplate.update({ it.startsWith('INSERT') }, _) >> { sql, args ->
+            row.token = args[1]
+            row.authentication = args[5]
+            assert args[0] == tokenStore.extractTokenKey('access-token')
+            assert args[3] == 'marissa'
+            assert args[4] == 'example-client'
+            assert args[6] == tokenStore.extractTokenKey('refresh-token')
+            1
+        }
+        1 * jdbcTemplate.query({ it.contains('WHERE token_id') }, _, tokenStore.extractTokenKey('access-token')) >>
+                { sql, mapper, args -> [mapper.mapRow(resultSet(row), 0)] }
+        token == accessToken
+        token.refreshToken.value == 'refresh-token'
+        readAuthentication.name == authentication.name
+        readAuthentication.userAuthentication.principal.id == 'user-id'
+        readAuthentication.authorizationRequest.clientId == 'example-client'
+        readAuthentication.authorizationRequest.scope == ['GET'] as Set
+        readAuthentication.authorities*.authority == ['ROLE_USER']
+    }
+
+    def 'an unknown access token is not cached'() {
+        when:
+        tokenStore.readAccessToken('access-token')
+        tokenStore.readAccessToken('access-token')
+
+        then:
+        2 * jdbcTemplate.query(_, _, _) >> []
+    }
+
+    def 'access tokens are read from the database every time by default'() {
+        given:
+        def defaultTokenStore = new OsiamTokenStore(dataSource: Mock(DataSource))
+        defaultTokenStore.init()
+        defaultTokenStore.jdbcTemplate = jdbcTemplate
+        def row = [token: serialize(accessToken), authentication: storedAuthentication()]
+
+        when:
+        defaultTokenStore.readAccessToken('access-token')
+        defaultTokenStore.readAccessToken('access-token')
+
+        then:
+        2 * jdbcTemplate.query(_, _, _) >> { sql, mapper, args -> [mapper.mapRow(resultSet(row), 0)] }
+    }
+
+    def 'removing an access token evicts it from the cache'() {
+        given:
+        def row = [token: serialize(accessToken), authentication: storedAuthentication()]
+        jdbcTemplate.query(_, _, _) >> { sql, mapper, args -> [mapper.mapRow(resultSet(row), 0)] }
+        tokenStore.readAccessToken('access-token')
+
+        when:
+        tokenStore.removeAccessToken(accessToken)
+
+        then:
+        1 * jdbcTemplate.update({ it.startsWith('DELETE') }, tokenStore.extractTokenKey('access-token'))
+        tokenStore.accessTokenCache.size() == 0
+    }
+
+    def 'removing the access tokens of a refresh token evicts them from the cache'() {
+        given:
+        def tokenId = tokenStore.extractTokenKey('access-token')
+        tokenStore.accessTokenCache.put(tokenId, Mock(Object))
+
+        when:
+        tokenStore.removeAccessTokenUsingRefreshToken(accessToken.refreshToken)
+
+        then:
+        1 * jdbcTemplate.queryForList(_, String, tokenStore.extractTokenKey('refresh-token')) >> [tokenId]
+        1 * jdbcTemplate.update({ it.contains('WHERE refresh_token') }, tokenStore.extractTokenKey('refresh-token'))
+        tokenStore.accessTokenCache.size() == 0
+    }
+
+    def 'expired tokens are purged in batches until a batch is not full'() {
+        when:
+        tokenStore.purgeExpiredTokens()
+
+        then:
+        3 * jdbcTemplate.update({ it.contains('osiam_access_token') }, _, 2) >>> [2, 2, 1]
+        1 * jdbcTemplate.update({ it.contains('osiam_refresh_token') }, _, 2) >> 0
+        1 * jdbcTemplate.update({ it.contains('osiam_revoked_access_token') }, _, 2) >> 0
+    }
+
+    def 'a revoked access token is put on the revocation list until it expires'() {
+        given:
+        def expiration = new Date(System.currentTimeMillis() + 60000)
+        accessToken.expiration = expiration
+
+        when:
+        tokenStore.storeRevokedAccessToken(accessToken)
+
+        then:
+        1 * jdbcTemplate.update({ it.startsWith('INSERT INTO osiam_revoked_access_token') },
+                tokenStore.extractTokenKey('access-token'), new Timestamp(expiration.time))
+    }
+
+    def 'revoking an access token twice keeps a single entry on the revocation list'() {
+        given:
+        accessToken.expiration = new Date(System.currentTimeMillis() + 60000)
+        jdbcTemplate.update(_, _, _) >> { throw new DuplicateKeyException('duplicate') }
+
+        when:
+        tokenStore.storeRevokedAccessToken(accessToken)
+
+        then:
+        noExceptionThrown()
+    }
+
+    private ResultSet resultSet(Map row) {
+        def resultSet = Mock(ResultSet)
+        resultSet.getBytes('token') >> row.token
+        resultSet.getBytes('authentication') >> row.authentication
+        resultSet
+    }
+
+    private byte[] storedAuthentication() {
+        serialize(OsiamTokenStore.StoredAuthentication.of(authentication))
+    }
+
+    private byte[] serialize(Object object) {
+        org.springframework.security.oauth2.common.util.SerializationUtils.serialize(object)
+    }
+}
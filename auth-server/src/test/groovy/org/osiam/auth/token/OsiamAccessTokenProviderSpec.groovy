@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.auth.token
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices
+
+import spock.lang.Specification
+
+class OsiamAccessTokenProviderSpec extends Specification {
+
+    def tokenServices = Mock(DefaultTokenServices)
+    def accessTokenProvider = new OsiamAccessTokenProvider(tokenServices: tokenServices, refreshMarginSeconds: 5)
+
+    def 'the service token is reused as long as it is not about to expire'() {
+        when:
+        def first = accessTokenProvider.getAccessToken()
+        def second = accessTokenProvider.getAccessToken()
+
+        then:
+        1 * tokenServices.createAccessToken(_) >> createToken('token', 60)
+        first.token == 'token'
+        second.token == 'token'
+    }
+
+    def 'the service token is replaced before it expires'() {
+        when:
+        def first = accessTokenProvider.getAccessToken()
+        def second = accessTokenProvider.getAccessToken()
+
+        then:
+        2 * tokenServices.createAccessToken(_) >>> [createToken('token', 3), createToken('new token', 60)]
+        first.token == 'token'
+        second.token == 'new token'
+    }
+
+    def 'a rejected service token is replaced by a new one'() {
+        when:
+        def first = accessTokenProvider.getAccessToken()
+        accessTokenProvider.invalidateAccessToken('token')
+        def second = accessTokenProvider.getAccessToken()
+
+        then:
+        2 * tokenServices.createAccessToken(_) >>> [createToken('token', 60), createToken('new token', 60)]
+        first.token == 'token'
+        second.token == 'new token'
+    }
+
+    def 'rejecting an outdated service token keeps the current one'() {
+        when:
+        accessTokenProvider.getAccessToken()
+        accessTokenProvider.invalidateAccessToken('old token')
+        def current = accessTokenProvider.getAccessToken()
+
+        then:
+        1 * tokenServices.createAccessToken(_) >> createToken('token', 60)
+        current.token == 'token'
+    }
+
+    def 'concurrent callers share one service token'() {
+        given:
+        def executor = Executors.newFixedThreadPool(8)
+        def calls = (1..32).collect { { -> accessTokenProvider.getAccessToken().token } as Callable }
+
+        when:
+        def tokens = executor.invokeAll(calls)*.get()
+
+        then:
+        1 * tokenServices.createAccessToken(_) >> createToken('token', 60)
+        tokens.every { it == 'token' }
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    private DefaultOAuth2AccessToken createToken(String value, int validitySeconds) {
+        def token = new DefaultOAuth2AccessToken(value)
+        token.expiration = new Date(System.currentTimeMillis() + validitySeconds * 1000)
+        token
+    }
+}
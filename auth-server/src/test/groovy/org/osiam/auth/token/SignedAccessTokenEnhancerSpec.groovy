@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.auth.token
+
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+
+import org.apache.commons.codec.binary.Base64
+import org.osiam.resources.scim.User
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken
+import org.springframework.security.oauth2.provider.DefaultAuthorizationRequest
+import org.springframework.security.oauth2.provider.OAuth2Authentication
+
+import spock.lang.Specification
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+class SignedAccessTokenEnhancerSpec extends Specification {
+
+    def accessToken = new DefaultOAuth2AccessToken('random-value')
+    def authentication = new OAuth2Authentication(new DefaultAuthorizationRequest('example-client', ['GET'] as Set),
+            new UsernamePasswordAuthenticationToken(new User.Builder('marissa').setId('user-id').build(), null, []))
+
+    def setup() {
+        accessToken.expiration = new Date(System.currentTimeMillis() + 60000)
+        accessToken.scope = ['GET'] as Set
+    }
+
+    def 'issues a token carrying the validation fields, signed with the shared secret'() {
+        given:
+        def enhancer = new SignedAccessTokenEnhancer(enabled: true, secret: 'secret')
+        enhancer.createSigningKey()
+
+        when:
+        def token = enhancer.enhance(accessToken, authentication)
+        def (payload, signature) = token.value.tokenize('.')
+        def content = new ObjectMapper().readValue(Base64.decodeBase64(payload), Map)
+
+        then:
+        signature == sign(payload, 'secret')
+        content.jti == 'random-value'
+        content.client_id == 'example-client'
+        content.user_name == 'marissa'
+        content.user_id == 'user-id'
+        content.scope == 'GET'
+        content.expires_at == accessToken.expiration.time
+        token.expiration == accessToken.expiration
+        token.scope == accessToken.scope
+    }
+
+    def 'leaves the token unchanged if signed tokens are disabled'() {
+        given:
+        def enhancer = new SignedAccessTokenEnhancer(enabled: false)
+        enhancer.createSigningKey()
+
+        expect:
+        enhancer.enhance(accessToken, authentication).is(accessToken)
+    }
+
+    def 'refuses to start without a secret if signed tokens are enabled'() {
+        when:
+        new SignedAccessTokenEnhancer(enabled: true, secret: '').createSigningKey()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    private String sign(String payload, String key) {
+        def mac = Mac.getInstance('HmacSHA256')
+        mac.init(new SecretKeySpec(key.getBytes('UTF-8'), 'HmacSHA256'))
+        Base64.encodeBase64URLSafeString(mac.doFinal(payload.getBytes('UTF-8')))
+    }
+}
@@ -25,6 +25,8 @@ package org.osiam.security.controller
 
 import java.lang.reflect.Method
 
+import org.osiam.auth.login.ResourceServerConnector
+import org.osiam.auth.oauth_client.OsiamTokenStore
 import org.osiam.client.oauth.AccessToken;
 import org.osiam.client.oauth.Scope;
 import org.osiam.resources.scim.User;
@@ -43,7 +45,10 @@ import spock.lang.Specification
 class TokenControllerSpec extends Specification {
 
     DefaultTokenServices defaultTokenServicesMock = Mock()
-    TokenController tokenController = new TokenController(tokenServices: defaultTokenServicesMock)
+    ResourceServerConnector resourceServerConnector = Mock()
+    OsiamTokenStore tokenStore = Mock()
+    TokenController tokenController = new TokenController(tokenServices: defaultTokenServicesMock,
+            resourceServerConnector: resourceServerConnector, tokenStore: tokenStore)
 
     def 'The TokenController should return an accesstoken with all attributes set'() {
         given:
@@ -80,4 +85,43 @@ class TokenControllerSpec extends Specification {
         then:
         1 * defaultTokenServicesMock.revokeToken('accessToken')
     }
-}
\ No newline at end of file
+
+    def 'A revoked token should be evicted from the token cache of the resource server'() {
+        when:
+        tokenController.tokenRevokation('prefix accessToken')
+
+        then:
+        1 * resourceServerConnector.evictCachedAccessToken('accessToken')
+    }
+
+    def 'A revoked token is put on the revocation list'() {
+        given:
+        OAuth2AccessToken accessToken = Mock()
+
+        when:
+        tokenController.tokenRevokation('prefix accessToken')
+
+        then:
+        1 * defaultTokenServicesMock.readAccessToken('accessToken') >> accessToken
+        1 * defaultTokenServicesMock.revokeToken('accessToken') >> true
+        1 * tokenStore.storeRevokedAccessToken(accessToken)
+    }
+
+    def 'An unknown token is not put on the revocation list'() {
+        when:
+        tokenController.tokenRevokation('prefix accessToken')
+
+        then:
+        1 * defaultTokenServicesMock.revokeToken('accessToken') >> false
+        0 * tokenStore.storeRevokedAccessToken(_)
+    }
+
+    def 'The revocation list is read from the token store'() {
+        when:
+        def revokedTokens = tokenController.revokedTokens()
+
+        then:
+        1 * tokenStore.findRevokedAccessTokens() >> [key: 42L]
+        revokedTokens == [key: 42L]
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+
+/**
+ * A set of gauges for the occupancy of the JDBC connection pool and the time spent waiting for a connection.
+ */
+public class ConnectionPoolGaugeSet implements MetricSet {
+
+    private final TimedDataSource dataSource;
+
+    public ConnectionPoolGaugeSet(TimedDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> gauges = new HashMap<>();
+
+        gauges.put("active", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return dataSource.getActive();
+            }
+        });
+        gauges.put("idle", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return dataSource.getIdle();
+            }
+        });
+        gauges.put("size", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return dataSource.getSize();
+            }
+        });
+        gauges.put("max", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return dataSource.getMaxActive();
+            }
+        });
+        gauges.put("waiting", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return dataSource.getWaitCount();
+            }
+        });
+        gauges.put("wait", dataSource.getWaitTimer());
+
+        return gauges;
+    }
+}
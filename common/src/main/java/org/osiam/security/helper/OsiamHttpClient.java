@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.helper;
+
+import java.io.IOException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Shared HTTP transport for the calls between the auth-server and the resource-server. Connections are pooled and kept
+ * alive between requests, so a call does not pay for a new TCP/TLS handshake. Pool occupancy and request latency are
+ * published in the {@link MetricRegistry}. Each server declares the bean with the limits and timeouts (in
+ * milliseconds) of its own configuration.
+ */
+public class OsiamHttpClient {
+
+    private int maxConnections = 50;
+
+    private int maxConnectionsPerRoute = 50;
+
+    private int connectTimeout = 2500;
+
+    private int readTimeout = 5000;
+
+    private int connectionRequestTimeout = 2500;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private Timer requests;
+
+    @PostConstruct
+    private void createHttpClient() {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+
+        metricRegistry.register(MetricRegistry.name(getClass(), "pool", "leased"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return connectionManager.getTotalStats().getLeased();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(getClass(), "pool", "available"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return connectionManager.getTotalStats().getAvailable();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(getClass(), "pool", "pending"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return connectionManager.getTotalStats().getPending();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(getClass(), "pool", "max"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return connectionManager.getTotalStats().getMax();
+            }
+        });
+        requests = metricRegistry.timer(MetricRegistry.name(getClass(), "requests"));
+    }
+
+    /**
+     * Executes the given request with a pooled connection and hands the response to the given handler. The
+     * connection is released to the pool once the handler returns.
+     *
+     * @param request
+     *            the request to execute
+     * @param responseHandler
+     *            converts the response, e.g. a {@link org.apache.http.impl.client.BasicResponseHandler}
+     * @return the value returned by the response handler
+     * @throws IOException
+     *             if the request fails or the response handler rejects the response
+     */
+    public <T> T execute(HttpUriRequest request, ResponseHandler<? extends T> responseHandler) throws IOException {
+        Timer.Context context = requests.time();
+        try {
+            return httpClient.execute(request, responseHandler);
+        } finally {
+            context.stop();
+        }
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    @PreDestroy
+    private void closeHttpClient() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osiam.resources.scim.Constants;
+import org.osiam.resources.scim.Email;
+import org.osiam.resources.scim.Meta;
+import org.osiam.resources.scim.Name;
+import org.osiam.resources.scim.SCIMSearchResult;
+import org.osiam.resources.scim.User;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Compares writing an attribute filtered page of users with the {@link AttributesRemovalHelper} to the former
+ * implementation, which serialized the users to a string, parsed and rebuilt the tree and deserialized it again before
+ * the response was written. Both variants write the response to a discarding stream like the message converter does.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=AttributesRemovalBenchmark</code>, the allocation
+ * rates are reported with <code>-prof gc</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AttributesRemovalBenchmark {
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({ "10", "100", "1000" })
+    private int pageSize;
+
+    @Param({ "userName", "userName,name,emails,meta" })
+    private String attributes;
+
+    private final ObjectMapper responseMapper = new ObjectMapper();
+    private final AttributesRemovalHelper attributesRemovalHelper = new AttributesRemovalHelper();
+    private SCIMSearchResult<User> searchResult;
+    private Map<String, Object> parameterMap;
+
+    @Setup
+    public void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            users.add(new User.Builder("user" + i)
+                    .setDisplayName("User " + i)
+                    .setName(new Name.Builder().setGivenName("Given " + i).setFamilyName("Family " + i).build())
+                    .addEmails(createEmails(i))
+                    .setMeta(new Meta.Builder(new Date(), new Date()).setResourceType("User").build())
+                    .setId("0000000-0000-0000-0000-00000000000" + i)
+                    .build());
+        }
+        searchResult = new SCIMSearchResult<>(users, 100000, pageSize, 1, Constants.USER_CORE_SCHEMA);
+
+        parameterMap = new HashMap<>();
+        parameterMap.put("attributes", attributes.split("[,|\\.]"));
+    }
+
+    private List<Email> createEmails(int i) {
+        List<Email> emails = new ArrayList<>();
+        emails.add(new Email.Builder().setValue("user" + i + "@example.com").setType(Email.Type.WORK).build());
+        emails.add(new Email.Builder().setValue("user" + i + "@example.org").setType(Email.Type.HOME).build());
+        return emails;
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        responseMapper.writeValue(DISCARD,
+                attributesRemovalHelper.removeSpecifiedUserAttributes(searchResult, parameterMap));
+    }
+
+    @Benchmark
+    public void roundTrip() throws IOException {
+        responseMapper.writeValue(DISCARD, roundTripAttributesRemoval(searchResult, parameterMap));
+    }
+
+    /**
+     * The former implementation of {@link AttributesRemovalHelper#removeSpecifiedUserAttributes}.
+     */
+    private static SCIMSearchResult<?> roundTripAttributesRemoval(SCIMSearchResult<User> scimSearchResult,
+            Map<String, Object> parameterMap) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+
+        String[] fieldsToReturn = ((String[]) parameterMap.get("attributes")).clone();
+        for (int i = 0; i < fieldsToReturn.length; i++) {
+            fieldsToReturn[i] = fieldsToReturn[i].trim();
+        }
+
+        mapper.addMixInAnnotations(Object.class, PropertyFilterMixIn.class);
+        Set<String> givenFields = new HashSet<>();
+        givenFields.add("schemas");
+        for (String field : fieldsToReturn) {
+            givenFields.add(field);
+        }
+        FilterProvider filters = new SimpleFilterProvider().addFilter("filter properties by name",
+                SimpleBeanPropertyFilter.filterOutAllExcept(givenFields));
+        ObjectWriter writer = mapper.writer(filters);
+
+        List<User> users = new ArrayList<>();
+        for (User user : scimSearchResult.getResources()) {
+            Set<String> schemas = new HashSet<>();
+            schemas.add(Constants.USER_CORE_SCHEMA);
+            users.add(new User.Builder(user).setSchemas(schemas).build());
+        }
+
+        JsonNode resourcesNode = mapper.readTree(writer.writeValueAsString(users));
+        JsonNode schemasNode = mapper.readTree(writer.writeValueAsString(scimSearchResult.getSchemas()));
+
+        ObjectNode rootNode = mapper.createObjectNode();
+        rootNode.put("totalResults", scimSearchResult.getTotalResults());
+        rootNode.put("itemsPerPage", scimSearchResult.getItemsPerPage());
+        rootNode.put("startIndex", scimSearchResult.getStartIndex());
+        rootNode.put("schemas", schemasNode);
+        rootNode.put("Resources", resourcesNode);
+
+        return mapper.readValue(rootNode.toString(), SCIMSearchResult.class);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.resources.provisioning;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osiam.resources.scim.ExtensionFieldType;
+import org.osiam.resources.scim.SCIMSearchResult;
+import org.osiam.resources.scim.User;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
+import org.osiam.storage.entities.ExtensionEntity;
+import org.osiam.storage.entities.ExtensionFieldEntity;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the latency of searching a single user by the value of one of its extension fields through the
+ * {@link SCIMUserProvisioning}, with an exact total like a client gets by default. Every user has a value in each of
+ * the 20 fields of the extension, 16 strings and 4 integers, and every value is unique, so each search matches
+ * exactly one user. The searched user is picked at random for every operation.
+ * <p>
+ * The users and their extension values are inserted with plain SQL, one statement per table and field, by default
+ * 1,000,000 users and 20,000,000 values. Runs against an H2 database in
+ * <code>target</code> by default, which is dropped before and written without transaction and undo log, the search
+ * only reads. Run with
+ * <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ExtensionFilterBenchmark</code>, a smaller population with
+ * <code>-Dbenchmark="ExtensionFilterBenchmark -p users=100000"</code>; to measure against an empty database with the
+ * OSIAM schema of <code>init_ddl.sql</code> in PostgreSQL, pass <code>-Dbenchmark.db.url</code>,
+ * <code>-Dbenchmark.db.username</code>, <code>-Dbenchmark.db.password</code> and <code>-Dbenchmark.db.dialect</code>
+ * to the forked JVM via <code>-jvmArgs</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ExtensionFilterBenchmark {
+
+    private static final String EXTENSION_URN = "urn:org.osiam:scim:extensions:benchmark";
+    private static final int STRING_FIELDS = 16;
+    private static final int INTEGER_FIELDS = 4;
+    private static final int FIELDS = STRING_FIELDS + INTEGER_FIELDS;
+
+    @Param({ "1000000" })
+    private int users;
+
+    private AnnotationConfigApplicationContext context;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private SingleConnectionDataSource dataSource;
+    private TransactionTemplate transactionTemplate;
+    private SCIMUserProvisioning scimUserProvisioning;
+    private RequestedAttributes userName;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("benchmark.db.url",
+                "jdbc:h2:./target/extension-filter-benchmark;MV_STORE=FALSE;LOG=0;UNDO_LOG=0");
+        boolean h2 = url.startsWith("jdbc:h2:");
+        dataSource = new SingleConnectionDataSource(url, System.getProperty("benchmark.db.username", "sa"),
+                System.getProperty("benchmark.db.password", ""), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (h2) {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+        }
+
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.id.new_generator_mappings", "true");
+        jpaProperties.put("hibernate.id.optimizer.pooled.prefer_lo", "true");
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setDatabasePlatform(System.getProperty("benchmark.db.dialect", "org.hibernate.dialect.H2Dialect"));
+        vendorAdapter.setGenerateDdl(h2);
+
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("org.osiam.storage.entities");
+        entityManagerFactoryBean.setJpaVendorAdapter(vendorAdapter);
+        entityManagerFactoryBean.setJpaPropertyMap(jpaProperties);
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+
+        if (h2) {
+            // H2 cannot index CLOBs nor expressions, in PostgreSQL init_ddl.sql indexes the prefix of the text column
+            jdbcTemplate.execute("ALTER TABLE scim_extension_field_value ALTER COLUMN value VARCHAR");
+            jdbcTemplate.execute("CREATE INDEX idx_extension_field_value"
+                    + " ON scim_extension_field_value (extension_field_internal_id, value)");
+        }
+        long[] fieldIds = createExtension(entityManagerFactory);
+        insertUsers(jdbcTemplate, h2, fieldIds);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("entityManagerFactory", entityManagerFactory);
+        context.register(UserPersistenceBenchmark.BenchmarkConfiguration.class);
+        context.refresh();
+
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        transactionTemplate.setReadOnly(true);
+        scimUserProvisioning = context.getBean(SCIMUserProvisioning.class);
+        userName = RequestedAttributes.fromParameter("userName");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        entityManagerFactoryBean.destroy();
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public SCIMSearchResult<User> stringEquals() {
+        int user = randomUser();
+        return searchOne(EXTENSION_URN + ".field3 eq \"" + stringValue(user, 3) + "\"");
+    }
+
+    @Benchmark
+    public SCIMSearchResult<User> stringStartsWith() {
+        int user = randomUser();
+        return searchOne(EXTENSION_URN + ".field7 sw \"" + stringValue(user, 7) + "\"");
+    }
+
+    @Benchmark
+    public SCIMSearchResult<User> integerEquals() {
+        int user = randomUser();
+        return searchOne(EXTENSION_URN + ".field17 eq \"" + integerValue(user, 17) + "\"");
+    }
+
+    @Benchmark
+    public SCIMSearchResult<User> twoFields() {
+        int user = randomUser();
+        return searchOne(EXTENSION_URN + ".field3 eq \"" + stringValue(user, 3) + "\" and " + EXTENSION_URN
+                + ".field17 eq \"" + integerValue(user, 17) + "\"");
+    }
+
+    private int randomUser() {
+        return random.nextInt(users) + 1;
+    }
+
+    private SCIMSearchResult<User> searchOne(final String filter) {
+        SCIMSearchResult<User> result = transactionTemplate.execute(new TransactionCallback<SCIMSearchResult<User>>() {
+            @Override
+            public SCIMSearchResult<User> doInTransaction(TransactionStatus status) {
+                return scimUserProvisioning.search(filter, null, "ascending", 100, 1, null, CountMode.EXACT,
+                        userName);
+            }
+        });
+        if (result.getTotalResults() != 1) {
+            throw new IllegalStateException(result.getTotalResults() + " users found by " + filter);
+        }
+        return result;
+    }
+
+    /**
+     * The string values are unique and share no prefix, <code>field7 sw "value-7-12-"</code> matches one user.
+     */
+    private static String stringValue(int user, int field) {
+        return "value-" + field + "-" + user + "-";
+    }
+
+    private static long integerValue(int user, int field) {
+        return (long) user * FIELDS + field;
+    }
+
+    private long[] createExtension(EntityManagerFactory entityManagerFactory) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        ExtensionEntity extension = new ExtensionEntity();
+        extension.setUrn(EXTENSION_URN);
+        entityManager.persist(extension);
+        ExtensionFieldEntity[] fields = new ExtensionFieldEntity[FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            fields[i] = new ExtensionFieldEntity();
+            fields[i].setName("field" + i);
+            fields[i].setType(i < STRING_FIELDS ? ExtensionFieldType.STRING : ExtensionFieldType.INTEGER);
+            fields[i].setExtension(extension);
+            extension.getFields().add(fields[i]);
+            entityManager.persist(fields[i]);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+
+        long[] fieldIds = new long[FIELDS];
+        for (int i = 0; i < FIELDS; i++) {
+            fieldIds[i] = fields[i].getInternalId();
+        }
+        return fieldIds;
+    }
+
+    /**
+     * Inserts the users with the ids 1 to {@link #users} and their extension values, the user with the id x has the
+     * values of {@link #stringValue(int, int)} and {@link #integerValue(int, int)}.
+     */
+    private void insertUsers(JdbcTemplate jdbcTemplate, boolean h2, long[] fieldIds) {
+        String rows = h2 ? "SYSTEM_RANGE(1, " + users + ") r" : "generate_series(1, " + users + ") r(x)";
+
+        jdbcTemplate.update("INSERT INTO scim_meta (id, created, lastmodified, resourcetype, version)"
+                + " SELECT r.x, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'User', 0 FROM " + rows);
+        jdbcTemplate.update("INSERT INTO scim_id (internal_id, id, meta_id)"
+                + " SELECT r.x, '00000000-0000-0000-0000-' || LPAD(CAST(r.x AS VARCHAR), 12, '0'), r.x FROM "
+                + rows);
+        jdbcTemplate.update("INSERT INTO scim_user (internal_id, username, password, active)"
+                + " SELECT r.x, 'user' || CAST(r.x AS VARCHAR), 'secret', TRUE FROM " + rows);
+
+        for (int i = 0; i < FIELDS; i++) {
+            String value = i < STRING_FIELDS
+                    ? "'value-" + i + "-' || CAST(r.x AS VARCHAR) || '-', NULL"
+                    : "NULL, r.x * " + FIELDS + " + " + i;
+            jdbcTemplate.update("INSERT INTO scim_extension_field_value"
+                    + " (internal_id, extension_field_internal_id, user_internal_id, value, numeric_value)"
+                    + " SELECT r.x * " + FIELDS + " + " + i + ", " + fieldIds[i] + ", r.x, " + value + " FROM "
+                    + rows);
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.provisioning;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osiam.metrics.SqlStatementCounter;
+import org.osiam.resources.scim.Address;
+import org.osiam.resources.scim.Email;
+import org.osiam.resources.scim.Entitlement;
+import org.osiam.resources.scim.Extension;
+import org.osiam.resources.scim.ExtensionFieldType;
+import org.osiam.resources.scim.Im;
+import org.osiam.resources.scim.Name;
+import org.osiam.resources.scim.PhoneNumber;
+import org.osiam.resources.scim.Photo;
+import org.osiam.resources.scim.Role;
+import org.osiam.resources.scim.User;
+import org.osiam.storage.entities.ExtensionEntity;
+import org.osiam.storage.entities.ExtensionFieldEntity;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.encoding.PasswordEncoder;
+import org.springframework.security.authentication.encoding.ShaPasswordEncoder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Measures the wall time and the number of SQL statements of creating, replacing (with changed and with unchanged
+ * attributes) and patching a user with 30 attributes (name, emails, phone numbers, addresses, ims, photos,
+ * entitlements, roles and extension values) through the {@link SCIMUserProvisioning}, each in its own transaction,
+ * with and without JDBC batching and ordered inserts/updates as configured in <code>jpa-configuration.xml</code>. The
+ * statements per operation are printed after every iteration; with batching enabled a batch counts as one statement.
+ * <p>
+ * Runs against an in-memory H2 database by default. Run with
+ * <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=UserPersistenceBenchmark</code>; to measure against a
+ * database with the OSIAM schema, e.g. PostgreSQL, pass <code>-Dbenchmark.db.url</code>,
+ * <code>-Dbenchmark.db.username</code>, <code>-Dbenchmark.db.password</code> and <code>-Dbenchmark.db.dialect</code>
+ * to the forked JVM via <code>-jvmArgs</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 15, time = 3)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class UserPersistenceBenchmark {
+
+    private static final String EXTENSION_URN = "urn:org.osiam:scim:extensions:benchmark";
+
+    @Param({ "true", "false" })
+    private boolean batching;
+
+    private AnnotationConfigApplicationContext context;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private SingleConnectionDataSource dataSource;
+    private TransactionTemplate transactionTemplate;
+    private SCIMUserProvisioning scimUserProvisioning;
+
+    private String replacedUserId;
+    private String replacedUnchangedUserId;
+    private String patchedUserId;
+    private int sequence;
+    private int operations;
+    private long statements;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("benchmark.db.url", "jdbc:h2:mem:benchmark");
+        dataSource = new SingleConnectionDataSource(url, System.getProperty("benchmark.db.username", "sa"),
+                System.getProperty("benchmark.db.password", ""), true);
+
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.ejb.interceptor", SqlStatementCounter.class.getName());
+        jpaProperties.put("hibernate.id.new_generator_mappings", "true");
+        jpaProperties.put("hibernate.id.optimizer.pooled.prefer_lo", "true");
+        if (batching) {
+            jpaProperties.put("hibernate.jdbc.batch_size", "50");
+            jpaProperties.put("hibernate.order_inserts", "true");
+            jpaProperties.put("hibernate.order_updates", "true");
+            jpaProperties.put("hibernate.jdbc.batch_versioned_data", "true");
+        }
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setDatabasePlatform(System.getProperty("benchmark.db.dialect", "org.hibernate.dialect.H2Dialect"));
+        vendorAdapter.setGenerateDdl(url.startsWith("jdbc:h2:"));
+
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("org.osiam.storage.entities");
+        entityManagerFactoryBean.setJpaVendorAdapter(vendorAdapter);
+        entityManagerFactoryBean.setJpaPropertyMap(jpaProperties);
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("entityManagerFactory", entityManagerFactory);
+        context.register(BenchmarkConfiguration.class);
+        context.refresh();
+
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        scimUserProvisioning = context.getBean(SCIMUserProvisioning.class);
+
+        createExtension(entityManagerFactory);
+        replacedUserId = create(createUser("replaced", 0)).getId();
+        replacedUnchangedUserId = create(createUser("replaced unchanged", 0)).getId();
+        patchedUserId = create(createUser("patched", 0)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        entityManagerFactoryBean.destroy();
+        dataSource.destroy();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatements() {
+        operations = 0;
+        statements = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        System.out.printf("%n%.1f statements per operation%n", (double) statements / operations);
+    }
+
+    @Benchmark
+    public User create() {
+        sequence++;
+        return create(createUser("user" + sequence, sequence));
+    }
+
+    @Benchmark
+    public User replace() {
+        sequence++;
+        final User user = createUser("replaced", sequence);
+        return inTransaction(new TransactionCallback<User>() {
+            @Override
+            public User doInTransaction(TransactionStatus status) {
+                return scimUserProvisioning.replace(replacedUserId, user);
+            }
+        });
+    }
+
+    @Benchmark
+    public User replaceUnchanged() {
+        final User user = createUser("replaced unchanged", 0);
+        return inTransaction(new TransactionCallback<User>() {
+            @Override
+            public User doInTransaction(TransactionStatus status) {
+                return scimUserProvisioning.replace(replacedUnchangedUserId, user);
+            }
+        });
+    }
+
+    @Benchmark
+    public User patch() {
+        sequence++;
+        final User user = new User.Builder()
+                .setDisplayName("Patched " + sequence)
+                .setTitle("Title " + sequence)
+                .setName(new Name.Builder().setGivenName("Given " + sequence).build())
+                .addExtension(new Extension.Builder(EXTENSION_URN).setField("costCenter", "CC-" + sequence).build())
+                .build();
+        return inTransaction(new TransactionCallback<User>() {
+            @Override
+            public User doInTransaction(TransactionStatus status) {
+                return scimUserProvisioning.update(patchedUserId, user);
+            }
+        });
+    }
+
+    private User create(final User user) {
+        return inTransaction(new TransactionCallback<User>() {
+            @Override
+            public User doInTransaction(TransactionStatus status) {
+                return scimUserProvisioning.create(user);
+            }
+        });
+    }
+
+    private User inTransaction(TransactionCallback<User> callback) {
+        SqlStatementCounter.reset();
+        User result = transactionTemplate.execute(callback);
+        statements += SqlStatementCounter.getCount();
+        operations++;
+        return result;
+    }
+
+    private void createExtension(final EntityManagerFactory entityManagerFactory) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        ExtensionEntity extension = new ExtensionEntity();
+        extension.setUrn(EXTENSION_URN);
+        entityManager.persist(extension);
+        for (String fieldName : new String[] { "costCenter", "employeeNumber" }) {
+            ExtensionFieldEntity field = new ExtensionFieldEntity();
+            field.setName(fieldName);
+            field.setType(ExtensionFieldType.STRING);
+            field.setExtension(extension);
+            extension.getFields().add(field);
+            entityManager.persist(field);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    /**
+     * Creates a user with 30 attributes, the values depend on the given number.
+     */
+    private static User createUser(String userName, int n) {
+        return new User.Builder(userName)
+                .setExternalId(userName + "-external")
+                .setPassword("secret" + n)
+                .setDisplayName("User " + n)
+                .setNickName("nick" + n)
+                .setProfileUrl("http://example.com/users/" + n)
+                .setTitle("Title " + n)
+                .setUserType("Employee")
+                .setPreferredLanguage("de")
+                .setLocale("de_DE")
+                .setTimezone("Europe/Berlin")
+                .setActive(true)
+                .setName(new Name.Builder()
+                        .setFormatted("Dr. Given " + n + " M. Family")
+                        .setFamilyName("Family")
+                        .setGivenName("Given " + n)
+                        .setMiddleName("M.")
+                        .setHonorificPrefix("Dr.")
+                        .setHonorificSuffix("PhD")
+                        .build())
+                .addEmail(new Email.Builder().setValue(n + "@work.example.com").setType(Email.Type.WORK)
+                        .setPrimary(true).build())
+                .addEmail(new Email.Builder().setValue(n + "@home.example.com").setType(Email.Type.HOME).build())
+                .addPhoneNumber(new PhoneNumber.Builder().setValue("+49 30 " + n).setType(PhoneNumber.Type.WORK)
+                        .build())
+                .addPhoneNumber(new PhoneNumber.Builder().setValue("+49 170 " + n)
+                        .setType(PhoneNumber.Type.MOBILE).build())
+                .addAddress(new Address.Builder().setStreetAddress("Street " + n).setLocality("Berlin")
+                        .setPostalCode("10115").setCountry("DE").setType(Address.Type.WORK).build())
+                .addAddress(new Address.Builder().setStreetAddress("Home " + n).setLocality("Bonn")
+                        .setPostalCode("53111").setCountry("DE").setType(Address.Type.HOME).build())
+                .addIm(new Im.Builder().setValue("xmpp:" + n + "@example.com").setType(Im.Type.XMPP).build())
+                .addPhoto(new Photo.Builder().setValue(URI.create("http://example.com/photos/" + n + ".jpg"))
+                        .setType(Photo.Type.PHOTO).build())
+                .addEntitlement(new Entitlement.Builder().setValue("entitlement" + n).build())
+                .addRole(new Role.Builder().setValue("role" + n).build())
+                .addExtension(new Extension.Builder(EXTENSION_URN)
+                        .setField("costCenter", "CC-" + n)
+                        .setField("employeeNumber", String.valueOf(n))
+                        .build())
+                .build();
+    }
+
+    @Configuration
+    @ComponentScan({ "org.osiam.storage", "org.osiam.resources.converter", "org.osiam.resources.provisioning",
+            "org.osiam.resources.helper" })
+    static class BenchmarkConfiguration {
+
+        @Bean
+        static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+            return new PropertySourcesPlaceholderConfigurer();
+        }
+
+        /**
+         * A single iteration, the 1000 iterations of the production encoder would dominate the measurements.
+         */
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new ShaPasswordEncoder(512);
+        }
+
+        @Bean
+        MetricRegistry metricRegistry() {
+            return new MetricRegistry();
+        }
+    }
+}
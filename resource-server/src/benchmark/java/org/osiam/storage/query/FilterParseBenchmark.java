@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.query;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osiam.storage.parser.LogicalOperatorRulesLexer;
+import org.osiam.storage.parser.LogicalOperatorRulesParser;
+import org.springframework.util.ReflectionUtils;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Compares parsing a filter with the {@link QueryFilterParser}, with and without its parse tree cache, to the former
+ * implementation, which built a new lexer and parser with full LL prediction for every filter. Every invocation uses
+ * another value, like the searches of different clients do.
+ * <p>
+ * The filters are a typical <code>userName eq</code>, a compound filter as sent by user interfaces and two
+ * pathological ones: 50 nested braces and a chain of 100 <code>or</code> terms.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=FilterParseBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterParseBenchmark {
+
+    private static final int VALUES = 64;
+
+    @Param({ "typical", "compound", "nested", "or-chain" })
+    private String filter;
+
+    private final String[] filters = new String[VALUES];
+    private QueryFilterParser cachingParser;
+    private QueryFilterParser nonCachingParser;
+    private int invocation;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < VALUES; i++) {
+            filters[i] = createFilter(filter, "value" + i);
+        }
+        cachingParser = createQueryFilterParser(true);
+        nonCachingParser = createQueryFilterParser(false);
+    }
+
+    @Benchmark
+    public ParseTree cached() {
+        return cachingParser.getParseTree(nextFilter());
+    }
+
+    @Benchmark
+    public ParseTree sllWithoutCache() {
+        return nonCachingParser.getParseTree(nextFilter());
+    }
+
+    /**
+     * The former implementation of {@link QueryFilterParser#getParseTree(String)}.
+     */
+    @Benchmark
+    public ParseTree former() {
+        LogicalOperatorRulesLexer lexer = new LogicalOperatorRulesLexer(new ANTLRInputStream(nextFilter()));
+        LogicalOperatorRulesParser parser = new LogicalOperatorRulesParser(new CommonTokenStream(lexer));
+        parser.addErrorListener(new OsiamAntlrErrorListener());
+        return parser.parse();
+    }
+
+    private String nextFilter() {
+        invocation = (invocation + 1) % VALUES;
+        return filters[invocation];
+    }
+
+    private static String createFilter(String kind, String value) {
+        switch (kind) {
+        case "typical":
+            return "userName eq \"" + value + "\"";
+        case "compound":
+            return "userName sw \"" + value + "\" and (emails.value co \"@example.com\" or not (active eq \"false\"))"
+                    + " and meta.lastModified gt \"2014-05-01T00:00:00\"";
+        case "nested":
+            StringBuilder nested = new StringBuilder();
+            for (int i = 0; i < 50; i++) {
+                nested.append('(');
+            }
+            nested.append("userName eq \"").append(value).append('"');
+            for (int i = 0; i < 50; i++) {
+                nested.append(')');
+            }
+            return nested.toString();
+        case "or-chain":
+            StringBuilder orChain = new StringBuilder("userName eq \"").append(value).append('"');
+            for (int i = 0; i < 99; i++) {
+                orChain.append(" or userName eq \"").append(value).append(i).append('"');
+            }
+            return orChain.toString();
+        default:
+            throw new IllegalArgumentException(kind);
+        }
+    }
+
+    private static QueryFilterParser createQueryFilterParser(boolean caching) {
+        QueryFilterParser queryFilterParser = new QueryFilterParser();
+        setField(queryFilterParser, "metricRegistry", new MetricRegistry());
+        if (!caching) {
+            setField(queryFilterParser, "cacheMaxFilterLength", 0);
+        }
+        Method createParseTreeCache = ReflectionUtils.findMethod(QueryFilterParser.class, "createParseTreeCache");
+        ReflectionUtils.makeAccessible(createParseTreeCache);
+        ReflectionUtils.invokeMethod(createParseTreeCache, queryFilterParser);
+        return queryFilterParser;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
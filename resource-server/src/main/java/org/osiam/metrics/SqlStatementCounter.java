@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.metrics;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Hibernate interceptor that counts the SQL statements prepared by the current thread.
+ */
+public class SqlStatementCounter extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Starts counting from zero for the current thread.
+     */
+    public static void reset() {
+        STATEMENTS.get()[0] = 0;
+    }
+
+    /**
+     * @return the number of statements the current thread prepared since the last {@link #reset()}
+     */
+    public static int getCount() {
+        return STATEMENTS.get()[0];
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+
+import org.osiam.resources.exceptions.RequestTooLargeException;
+import org.osiam.resources.exceptions.SchemaUnknownException;
+import org.osiam.resources.provisioning.BulkRequest;
+import org.osiam.resources.provisioning.BulkResponse;
+import org.osiam.resources.provisioning.SCIMBulkProvisioning;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+
+/**
+ * This Controller is used to process bulk requests on users and groups.
+ * <p/>
+ * http://tools.ietf.org/html/draft-ietf-scim-api-00#section-3.5
+ */
+@Controller
+@RequestMapping(value = "/Bulk")
+@Transactional
+public class BulkController {
+
+    @Inject
+    private SCIMBulkProvisioning scimBulkProvisioning;
+
+    @Value("${org.osiam.resource-server.bulk.max-operations:1000}")
+    private int maxOperations;
+
+    @Value("${org.osiam.resource-server.bulk.max-payload-size:1048576}")
+    private int maxPayloadSize;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @RequestMapping(method = RequestMethod.POST)
+    @ResponseBody
+    public BulkResponse bulk(HttpServletRequest request) throws IOException {
+        BulkRequest bulkRequest = mapper.readValue(getRequestBody(request), BulkRequest.class);
+        if (!bulkRequest.getSchemas().contains(BulkRequest.SCHEMA)) {
+            throw new SchemaUnknownException();
+        }
+        if (bulkRequest.getOperations().size() > maxOperations) {
+            throw new RequestTooLargeException(String.format("The bulk request contains more than %d operations",
+                    maxOperations));
+        }
+
+        String requestUrl = request.getRequestURL().toString();
+        String baseUri = requestUrl.substring(0, requestUrl.lastIndexOf("/Bulk"));
+        return scimBulkProvisioning.process(bulkRequest, getGrantedMethods(), baseUri);
+    }
+
+    private byte[] getRequestBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLength() > maxPayloadSize) {
+            throw new RequestTooLargeException(String.format("The bulk request is larger than %d bytes",
+                    maxPayloadSize));
+        }
+        byte[] body;
+        try (InputStream in = request.getInputStream()) {
+            body = ByteStreams.toByteArray(ByteStreams.limit(in, maxPayloadSize + 1L));
+        }
+        if (body.length > maxPayloadSize) {
+            throw new RequestTooLargeException(String.format("The bulk request is larger than %d bytes",
+                    maxPayloadSize));
+        }
+        return body;
+    }
+
+    /**
+     * The request itself is only authorized for POST, so every operation needs the scope of its own method.
+     */
+    private Set<String> getGrantedMethods() {
+        Set<String> methods = new HashSet<>();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof OAuth2Authentication) {
+            for (String scope : ((OAuth2Authentication) authentication).getAuthorizationRequest().getScope()) {
+                methods.add(scope.toUpperCase(Locale.ENGLISH));
+            }
+        }
+        return methods;
+    }
+}
@@ -32,11 +32,15 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.osiam.resources.helper.AttributesRemovalHelper;
+import org.osiam.resources.helper.ExportResponseWriter;
 import org.osiam.resources.helper.JsonInputValidator;
 import org.osiam.resources.helper.RequestParamHelper;
 import org.osiam.resources.provisioning.SCIMGroupProvisioning;
+import org.osiam.resources.scim.Constants;
 import org.osiam.resources.scim.Group;
 import org.osiam.resources.scim.SCIMSearchResult;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
@@ -45,6 +49,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriTemplate;
 
 /**
@@ -72,6 +77,7 @@ public class GroupController {
         Group group = jsonInputValidator.validateJsonGroup(request);
         Group createdGroup = scimGroupProvisioning.create(group);
         setLocationUriWithNewId(request, response, createdGroup.getId());
+        response.setHeader("ETag", createdGroup.getMeta().getVersion());
         return createdGroup;
     }
 
@@ -86,16 +92,25 @@ public class GroupController {
         response.setHeader("Location", requestUrl);
     }
 
+    /**
+     * Returns the group with the given id. Answers a matching <code>If-None-Match</code> header with 304 Not Modified
+     * without loading the group.
+     */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET) // NOSONAR - duplicate literals unnecessary
     @ResponseBody
-    public Group get(@PathVariable final String id) {
-        return scimGroupProvisioning.getById(id);
+    public Group get(@PathVariable final String id, WebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(scimGroupProvisioning.getETag(id))) {
+            return null;
+        }
+        Group group = scimGroupProvisioning.getById(id);
+        response.setHeader("ETag", group.getMeta().getVersion());
+        return group;
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.DELETE) // NOSONAR - duplicate literals unnecessary
     @ResponseStatus(HttpStatus.OK)
-    public void delete(@PathVariable final String id) {
-        scimGroupProvisioning.delete(id);
+    public void delete(@PathVariable final String id, HttpServletRequest request) {
+        scimGroupProvisioning.delete(id, request.getHeader("If-Match"));
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.PUT) // NOSONAR - duplicate literals unnecessary
@@ -103,8 +118,9 @@ public class GroupController {
     @ResponseBody
     public Group replace(@PathVariable final String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         Group group = jsonInputValidator.validateJsonGroup(request);
-        Group createdGroup = scimGroupProvisioning.replace(id, group);
+        Group createdGroup = scimGroupProvisioning.replace(id, group, request.getHeader("If-Match"));
         setLocation(request, response);
+        response.setHeader("ETag", createdGroup.getMeta().getVersion());
         return createdGroup;
     }
 
@@ -113,8 +129,9 @@ public class GroupController {
     @ResponseBody
     public Group update(@PathVariable final String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         Group group = jsonInputValidator.validateJsonGroup(request);
-        Group createdGroup = scimGroupProvisioning.update(id, group);
+        Group createdGroup = scimGroupProvisioning.update(id, group, request.getHeader("If-Match"));
         setLocation(request, response);
+        response.setHeader("ETag", createdGroup.getMeta().getVersion());
         return createdGroup;
     }
 
@@ -123,7 +140,8 @@ public class GroupController {
     public SCIMSearchResult<Group> searchWithGet(HttpServletRequest request) {
         Map<String,Object> parameterMap = requestParamHelper.getRequestParameterValues(request);
         SCIMSearchResult<Group> scimSearchResult = scimGroupProvisioning.search((String)parameterMap.get("filter"), (String)parameterMap.get("sortBy"), (String)parameterMap.get("sortOrder"),
-                (int)parameterMap.get("count"), (int)parameterMap.get("startIndex"));
+                (int)parameterMap.get("count"), (int)parameterMap.get("startIndex"), (String)parameterMap.get("cursor"),
+                (CountMode)parameterMap.get("countMode"), (RequestedAttributes)parameterMap.get("requestedAttributes"));
 
         return attributesRemovalHelper.removeSpecifiedAttributes(scimSearchResult, parameterMap);
     }
@@ -133,8 +151,21 @@ public class GroupController {
     public SCIMSearchResult<Group> searchWithPost(HttpServletRequest request) {
         Map<String,Object> parameterMap = requestParamHelper.getRequestParameterValues(request);
         SCIMSearchResult<Group> scimSearchResult = scimGroupProvisioning.search((String)parameterMap.get("filter"), (String)parameterMap.get("sortBy"), (String)parameterMap.get("sortOrder"),
-                (int)parameterMap.get("count"), (int)parameterMap.get("startIndex"));
+                (int)parameterMap.get("count"), (int)parameterMap.get("startIndex"), (String)parameterMap.get("cursor"),
+                (CountMode)parameterMap.get("countMode"), (RequestedAttributes)parameterMap.get("requestedAttributes"));
 
         return attributesRemovalHelper.removeSpecifiedAttributes(scimSearchResult, parameterMap);
     }
+
+    /**
+     * Streams all groups, as newline delimited JSON or, with <code>format=scim</code>, as a SCIM list response.
+     */
+    @RequestMapping(value = "/.export", method = RequestMethod.GET)
+    @Transactional(readOnly = true)
+    public void export(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportResponseWriter<Group> writer = new ExportResponseWriter<>(request.getParameter("format"),
+                Constants.GROUP_CORE_SCHEMA, response);
+        scimGroupProvisioning.export(writer);
+        writer.finish();
+    }
 }
@@ -26,7 +26,10 @@ package org.osiam.resources.controller;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.annotation.PostConstruct;
+
 import org.osiam.resources.scim.Constants;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -38,32 +41,45 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 @RequestMapping(value = "/ServiceProviderConfigs")
 @Transactional
 public class ServiceProviderConfigsController {
+
+    @Value("${org.osiam.resource-server.bulk.max-operations:1000}")
+    private int bulkMaxOperations;
+
+    @Value("${org.osiam.resource-server.bulk.max-payload-size:1048576}")
+    private int bulkMaxPayloadSize;
+
+    private ServiceProviderConfig serviceProviderConfig;
+
+    @PostConstruct
+    void createServiceProviderConfig() {
+        serviceProviderConfig = new ServiceProviderConfig(bulkMaxOperations, bulkMaxPayloadSize);
+    }
+
     @RequestMapping
     @ResponseBody
     public ServiceProviderConfig getConfig() {
-        return ServiceProviderConfig.INSTANCE;
+        return serviceProviderConfig;
     }
 
     @JsonSerialize(include = JsonSerialize.Inclusion.NON_EMPTY)
     public static final class ServiceProviderConfig {
 
-        public static final ServiceProviderConfig INSTANCE = new ServiceProviderConfig(); // NOSONAR - Needed public due to json serializing
-
         public Set<String> schemas = new HashSet<>(); // NOSONAR - Needed public due to json serializing
         public final Supported patch = new Supported(true); // NOSONAR - Needed public due to json serializing
-        public final Supported bulk = new BulkSupported(false); // NOSONAR - Needed public due to json serializing
+        public final Supported bulk; // NOSONAR - Needed public due to json serializing
         public final Supported filter = new FilterSupported(true, Constants.MAX_RESULT); // NOSONAR - Needed public due to json serializing
         public final Supported changePassword = new Supported(false); // NOSONAR - Needed public due to json serializing
         public final Supported sort = new Supported(true); // NOSONAR - Needed public due to json serializing
-        public final Supported etag = new Supported(false); // NOSONAR - Needed public due to json serializing
+        public final Supported etag = new Supported(true); // NOSONAR - Needed public due to json serializing
         public final Supported xmlDataFormat = new Supported(false); // NOSONAR - Needed public due to json serializing
         public final AuthenticationSchemes authenticationSchemes = new AuthenticationSchemes( // NOSONAR - Needed public due to json serializing
                 new AuthenticationSchemes.AuthenticationScheme("Oauth2 Bearer", // NOSONAR - Field is readable after serializing
                         "OAuth2 Bearer access token is used for authorization.", "http://tools.ietf.org/html/rfc6749",
                         "http://oauth.net/2/"));
 
-        private ServiceProviderConfig() {
+        private ServiceProviderConfig(int bulkMaxOperations, int bulkMaxPayloadSize) {
             schemas.add(Constants.SERVICE_PROVIDER_CORE_SCHEMA);
+            bulk = new BulkSupported(true, bulkMaxOperations, bulkMaxPayloadSize);
         }
 
         @JsonSerialize(include = JsonSerialize.Inclusion.NON_EMPTY)
@@ -99,10 +115,10 @@ public class ServiceProviderConfigsController {
             public final Integer maxOperations; // NOSONAR - Needed public due to json serializing
             public final Integer maxPayloadSize; // NOSONAR - Needed public due to json serializing
 
-            public BulkSupported(boolean b) {
+            public BulkSupported(boolean b, Integer maxOperations, Integer maxPayloadSize) {
                 super(b);
-                this.maxOperations = null; // NOSONAR - Field is readable after serializing
-                this.maxPayloadSize = null; // NOSONAR - Field is readable after serializing
+                this.maxOperations = maxOperations; // NOSONAR - Field is readable after serializing
+                this.maxPayloadSize = maxPayloadSize; // NOSONAR - Field is readable after serializing
             }
 
         }
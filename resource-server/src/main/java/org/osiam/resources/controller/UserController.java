@@ -32,12 +32,16 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.osiam.resources.helper.AttributesRemovalHelper;
+import org.osiam.resources.helper.ExportResponseWriter;
 import org.osiam.resources.helper.JsonInputValidator;
 import org.osiam.resources.helper.RequestParamHelper;
 import org.osiam.resources.provisioning.SCIMUserProvisioning;
+import org.osiam.resources.scim.Constants;
 import org.osiam.resources.scim.Meta;
 import org.osiam.resources.scim.SCIMSearchResult;
 import org.osiam.resources.scim.User;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
@@ -46,6 +50,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriTemplate;
 
 /**
@@ -74,10 +79,19 @@ public class  UserController {
 
     private AttributesRemovalHelper attributesRemovalHelper = new AttributesRemovalHelper();
 
+    /**
+     * Returns the user with the given id. Answers a matching <code>If-None-Match</code> header with 304 Not Modified
+     * without loading the user.
+     */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET) // NOSONAR - duplicate literals unnecessary
     @ResponseBody
-    public User getUser(@PathVariable final String id) {
-        return scimUserProvisioning.getById(id);
+    public User getUser(@PathVariable final String id, WebRequest request, HttpServletResponse response) {
+        if (request.checkNotModified(scimUserProvisioning.getETag(id))) {
+            return null;
+        }
+        User user = scimUserProvisioning.getById(id);
+        response.setHeader("ETag", user.getMeta().getVersion());
+        return user;
     }
 
     @RequestMapping(method = RequestMethod.POST)
@@ -90,6 +104,7 @@ public class  UserController {
         String requestUrl = request.getRequestURL().toString();
         URI uri = new UriTemplate("{requestUrl}{internalId}").expand(requestUrl + "/", createdUser.getId());
         response.setHeader("Location", uri.toASCIIString());
+        response.setHeader("ETag", createdUser.getMeta().getVersion());
         Meta newMeta = new Meta.Builder(createdUser.getMeta()).setLocation(uri.toASCIIString()).build();
 
         return new User.Builder(createdUser).setMeta(newMeta).build();
@@ -100,7 +115,7 @@ public class  UserController {
     @ResponseBody
     public User replace(@PathVariable final String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         User user = jsonInputValidator.validateJsonUser(request);
-        User createdUser = scimUserProvisioning.replace(id, user);
+        User createdUser = scimUserProvisioning.replace(id, user, request.getHeader("If-Match"));
         return setLocationUriAndCreateUserForOutput(request, response, createdUser);
     }
 
@@ -109,14 +124,14 @@ public class  UserController {
     @ResponseBody
     public User update(@PathVariable final String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         User user = jsonInputValidator.validateJsonUser(request);
-        User createdUser = scimUserProvisioning.update(id, user);
+        User createdUser = scimUserProvisioning.update(id, user, request.getHeader("If-Match"));
         return setLocationUriAndCreateUserForOutput(request, response, createdUser);
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.DELETE) // NOSONAR - duplicate literals unnecessary
     @ResponseStatus(HttpStatus.OK)
-    public void delete(@PathVariable final String id) {
-        scimUserProvisioning.delete(id);
+    public void delete(@PathVariable final String id, HttpServletRequest request) {
+        scimUserProvisioning.delete(id, request.getHeader("If-Match"));
     }
 
     @RequestMapping(method = RequestMethod.GET)
@@ -130,16 +145,30 @@ public class  UserController {
     public SCIMSearchResult<User> searchWithPost(HttpServletRequest request) {
         Map<String,Object> parameterMap = requestParamHelper.getRequestParameterValues(request);
         SCIMSearchResult<User> scimSearchResult = scimUserProvisioning.search((String) parameterMap.get("filter"), (String) parameterMap.get("sortBy"), (String) parameterMap.get("sortOrder"),
-                (int) parameterMap.get("count"), (int) parameterMap.get("startIndex"));
+                (int) parameterMap.get("count"), (int) parameterMap.get("startIndex"), (String) parameterMap.get("cursor"),
+                (CountMode) parameterMap.get("countMode"), (RequestedAttributes) parameterMap.get("requestedAttributes"));
         
 
         return attributesRemovalHelper.removeSpecifiedUserAttributes(scimSearchResult, parameterMap);
     }
 
+    /**
+     * Streams all users, as newline delimited JSON or, with <code>format=scim</code>, as a SCIM list response.
+     */
+    @RequestMapping(value = "/.export", method = RequestMethod.GET)
+    @Transactional(readOnly = true)
+    public void export(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportResponseWriter<User> writer = new ExportResponseWriter<>(request.getParameter("format"),
+                Constants.USER_CORE_SCHEMA, response);
+        scimUserProvisioning.export(writer);
+        writer.finish();
+    }
+
     private User setLocationUriAndCreateUserForOutput(HttpServletRequest request, HttpServletResponse response,
                                                       User createdUser) {
         String requestUrl = request.getRequestURL().toString();
         response.setHeader("Location", requestUrl);
+        response.setHeader("ETag", createdUser.getMeta().getVersion());
         Meta newMeta = new Meta.Builder(createdUser.getMeta()).setLocation(requestUrl).build();
         return new User.Builder(createdUser).setMeta(newMeta).build();
     }
@@ -34,11 +34,10 @@ import javax.inject.Inject;
 
 import org.osiam.resources.scim.Extension;
 import org.osiam.resources.scim.ExtensionFieldType;
-import org.osiam.storage.dao.ExtensionDao;
+import org.osiam.storage.dao.ExtensionRegistry;
 import org.osiam.storage.entities.ExtensionEntity;
 import org.osiam.storage.entities.ExtensionFieldEntity;
 import org.osiam.storage.entities.ExtensionFieldValueEntity;
-import org.osiam.storage.helper.NumberPadder;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.Strings;
@@ -47,10 +46,7 @@ import com.google.common.base.Strings;
 public class ExtensionConverter implements Converter<Set<Extension>, Set<ExtensionFieldValueEntity>> {
 
     @Inject
-    private ExtensionDao extensionDao;
-
-    @Inject
-    private NumberPadder numberPadder;
+    private ExtensionRegistry extensionRegistry;
 
     @Override
     public Set<ExtensionFieldValueEntity> fromScim(Set<Extension> extensions) {
@@ -58,7 +54,7 @@ public class ExtensionConverter implements Converter<Set<Extension>, Set<Extensi
 
         for (Extension extension : checkNotNull(extensions)) {
             String urn = extension.getUrn();
-            ExtensionEntity extensionEntity = extensionDao.getExtensionByUrn(urn);
+            ExtensionEntity extensionEntity = extensionRegistry.getExtension(urn);
 
             for (ExtensionFieldEntity field : extensionEntity.getFields()) {
                 if (extension.isFieldPresent(field.getName())) {
@@ -68,15 +64,7 @@ public class ExtensionConverter implements Converter<Set<Extension>, Set<Extensi
                     }
 
                     ExtensionFieldValueEntity value = new ExtensionFieldValueEntity();
-
-                    String typeCheckedStringValue = getTypeCheckedStringValue(field.getType(), field.getName(),
-                            extension);
-
-                    if (field.getType() == ExtensionFieldType.INTEGER || field.getType() == ExtensionFieldType.DECIMAL) {
-                        typeCheckedStringValue = numberPadder.pad(typeCheckedStringValue);
-                    }
-
-                    value.setValue(typeCheckedStringValue);
+                    setTypeCheckedValue(value, field.getType(), field.getName(), extension);
                     value.setExtensionField(field);
                     result.add(value);
                 }
@@ -86,9 +74,9 @@ public class ExtensionConverter implements Converter<Set<Extension>, Set<Extensi
         return result;
     }
 
-    private <T> String getTypeCheckedStringValue(ExtensionFieldType<T> type, String fieldName, Extension extension) {
-        T value = extension.getField(fieldName, type);
-        return type.toString(value);
+    private <T> void setTypeCheckedValue(ExtensionFieldValueEntity valueEntity, ExtensionFieldType<T> type,
+            String fieldName, Extension extension) {
+        valueEntity.setValue(type, extension.getField(fieldName, type));
     }
 
     @Override
@@ -111,14 +99,8 @@ public class ExtensionConverter implements Converter<Set<Extension>, Set<Extensi
                 // If this is ever true, something went very, very wrong.
                 throw new IllegalArgumentException("The ExtensionField type can't be null");
             }
-            String value = fieldValueEntity.getValue();
-
-            if (type == ExtensionFieldType.INTEGER || type == ExtensionFieldType.DECIMAL) {
-                value = numberPadder.unpad(value);
-            }
-
             String name = fieldValueEntity.getExtensionField().getName();
-            addField(extensionBuilder, type, name, value);
+            addField(extensionBuilder, type, name, fieldValueEntity);
         }
 
         HashSet<Extension> extensions = new HashSet<>();
@@ -129,7 +111,8 @@ public class ExtensionConverter implements Converter<Set<Extension>, Set<Extensi
         return extensions;
     }
 
-    private <T> void addField(Extension.Builder extensionBuilder, ExtensionFieldType<T> type, String fieldName, String stringValue) {
-        extensionBuilder.setField(fieldName, type.fromString(stringValue), type);
+    private <T> void addField(Extension.Builder extensionBuilder, ExtensionFieldType<T> type, String fieldName,
+            ExtensionFieldValueEntity fieldValueEntity) {
+        extensionBuilder.setField(fieldName, fieldValueEntity.getValue(type), type);
     }
 }
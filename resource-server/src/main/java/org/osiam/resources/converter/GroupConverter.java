@@ -30,6 +30,7 @@ import javax.inject.Inject;
 
 import org.osiam.resources.scim.Group;
 import org.osiam.resources.scim.MemberRef;
+import org.osiam.storage.dao.RequestedAttributes;
 import org.osiam.storage.dao.ResourceDao;
 import org.osiam.storage.entities.GroupEntity;
 import org.osiam.storage.entities.ResourceEntity;
@@ -54,32 +55,61 @@ public class GroupConverter implements Converter<Group, GroupEntity> {
         groupEntity.setDisplayName(group.getDisplayName());
         groupEntity.setExternalId(group.getExternalId());
 
-        for (MemberRef member : group.getMembers()) {
-            addMember(member, groupEntity);
+        for (ResourceEntity member : membersFromScim(group.getMembers())) {
+            groupEntity.addMember(member);
         }
 
         return groupEntity;
     }
 
-    private void addMember(MemberRef member, GroupEntity groupEntity) {
-        String uuid = member.getValue();
-
-        ResourceEntity resource = resourceDao.getById(uuid, ResourceEntity.class);
-
-        groupEntity.addMember(resource);
+    /**
+     * Loads the resources referenced by the given members.
+     *
+     * @param members
+     *        the members of a group
+     * @return the referenced resources
+     * @throws org.osiam.resources.exceptions.ResourceNotFoundException
+     *         if a referenced resource does not exist
+     */
+    public Set<ResourceEntity> membersFromScim(Set<MemberRef> members) {
+        Set<ResourceEntity> resources = new HashSet<>();
+        for (MemberRef member : members) {
+            resources.add(resourceDao.getById(member.getValue(), ResourceEntity.class));
+        }
+        return resources;
     }
 
     @Override
     public Group toScim(GroupEntity group) {
+        return toScim(group, RequestedAttributes.ALL);
+    }
+
+    /**
+     * Converts only the requested attributes of the given group, so the meta data and the members are only loaded if
+     * they were requested.
+     *
+     * @param group
+     *        the group to convert
+     * @param attributes
+     *        the requested attributes
+     * @return the converted group
+     */
+    public Group toScim(GroupEntity group, RequestedAttributes attributes) {
         if (group == null) {
             return null;
         }
 
         Group.Builder groupBuilder = new Group.Builder(group.getDisplayName())
                 .setId(group.getId().toString())
-                .setMeta(metaConverter.toScim(group.getMeta()))
                 .setExternalId(group.getExternalId());
 
+        if (attributes.contains("meta")) {
+            groupBuilder.setMeta(metaConverter.toScim(group.getMeta()));
+        }
+        if (!attributes.contains("members")) {
+            return groupBuilder.build();
+        }
+
         Set<MemberRef> members = new HashSet<>();
         for (ResourceEntity member : group.getMembers()) {
             MemberRef memberRef = new MemberRef.Builder()
@@ -38,11 +38,22 @@ public class MetaConverter implements Converter<Meta, MetaEntity>{
 
     @Override
     public Meta toScim(MetaEntity entity) {
+        if(entity == null){
+            return null;
+        }
+        return toScim(entity, entity.getETag());
+    }
+
+    /**
+     * Converts the meta data of a resource whose entity tag is not only derived from its meta data.
+     */
+    public Meta toScim(MetaEntity entity, String eTag) {
         if(entity == null){
             return null;
         }
         return new Meta.Builder(entity.getCreated(), entity.getLastModified())
                          .setResourceType(entity.getResourceType())
+                         .setVersion(eTag)
                          .build();
     }
 
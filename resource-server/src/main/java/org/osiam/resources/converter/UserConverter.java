@@ -33,6 +33,7 @@ import javax.inject.Inject;
 import org.osiam.resources.scim.Extension;
 import org.osiam.resources.scim.GroupRef;
 import org.osiam.resources.scim.User;
+import org.osiam.storage.dao.RequestedAttributes;
 import org.osiam.storage.entities.AddressEntity;
 import org.osiam.storage.entities.EmailEntity;
 import org.osiam.storage.entities.EntitlementEntity;
@@ -144,6 +145,20 @@ public class UserConverter implements Converter<User, UserEntity> {
 
     @Override
     public User toScim(UserEntity entity) {
+        return toScim(entity, RequestedAttributes.ALL);
+    }
+
+    /**
+     * Converts only the requested attributes of the given user, so associations that were not requested are neither
+     * loaded nor converted. The basic attributes are always set.
+     *
+     * @param entity
+     *        the user to convert
+     * @param attributes
+     *        the requested attributes
+     * @return the converted user
+     */
+    public User toScim(UserEntity entity, RequestedAttributes attributes) {
         if (entity == null) {
             return null;
         }
@@ -151,26 +166,51 @@ public class UserConverter implements Converter<User, UserEntity> {
                 .setActive(entity.getActive())
                 .setDisplayName(entity.getDisplayName())
                 .setLocale(entity.getLocale())
-                .setName(entity.getName() != null ? nameConverter.toScim(entity.getName()) : null)
                 .setNickName(entity.getNickName())
                 .setPassword(entity.getPassword())
                 .setPreferredLanguage(entity.getPreferredLanguage())
                 .setProfileUrl(entity.getProfileUrl())
                 .setTimezone(entity.getTimezone()).setTitle(entity.getTitle())
                 .setUserType(entity.getUserType())
-                .setExternalId(entity.getExternalId()).setId(entity.getId().toString())
-                .setMeta(metaConverter.toScim(entity.getMeta()))
-                .addAddresses(convertMultiValueToScim(addressConverter, entity.getAddresses()))
-                .addEmails(convertMultiValueToScim(emailConverter, entity.getEmails()))
-                .addEntitlements(convertMultiValueToScim(entitlementConverter, entity.getEntitlements()))
-                .setGroups(entityGroupsToScim(entity.getGroups()))
-                .addIms(convertMultiValueToScim(imConverter, entity.getIms()))
-                .addPhoneNumbers(convertMultiValueToScim(phoneNumberConverter, entity.getPhoneNumbers()))
-                .addPhotos(convertMultiValueToScim(photoConverter, entity.getPhotos()))
-                .addRoles(convertMultiValueToScim(roleConverter, entity.getRoles()))
-                .addX509Certificates(convertMultiValueToScim(x509CertificateConverter, entity.getX509Certificates()));
-
-        addExtensions(userBuilder, entity.getExtensionFieldValues());
+                .setExternalId(entity.getExternalId()).setId(entity.getId().toString());
+
+        if (attributes.contains("name")) {
+            userBuilder.setName(entity.getName() != null ? nameConverter.toScim(entity.getName()) : null);
+        }
+        if (attributes.contains("meta")) {
+            userBuilder.setMeta(metaConverter.toScim(entity.getMeta(), entity.getETag()));
+        }
+        if (attributes.contains("addresses")) {
+            userBuilder.addAddresses(convertMultiValueToScim(addressConverter, entity.getAddresses()));
+        }
+        if (attributes.contains("emails")) {
+            userBuilder.addEmails(convertMultiValueToScim(emailConverter, entity.getEmails()));
+        }
+        if (attributes.contains("entitlements")) {
+            userBuilder.addEntitlements(convertMultiValueToScim(entitlementConverter, entity.getEntitlements()));
+        }
+        if (attributes.contains("groups")) {
+            userBuilder.setGroups(entityGroupsToScim(entity.getGroups()));
+        }
+        if (attributes.contains("ims")) {
+            userBuilder.addIms(convertMultiValueToScim(imConverter, entity.getIms()));
+        }
+        if (attributes.contains("phoneNumbers")) {
+            userBuilder.addPhoneNumbers(convertMultiValueToScim(phoneNumberConverter, entity.getPhoneNumbers()));
+        }
+        if (attributes.contains("photos")) {
+            userBuilder.addPhotos(convertMultiValueToScim(photoConverter, entity.getPhotos()));
+        }
+        if (attributes.contains("roles")) {
+            userBuilder.addRoles(convertMultiValueToScim(roleConverter, entity.getRoles()));
+        }
+        if (attributes.contains("x509Certificates")) {
+            userBuilder.addX509Certificates(convertMultiValueToScim(x509CertificateConverter,
+                    entity.getX509Certificates()));
+        }
+        if (attributes.containsExtension()) {
+            addExtensions(userBuilder, entity.getExtensionFieldValues());
+        }
 
         return userBuilder.build();
 
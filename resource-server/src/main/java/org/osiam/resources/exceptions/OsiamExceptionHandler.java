@@ -26,6 +26,9 @@ package org.osiam.resources.exceptions;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.persistence.OptimisticLockException;
+
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -51,7 +54,7 @@ public class OsiamExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(value = {Exception.class})
     protected ResponseEntity<Object> handleConflict(Exception ex, WebRequest request) {
         LOGGER.log(Level.WARNING, "An exception occurred", ex);
-        HttpStatus status = setStatus(ex);
+        HttpStatus status = getStatus(ex);
         JsonErrorResult error = new JsonErrorResult(status.name(), constructMessage(ex.getMessage()));
         return handleExceptionInternal(ex, error, new HttpHeaders(), status, request);
     }
@@ -71,7 +74,13 @@ public class OsiamExceptionHandler extends ResponseEntityExceptionHandler {
         return result;
     }
 
-    private HttpStatus setStatus(Exception ex) {
+    /**
+     * Maps an exception to the HTTP status that is returned for it.
+     *
+     * @param ex the exception
+     * @return the HTTP status
+     */
+    public static HttpStatus getStatus(Exception ex) {
         if (ex instanceof ResourceNotFoundException) {
             return HttpStatus.NOT_FOUND;
         }
@@ -81,6 +90,16 @@ public class OsiamExceptionHandler extends ResponseEntityExceptionHandler {
         if (ex instanceof UnsupportedOperationException) {
             return HttpStatus.NOT_IMPLEMENTED;
         }
+        if (ex instanceof RequestTooLargeException) {
+            return HttpStatus.REQUEST_ENTITY_TOO_LARGE;
+        }
+        if (ex instanceof PreconditionFailedException) {
+            return HttpStatus.PRECONDITION_FAILED;
+        }
+        if (ex instanceof OptimisticLockException || ex instanceof OptimisticLockingFailureException) {
+            // a concurrent modification without a precondition of the client, retrying may succeed
+            return HttpStatus.CONFLICT;
+        }
 
         return HttpStatus.CONFLICT;
     }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.helper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.osiam.resources.provisioning.OsiamSearchResult;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.google.common.base.Function;
+
+/**
+ * A search result that applies the attribute filter while it is serialized. The resources are written one by one to
+ * the generator of the response with a filtering {@link ObjectWriter}, so no intermediate copy of the page is built.
+ */
+final class AttributeFilteredSearchResult<T> extends OsiamSearchResult<T> implements JsonSerializable {
+
+    private final ObjectWriter resourceWriter;
+    private final Function<T, T> resourceTransformation;
+
+    AttributeFilteredSearchResult(List<T> resources, long totalResults, long itemsPerPage, long startIndex,
+            Set<String> schemas, String nextCursor, String countMode, ObjectWriter resourceWriter,
+            Function<T, T> resourceTransformation) {
+        super(resources, totalResults, itemsPerPage, startIndex, schemas, nextCursor, countMode);
+        this.resourceWriter = resourceWriter;
+        this.resourceTransformation = resourceTransformation;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("totalResults", getTotalResults());
+        generator.writeNumberField("itemsPerPage", getItemsPerPage());
+        generator.writeNumberField("startIndex", getStartIndex());
+        if (getNextCursor() != null) {
+            generator.writeStringField("nextCursor", getNextCursor());
+        }
+        if (getCountMode() != null) {
+            generator.writeStringField("countMode", getCountMode());
+        }
+
+        Set<String> schemas = getSchemas();
+        if (schemas != null && !schemas.isEmpty()) {
+            generator.writeArrayFieldStart("schemas");
+            for (String schema : schemas) {
+                generator.writeString(schema);
+            }
+            generator.writeEndArray();
+        }
+
+        List<T> resources = getResources();
+        if (resources != null && !resources.isEmpty()) {
+            generator.writeArrayFieldStart("Resources");
+            for (T resource : resources) {
+                resourceWriter.writeValue(generator, resourceTransformation.apply(resource));
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, provider);
+    }
+}
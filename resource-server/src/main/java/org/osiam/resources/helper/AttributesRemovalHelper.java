@@ -23,146 +23,110 @@
 
 package org.osiam.resources.helper;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.osiam.resources.provisioning.OsiamSearchResult;
 import org.osiam.resources.scim.Constants;
 import org.osiam.resources.scim.Resource;
 import org.osiam.resources.scim.SCIMSearchResult;
 import org.osiam.resources.scim.User;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.ser.FilterProvider;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 
+/**
+ * Restricts the resources of a search result to the attributes given by the client. The filter is applied while the
+ * result is written to the response, see {@link AttributeFilteredSearchResult}.
+ */
 public class AttributesRemovalHelper {
 
+    /**
+     * Shared by all requests, so the serializers of the resources are only built once. Only the filter differs
+     * between requests and is set on the {@link ObjectWriter}.
+     */
+    private static final ObjectMapper FILTERING_MAPPER = new ObjectMapper();
+
+    static {
+        FILTERING_MAPPER.addMixInAnnotations(Object.class, PropertyFilterMixIn.class);
+    }
+
     public <T extends Resource> SCIMSearchResult<T> removeSpecifiedAttributes(SCIMSearchResult<T> resultList,
             Map<String, Object> parameterMap) {
-        return getJsonResponseWithAdditionalFields(resultList, parameterMap);
+        return filterAttributes(resultList, parameterMap, Functions.<T> identity());
     }
 
     public SCIMSearchResult<User> removeSpecifiedUserAttributes(SCIMSearchResult<User> resultList,
             Map<String, Object> parameterMap) {
-        return getUserJsonResponseWithAdditionalFields(resultList, parameterMap);
+        String[] fieldsToReturn = (String[]) parameterMap.get("attributes");
+        return filterAttributes(resultList, parameterMap, new UserSchemasFilter(fieldsToReturn));
     }
 
-    private SCIMSearchResult<User> getUserJsonResponseWithAdditionalFields(
-            SCIMSearchResult<User> scimSearchResult, Map<String, Object> parameterMap) {
-
-        ObjectMapper mapper = new ObjectMapper();
+    private <T> SCIMSearchResult<T> filterAttributes(SCIMSearchResult<T> scimSearchResult,
+            Map<String, Object> parameterMap, Function<T, T> resourceTransformation) {
 
         String[] fieldsToReturn = (String[]) parameterMap.get("attributes");
         if (fieldsToReturn.length == 0) {
             return scimSearchResult;
         }
 
-        for (int i = 0; i < fieldsToReturn.length; i++) {
-            fieldsToReturn[i] = fieldsToReturn[i].trim();
+        String nextCursor = null;
+        String countMode = null;
+        if (scimSearchResult instanceof OsiamSearchResult) {
+            nextCursor = ((OsiamSearchResult<T>) scimSearchResult).getNextCursor();
+            countMode = ((OsiamSearchResult<T>) scimSearchResult).getCountMode();
         }
 
-        ObjectWriter writer = getObjectWriter(mapper, fieldsToReturn);
-
-        try {
-            List<User> users = scimSearchResult.getResources();
-            users = filterUserSchemas(users, fieldsToReturn);
-            String resourcesString = writer.writeValueAsString(users);
-            JsonNode resourcesNode = mapper.readTree(resourcesString);
-
-            String schemasString = writer.writeValueAsString(scimSearchResult.getSchemas());
-            JsonNode schemasNode = mapper.readTree(schemasString);
-
-            ObjectNode rootNode = mapper.createObjectNode();
-            rootNode.put("totalResults", scimSearchResult.getTotalResults());
-            rootNode.put("itemsPerPage", scimSearchResult.getItemsPerPage());
-            rootNode.put("startIndex", scimSearchResult.getStartIndex());
-            rootNode.put("schemas", schemasNode);
-            rootNode.put("Resources", resourcesNode);
-
-            return mapper.readValue(rootNode.toString(), SCIMSearchResult.class);
-        } catch (IOException e) {
-            throw new IllegalArgumentException(e);
-        }
+        return new AttributeFilteredSearchResult<>(scimSearchResult.getResources(),
+                scimSearchResult.getTotalResults(), scimSearchResult.getItemsPerPage(),
+                scimSearchResult.getStartIndex(), scimSearchResult.getSchemas(), nextCursor, countMode,
+                getObjectWriter(fieldsToReturn), resourceTransformation);
     }
 
-    private <T extends Resource> SCIMSearchResult<T> getJsonResponseWithAdditionalFields(
-            SCIMSearchResult<T> scimSearchResult, Map<String, Object> parameterMap) {
-
-        ObjectMapper mapper = new ObjectMapper();
-
-        String[] fieldsToReturn = (String[]) parameterMap.get("attributes");
-        ObjectWriter writer = getObjectWriter(mapper, fieldsToReturn);
+    private ObjectWriter getObjectWriter(String[] fieldsToReturn) {
+        Set<String> givenFields = new HashSet<>();
+        givenFields.add("schemas");
+        for (String field : fieldsToReturn) {
+            givenFields.add(field.trim());
+        }
 
-        try {
-            String resourcesString = writer.writeValueAsString(scimSearchResult.getResources());
-            JsonNode resourcesNode = mapper.readTree(resourcesString);
+        FilterProvider filters = new SimpleFilterProvider()
+                .addFilter("filter properties by name", SimpleBeanPropertyFilter.filterOutAllExcept(givenFields));
+        return FILTERING_MAPPER.writer(filters).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
 
-            String schemasString = writer.writeValueAsString(scimSearchResult.getSchemas());
-            JsonNode schemasNode = mapper.readTree(schemasString);
+    /**
+     * Removes the schemas of all extensions that were not requested from a user.
+     */
+    private static final class UserSchemasFilter implements Function<User, User> {
 
-            ObjectNode rootNode = mapper.createObjectNode();
-            rootNode.put("totalResults", scimSearchResult.getTotalResults());
-            rootNode.put("itemsPerPage", scimSearchResult.getItemsPerPage());
-            rootNode.put("startIndex", scimSearchResult.getStartIndex());
-            rootNode.put("schemas", schemasNode);
-            rootNode.put("Resources", resourcesNode);
+        private final Set<String> returnFields = new HashSet<>();
 
-            return mapper.readValue(rootNode.toString(), SCIMSearchResult.class);
-        } catch (IOException e) {
-            throw new IllegalArgumentException(e);
+        UserSchemasFilter(String[] fieldsToReturn) {
+            for (String field : fieldsToReturn) {
+                returnFields.add(field.trim());
+            }
         }
-    }
-
-    private List<User> filterUserSchemas(List<User> resourceList, String[] fieldsToReturn) {
 
-        if (resourceList.size() == 0) {
-            return resourceList;
-        }
-        List<User> modifiedResourceList = new ArrayList<User>();
-        Set<String> newSchema = new HashSet<String>();
-        List<String> returnFields = Arrays.asList(fieldsToReturn);
-        for (User resource : resourceList) {
-            User user = resource;
+        @Override
+        public User apply(User user) {
+            Set<String> schemas = new HashSet<>();
             for (String schema : user.getSchemas()) {
-                if (schema.equals(Constants.USER_CORE_SCHEMA)
-                        || returnFields.contains(schema)) {
-                    newSchema.add(schema);
+                if (schema.equals(Constants.USER_CORE_SCHEMA) || returnFields.contains(schema)) {
+                    schemas.add(schema);
                 }
             }
-            User modifiedUser = new User.Builder(user).setSchemas(newSchema).build();
-            modifiedResourceList.add(modifiedUser);
-        }
-        return modifiedResourceList;
-    }
-
-    private ObjectWriter getObjectWriter(ObjectMapper mapper, String[] fieldsToReturn) {
-
-        if (fieldsToReturn.length != 0) {
-            mapper.addMixInAnnotations(
-                    Object.class, PropertyFilterMixIn.class);
-
-            HashSet<String> givenFields = new HashSet<String>();
-            givenFields.add("schemas");
-            for (String field : fieldsToReturn) {
-                givenFields.add(field);
+            if (schemas.size() == user.getSchemas().size()) {
+                return user;
             }
-            String[] finalFieldsToReturn = givenFields.toArray(new String[givenFields.size()]);
-
-            FilterProvider filters = new SimpleFilterProvider()
-                    .addFilter("filter properties by name",
-                            SimpleBeanPropertyFilter.filterOutAllExcept(
-                                    finalFieldsToReturn));
-            return mapper.writer(filters);
+            return new User.Builder(user).setSchemas(schemas).build();
         }
-        return mapper.writer();
     }
-}
\ No newline at end of file
+}
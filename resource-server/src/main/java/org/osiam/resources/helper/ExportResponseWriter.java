@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.helper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.osiam.resources.provisioning.ExportWriter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes the chunks of an export to the response as soon as they are converted. Each chunk is flushed, so the
+ * response is sent with chunked transfer encoding and never buffered as a whole.
+ * <p/>
+ * The format <code>ndjson</code> writes one resource per line. The format <code>scim</code> writes a SCIM list
+ * response whose totalResults follow the resources, because they are only known at the end.
+ */
+public class ExportResponseWriter<T> implements ExportWriter<T> {
+
+    public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private static final ObjectWriter RESOURCE_WRITER = new ObjectMapper().writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final JsonGenerator generator;
+    private final boolean ndjson;
+    private long totalResults;
+
+    /**
+     * Starts the export response.
+     *
+     * @param format
+     *        ndjson or scim, ndjson if null
+     * @param schema
+     *        the schema of the SCIM list response
+     * @param response
+     *        the response to write to
+     * @throws IllegalArgumentException
+     *         if the format is unknown
+     * @throws IOException
+     *         if the response could not be written
+     */
+    public ExportResponseWriter(String format, String schema, HttpServletResponse response) throws IOException {
+        String exportFormat = format == null ? "ndjson" : format.toLowerCase(Locale.ENGLISH);
+        if (!exportFormat.equals("ndjson") && !exportFormat.equals("scim")) {
+            throw new IllegalArgumentException(String.format("Unknown export format '%s', use ndjson or scim", format));
+        }
+        ndjson = exportFormat.equals("ndjson");
+
+        response.setContentType(ndjson ? NDJSON_CONTENT_TYPE : "application/json");
+        response.setCharacterEncoding("UTF-8");
+        generator = RESOURCE_WRITER.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+
+        if (ndjson) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("schemas");
+            generator.writeString(schema);
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("Resources");
+        }
+    }
+
+    @Override
+    public void write(List<T> resources) throws IOException {
+        for (T resource : resources) {
+            RESOURCE_WRITER.writeValue(generator, resource);
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+        }
+        totalResults += resources.size();
+        generator.flush();
+    }
+
+    /**
+     * Completes the export response.
+     *
+     * @throws IOException
+     *         if the response could not be written
+     */
+    public void finish() throws IOException {
+        if (!ndjson) {
+            generator.writeEndArray();
+            generator.writeNumberField("totalResults", totalResults);
+            generator.writeNumberField("itemsPerPage", totalResults);
+            generator.writeNumberField("startIndex", 1);
+            generator.writeEndObject();
+        }
+        generator.close();
+    }
+}
@@ -65,8 +65,18 @@ public class JsonInputValidator {
     }
 
     public User validateJsonUser(HttpServletRequest request) throws IOException {
-        String jsonInput = getRequestBody(request);
-        Validator validator = validators.get(RequestMethod.valueOf(request.getMethod()));
+        return validateJsonUser(getRequestBody(request), RequestMethod.valueOf(request.getMethod()));
+    }
+
+    /**
+     * Validates a user given as JSON like it would be validated for a request with the given method.
+     *
+     * @param jsonInput the user as JSON
+     * @param method the method of the request the user is part of
+     * @return the validated user
+     */
+    public User validateJsonUser(String jsonInput, RequestMethod method) throws IOException {
+        Validator validator = validators.get(method);
         User user;
         try {
             user = validator.validateJsonUser(jsonInput);
@@ -83,8 +93,18 @@ public class JsonInputValidator {
     }
 
     public Group validateJsonGroup(HttpServletRequest request) throws IOException {
-        String jsonInput = getRequestBody(request);
-        Validator validator = validators.get(RequestMethod.valueOf(request.getMethod()));
+        return validateJsonGroup(getRequestBody(request), RequestMethod.valueOf(request.getMethod()));
+    }
+
+    /**
+     * Validates a group given as JSON like it would be validated for a request with the given method.
+     *
+     * @param jsonInput the group as JSON
+     * @param method the method of the request the group is part of
+     * @return the validated group
+     */
+    public Group validateJsonGroup(String jsonInput, RequestMethod method) throws IOException {
+        Validator validator = validators.get(method);
         Group group;
         try {
             group = validator.validateGroup(jsonInput);
@@ -29,6 +29,8 @@ import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
 import org.osiam.resources.scim.Constants;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
 
 public class RequestParamHelper {
 
@@ -42,6 +44,9 @@ public class RequestParamHelper {
                 request.getParameter("sortOrder") != null ? request.getParameter("sortOrder") : "ascending");
         parameterMap.put("startIndex",
                 request.getParameter("startIndex") != null ? Integer.parseInt(request.getParameter("startIndex")) : 1);
+        parameterMap.put("cursor", request.getParameter("cursor"));
+        parameterMap.put("countMode", CountMode.fromString(request.getParameter("countMode")));
+        parameterMap.put("requestedAttributes", RequestedAttributes.fromParameter(request.getParameter("attributes")));
         translateAttributesForJackson(request, parameterMap);
 
         validateCount(request, parameterMap);
@@ -50,10 +55,9 @@ public class RequestParamHelper {
     }
 
     private void translateAttributesForJackson(HttpServletRequest request, Map<String, Object> parameterMap) {
-        String[] strings =
-                request.getParameter("attributes") != null ? request.getParameter("attributes").split("[,|\\.]") :
-                    new String[0];
-                parameterMap.put("attributes", strings);
+        String attributes = request.getParameter("attributes");
+        String[] strings = attributes != null ? attributes.split("[,|\\.]") : new String[0];
+        parameterMap.put("attributes", strings);
     }
 
     private void validateCount(HttpServletRequest request, Map<String, Object> parameterMap) {
@@ -37,6 +37,9 @@
  *  <p>/ - org.osiam.resources.controller.RootController - would be a resource independent search but it is currently
  *  disabled.</p>
  *
+ *  <p>/Bulk - org.osiam.resources.controller.BulkController - is a Controller to create, replace, modify and
+ *  delete users and groups with a single request.</p>
+ *
  *  <p>/Group - org.osiam.resources.controller.GroupController - is a Controller to create, replace, modify, get,
  *  delete and search groups.</p>
  *
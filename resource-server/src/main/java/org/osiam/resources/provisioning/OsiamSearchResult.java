@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.provisioning;
+
+import java.util.List;
+import java.util.Set;
+
+import org.osiam.resources.scim.SCIMSearchResult;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A {@link SCIMSearchResult} that additionally carries the cursor of the next page of a keyset paginated search and
+ * the way the totalResults were counted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OsiamSearchResult<T> extends SCIMSearchResult<T> {
+
+    private final String nextCursor;
+    private final String countMode;
+
+    public OsiamSearchResult(List<T> resources, long totalResults, long itemsPerPage, long startIndex,
+            String schema, String nextCursor, String countMode) {
+        super(resources, totalResults, itemsPerPage, startIndex, schema);
+        this.nextCursor = nextCursor;
+        this.countMode = countMode;
+    }
+
+    public OsiamSearchResult(List<T> resources, long totalResults, long itemsPerPage, long startIndex,
+            Set<String> schemas, String nextCursor, String countMode) {
+        super(resources, totalResults, itemsPerPage, startIndex, schemas);
+        this.nextCursor = nextCursor;
+        this.countMode = countMode;
+    }
+
+    /**
+     * @return the cursor to request the next page with, or null if this is the last page or the search was not
+     *         paginated by cursor
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return how the totalResults were counted: exact, capped, estimated or none. Null if the client didn't ask
+     *         for a count mode, in which case the totalResults are exact.
+     */
+    public String getCountMode() {
+        return countMode;
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.provisioning;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.PersistenceException;
+
+import org.osiam.resources.exceptions.OsiamExceptionHandler;
+import org.osiam.resources.helper.JsonInputValidator;
+import org.osiam.resources.scim.Resource;
+import org.osiam.storage.dao.ResourceDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Processes the operations of a {@link BulkRequest} with the user and group provisioning.
+ * <p/>
+ * Operations referencing a resource that another operation creates (<code>bulkId:&lt;bulkId&gt;</code>) are deferred
+ * until it has been created. Every operation runs in a nested transaction, i.e. behind a savepoint, and its changes
+ * are flushed when it succeeds. An operation that fails is rolled back to its savepoint, its pending changes are
+ * discarded and it is reported with the status the single request would have been answered with; an error of the
+ * database aborts the whole request. The persistence context is cleared every
+ * <code>org.osiam.resource-server.bulk.flush-interval</code> operations, so large requests don't keep all created
+ * entities in memory. The version of an operation is its <code>If-Match</code> precondition.
+ */
+@Service
+public class SCIMBulkProvisioning {
+
+    private static final Logger LOGGER = Logger.getLogger(SCIMBulkProvisioning.class.getName());
+
+    private static final String BULK_ID_PREFIX = "bulkId:";
+    private static final Pattern PATH = Pattern.compile("/(Users|Groups)(?:/([^/]+))?/?");
+
+    @Inject
+    private SCIMUserProvisioning scimUserProvisioning;
+
+    @Inject
+    private SCIMGroupProvisioning scimGroupProvisioning;
+
+    @Inject
+    private JsonInputValidator jsonInputValidator;
+
+    @Inject
+    private ResourceDao resourceDao;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${org.osiam.resource-server.bulk.flush-interval:100}")
+    private int flushInterval;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private TransactionTemplate operationTransaction;
+
+    @PostConstruct
+    private void createOperationTransaction() {
+        operationTransaction = new TransactionTemplate(transactionManager);
+        operationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    /**
+     * Processes the operations of the given request.
+     *
+     * @param request
+     *        the bulk request
+     * @param grantedMethods
+     *        the HTTP methods the access token grants a scope for; operations with other methods are rejected
+     * @param baseUri
+     *        the URI the locations of the resources are relative to
+     * @return the outcome of every processed operation
+     */
+    public BulkResponse process(BulkRequest request, Set<String> grantedMethods, String baseUri) {
+        BulkResponse response = new BulkResponse();
+        List<BulkRequest.Operation> pending = new ArrayList<>(request.getOperations());
+        Set<String> pendingBulkIds = new HashSet<>();
+        for (BulkRequest.Operation operation : pending) {
+            if (operation.getBulkId() != null) {
+                pendingBulkIds.add(operation.getBulkId());
+            }
+        }
+        Map<String, String> createdIds = new HashMap<>();
+        int errors = 0;
+        int succeeded = 0;
+        boolean progress = true;
+
+        while (!pending.isEmpty() && progress && !reachedErrorLimit(request, errors)) {
+            progress = false;
+            Iterator<BulkRequest.Operation> iterator = pending.iterator();
+            while (iterator.hasNext() && !reachedErrorLimit(request, errors)) {
+                BulkRequest.Operation operation = iterator.next();
+                if (referencesPendingOperation(operation, pendingBulkIds)) {
+                    continue;
+                }
+                iterator.remove();
+                pendingBulkIds.remove(operation.getBulkId());
+                progress = true;
+
+                BulkResponse.Operation result = execute(operation, createdIds, grantedMethods, baseUri);
+                response.addOperation(result);
+                if (result.getLocation() == null) {
+                    errors++;
+                } else if (flushInterval > 0 && ++succeeded % flushInterval == 0) {
+                    resourceDao.flushAndClear();
+                }
+            }
+        }
+
+        if (!reachedErrorLimit(request, errors)) {
+            for (BulkRequest.Operation operation : pending) {
+                response.addOperation(new BulkResponse.Operation(operation, null, HttpStatus.CONFLICT.value(),
+                        "The operation references a bulkId that depends on the operation itself"));
+            }
+        }
+        return response;
+    }
+
+    private boolean reachedErrorLimit(BulkRequest request, int errors) {
+        return request.getFailOnErrors() != null && errors >= request.getFailOnErrors();
+    }
+
+    private boolean referencesPendingOperation(BulkRequest.Operation operation, Set<String> pendingBulkIds) {
+        Set<String> references = new HashSet<>();
+        collectReferences(operation.getPath(), references);
+        collectReferences(operation.getData(), references);
+        references.retainAll(pendingBulkIds);
+        return !references.isEmpty();
+    }
+
+    private void collectReferences(JsonNode node, Set<String> references) {
+        if (node == null) {
+            return;
+        }
+        if (node.isTextual()) {
+            collectReferences(node.textValue(), references);
+        }
+        for (JsonNode child : node) {
+            collectReferences(child, references);
+        }
+    }
+
+    private void collectReferences(String value, Set<String> references) {
+        if (value == null) {
+            return;
+        }
+        String reference = value.substring(value.lastIndexOf('/') + 1);
+        if (reference.startsWith(BULK_ID_PREFIX)) {
+            references.add(reference.substring(BULK_ID_PREFIX.length()));
+        }
+    }
+
+    private BulkResponse.Operation execute(final BulkRequest.Operation operation,
+            final Map<String, String> createdIds, Set<String> grantedMethods, final String baseUri) {
+        final String method = operation.getMethod() == null ? "" : operation.getMethod().toUpperCase(Locale.ENGLISH);
+        if (!grantedMethods.contains(method)) {
+            return new BulkResponse.Operation(operation, null, HttpStatus.FORBIDDEN.value(),
+                    String.format("The access token doesn't grant the scope '%s'", method));
+        }
+
+        return operationTransaction.execute(new TransactionCallback<BulkResponse.Operation>() {
+            @Override
+            public BulkResponse.Operation doInTransaction(TransactionStatus status) {
+                BulkResponse.Operation result = execute(operation, method, createdIds, baseUri);
+                if (result.getLocation() == null) {
+                    // a failed operation may have changed managed entities before it failed
+                    resourceDao.clear();
+                    status.setRollbackOnly();
+                } else {
+                    resourceDao.flush();
+                }
+                return result;
+            }
+        });
+    }
+
+    private BulkResponse.Operation execute(BulkRequest.Operation operation, String method,
+            Map<String, String> createdIds, String baseUri) {
+        try {
+            RequestMethod requestMethod = RequestMethod.valueOf(method);
+            Matcher path = PATH.matcher(resolve(operation.getPath(), createdIds));
+            if (!path.matches()) {
+                throw new IllegalArgumentException(String.format("The path '%s' is invalid", operation.getPath()));
+            }
+            String resourceType = path.group(1);
+            String id = path.group(2);
+            if (requestMethod == RequestMethod.POST && (id != null || operation.getBulkId() == null)) {
+                throw new IllegalArgumentException("POST needs a bulkId and a path without an id");
+            }
+            if (requestMethod != RequestMethod.POST && id == null) {
+                throw new IllegalArgumentException(String.format("%s needs a path with the id of the resource", method));
+            }
+
+            String json = null;
+            if (requestMethod != RequestMethod.DELETE) {
+                if (operation.getData() == null) {
+                    throw new IllegalArgumentException(String.format("%s needs the data of the resource", method));
+                }
+                json = mapper.writeValueAsString(resolve(operation.getData(), createdIds));
+            }
+
+            Resource resource = "Users".equals(resourceType)
+                    ? executeUserOperation(requestMethod, id, json, operation.getVersion())
+                    : executeGroupOperation(requestMethod, id, json, operation.getVersion());
+
+            if (requestMethod == RequestMethod.POST) {
+                createdIds.put(operation.getBulkId(), resource.getId());
+                return new BulkResponse.Operation(operation, baseUri + "/" + resourceType + "/" + resource.getId(),
+                        HttpStatus.CREATED.value(), null);
+            }
+            return new BulkResponse.Operation(operation, baseUri + "/" + resourceType + "/" + id,
+                    HttpStatus.OK.value(), null);
+        } catch (PersistenceException e) {
+            throw e;
+        } catch (RuntimeException | IOException e) {
+            LOGGER.log(Level.INFO, "A bulk operation failed", e);
+            return new BulkResponse.Operation(operation, null, OsiamExceptionHandler.getStatus(e).value(),
+                    e.getMessage());
+        }
+    }
+
+    private Resource executeUserOperation(RequestMethod method, String id, String json, String version)
+            throws IOException {
+        switch (method) {
+        case POST:
+            return scimUserProvisioning.create(jsonInputValidator.validateJsonUser(json, method));
+        case PUT:
+            return scimUserProvisioning.replace(id, jsonInputValidator.validateJsonUser(json, method), version);
+        case PATCH:
+            return scimUserProvisioning.update(id, jsonInputValidator.validateJsonUser(json, method), version);
+        case DELETE:
+            scimUserProvisioning.delete(id, version);
+            return null;
+        default:
+            throw new UnsupportedOperationException(String.format("%s is not supported in a bulk request", method));
+        }
+    }
+
+    private Resource executeGroupOperation(RequestMethod method, String id, String json, String version)
+            throws IOException {
+        switch (method) {
+        case POST:
+            return scimGroupProvisioning.create(jsonInputValidator.validateJsonGroup(json, method));
+        case PUT:
+            return scimGroupProvisioning.replace(id, jsonInputValidator.validateJsonGroup(json, method), version);
+        case PATCH:
+            return scimGroupProvisioning.update(id, jsonInputValidator.validateJsonGroup(json, method), version);
+        case DELETE:
+            scimGroupProvisioning.delete(id, version);
+            return null;
+        default:
+            throw new UnsupportedOperationException(String.format("%s is not supported in a bulk request", method));
+        }
+    }
+
+    private JsonNode resolve(JsonNode node, Map<String, String> createdIds) {
+        if (node.isTextual()) {
+            return new TextNode(resolve(node.textValue(), createdIds));
+        }
+        if (node.isObject()) {
+            ObjectNode resolved = mapper.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                resolved.set(field.getKey(), resolve(field.getValue(), createdIds));
+            }
+            return resolved;
+        }
+        if (node.isArray()) {
+            ArrayNode resolved = mapper.createArrayNode();
+            for (JsonNode element : node) {
+                resolved.add(resolve(element, createdIds));
+            }
+            return resolved;
+        }
+        return node;
+    }
+
+    private String resolve(String value, Map<String, String> createdIds) {
+        if (value == null) {
+            return "";
+        }
+        int start = value.lastIndexOf('/') + 1;
+        if (!value.startsWith(BULK_ID_PREFIX, start)) {
+            return value;
+        }
+        String bulkId = value.substring(start + BULK_ID_PREFIX.length());
+        String id = createdIds.get(bulkId);
+        if (id == null) {
+            throw new IllegalArgumentException(String.format("The bulkId '%s' doesn't belong to a created resource",
+                    bulkId));
+        }
+        return value.substring(0, start) + id;
+    }
+}
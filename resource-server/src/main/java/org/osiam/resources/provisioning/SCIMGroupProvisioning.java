@@ -23,8 +23,10 @@
 
 package org.osiam.resources.provisioning;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,8 +46,12 @@ import org.osiam.resources.scim.Constants;
 import org.osiam.resources.scim.Group;
 import org.osiam.resources.scim.SCIMSearchResult;
 import org.osiam.storage.dao.GroupDao;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
+import org.osiam.storage.dao.ResourceChunkIterator;
 import org.osiam.storage.dao.SearchResult;
 import org.osiam.storage.entities.GroupEntity;
+import org.osiam.storage.entities.ResourceEntity;
 import org.osiam.storage.parser.LogicalOperatorRulesLexer;
 import org.osiam.storage.parser.LogicalOperatorRulesParser;
 import org.osiam.storage.query.OsiamAntlrErrorListener;
@@ -91,6 +97,11 @@ public class SCIMGroupProvisioning implements SCIMProvisioning<Group> {
 
     @Override
     public Group replace(String id, Group group) {
+        return replace(id, group, null);
+    }
+
+    @Override
+    public Group replace(String id, Group group, String ifMatch) {
         if (groupDao.isDisplayNameAlreadyTaken(group.getDisplayName(), id)) {
             throw new ResourceExistsException(String.format("Can't replace the group with the id \"" + id
                     + "\". The displayname \"%s\" is already taken.", group.getDisplayName()));
@@ -99,33 +110,49 @@ public class SCIMGroupProvisioning implements SCIMProvisioning<Group> {
             throw new ResourceExistsException(String.format("Can't replace the group with the id \"" + id
                     + "\". The externalId \"%s\" is already taken.", group.getExternalId()));
         }
-        GroupEntity existingEntity = groupDao.getById(id);
-
-        GroupEntity groupEntity = groupConverter.fromScim(group);
+        GroupEntity groupEntity = groupDao.getById(id);
+        groupEntity.checkETag(ifMatch);
 
-        groupEntity.setInternalId(existingEntity.getInternalId());
-        groupEntity.setId(existingEntity.getId());
-        groupEntity.setMeta(existingEntity.getMeta());
+        Set<ResourceEntity> members = groupConverter.membersFromScim(group.getMembers());
+        groupEntity.setDisplayName(group.getDisplayName());
+        groupEntity.setExternalId(group.getExternalId());
+        // only the members that join or leave the group are touched, see UserEntity#getETag()
+        groupEntity.replaceMembers(members);
         groupEntity.touch();
 
-        groupEntity = groupDao.update(groupEntity);
         return groupConverter.toScim(groupEntity);
     }
 
     @Override
-    public SCIMSearchResult<Group> search(String filter, String sortBy, String sortOrder, int count, int startIndex) {
+    public SCIMSearchResult<Group> search(String filter, String sortBy, String sortOrder, int count, int startIndex,
+            String cursor, CountMode countMode, RequestedAttributes attributes) {
         List<Group> groups = new ArrayList<>();
 
         ParseTree filterTree = queryFilterParser.getParseTree(filter);
 
         // Decrease startIndex by 1 because scim pagination starts at 1 and JPA doesn't
-        SearchResult<GroupEntity> result = groupDao.search(filterTree, sortBy, sortOrder, count, startIndex - 1);
+        SearchResult<GroupEntity> result = groupDao.search(filterTree, sortBy, sortOrder, count, startIndex - 1,
+                cursor, countMode, attributes);
 
         for (GroupEntity group : result.results) {
-            groups.add(groupConverter.toScim(group));
+            groups.add(groupConverter.toScim(group, attributes));
         }
 
-        return new SCIMSearchResult<>(groups, result.totalResults, count, startIndex, Constants.GROUP_CORE_SCHEMA);
+        return new OsiamSearchResult<>(groups, result.totalResults, count, startIndex, Constants.GROUP_CORE_SCHEMA,
+                result.nextCursor, countMode == CountMode.EXACT ? null : result.countMode.toString());
+    }
+
+    @Override
+    public void export(ExportWriter<Group> writer) throws IOException {
+        try (ResourceChunkIterator<GroupEntity> chunks = groupDao.export()) {
+            while (chunks.hasNext()) {
+                List<Group> groups = new ArrayList<>();
+                for (GroupEntity groupEntity : chunks.next()) {
+                    groups.add(groupConverter.toScim(groupEntity));
+                }
+                writer.write(groups);
+            }
+        }
     }
 
     @Override
@@ -143,8 +170,18 @@ public class SCIMGroupProvisioning implements SCIMProvisioning<Group> {
         }
     }
 
+    @Override
+    public String getETag(String id) {
+        return groupDao.getETag(id);
+    }
+
     @Override
     public Group update(String id, Group group) {
+        return update(id, group, null);
+    }
+
+    @Override
+    public Group update(String id, Group group, String ifMatch) {
         if (groupDao.isDisplayNameAlreadyTaken(group.getDisplayName(), id)) {
             throw new ResourceExistsException(String.format("Can't update the group with the id \"" + id
                     + "\". The displayname \"%s\" is already taken.", group.getDisplayName()));
@@ -154,6 +191,7 @@ public class SCIMGroupProvisioning implements SCIMProvisioning<Group> {
                     + "\". The externalId \"%s\" is already taken.", group.getExternalId()));
         }
         GroupEntity groupEntity = groupDao.getById(id);
+        groupEntity.checkETag(ifMatch);
 
         groupUpdater.update(group, groupEntity);
 
@@ -166,8 +204,13 @@ public class SCIMGroupProvisioning implements SCIMProvisioning<Group> {
 
     @Override
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    @Override
+    public void delete(String id, String ifMatch) {
         try {
-            groupDao.delete(id);
+            groupDao.delete(id, ifMatch);
         } catch (NoResultException nre) {
             throw new ResourceNotFoundException(String.format("Group with id '%s' not found", id), nre);
         }
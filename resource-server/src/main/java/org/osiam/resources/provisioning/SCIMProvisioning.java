@@ -23,8 +23,12 @@
 
 package org.osiam.resources.provisioning;
 
+import java.io.IOException;
+
 import org.osiam.resources.scim.Resource;
 import org.osiam.resources.scim.SCIMSearchResult;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
 
 public interface SCIMProvisioning<T extends Resource> {
     /**
@@ -40,6 +44,16 @@ public interface SCIMProvisioning<T extends Resource> {
      */
     T getById(String id);
 
+    /**
+     * This method returns the entity tag of a SCIM resource without loading it, it is used for conditional requests.
+     *
+     * @param id the external identifier of an resource
+     * @return the entity tag of the resource, the same as its meta version
+     * @throws org.osiam.resources.exceptions.ResourceNotFoundException
+     *          if no resource with the given id got found
+     */
+    String getETag(String id);
+
     /**
      * This method creates a resource, it is used for POST calls.
      *
@@ -61,6 +75,20 @@ public interface SCIMProvisioning<T extends Resource> {
      */
     T replace(String id, T resource);
 
+    /**
+     * This method replaces an resource if it matches the given entity tags, it is used for conditional PUT calls.
+     *
+     * @param id,       the external identifier of an resource
+     * @param resource, an resource representation which should be created
+     * @param ifMatch,  the entity tags of the precondition, no precondition if null
+     * @return the updated resource
+     * @throws org.osiam.resources.exceptions.ResourceNotFoundException
+     *          if no resource with the given id got found
+     * @throws org.osiam.resources.exceptions.PreconditionFailedException
+     *          if the resource does not match the entity tags
+     */
+    T replace(String id, T resource, String ifMatch);
+
     /**
      * This method updates an resource, it is used for PATCH calls.
      *
@@ -72,6 +100,20 @@ public interface SCIMProvisioning<T extends Resource> {
      */
     T update(String id, T resource);
 
+    /**
+     * This method updates an resource if it matches the given entity tags, it is used for conditional PATCH calls.
+     *
+     * @param id,       the external identifier of an resource
+     * @param resource, an resource representation which should be created
+     * @param ifMatch,  the entity tags of the precondition, no precondition if null
+     * @return the updated resource
+     * @throws org.osiam.resources.exceptions.ResourceNotFoundException
+     *          if no resource with the given id got found
+     * @throws org.osiam.resources.exceptions.PreconditionFailedException
+     *          if the resource does not match the entity tags
+     */
+    T update(String id, T resource, String ifMatch);
+
     /**
      * This method deletes an user found by its id, it is used for DELETE calls.
      *
@@ -79,6 +121,17 @@ public interface SCIMProvisioning<T extends Resource> {
      */
     void delete(String id);
 
+    /**
+     * This method deletes an user found by its id if it matches the given entity tags, it is used for conditional
+     * DELETE calls.
+     *
+     * @param id the identifier of the user.
+     * @param ifMatch the entity tags of the precondition, no precondition if null
+     * @throws org.osiam.resources.exceptions.PreconditionFailedException
+     *          if the resource does not match the entity tags
+     */
+    void delete(String id, String ifMatch);
+
     /**
      * This method provide a search across users or groups.
      *
@@ -93,8 +146,26 @@ public interface SCIMProvisioning<T extends Resource> {
      *              the maximum returned results per page. Default: 100
      * @param startIndex
      *              the value to start from for paging. Default: 1
+     * @param cursor
+     *              the cursor of the page to return for keyset pagination, an empty string for the first page or
+     *              null to page by startIndex
+     * @param countMode
+     *              how to determine the totalResults. Default: exact
+     * @param attributes
+     *              the attributes to load, the others may be left out of the results
      * @return the search results
      */
-    SCIMSearchResult<T> search(String filter, String sortBy, String sortOrder, int count, int startIndex);
+    SCIMSearchResult<T> search(String filter, String sortBy, String sortOrder, int count, int startIndex,
+            String cursor, CountMode countMode, RequestedAttributes attributes);
+
+    /**
+     * Passes all resources to the given writer, chunk by chunk, without holding more than one chunk in memory.
+     *
+     * @param writer
+     *              the writer to pass the chunks to
+     * @throws IOException
+     *              if the writer failed
+     */
+    void export(ExportWriter<T> writer) throws IOException;
 
 }
\ No newline at end of file
@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -43,6 +44,9 @@ import org.osiam.resources.provisioning.update.UserUpdater;
 import org.osiam.resources.scim.Constants;
 import org.osiam.resources.scim.SCIMSearchResult;
 import org.osiam.resources.scim.User;
+import org.osiam.storage.dao.CountMode;
+import org.osiam.storage.dao.RequestedAttributes;
+import org.osiam.storage.dao.ResourceChunkIterator;
 import org.osiam.storage.dao.SearchResult;
 import org.osiam.storage.dao.UserDao;
 import org.osiam.storage.entities.UserEntity;
@@ -93,6 +97,11 @@ public class SCIMUserProvisioning implements SCIMProvisioning<User> {
         }
     }
 
+    @Override
+    public String getETag(String id) {
+        return userDao.getETag(id);
+    }
+
     @Override
     public User create(User user) {
         if (userDao.isUserNameAlreadyTaken(user.getUserName())) {
@@ -118,7 +127,13 @@ public class SCIMUserProvisioning implements SCIMProvisioning<User> {
 
     @Override
     public User replace(String id, User user) {
+        return replace(id, user, null);
+    }
+
+    @Override
+    public User replace(String id, User user, String ifMatch) {
         UserEntity existingEntity = userDao.getById(id);
+        existingEntity.checkETag(ifMatch);
 
         if (userDao.isUserNameAlreadyTaken(user.getUserName(), id)) {
             throw new ResourceExistsException(String.format(
@@ -131,45 +146,48 @@ public class SCIMUserProvisioning implements SCIMProvisioning<User> {
                     user.getExternalId()));
         }
 
-        UserEntity userEntity = userConverter.fromScim(user);
-
-        userEntity.setInternalId(existingEntity.getInternalId());
-        userEntity.setMeta(existingEntity.getMeta());
-        userEntity.setId(existingEntity.getId());
-
-        if (user.getPassword() != null && !user.getPassword().isEmpty()) {
-            String hashedPassword = passwordEncoder.encodePassword(user.getPassword(), userEntity.getId());
-            userEntity.setPassword(hashedPassword);
-        } else {
-            userEntity.setPassword(existingEntity.getPassword());
+        if (userUpdater.replace(user, existingEntity)) {
+            existingEntity.touch();
         }
 
-        userEntity.touch();
-
-        userEntity = userDao.update(userEntity);
-
-        User result = getUserWithoutPassword(userConverter.toScim(userEntity));
+        User result = getUserWithoutPassword(userConverter.toScim(existingEntity));
 
         return result;
     }
 
     @Override
-    public SCIMSearchResult<User> search(String filter, String sortBy, String sortOrder, int count, int startIndex) {
+    public SCIMSearchResult<User> search(String filter, String sortBy, String sortOrder, int count, int startIndex,
+            String cursor, CountMode countMode, RequestedAttributes attributes) {
         List<User> users = new ArrayList<>();
 
         ParseTree filterTree = queryFilterParser.getParseTree(filter);
 
-        SearchResult<UserEntity> result = userDao.search(filterTree, sortBy, sortOrder, count, startIndex - 1);
+        SearchResult<UserEntity> result = userDao.search(filterTree, sortBy, sortOrder, count, startIndex - 1,
+                cursor, countMode, attributes);
         if (searchedForPasswordAndNoResult(result, filter)) {
             sleepIfForPasswordWasSearched(filterTree);
         }
 
         for (UserEntity userEntity : result.results) {
-            User scimResultUser = userConverter.toScim(userEntity);
+            User scimResultUser = userConverter.toScim(userEntity, attributes);
             users.add(getUserWithoutPassword(scimResultUser));
         }
 
-        return new SCIMSearchResult<>(users, result.totalResults, count, startIndex, Constants.USER_CORE_SCHEMA);
+        return new OsiamSearchResult<>(users, result.totalResults, count, startIndex, Constants.USER_CORE_SCHEMA,
+                result.nextCursor, countMode == CountMode.EXACT ? null : result.countMode.toString());
+    }
+
+    @Override
+    public void export(ExportWriter<User> writer) throws IOException {
+        try (ResourceChunkIterator<UserEntity> chunks = userDao.export()) {
+            while (chunks.hasNext()) {
+                List<User> users = new ArrayList<>();
+                for (UserEntity userEntity : chunks.next()) {
+                    users.add(getUserWithoutPassword(userConverter.toScim(userEntity)));
+                }
+                writer.write(users);
+            }
+        }
     }
 
     private boolean searchedForPasswordAndNoResult(SearchResult<UserEntity> result, String filter) {
@@ -196,7 +214,13 @@ public class SCIMUserProvisioning implements SCIMProvisioning<User> {
 
     @Override
     public User update(String id, User user) {
+        return update(id, user, null);
+    }
+
+    @Override
+    public User update(String id, User user, String ifMatch) {
         UserEntity userEntity = userDao.getById(id);
+        userEntity.checkETag(ifMatch);
 
         if (userDao.isUserNameAlreadyTaken(user.getUserName(), id)) {
             throw new ResourceExistsException(String.format(
@@ -220,8 +244,13 @@ public class SCIMUserProvisioning implements SCIMProvisioning<User> {
 
     @Override
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    @Override
+    public void delete(String id, String ifMatch) {
         try {
-            userDao.delete(id);
+            userDao.delete(id, ifMatch);
         } catch (NoResultException nre) {
             throw new ResourceNotFoundException(String.format("User with id '%s' not found", id), nre);
         }
@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,35 @@ class AddressUpdater {
         }
     }
 
+    /**
+     * replaces the {@link AddressEntity}'s of the given {@link UserEntity} with the given List of {@link Address}. The
+     * addresses that are part of both are kept, so they cause no SQL.
+     *
+     * @param addresses
+     *        list of {@link Address} that replace the current addresses, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the addresses of the user changed
+     */
+    boolean replace(List<Address> addresses, UserEntity userEntity) {
+        Set<AddressEntity> replacement = new HashSet<>();
+        if (addresses != null) {
+            for (Address scimAddress : addresses) {
+                replacement.add(addressConverter.fromScim(scimAddress));
+            }
+        }
+
+        MultiValuedAttributeDiff<AddressEntity> diff = new MultiValuedAttributeDiff<>(
+                userEntity.getAddresses(), replacement);
+        for (AddressEntity addressEntity : diff.getRemoved()) {
+            userEntity.removeAddress(addressEntity);
+        }
+        for (AddressEntity addressEntity : diff.getAdded()) {
+            userEntity.addAddress(addressEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newAddress is set to primary the primary attribute of all existing address's in the
      * {@link UserEntity} will be removed
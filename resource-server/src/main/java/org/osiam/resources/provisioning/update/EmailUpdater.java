@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,35 @@ class EmailUpdater {
         }
     }
 
+    /**
+     * replaces the {@link EmailEntity}'s of the given {@link UserEntity} with the given List of {@link Email}. The
+     * emails that are part of both are kept, so they cause no SQL.
+     *
+     * @param emails
+     *        list of {@link Email} that replace the current emails, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the emails of the user changed
+     */
+    boolean replace(List<Email> emails, UserEntity userEntity) {
+        Set<EmailEntity> replacement = new HashSet<>();
+        if (emails != null) {
+            for (Email scimEmail : emails) {
+                replacement.add(emailConverter.fromScim(scimEmail));
+            }
+        }
+
+        MultiValuedAttributeDiff<EmailEntity> diff = new MultiValuedAttributeDiff<>(
+                userEntity.getEmails(), replacement);
+        for (EmailEntity emailEntity : diff.getRemoved()) {
+            userEntity.removeEmail(emailEntity);
+        }
+        for (EmailEntity emailEntity : diff.getAdded()) {
+            userEntity.addEmail(emailEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newEmail is set to primary the primary attribute of all existing email's in the {@link UserEntity}
      * will be removed
@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,35 @@ class EntitlementsUpdater {
         }
     }
 
+    /**
+     * replaces the {@link EntitlementEntity}'s of the given {@link UserEntity} with the given List of {@link Entitlement}. The
+     * entitlements that are part of both are kept, so they cause no SQL.
+     *
+     * @param entitlements
+     *        list of {@link Entitlement} that replace the current entitlements, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the entitlements of the user changed
+     */
+    boolean replace(List<Entitlement> entitlements, UserEntity userEntity) {
+        Set<EntitlementEntity> replacement = new HashSet<>();
+        if (entitlements != null) {
+            for (Entitlement scimEntitlement : entitlements) {
+                replacement.add(entitlementConverter.fromScim(scimEntitlement));
+            }
+        }
+
+        MultiValuedAttributeDiff<EntitlementEntity> diff = new MultiValuedAttributeDiff<>(
+                userEntity.getEntitlements(), replacement);
+        for (EntitlementEntity entitlementEntity : diff.getRemoved()) {
+            userEntity.removeEntitlement(entitlementEntity);
+        }
+        for (EntitlementEntity entitlementEntity : diff.getAdded()) {
+            userEntity.addEntitlement(entitlementEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newEntitlement is set to primary the primary attribute of all existing entitlement's in the
      * {@link UserEntity} will be removed
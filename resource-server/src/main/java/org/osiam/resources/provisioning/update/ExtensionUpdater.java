@@ -23,21 +23,23 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.inject.Inject;
 
+import org.osiam.resources.converter.ExtensionConverter;
 import org.osiam.resources.exceptions.NoSuchElementException;
 import org.osiam.resources.scim.Extension;
 import org.osiam.resources.scim.ExtensionFieldType;
-import org.osiam.storage.dao.ExtensionDao;
+import org.osiam.storage.dao.ExtensionRegistry;
 import org.osiam.storage.entities.ExtensionEntity;
 import org.osiam.storage.entities.ExtensionFieldEntity;
 import org.osiam.storage.entities.ExtensionFieldValueEntity;
 import org.osiam.storage.entities.UserEntity;
-import org.osiam.storage.helper.NumberPadder;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.Optional;
@@ -51,10 +53,10 @@ import com.google.common.collect.ImmutableSet;
 class ExtensionUpdater {
 
     @Inject
-    private ExtensionDao extensionDao;
+    private ExtensionRegistry extensionRegistry;
 
     @Inject
-    private NumberPadder numberPadder;
+    private ExtensionConverter extensionConverter;
 
     /**
      * updates (remove, updates) the {@link ExtensionEntity}'s of the given {@link UserEntity} based on the given List
@@ -92,6 +94,42 @@ class ExtensionUpdater {
         }
     }
 
+    /**
+     * replaces the {@link ExtensionFieldValueEntity}'s of the given {@link UserEntity} with the values of the given
+     * map of {@link Extension}'s. Values that did not change are left untouched, changed values are updated in place.
+     *
+     * @param extensions
+     *        map of {@link Extension} that replace the current extension values, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if an extension value of the user changed
+     */
+    boolean replace(Map<String, Extension> extensions, UserEntity userEntity) {
+        Map<ExtensionFieldEntity, ExtensionFieldValueEntity> replacements = new HashMap<>();
+        if (extensions != null) {
+            for (ExtensionFieldValueEntity replacement : extensionConverter.fromScim(new HashSet<>(extensions.values()))) {
+                replacements.put(replacement.getExtensionField(), replacement);
+            }
+        }
+
+        boolean changed = false;
+        for (ExtensionFieldValueEntity extensionFieldValue : ImmutableSet.copyOf(userEntity.getExtensionFieldValues())) {
+            ExtensionFieldValueEntity replacement = replacements.remove(extensionFieldValue.getExtensionField());
+            if (replacement == null) {
+                userEntity.removeExtensionFieldValue(extensionFieldValue);
+                changed = true;
+            } else if (extensionFieldValue.copyValueFrom(replacement)) {
+                changed = true;
+            }
+        }
+
+        for (ExtensionFieldValueEntity replacement : replacements.values()) {
+            userEntity.addExtensionFieldValue(replacement);
+            changed = true;
+        }
+        return changed;
+    }
+
     private void removeExtensionFieldValue(UserEntity userEntity, String urn, String fieldName) {
         ImmutableSet<ExtensionFieldValueEntity> extensionEntities = ImmutableSet.copyOf(userEntity.getExtensionFieldValues());
         for (ExtensionFieldValueEntity extensionFieldValue : extensionEntities) {
@@ -106,12 +144,12 @@ class ExtensionUpdater {
     private void updateExtensionField(Entry<String, Extension> extensionEntry, UserEntity userEntity) {
         String urn = extensionEntry.getKey();
         Extension updatedScimExtension = extensionEntry.getValue();
-        ExtensionEntity extensionEntity = extensionDao.getExtensionByUrn(urn);
+        ExtensionEntity extensionEntity = extensionRegistry.getExtension(urn);
 
         for (String fieldName : updatedScimExtension.getFields().keySet()) {
             ExtensionFieldEntity extensionEntitiyField = null;
             try {
-                extensionEntitiyField = extensionEntity.getFieldForName(fieldName, true);
+                extensionEntitiyField = extensionRegistry.getField(extensionEntity, fieldName, true);
             } catch (NoSuchElementException e) {
                 throw new NoSuchElementException("Could not update the extension \"" + urn + "\".", e);
             }
@@ -121,24 +159,18 @@ class ExtensionUpdater {
             if (extensionFieldValue == null) {
                 extensionFieldValue = new ExtensionFieldValueEntity();
             }
-            String newValue = getNewExtensionValue(extensionEntitiyField, updatedScimExtension, fieldName);
-            if (!Strings.isNullOrEmpty(newValue)) {
-                extensionFieldValue.setValue(newValue);
+            if (!Strings.isNullOrEmpty(updatedScimExtension.getField(fieldName, ExtensionFieldType.STRING))) {
+                setNewExtensionValue(extensionFieldValue, extensionEntitiyField.getType(), updatedScimExtension,
+                        fieldName);
                 extensionFieldValue.setExtensionField(extensionEntitiyField);
                 userEntity.addOrUpdateExtensionValue(extensionFieldValue);
             }
         }
     }
 
-    private String getNewExtensionValue(ExtensionFieldEntity extensionField, Extension updatedExtension,
-            String fieldName) {
-        String newValue = updatedExtension.getField(fieldName, ExtensionFieldType.STRING);
-        if (newValue != null &&
-                (extensionField.getType() == ExtensionFieldType.INTEGER
-                || extensionField.getType() == ExtensionFieldType.DECIMAL)) {
-            newValue = numberPadder.pad(newValue);
-        }
-        return newValue;
+    private <T> void setNewExtensionValue(ExtensionFieldValueEntity extensionFieldValue, ExtensionFieldType<T> type,
+            Extension updatedExtension, String fieldName) {
+        extensionFieldValue.setValue(type, updatedExtension.getField(fieldName, type));
     }
 
     private ExtensionFieldValueEntity findExtensionFieldValue(ExtensionFieldEntity extensionField, UserEntity userEntity) {
@@ -160,7 +192,7 @@ class ExtensionUpdater {
             urn = attribute;
         }
         try {
-            extensionDao.getExtensionByUrn(urn, true);
+            extensionRegistry.getExtension(urn, true);
         } catch (Exception e) {
             return Optional.absent();
         }
@@ -76,7 +76,9 @@ public class GroupUpdater {
             if (groupDao.isDisplayNameAlreadyTaken(displayName, groupEntity.getId().toString())) {
                 throw new ResourceExistsException(String.format("Group with displayName '%s' already exists", displayName));
             }
-            groupEntity.setDisplayName(displayName);
+            if (!displayName.equals(groupEntity.getDisplayName())) {
+                groupEntity.setDisplayName(displayName);
+            }
         }
 
         updateMembers(group, groupEntity, attributes);
@@ -86,34 +88,42 @@ public class GroupUpdater {
     private void updateMembers(Group group, GroupEntity groupEntity, Set<String> attributes) {
         String attributeName = "members";
 
+        boolean removeAllMembers = false;
         for (String attribute : attributes) {
             if (attribute.equalsIgnoreCase(attributeName)) {
-                groupEntity.removeAllMembers();
+                removeAllMembers = true;
             }
         }
+        if (!removeAllMembers && (group.getMembers() == null || group.getMembers().isEmpty())) {
+            return;
+        }
+
+        Set<ResourceEntity> members = new HashSet<>();
+        if (!removeAllMembers) {
+            members.addAll(groupEntity.getMembers());
+        }
 
         if (group.getMembers() != null) {
             for (MemberRef memberRef : group.getMembers()) {
                 String memberId = memberRef.getValue();
 
                 if (memberRef.getOperation() != null && memberRef.getOperation().equalsIgnoreCase("delete")) {
-                    ResourceEntity member = getMember(memberId, groupEntity);
+                    ResourceEntity member = getMember(memberId, members);
 
                     if (member != null) {
-                        groupEntity.removeMember(member);
+                        members.remove(member);
                     }
                 } else {
-                    ResourceEntity member = resourceDao.getById(memberId, ResourceEntity.class);
-                    groupEntity.addMember(member);
+                    members.add(resourceDao.getById(memberId, ResourceEntity.class));
                 }
             }
         }
 
+        // members that are cleared and added again are neither removed nor touched
+        groupEntity.replaceMembers(members);
     }
 
-    private ResourceEntity getMember(String memberId, GroupEntity groupEntity) {
-        Set<ResourceEntity> members = groupEntity.getMembers();
-
+    private ResourceEntity getMember(String memberId, Set<ResourceEntity> members) {
         for (ResourceEntity member : members) {
             if (member.getId().toString().equals(memberId)) {
                 return member;
@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,34 @@ class ImUpdater {
         }
     }
 
+    /**
+     * replaces the {@link ImEntity}'s of the given {@link UserEntity} with the given List of {@link Im}. The
+     * ims that are part of both are kept, so they cause no SQL.
+     *
+     * @param ims
+     *        list of {@link Im} that replace the current ims, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the ims of the user changed
+     */
+    boolean replace(List<Im> ims, UserEntity userEntity) {
+        Set<ImEntity> replacement = new HashSet<>();
+        if (ims != null) {
+            for (Im scimIm : ims) {
+                replacement.add(imConverter.fromScim(scimIm));
+            }
+        }
+
+        MultiValuedAttributeDiff<ImEntity> diff = new MultiValuedAttributeDiff<>(userEntity.getIms(), replacement);
+        for (ImEntity imEntity : diff.getRemoved()) {
+            userEntity.removeIm(imEntity);
+        }
+        for (ImEntity imEntity : diff.getAdded()) {
+            userEntity.addIm(imEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newIm is set to primary the primary attribute of all existing im's in the {@link UserEntity} will be
      * removed
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.provisioning.update;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.osiam.storage.entities.BaseMultiValuedAttributeEntity;
+
+/**
+ * The difference between the current values of a multi-valued attribute and the values replacing them. Values that
+ * are part of both are kept, only their primary attribute is taken over from the replacing value.
+ */
+class MultiValuedAttributeDiff<T extends BaseMultiValuedAttributeEntity> {
+
+    private final Set<T> removed = new HashSet<>();
+    private final Set<T> added = new HashSet<>();
+    private boolean primaryChanged;
+
+    /**
+     * @param current
+     *        the current values of the attribute
+     * @param replacement
+     *        the values replacing them
+     */
+    MultiValuedAttributeDiff(Set<T> current, Set<T> replacement) {
+        Map<T, T> replacingValues = new HashMap<>();
+        for (T value : replacement) {
+            replacingValues.put(value, value);
+        }
+
+        for (T value : current) {
+            T replacingValue = replacingValues.remove(value);
+            if (replacingValue == null) {
+                removed.add(value);
+            } else if (value.isPrimary() != replacingValue.isPrimary()) {
+                value.setPrimary(replacingValue.isPrimary());
+                primaryChanged = true;
+            }
+        }
+        added.addAll(replacingValues.values());
+    }
+
+    /**
+     * @return the current values that are not part of the replacement
+     */
+    Set<T> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return the replacing values that are not part of the current values
+     */
+    Set<T> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return true if a value was removed, added or its primary attribute changed
+     */
+    boolean isChanged() {
+        return primaryChanged || !removed.isEmpty() || !added.isEmpty();
+    }
+}
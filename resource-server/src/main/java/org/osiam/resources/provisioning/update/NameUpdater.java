@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.Objects;
 import java.util.Set;
 
 import org.osiam.resources.scim.Name;
@@ -65,6 +66,49 @@ class NameUpdater {
         updateHonorificSuffix(name, userEntity, attributes);
     }
 
+    /**
+     * replaces the {@link org.osiam.storage.entities.NameEntity} of the given
+     * {@link org.osiam.storage.entities.UserEntity} with the given {@link org.osiam.resources.scim.Name}, only the
+     * parts that differ are changed
+     *
+     * @param name
+     *            {@link org.osiam.resources.scim.Name} that replaces the current name, may be null
+     * @param userEntity
+     *            user who needs to be updated
+     * @return true if the name of the user changed
+     */
+    boolean replace(Name name, UserEntity userEntity) {
+        if (name == null || name.isEmpty()) {
+            if (userEntity.getName() == null) {
+                return false;
+            }
+            userEntity.setName(null);
+            return true;
+        }
+
+        boolean changed = false;
+        NameEntity nameEntity = userEntity.getName();
+        if (nameEntity == null) {
+            nameEntity = new NameEntity();
+            userEntity.setName(nameEntity);
+            changed = true;
+        }
+
+        changed |= !Objects.equals(nameEntity.getFormatted(), name.getFormatted());
+        nameEntity.setFormatted(name.getFormatted());
+        changed |= !Objects.equals(nameEntity.getFamilyName(), name.getFamilyName());
+        nameEntity.setFamilyName(name.getFamilyName());
+        changed |= !Objects.equals(nameEntity.getGivenName(), name.getGivenName());
+        nameEntity.setGivenName(name.getGivenName());
+        changed |= !Objects.equals(nameEntity.getMiddleName(), name.getMiddleName());
+        nameEntity.setMiddleName(name.getMiddleName());
+        changed |= !Objects.equals(nameEntity.getHonorificPrefix(), name.getHonorificPrefix());
+        nameEntity.setHonorificPrefix(name.getHonorificPrefix());
+        changed |= !Objects.equals(nameEntity.getHonorificSuffix(), name.getHonorificSuffix());
+        nameEntity.setHonorificSuffix(name.getHonorificSuffix());
+        return changed;
+    }
+
     private void updateFormatted(Name name, UserEntity userEntity, Set<String> attributes) {
         if (attributes.contains("name.formatted") && userEntity.getName() != null) {
             userEntity.getName().setFormatted(null);
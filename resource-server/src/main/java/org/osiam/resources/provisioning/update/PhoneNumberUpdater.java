@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,35 @@ class PhoneNumberUpdater {
         }
     }
 
+    /**
+     * replaces the {@link PhoneNumberEntity}'s of the given {@link UserEntity} with the given List of {@link PhoneNumber}. The
+     * phone numbers that are part of both are kept, so they cause no SQL.
+     *
+     * @param phoneNumbers
+     *        list of {@link PhoneNumber} that replace the current phone numbers, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the phone numbers of the user changed
+     */
+    boolean replace(List<PhoneNumber> phoneNumbers, UserEntity userEntity) {
+        Set<PhoneNumberEntity> replacement = new HashSet<>();
+        if (phoneNumbers != null) {
+            for (PhoneNumber scimPhoneNumber : phoneNumbers) {
+                replacement.add(phoneNumberConverter.fromScim(scimPhoneNumber));
+            }
+        }
+
+        MultiValuedAttributeDiff<PhoneNumberEntity> diff = new MultiValuedAttributeDiff<>(
+                userEntity.getPhoneNumbers(), replacement);
+        for (PhoneNumberEntity phoneNumberEntity : diff.getRemoved()) {
+            userEntity.removePhoneNumber(phoneNumberEntity);
+        }
+        for (PhoneNumberEntity phoneNumberEntity : diff.getAdded()) {
+            userEntity.addPhoneNumber(phoneNumberEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newPhoneNumber is set to primary the primary attribute of all existing phoneNumber's in the
      * {@link UserEntity} will be removed
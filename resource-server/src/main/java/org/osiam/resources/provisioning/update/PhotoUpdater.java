@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,35 @@ class PhotoUpdater {
         }
     }
 
+    /**
+     * replaces the {@link PhotoEntity}'s of the given {@link UserEntity} with the given List of {@link Photo}. The
+     * photos that are part of both are kept, so they cause no SQL.
+     *
+     * @param photos
+     *        list of {@link Photo} that replace the current photos, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the photos of the user changed
+     */
+    boolean replace(List<Photo> photos, UserEntity userEntity) {
+        Set<PhotoEntity> replacement = new HashSet<>();
+        if (photos != null) {
+            for (Photo scimPhoto : photos) {
+                replacement.add(photoConverter.fromScim(scimPhoto));
+            }
+        }
+
+        MultiValuedAttributeDiff<PhotoEntity> diff = new MultiValuedAttributeDiff<>(
+                userEntity.getPhotos(), replacement);
+        for (PhotoEntity photoEntity : diff.getRemoved()) {
+            userEntity.removePhoto(photoEntity);
+        }
+        for (PhotoEntity photoEntity : diff.getAdded()) {
+            userEntity.addPhoto(photoEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newPhoto is set to primary the primary attribute of all existing photo's in the {@link UserEntity}
      * will be removed
@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,34 @@ class RoleUpdater {
         }
     }
 
+    /**
+     * replaces the {@link RoleEntity}'s of the given {@link UserEntity} with the given List of {@link Role}. The
+     * roles that are part of both are kept, so they cause no SQL.
+     *
+     * @param roles
+     *        list of {@link Role} that replace the current roles, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the roles of the user changed
+     */
+    boolean replace(List<Role> roles, UserEntity userEntity) {
+        Set<RoleEntity> replacement = new HashSet<>();
+        if (roles != null) {
+            for (Role scimRole : roles) {
+                replacement.add(roleConverter.fromScim(scimRole));
+            }
+        }
+
+        MultiValuedAttributeDiff<RoleEntity> diff = new MultiValuedAttributeDiff<>(userEntity.getRoles(), replacement);
+        for (RoleEntity roleEntity : diff.getRemoved()) {
+            userEntity.removeRole(roleEntity);
+        }
+        for (RoleEntity roleEntity : diff.getAdded()) {
+            userEntity.addRole(roleEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newRole is set to primary the primary attribute of all existing role's in the {@link UserEntity}
      * will be removed
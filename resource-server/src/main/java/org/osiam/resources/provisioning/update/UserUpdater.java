@@ -24,6 +24,7 @@
 package org.osiam.resources.provisioning.update;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -123,6 +124,63 @@ public class UserUpdater {
         extensionUpdater.update(user.getExtensions(), userEntity, attributes);
     }
 
+    /**
+     * replaces the attributes of the {@link UserEntity} with the ones of the given {@link User}. Only the attributes
+     * that differ are changed, so unchanged attributes don't cause any SQL on flush. The group memberships are not
+     * touched.
+     *
+     * @param user
+     *            {@link User} with all fields of the replaced user
+     * @param userEntity
+     *            entity that needs to be replaced
+     * @return true if any attribute of the user changed
+     */
+    public boolean replace(User user, UserEntity userEntity) {
+        boolean changed = false;
+
+        String externalId = Strings.emptyToNull(user.getExternalId()); // Due to uniqueness in databases
+        changed |= !Objects.equals(userEntity.getExternalId(), externalId);
+        userEntity.setExternalId(externalId);
+        changed |= !Objects.equals(userEntity.getUserName(), user.getUserName());
+        userEntity.setUserName(user.getUserName());
+        changed |= !Objects.equals(userEntity.getDisplayName(), user.getDisplayName());
+        userEntity.setDisplayName(user.getDisplayName());
+        changed |= !Objects.equals(userEntity.getNickName(), user.getNickName());
+        userEntity.setNickName(user.getNickName());
+        changed |= !Objects.equals(userEntity.getProfileUrl(), user.getProfileUrl());
+        userEntity.setProfileUrl(user.getProfileUrl());
+        changed |= !Objects.equals(userEntity.getTitle(), user.getTitle());
+        userEntity.setTitle(user.getTitle());
+        changed |= !Objects.equals(userEntity.getUserType(), user.getUserType());
+        userEntity.setUserType(user.getUserType());
+        changed |= !Objects.equals(userEntity.getPreferredLanguage(), user.getPreferredLanguage());
+        userEntity.setPreferredLanguage(user.getPreferredLanguage());
+        changed |= !Objects.equals(userEntity.getLocale(), user.getLocale());
+        userEntity.setLocale(user.getLocale());
+        changed |= !Objects.equals(userEntity.getTimezone(), user.getTimezone());
+        userEntity.setTimezone(user.getTimezone());
+        changed |= !Objects.equals(userEntity.getActive(), user.isActive());
+        userEntity.setActive(user.isActive());
+
+        if (!Strings.isNullOrEmpty(user.getPassword())) {
+            String hashedPassword = passwordEncoder.encodePassword(user.getPassword(), userEntity.getId());
+            changed |= !hashedPassword.equals(userEntity.getPassword());
+            userEntity.setPassword(hashedPassword);
+        }
+
+        changed |= nameUpdater.replace(user.getName(), userEntity);
+        changed |= emailUpdater.replace(user.getEmails(), userEntity);
+        changed |= phoneNumberUpdater.replace(user.getPhoneNumbers(), userEntity);
+        changed |= imUpdater.replace(user.getIms(), userEntity);
+        changed |= photoUpdater.replace(user.getPhotos(), userEntity);
+        changed |= addressUpdater.replace(user.getAddresses(), userEntity);
+        changed |= entitlementUpdater.replace(user.getEntitlements(), userEntity);
+        changed |= roleUpdater.replace(user.getRoles(), userEntity);
+        changed |= x509CertificateUpdater.replace(user.getX509Certificates(), userEntity);
+        changed |= extensionUpdater.replace(user.getExtensions(), userEntity);
+        return changed;
+    }
+
     private void updateUserName(User user, UserEntity userEntity, Set<String> attributes) {
         if (attributes.contains("userName")) {
             throw new OsiamException("Attribute 'userName' cannot be deleted.");
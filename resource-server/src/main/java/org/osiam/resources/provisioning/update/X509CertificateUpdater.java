@@ -23,6 +23,7 @@
 
 package org.osiam.resources.provisioning.update;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,35 @@ class X509CertificateUpdater {
         }
     }
 
+    /**
+     * replaces the {@link X509CertificateEntity}'s of the given {@link UserEntity} with the given List of {@link X509Certificate}. The
+     * x509 certificates that are part of both are kept, so they cause no SQL.
+     *
+     * @param x509Certificates
+     *        list of {@link X509Certificate} that replace the current x509 certificates, may be null
+     * @param userEntity
+     *        user who needs to be updated
+     * @return true if the x509 certificates of the user changed
+     */
+    boolean replace(List<X509Certificate> x509Certificates, UserEntity userEntity) {
+        Set<X509CertificateEntity> replacement = new HashSet<>();
+        if (x509Certificates != null) {
+            for (X509Certificate scimX509Certificate : x509Certificates) {
+                replacement.add(x509CertificateConverter.fromScim(scimX509Certificate));
+            }
+        }
+
+        MultiValuedAttributeDiff<X509CertificateEntity> diff = new MultiValuedAttributeDiff<>(
+                userEntity.getX509Certificates(), replacement);
+        for (X509CertificateEntity x509CertificateEntity : diff.getRemoved()) {
+            userEntity.removeX509Certificate(x509CertificateEntity);
+        }
+        for (X509CertificateEntity x509CertificateEntity : diff.getAdded()) {
+            userEntity.addX509Certificate(x509CertificateEntity);
+        }
+        return diff.isChanged();
+    }
+
     /**
      * if the given newX509Certificate is set to primary the primary attribute of all existing x509Certificate's in the
      * {@link UserEntity} will be removed
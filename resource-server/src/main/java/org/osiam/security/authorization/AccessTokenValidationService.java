@@ -23,14 +23,23 @@
 
 package org.osiam.security.authorization;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
-import org.osiam.client.OsiamConnector;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.BasicResponseHandler;
 import org.osiam.client.oauth.AccessToken;
 import org.osiam.client.oauth.Scope;
+import org.osiam.metrics.CacheGaugeSet;
 import org.osiam.resources.scim.User;
+import org.osiam.security.helper.OsiamHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -43,12 +52,62 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.stereotype.Service;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Validates access tokens against the auth-server and keeps the result of a successful validation in a bounded
+ * in-process cache, keyed by the token. A cached entry is never used beyond the expiration date of its token. It is
+ * evicted when the auth-server pushes the revocation of the token to this node, and it is not used anymore once the
+ * token is on the revocation list pulled by the {@link SignedAccessTokenVerifier}. If the pull fails, a revoked token
+ * is accepted until its entry expires after max-age-seconds. Signed access tokens are validated locally by the
+ * {@link SignedAccessTokenVerifier}.
+ */
 @Service
 public class AccessTokenValidationService implements ResourceServerTokenServices {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     @Value("${org.osiam.auth-server.home}")
     private String authServerHome;
 
+    @Value("${org.osiam.resource-server.token-cache.enabled:true}")
+    private boolean cacheEnabled = true;
+
+    @Value("${org.osiam.resource-server.token-cache.max-size:10000}")
+    private long cacheMaxSize = 10000;
+
+    @Value("${org.osiam.resource-server.token-cache.max-age-seconds:60}")
+    private long cacheMaxAgeSeconds = 60;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private OsiamHttpClient httpClient;
+
+    @Inject
+    private SignedAccessTokenVerifier signedAccessTokenVerifier;
+
+    private Cache<String, AccessToken> accessTokenCache;
+
+    private Counter cacheRevocations;
+
+    @PostConstruct
+    private void createAccessTokenCache() {
+        accessTokenCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheMaxAgeSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        metricRegistry.register(MetricRegistry.name(getClass(), "cache"), new CacheGaugeSet(accessTokenCache));
+        cacheRevocations = metricRegistry.counter(MetricRegistry.name(getClass(), "cache", "revocations"));
+    }
+
     @Override
     public OAuth2Authentication loadAuthentication(String token) {
         AccessToken accessToken = validateAccessToken(token);
@@ -91,21 +150,62 @@ public class AccessTokenValidationService implements ResourceServerTokenServices
         return oAuth2AccessToken;
     }
 
+    /**
+     * Removes the given token from the validation cache, so that the next request carrying it is validated against
+     * the auth-server again. A signed token is put on the revocation list instead. Called when the auth-server reports
+     * the token as revoked.
+     *
+     * @param token
+     *            the revoked access token
+     */
+    public void evictAccessToken(String token) {
+        if (signedAccessTokenVerifier.isSignedToken(token)) {
+            signedAccessTokenVerifier.revoke(token);
+        } else {
+            accessTokenCache.invalidate(token);
+        }
+        cacheRevocations.inc();
+    }
+
     private AccessToken validateAccessToken(String token) {
-        OsiamConnector connector = createConnector();
+        if (signedAccessTokenVerifier.isSignedToken(token)) {
+            return signedAccessTokenVerifier.verify(token);
+        }
+        if (!cacheEnabled) {
+            return validateAccessTokenAtAuthServer(token);
+        }
 
-        AccessToken accessToken = null;
-        try {
-            accessToken = connector.validateAccessToken(new AccessToken.Builder(token).build());
-        } catch (Exception e) {
-            throw new InvalidTokenException("Your token is not valid");
+        AccessToken accessToken = accessTokenCache.getIfPresent(token);
+        if (accessToken != null) {
+            // the revocation may have been pushed to another node only
+            if (!isExpired(accessToken) && !signedAccessTokenVerifier.isRevoked(token)) {
+                return accessToken;
+            }
+            accessTokenCache.invalidate(token);
+        }
+
+        accessToken = validateAccessTokenAtAuthServer(token);
+        if (!isExpired(accessToken)) {
+            accessTokenCache.put(token, accessToken);
         }
         return accessToken;
     }
 
-    private OsiamConnector createConnector() {
-        OsiamConnector.Builder oConBuilder = new OsiamConnector.Builder().
-                setAuthServerEndpoint(authServerHome);
-        return oConBuilder.build();
+    private boolean isExpired(AccessToken accessToken) {
+        Date expiresAt = accessToken.getExpiresAt();
+        return expiresAt == null || !expiresAt.after(new Date());
+    }
+
+    private AccessToken validateAccessTokenAtAuthServer(String token) {
+        HttpPost request = new HttpPost(authServerHome + "/token/validation");
+        request.setHeader("Authorization", "Bearer " + token);
+        request.setHeader("Accept", "application/json");
+
+        try {
+            String content = httpClient.execute(request, new BasicResponseHandler());
+            return MAPPER.readValue(content, AccessToken.class);
+        } catch (IOException e) {
+            throw new InvalidTokenException("Your token is not valid", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.authorization;
+
+import java.util.Collection;
+
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+/**
+ * Grants access to resources configured with {@value #AUTH_SERVER_CLIENT} only to requests whose access token was
+ * issued to the client of the auth-server, all other requests are denied. Used for the endpoints that only the
+ * auth-server calls, independent of the scopes of the token.
+ */
+public class AuthServerClientVoter implements AccessDecisionVoter<Object> {
+
+    public static final String AUTH_SERVER_CLIENT = "AUTH_SERVER_CLIENT";
+
+    public static final String AUTH_SERVER_CLIENT_ID = "auth-server";
+
+    @Override
+    public boolean supports(final ConfigAttribute attribute) {
+        return AUTH_SERVER_CLIENT.equals(attribute.getAttribute());
+    }
+
+    @Override
+    public boolean supports(final Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public int vote(final Authentication authentication, final Object object,
+            final Collection<ConfigAttribute> attributes) {
+        for (ConfigAttribute attribute : attributes) {
+            if (supports(attribute)) {
+                return isAuthServerClient(authentication) ? ACCESS_GRANTED : ACCESS_DENIED;
+            }
+        }
+        return ACCESS_ABSTAIN;
+    }
+
+    private boolean isAuthServerClient(Authentication authentication) {
+        if (!(authentication instanceof OAuth2Authentication)) {
+            return false;
+        }
+        OAuth2Authentication oAuth2Authentication = (OAuth2Authentication) authentication;
+        return AUTH_SERVER_CLIENT_ID.equals(oAuth2Authentication.getAuthorizationRequest().getClientId());
+    }
+}
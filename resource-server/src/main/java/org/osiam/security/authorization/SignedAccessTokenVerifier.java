@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.authorization;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Inject;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.BasicResponseHandler;
+import org.osiam.client.oauth.AccessToken;
+import org.osiam.client.oauth.Scope;
+import org.osiam.security.helper.AccessTokenKey;
+import org.osiam.security.helper.OsiamHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+
+/**
+ * Validates the self-contained access tokens signed by the auth-server with the shared secret, without a call to the
+ * auth-server. Tokens revoked before their expiration are kept in a revocation list until they expire. The list is
+ * pulled from the auth-server at startup and periodically; a revocation pushed by the auth-server is added at once.
+ * The list also holds revoked opaque tokens, so the {@link AccessTokenValidationService} of every node stops using a
+ * cached validation of a revoked token after the next pull, not only the node that received the push.
+ */
+@Service
+public class SignedAccessTokenVerifier {
+
+    private static final Logger LOGGER = Logger.getLogger(SignedAccessTokenVerifier.class.getName());
+
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    private static final TypeReference<Map<String, Long>> REVOCATIONS_TYPE = new TypeReference<Map<String, Long>>() {
+    };
+
+    @Value("${org.osiam.auth-server.home}")
+    private String authServerHome;
+
+    @Value("${org.osiam.resource-server.signed-tokens.enabled:false}")
+    private boolean enabled;
+
+    @Value("${org.osiam.resource-server.signed-tokens.secret:}")
+    private String secret;
+
+    @Value("${org.osiam.resource-server.token-cache.enabled:true}")
+    private boolean tokenCacheEnabled = true;
+
+    @Inject
+    private OsiamHttpClient httpClient;
+
+    private SecretKeySpec signingKey;
+
+    /**
+     * The keys of the revoked tokens (see {@link AccessTokenKey}) mapped to their expiration.
+     */
+    private final Map<String, Date> revokedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    private void createSigningKey() {
+        if (!enabled) {
+            return;
+        }
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalStateException(
+                    "Signed access tokens are enabled, but org.osiam.resource-server.signed-tokens.secret is not set");
+        }
+        signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM);
+    }
+
+    /**
+     * @return true if signed tokens are enabled and the given token has the format of a signed token
+     */
+    public boolean isSignedToken(String token) {
+        return enabled && token.indexOf('.') > 0;
+    }
+
+    /**
+     * Checks the signature, the expiration and the revocation list for the given signed token.
+     *
+     * @param token
+     *            the signed access token
+     * @return the content of the token
+     * @throws InvalidTokenException
+     *             if the token is not valid
+     */
+    public AccessToken verify(String token) {
+        AccessToken accessToken = readVerifiedToken(token);
+        if (accessToken.isExpired()) {
+            throw new InvalidTokenException("Your token is expired");
+        }
+        if (isRevoked(token)) {
+            throw new InvalidTokenException("Your token is revoked");
+        }
+        return accessToken;
+    }
+
+    /**
+     * @return true if the given signed or opaque token is on the revocation list
+     */
+    public boolean isRevoked(String token) {
+        return revokedTokens.containsKey(AccessTokenKey.of(token));
+    }
+
+    /**
+     * Puts the given signed token on the revocation list, where it stays until its expiration. Called when the
+     * auth-server pushes a revocation, so the token is rejected before the next pull of the revocation list. Tokens
+     * with an invalid signature are ignored, as they never pass the validation anyway.
+     *
+     * @param token
+     *            the revoked signed access token
+     */
+    public void revoke(String token) {
+        purgeExpiredRevocations();
+
+        AccessToken accessToken;
+        try {
+            accessToken = readVerifiedToken(token);
+        } catch (InvalidTokenException e) {
+            return;
+        }
+        if (!accessToken.isExpired()) {
+            revokedTokens.put(AccessTokenKey.of(token), accessToken.getExpiresAt());
+        }
+    }
+
+    /**
+     * Pulls the revocation list of the auth-server and adds its entries to the local one. Runs once the context is
+     * started and then periodically, so every node learns about all revocations even if it missed the push of the
+     * auth-server or was restarted. A failed pull is logged and repeated with the next run. Nothing is pulled if
+     * neither signed tokens nor the token cache are enabled.
+     */
+    @Scheduled(fixedDelayString = "${org.osiam.resource-server.signed-tokens.revocation-refresh-interval-millis:10000}")
+    public void refreshRevokedTokens() {
+        if (!enabled && !tokenCacheEnabled) {
+            return;
+        }
+
+        HttpGet request = new HttpGet(authServerHome + "/token/revocations");
+        request.setHeader("Accept", "application/json");
+
+        Map<String, Long> revocations;
+        try {
+            revocations = MAPPER.readValue(httpClient.execute(request, new BasicResponseHandler()),
+                    REVOCATIONS_TYPE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to pull the revocation list of the auth-server", e);
+            return;
+        }
+
+        for (Map.Entry<String, Long> revocation : revocations.entrySet()) {
+            revokedTokens.put(revocation.getKey(), new Date(revocation.getValue()));
+        }
+        purgeExpiredRevocations();
+    }
+
+    private void purgeExpiredRevocations() {
+        Date now = new Date();
+        Iterator<Date> expirations = revokedTokens.values().iterator();
+        while (expirations.hasNext()) {
+            if (!expirations.next().after(now)) {
+                expirations.remove();
+            }
+        }
+    }
+
+    private AccessToken readVerifiedToken(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0) {
+            throw new InvalidTokenException("Your token is not valid");
+        }
+        String payload = token.substring(0, separator);
+        byte[] signature = Base64.decodeBase64(token.substring(separator + 1));
+
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(signingKey);
+            if (!MessageDigest.isEqual(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)), signature)) {
+                throw new InvalidTokenException("Your token is not valid");
+            }
+
+            Map<String, Object> content = MAPPER.readValue(Base64.decodeBase64(payload), PAYLOAD_TYPE);
+            return toAccessToken(content, token);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new InvalidTokenException("Your token is not valid", e);
+        }
+    }
+
+    private AccessToken toAccessToken(Map<String, Object> content, String token) {
+        if (!(content.get("expires_at") instanceof Number)) {
+            throw new InvalidTokenException("Your token is not valid");
+        }
+
+        AccessToken.Builder tokenBuilder = new AccessToken.Builder(token)
+                .setClientId((String) content.get("client_id"))
+                .setUserName((String) content.get("user_name"))
+                .setUserId((String) content.get("user_id"))
+                .setExpiresAt(new Date(((Number) content.get("expires_at")).longValue()));
+
+        String scopes = (String) content.get("scope");
+        if (scopes != null) {
+            for (String scope : Splitter.on(' ').omitEmptyStrings().split(scopes)) {
+                tokenBuilder.addScope(new Scope(scope));
+            }
+        }
+        return tokenBuilder.build();
+    }
+}
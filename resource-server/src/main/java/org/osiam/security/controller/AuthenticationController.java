@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.osiam.resources.converter.RoleConverter;
+import org.osiam.resources.exceptions.ResourceNotFoundException;
+import org.osiam.resources.scim.Role;
+import org.osiam.resources.scim.User;
+import org.osiam.storage.dao.UserDao;
+import org.osiam.storage.entities.RoleEntity;
+import org.osiam.storage.entities.UserEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.encoding.PasswordEncoder;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * This Controller is used by the auth-server to check the credentials of a user at login. The password is verified
+ * against the stored hash with a single lookup of the user by its userName. Only the client of the auth-server is
+ * allowed to call it, see {@link org.osiam.security.authorization.AuthServerClientVoter}, so other clients cannot
+ * bypass the login of the auth-server to test passwords.
+ */
+@Controller
+@RequestMapping(value = "/authentication")
+@Transactional
+public class AuthenticationController {
+
+    @Inject
+    private UserDao userDao;
+
+    @Inject
+    private PasswordEncoder passwordEncoder;
+
+    @Inject
+    private RoleConverter roleConverter;
+
+    /**
+     * Checks the given credentials.
+     *
+     * @return a user containing only the id, the userName and the roles, or the status 404 (NOT FOUND), if there is
+     *         no active user with the given userName and password
+     */
+    @RequestMapping(value = "/credentials", method = RequestMethod.POST)
+    public ResponseEntity<User> checkCredentials(@RequestParam("userName") final String userName,
+            @RequestParam("password") final String password) {
+        UserEntity userEntity;
+        try {
+            userEntity = userDao.getByUsername(userName);
+        } catch (ResourceNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        if (!Boolean.TRUE.equals(userEntity.getActive())
+                || !passwordEncoder.isPasswordValid(userEntity.getPassword(), password, userEntity.getId())) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        List<Role> roles = new ArrayList<>();
+        for (RoleEntity roleEntity : userEntity.getRoles()) {
+            roles.add(roleConverter.toScim(roleEntity));
+        }
+
+        User user = new User.Builder(userEntity.getUserName())
+                .setId(userEntity.getId().toString())
+                .addRoles(roles)
+                .build();
+        return new ResponseEntity<>(user, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.controller;
+
+import javax.inject.Inject;
+
+import org.osiam.security.authorization.AccessTokenValidationService;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * This Controller is used by the auth-server to report revoked access tokens, so they are removed from the token
+ * validation cache. Only the client of the auth-server is allowed to call it, see {@link
+ * org.osiam.security.authorization.AuthServerClientVoter}.
+ */
+@Controller
+@RequestMapping(value = "/token")
+public class TokenController {
+
+    @Inject
+    private AccessTokenValidationService accessTokenValidationService;
+
+    @RequestMapping(value = "/revocation", method = RequestMethod.POST)
+    @ResponseBody
+    public void tokenRevocation(@RequestParam("token") final String token) {
+        accessTokenValidationService.evictAccessToken(token);
+    }
+}
@@ -22,9 +22,7 @@
  */
 
 /**
- *  org.osiam.storage.helper is a group of classes which do either enforce the correct data base behaviour or
- *  help doing the storage.
- *
- *
+ * org.osiam.security.controller is a group of classes which do generate the http api on deployment for security
+ * related purposes.
  */
-package org.osiam.storage.helper;
\ No newline at end of file
+package org.osiam.security.controller;
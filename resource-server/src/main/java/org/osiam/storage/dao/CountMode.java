@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.dao;
+
+import java.util.Locale;
+
+/**
+ * Defines how the totalResults of a search are determined.
+ */
+public enum CountMode {
+
+    /**
+     * Count all matching resources.
+     */
+    EXACT,
+
+    /**
+     * Count the matching resources up to a configured limit. A total equal to the limit is a lower bound.
+     */
+    CAPPED,
+
+    /**
+     * Use the row estimate of the database statistics. The estimate counts all resources of the type, so it is only
+     * used for searches without a filter and on PostgreSQL. Otherwise the resources are counted {@link #CAPPED}.
+     */
+    ESTIMATED,
+
+    /**
+     * Don't count at all. The total is the number of resources up to the end of the returned page.
+     */
+    NONE;
+
+    /**
+     * @return the mode with the given name, {@link #EXACT} if the name is null
+     * @throws IllegalArgumentException
+     *         if there is no mode with the given name
+     */
+    public static CountMode fromString(String name) {
+        if (name == null) {
+            return EXACT;
+        }
+        try {
+            return valueOf(name.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported countMode '" + name
+                    + "', allowed are exact, capped, estimated and none", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.dao;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.osiam.resources.exceptions.NoSuchElementException;
+import org.osiam.resources.exceptions.OsiamException;
+import org.osiam.storage.entities.ExtensionEntity;
+import org.osiam.storage.entities.ExtensionFieldEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Keeps all extensions and their fields in memory, so extension handling does not query the schema. The registry is
+ * loaded at startup and reloaded when it is older than
+ * <code>org.osiam.resource-server.extension-registry.refresh-interval-seconds</code>. Every load builds a new
+ * immutable {@link Snapshot} that replaces the former one, readers never block. The entities are detached and must
+ * not be modified.
+ */
+@Repository
+public class ExtensionRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(ExtensionRegistry.class.getName());
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Value("${org.osiam.resource-server.extension-registry.refresh-interval-seconds:60}")
+    private long refreshIntervalSeconds = 60;
+
+    private final Lock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = new Snapshot(ImmutableMap.<String, ExtensionEntity> of(), System.nanoTime());
+
+    @PostConstruct
+    private void loadExtensions() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not load the extensions, they are loaded on first use", e);
+        }
+    }
+
+    /**
+     * Returns the extension with the given URN. The URN is case-sensitive.
+     *
+     * @param urn
+     *        The URN of the extension to look up
+     * @return the extension entity
+     * @throws OsiamException
+     *         if there is no extension with the given URN
+     */
+    public ExtensionEntity getExtension(String urn) {
+        return getExtension(urn, false);
+    }
+
+    /**
+     * Returns the extension with the given URN.
+     *
+     * @param urn
+     *        the URN of the extension to look up
+     * @param caseInsensitive
+     *        should the case of the URN be ignored
+     * @return the extension entity
+     * @throws OsiamException
+     *         if there is no extension with the given URN
+     */
+    public ExtensionEntity getExtension(String urn, boolean caseInsensitive) {
+        Snapshot current = getSnapshot();
+        ExtensionEntity extension = caseInsensitive
+                ? current.extensionsByLowerCaseUrn.get(urn.toLowerCase(Locale.ENGLISH))
+                : current.extensionsByUrn.get(urn);
+        if (extension == null) {
+            throw new OsiamException("Could not find the Extension '" + urn + "'.");
+        }
+        return extension;
+    }
+
+    /**
+     * Returns the field with the given name of an extension.
+     *
+     * @param extension
+     *        the extension
+     * @param fieldName
+     *        the name of the field
+     * @param caseInsensitive
+     *        should the case of the name be ignored
+     * @return the field entity
+     * @throws NoSuchElementException
+     *         if the extension has no field with the given name
+     */
+    public ExtensionFieldEntity getField(ExtensionEntity extension, String fieldName, boolean caseInsensitive) {
+        Snapshot current = getSnapshot();
+        Map<String, ExtensionFieldEntity> fields = caseInsensitive
+                ? current.fieldsByLowerCaseName.get(extension.getUrn())
+                : current.fieldsByName.get(extension.getUrn());
+        if (fields == null) {
+            return extension.getFieldForName(fieldName, caseInsensitive);
+        }
+        ExtensionFieldEntity field = fields.get(caseInsensitive ? fieldName.toLowerCase(Locale.ENGLISH) : fieldName);
+        if (field == null) {
+            throw new NoSuchElementException("Field " + fieldName + " not available in extension with URN "
+                    + extension.getUrn());
+        }
+        return field;
+    }
+
+    /**
+     * Reloads all extensions and their fields from the database.
+     */
+    public void refresh() {
+        EntityManager loadingEm = em.getEntityManagerFactory().createEntityManager();
+        try {
+            List<ExtensionEntity> extensions = loadingEm.createQuery(
+                    "select distinct e from ExtensionEntity e left join fetch e.fields", ExtensionEntity.class)
+                    .getResultList();
+
+            ImmutableMap.Builder<String, ExtensionEntity> extensionsByUrn = ImmutableMap.builder();
+            for (ExtensionEntity extension : extensions) {
+                extensionsByUrn.put(extension.getUrn(), extension);
+            }
+            snapshot = new Snapshot(extensionsByUrn.build(),
+                    System.nanoTime() + TimeUnit.SECONDS.toNanos(refreshIntervalSeconds));
+        } finally {
+            loadingEm.close();
+        }
+    }
+
+    /**
+     * Returns the current snapshot. An expired snapshot is reloaded by the first caller, the others keep using it
+     * meanwhile, as do all callers if the reload fails.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (System.nanoTime() - current.expiresAt < 0 || !refreshLock.tryLock()) {
+            return current;
+        }
+        try {
+            if (current == snapshot) {
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not reload the extensions", e);
+        } finally {
+            refreshLock.unlock();
+        }
+        return snapshot;
+    }
+
+    /**
+     * The extensions and their fields at one point in time, keyed by the exact and the lower-cased URN and field name.
+     */
+    private static final class Snapshot {
+
+        private final Map<String, ExtensionEntity> extensionsByUrn;
+        private final Map<String, ExtensionEntity> extensionsByLowerCaseUrn;
+        private final Map<String, Map<String, ExtensionFieldEntity>> fieldsByName;
+        private final Map<String, Map<String, ExtensionFieldEntity>> fieldsByLowerCaseName;
+        private final long expiresAt;
+
+        private Snapshot(ImmutableMap<String, ExtensionEntity> extensionsByUrn, long expiresAt) {
+            Map<String, ExtensionEntity> byLowerCaseUrn = new HashMap<>();
+            ImmutableMap.Builder<String, Map<String, ExtensionFieldEntity>> byName = ImmutableMap.builder();
+            ImmutableMap.Builder<String, Map<String, ExtensionFieldEntity>> byLowerCaseName = ImmutableMap.builder();
+
+            for (ExtensionEntity extension : extensionsByUrn.values()) {
+                putIfAbsent(byLowerCaseUrn, extension.getUrn().toLowerCase(Locale.ENGLISH), extension);
+
+                Map<String, ExtensionFieldEntity> fields = new HashMap<>();
+                Map<String, ExtensionFieldEntity> lowerCaseFields = new HashMap<>();
+                for (ExtensionFieldEntity field : extension.getFields()) {
+                    fields.put(field.getName(), field);
+                    putIfAbsent(lowerCaseFields, field.getName().toLowerCase(Locale.ENGLISH), field);
+                }
+                byName.put(extension.getUrn(), ImmutableMap.copyOf(fields));
+                byLowerCaseName.put(extension.getUrn(), ImmutableMap.copyOf(lowerCaseFields));
+            }
+
+            this.extensionsByUrn = extensionsByUrn;
+            this.extensionsByLowerCaseUrn = ImmutableMap.copyOf(byLowerCaseUrn);
+            this.fieldsByName = byName.build();
+            this.fieldsByLowerCaseName = byLowerCaseName.build();
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Names that only differ in case are ambiguous, the first one wins.
+         */
+        private static <V> void putIfAbsent(Map<String, V> map, String key, V value) {
+            if (!map.containsKey(key)) {
+                map.put(key, value);
+            }
+        }
+    }
+}
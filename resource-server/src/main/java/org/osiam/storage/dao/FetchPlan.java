@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes which associations of a resource are loaded together with it, so that converting the resource to SCIM
+ * doesn't cause a lazy load per resource and association.
+ * <p/>
+ * Single-valued associations are join fetched by the query that selects the resources. Collections are loaded for all
+ * selected resources with one query per collection. A collection may be given as a path like
+ * <code>members.meta</code> to also fetch single-valued associations of its elements.
+ */
+public class FetchPlan {
+
+    /**
+     * A plan that loads nothing up front and leaves everything to lazy loading.
+     */
+    public static final FetchPlan NONE = new FetchPlan(Collections.<String> emptyList(),
+            Collections.<String> emptyList());
+
+    private final List<String> joins;
+    private final List<String> collections;
+
+    public FetchPlan(List<String> joins, List<String> collections) {
+        this.joins = Collections.unmodifiableList(joins);
+        this.collections = Collections.unmodifiableList(collections);
+    }
+
+    /**
+     * @return the single-valued associations to join fetch
+     */
+    public List<String> getJoins() {
+        return joins;
+    }
+
+    /**
+     * @return the paths of the collections to load for all resources at once
+     */
+    public List<String> getCollections() {
+        return collections;
+    }
+}
@@ -32,9 +32,16 @@ public interface GenericDao<T extends ResourceEntity> {
 
     T getById(String id);
 
+    String getETag(String id);
+
     T update(T entity);
 
     void delete(String id);
 
-    SearchResult<T> search(ParseTree filterTree, String sortBy, String sortOrder, int count, int startIndex);
+    void delete(String id, String ifMatch);
+
+    SearchResult<T> search(ParseTree filterTree, String sortBy, String sortOrder, int count, int startIndex,
+            String cursor, CountMode countMode, RequestedAttributes attributes);
+
+    ResourceChunkIterator<T> export();
 }
\ No newline at end of file
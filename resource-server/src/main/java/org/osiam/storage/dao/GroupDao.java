@@ -23,6 +23,10 @@
 
 package org.osiam.storage.dao;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.antlr.v4.runtime.tree.ParseTree;
@@ -35,6 +39,11 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class GroupDao implements GenericDao<GroupEntity> {
 
+    /**
+     * Everything {@link org.osiam.resources.converter.GroupConverter} reads from a group.
+     */
+    static final FetchPlan FETCH_PLAN = new FetchPlan(Arrays.asList("meta"), Arrays.asList("members.meta"));
+
     @Inject
     private GroupFilterParser filterParser;
 
@@ -49,7 +58,16 @@ public class GroupDao implements GenericDao<GroupEntity> {
     @Override
     public GroupEntity getById(String id) {
         try {
-            return resourceDao.getById(id, GroupEntity.class);
+            return resourceDao.getById(id, GroupEntity.class, FETCH_PLAN);
+        } catch (ResourceNotFoundException rnfe) {
+            throw new ResourceNotFoundException(String.format("Group with id '%s' not found", id), rnfe);
+        }
+    }
+
+    @Override
+    public String getETag(String id) {
+        try {
+            return resourceDao.getETag(id, GroupEntity.class);
         } catch (ResourceNotFoundException rnfe) {
             throw new ResourceNotFoundException(String.format("Group with id '%s' not found", id), rnfe);
         }
@@ -106,8 +124,13 @@ public class GroupDao implements GenericDao<GroupEntity> {
 
     @Override
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    @Override
+    public void delete(String id, String ifMatch) {
         try {
-            resourceDao.delete(id);
+            resourceDao.delete(id, ifMatch);
         } catch (ResourceNotFoundException rnfe) {
             throw new ResourceNotFoundException(String.format("Group with id '%s' not found", id), rnfe);
         }
@@ -119,8 +142,30 @@ public class GroupDao implements GenericDao<GroupEntity> {
     }
 
     @Override
-    public SearchResult<GroupEntity> search(ParseTree filterTree, String sortBy, String sortOrder, int count, int startIndex) {
-        return resourceDao.search(GroupEntity.class, filterTree, count, startIndex, sortBy, sortOrder, filterParser);
+    public SearchResult<GroupEntity> search(ParseTree filterTree, String sortBy, String sortOrder, int count,
+            int startIndex, String cursor, CountMode countMode, RequestedAttributes attributes) {
+        return resourceDao.search(GroupEntity.class, filterTree, count, startIndex, sortBy, sortOrder, cursor, countMode,
+                createFetchPlan(attributes), filterParser);
+    }
+
+    @Override
+    public ResourceChunkIterator<GroupEntity> export() {
+        return resourceDao.export(GroupEntity.class, FETCH_PLAN);
+    }
+
+    /**
+     * Restricts the {@link #FETCH_PLAN} to the requested attributes.
+     */
+    static FetchPlan createFetchPlan(RequestedAttributes attributes) {
+        if (attributes.isAll()) {
+            return FETCH_PLAN;
+        }
+
+        List<String> joins = attributes.contains("meta") ? FETCH_PLAN.getJoins() : Collections.<String> emptyList();
+        List<String> collections = attributes.contains("members") ? FETCH_PLAN.getCollections()
+                : Collections.<String> emptyList();
+
+        return new FetchPlan(joins, collections);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.dao;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.osiam.resources.scim.Constants;
+
+/**
+ * The top-level attributes a client asked for with the <code>attributes</code> parameter. Attributes that were not
+ * requested don't need to be loaded from the database nor converted. If no attributes were requested, all of them are.
+ */
+public final class RequestedAttributes {
+
+    /**
+     * Selects all attributes.
+     */
+    public static final RequestedAttributes ALL = new RequestedAttributes(Collections.<String> emptySet());
+
+    private static final Set<String> CORE_SCHEMAS = new HashSet<>();
+
+    static {
+        CORE_SCHEMAS.add(Constants.USER_CORE_SCHEMA.toLowerCase(Locale.ENGLISH));
+        CORE_SCHEMAS.add(Constants.GROUP_CORE_SCHEMA.toLowerCase(Locale.ENGLISH));
+    }
+
+    private final Set<String> attributes;
+
+    private RequestedAttributes(Set<String> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * Parses the value of the <code>attributes</code> parameter, e.g. <code>userName,name.givenName,emails</code>. Sub
+     * attributes select their parent attribute, values containing a colon are taken as schema URNs.
+     *
+     * @param attributesParameter
+     *        the comma separated attributes or null
+     * @return the requested attributes, {@link #ALL} if none are given
+     */
+    public static RequestedAttributes fromParameter(String attributesParameter) {
+        if (attributesParameter == null) {
+            return ALL;
+        }
+
+        Set<String> attributes = new HashSet<>();
+        for (String attribute : attributesParameter.split("[,|]")) {
+            String trimmed = attribute.trim().toLowerCase(Locale.ENGLISH);
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int subAttributeIndex = trimmed.indexOf('.');
+            if (trimmed.indexOf(':') == -1 && subAttributeIndex != -1) {
+                trimmed = trimmed.substring(0, subAttributeIndex);
+            }
+            attributes.add(trimmed);
+        }
+
+        return attributes.isEmpty() ? ALL : new RequestedAttributes(Collections.unmodifiableSet(attributes));
+    }
+
+    public boolean isAll() {
+        return attributes.isEmpty();
+    }
+
+    /**
+     * @param attribute
+     *        the name of a top-level attribute, compared case insensitively
+     * @return true if the attribute was requested
+     */
+    public boolean contains(String attribute) {
+        return isAll() || attributes.contains(attribute.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @return true if the schema of an extension was requested
+     */
+    public boolean containsExtension() {
+        if (isAll()) {
+            return true;
+        }
+        for (String attribute : attributes) {
+            if (attribute.indexOf(':') != -1 && !CORE_SCHEMAS.contains(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.dao;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.ScrollableResults;
+import org.osiam.storage.entities.ResourceEntity;
+
+/**
+ * Reads all resources of a type from a forward-only database cursor in chunks of a fixed size. The collections of
+ * each chunk are loaded according to the fetch plan. Before the next chunk is read, the persistence context is
+ * cleared, so the resources of the previous chunk become detached and can be garbage collected. A chunk must therefore
+ * be completely processed before {@link #hasNext()} is called again.
+ * <p/>
+ * The iterator has to be closed to release the cursor.
+ */
+public class ResourceChunkIterator<T extends ResourceEntity> implements Iterator<List<T>>, Closeable {
+
+    private final ScrollableResults results;
+    private final Class<T> clazz;
+    private final FetchPlan fetchPlan;
+    private final int chunkSize;
+    private final ResourceDao resourceDao;
+    private final EntityManager em;
+
+    private T next;
+    private boolean exhausted;
+
+    ResourceChunkIterator(ScrollableResults results, Class<T> clazz, FetchPlan fetchPlan, int chunkSize,
+            ResourceDao resourceDao, EntityManager em) {
+        this.results = results;
+        this.clazz = clazz;
+        this.fetchPlan = fetchPlan;
+        this.chunkSize = chunkSize;
+        this.resourceDao = resourceDao;
+        this.em = em;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            em.clear();
+            next = readRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        List<T> chunk = new ArrayList<>(chunkSize);
+        chunk.add(next);
+        next = null;
+
+        T resource;
+        while (chunk.size() < chunkSize && (resource = readRow()) != null) {
+            chunk.add(resource);
+        }
+
+        resourceDao.loadCollections(clazz, chunk, fetchPlan);
+        return chunk;
+    }
+
+    private T readRow() {
+        if (exhausted || !results.next()) {
+            exhausted = true;
+            return null;
+        }
+        return clazz.cast(results.get(0));
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        results.close();
+    }
+}
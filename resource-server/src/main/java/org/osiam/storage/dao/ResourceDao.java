@@ -23,6 +23,9 @@
 
 package org.osiam.storage.dao;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -30,23 +33,42 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+import javax.persistence.Table;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
 import javax.persistence.metamodel.SingularAttribute;
 
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.osiam.resources.exceptions.OsiamException;
 import org.osiam.resources.exceptions.ResourceNotFoundException;
 import org.osiam.storage.entities.GroupEntity;
+import org.osiam.storage.entities.MetaEntity;
+import org.osiam.storage.entities.MetaEntity_;
 import org.osiam.storage.entities.ResourceEntity;
 import org.osiam.storage.entities.ResourceEntity_;
+import org.osiam.storage.entities.UserEntity;
+import org.osiam.storage.query.FilterParameters;
 import org.osiam.storage.query.FilterParser;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -55,26 +77,44 @@ public class ResourceDao {
     @PersistenceContext
     private EntityManager em;
 
-    public <T extends ResourceEntity> SearchResult<T> search(Class<T> clazz, ParseTree filterTree, int count, int startIndex,
-            String sortBy, String sortOrder, FilterParser<T> filterParser) {
+    @Value("${org.osiam.resource-server.search.count-cap:10000}")
+    private int countCap;
+
+    @Value("${org.osiam.resource-server.export.chunk-size:500}")
+    private int exportChunkSize;
+
+    /**
+     * Searches the resources matching the given filter. Without a cursor, the page is selected with the given
+     * startIndex. With a cursor, the page starts right after the position described by the cursor and the result
+     * contains the cursor of the next page; an empty cursor requests the first page. Keyset pagination orders by
+     * the sort key and the internal id, relying on PostgreSQL's ordering of null values. The countMode defines how
+     * the totalResults are determined, the result tells which mode was actually used. The associations of the found
+     * resources are loaded according to the fetchPlan.
+     */
+    public <T extends ResourceEntity> SearchResult<T> search(Class<T> clazz, ParseTree filterTree, int count,
+            int startIndex, String sortBy, String sortOrder, String cursor, CountMode countMode, FetchPlan fetchPlan,
+            FilterParser<T> filterParser) {
+
+        if (cursor != null) {
+            return searchAfterCursor(clazz, filterTree, count, sortBy, sortOrder, cursor, countMode, fetchPlan,
+                    filterParser);
+        }
 
         CriteriaBuilder cb = em.getCriteriaBuilder();
 
         CriteriaQuery<T> resourceQuery = cb.createQuery(clazz);
         Root<T> resourceRoot = resourceQuery.from(clazz);
 
-        Subquery<Long> internalIdQuery = resourceQuery.subquery(Long.class);
-        Root<T> internalIdRoot = internalIdQuery.from(clazz);
-        internalIdQuery.select(internalIdRoot.get(ResourceEntity_.internalId));
+        resourceQuery.select(resourceRoot);
+        fetchJoins(resourceRoot, fetchPlan);
 
-        if (filterTree != null && filterTree.getChildCount() > 0) {
-            Predicate predicate = filterParser.createPredicateAndJoin(filterTree, internalIdRoot);
-            internalIdQuery.where(predicate);
+        FilterParameters filterParameters = new FilterParameters(cb);
+        Predicate filterPredicate = createFilterPredicate(resourceQuery, resourceRoot, clazz, filterTree, filterParser,
+                filterParameters);
+        if (filterPredicate != null) {
+            resourceQuery.where(filterPredicate);
         }
 
-        resourceQuery.select(resourceRoot).where(
-                cb.in(resourceRoot.get(ResourceEntity_.internalId)).value(internalIdQuery));
-
         // TODO: evaluate if a User-/GroupDao supplied default sortBy field is possible
         Expression<?> sortByField = resourceRoot.get(ResourceEntity_.id);
 
@@ -92,26 +132,364 @@ public class ResourceDao {
         resourceQuery.orderBy(order);
 
         TypedQuery<T> query = em.createQuery(resourceQuery);
+        filterParameters.bindTo(query);
         query.setFirstResult(startIndex);
         query.setMaxResults(count);
 
         List<T> results = query.getResultList();
+        loadCollections(clazz, results, fetchPlan);
+
+        return createSearchResult(clazz, filterTree, filterParser, countMode, results, startIndex + results.size(),
+                null);
+    }
+
+    private <T extends ResourceEntity> SearchResult<T> searchAfterCursor(Class<T> clazz, ParseTree filterTree,
+            int count, String sortBy, String sortOrder, String cursor, CountMode countMode, FetchPlan fetchPlan,
+            FilterParser<T> filterParser) {
+
+        boolean descending = sortOrder.equalsIgnoreCase("descending");
+        String cursorSortBy = sortBy != null && !sortBy.isEmpty() ? sortBy : null;
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+
+        CriteriaQuery<T> resourceQuery = cb.createQuery(clazz);
+        Root<T> resourceRoot = resourceQuery.from(clazz);
+        resourceQuery.select(resourceRoot);
+        fetchJoins(resourceRoot, fetchPlan);
+
+        Path<Long> internalId = resourceRoot.get(ResourceEntity_.internalId);
+
+        List<Predicate> predicates = new ArrayList<>();
+        FilterParameters filterParameters = new FilterParameters(cb);
+        Predicate filterPredicate = createFilterPredicate(resourceQuery, resourceRoot, clazz, filterTree, filterParser,
+                filterParameters);
+        if (filterPredicate != null) {
+            predicates.add(filterPredicate);
+        }
+
+        List<Order> orders = new ArrayList<>();
+        Expression<?> sortByField = null;
+        if (cursorSortBy != null) {
+            sortByField = filterParser.createSortByField(cursorSortBy, resourceRoot);
+            orders.add(descending ? cb.desc(sortByField) : cb.asc(sortByField));
+        }
+        orders.add(descending ? cb.desc(internalId) : cb.asc(internalId));
+
+        SearchCursor searchCursor = null;
+        ParameterExpression<Long> cursorInternalId = cb.parameter(Long.class);
+        if (!cursor.isEmpty()) {
+            searchCursor = SearchCursor.decode(cursor);
+            searchCursor.checkSorting(cursorSortBy, descending);
+            predicates.add(createAfterCursorPredicate(cb, sortByField, internalId, cursorInternalId, searchCursor));
+        }
+
+        resourceQuery.where(predicates.toArray(new Predicate[predicates.size()])).orderBy(orders);
+
+        TypedQuery<T> query = em.createQuery(resourceQuery);
+        filterParameters.bindTo(query);
+        if (searchCursor != null) {
+            query.setParameter(cursorInternalId, searchCursor.getInternalId());
+        }
+
+        // one more than requested tells if there is a next page
+        List<T> results = new ArrayList<>(query.setMaxResults(count + 1).getResultList());
+
+        String nextCursor = null;
+        if (count > 0 && results.size() > count) {
+            results.remove(count);
+            long lastInternalId = results.get(count - 1).getInternalId();
+            Object sortValue = cursorSortBy != null
+                    ? getSortValue(clazz, lastInternalId, cursorSortBy, filterParser)
+                    : null;
+            nextCursor = new SearchCursor(cursorSortBy, descending, sortValue, lastInternalId).encode();
+        }
+        loadCollections(clazz, results, fetchPlan);
+
+        return createSearchResult(clazz, filterTree, filterParser, countMode, results, results.size(), nextCursor);
+    }
+
+    /**
+     * Opens a forward-only database cursor over all resources of the given type, ordered by their internal id. The
+     * resources are returned in chunks whose associations are loaded according to the fetchPlan. The persistence
+     * context is cleared between chunks to keep the memory use independent of the number of resources. This requires
+     * an open transaction, otherwise the JDBC driver reads the whole result at once.
+     */
+    public <T extends ResourceEntity> ResourceChunkIterator<T> export(Class<T> clazz, FetchPlan fetchPlan) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+
+        CriteriaQuery<T> resourceQuery = cb.createQuery(clazz);
+        Root<T> resourceRoot = resourceQuery.from(clazz);
+        resourceQuery.select(resourceRoot);
+        fetchJoins(resourceRoot, fetchPlan);
+        resourceQuery.orderBy(cb.asc(resourceRoot.get(ResourceEntity_.internalId)));
+
+        ScrollableResults results = em.createQuery(resourceQuery).unwrap(org.hibernate.Query.class)
+                .setFetchSize(exportChunkSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        return new ResourceChunkIterator<>(results, clazz, fetchPlan, exportChunkSize, this, em);
+    }
+
+    private void fetchJoins(Root<?> root, FetchPlan fetchPlan) {
+        for (String join : fetchPlan.getJoins()) {
+            root.fetch(join, JoinType.LEFT);
+        }
+    }
+
+    /**
+     * Loads the collections of the fetch plan for all given resources, one query per collection. Collections that are
+     * already loaded are skipped. The internal ids are bound as a padded list parameter, see
+     * {@link #padToPowerOfTwo(List)}.
+     */
+    <T extends ResourceEntity> void loadCollections(Class<T> clazz, List<T> resources, FetchPlan fetchPlan) {
+        PersistenceUnitUtil persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+
+        for (String collection : fetchPlan.getCollections()) {
+            String[] path = collection.split("\\.");
+
+            List<Long> internalIds = new ArrayList<>();
+            for (T resource : resources) {
+                if (!persistenceUnitUtil.isLoaded(resource, path[0])) {
+                    internalIds.add(resource.getInternalId());
+                }
+            }
+            if (internalIds.isEmpty()) {
+                continue;
+            }
+
+            CriteriaQuery<T> collectionQuery = cb.createQuery(clazz);
+            Root<T> resourceRoot = collectionQuery.from(clazz);
+            Fetch<?, ?> fetch = resourceRoot.fetch(path[0], JoinType.LEFT);
+            for (int i = 1; i < path.length; i++) {
+                fetch = fetch.fetch(path[i], JoinType.LEFT);
+            }
+
+            @SuppressWarnings("rawtypes")
+            ParameterExpression<List> internalIdsParameter = cb.parameter(List.class);
+            collectionQuery.select(resourceRoot).where(
+                    resourceRoot.get(ResourceEntity_.internalId).in(internalIdsParameter));
+            em.createQuery(collectionQuery).setParameter(internalIdsParameter, padToPowerOfTwo(internalIds))
+                    .getResultList();
+        }
+    }
+
+    /**
+     * Pads the given ids to the next power of two by repeating the last one. Every size of an IN list is a query of
+     * its own for Hibernate's query plan cache and the prepared statement cache of the pool, this keeps their number
+     * logarithmic in the page size.
+     */
+    static List<Long> padToPowerOfTwo(List<Long> ids) {
+        if (ids.size() <= 1) {
+            return ids;
+        }
+        int paddedSize = Integer.highestOneBit(ids.size() - 1) << 1;
+        List<Long> paddedIds = new ArrayList<>(paddedSize);
+        paddedIds.addAll(ids);
+        Long lastId = ids.get(ids.size() - 1);
+        while (paddedIds.size() < paddedSize) {
+            paddedIds.add(lastId);
+        }
+        return paddedIds;
+    }
+
+    /**
+     * Reads the value of the sort key of a single resource. The value is queried instead of selected together with the
+     * page, because Hibernate selects the id attribute instead of the identifier when a tuple contains the resource.
+     */
+    private <T extends ResourceEntity> Object getSortValue(Class<T> clazz, long internalId, String sortBy,
+            FilterParser<T> filterParser) {
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object> sortValueQuery = cb.createQuery(Object.class);
+        Root<T> resourceRoot = sortValueQuery.from(clazz);
+
+        ParameterExpression<Long> internalIdParameter = cb.parameter(Long.class);
+        sortValueQuery.select(filterParser.createSortByField(sortBy, resourceRoot)).where(
+                cb.equal(resourceRoot.get(ResourceEntity_.internalId), internalIdParameter));
+
+        Object sortValue = em.createQuery(sortValueQuery).setParameter(internalIdParameter, internalId)
+                .getSingleResult();
+        if (sortValue instanceof Date) {
+            return new Date(((Date) sortValue).getTime());
+        }
+        return sortValue;
+    }
+
+    /**
+     * Creates the predicate of the filter for the given root. A filter on single-valued attributes is applied to the
+     * root directly. Joins of multi-valued attributes would multiply the rows of the root, so a filter that needs
+     * them is evaluated in a correlated EXISTS subquery instead. The values of the filter are collected in the
+     * parameters, which have to be bound to the query once it has been created.
+     *
+     * @return the predicate or null if there is nothing to filter
+     */
+    private <T extends ResourceEntity> Predicate createFilterPredicate(CommonAbstractCriteria query, Root<T> root,
+            Class<T> clazz, ParseTree filterTree, FilterParser<T> filterParser, FilterParameters parameters) {
+
+        if (filterTree == null || filterTree.getChildCount() == 0) {
+            return null;
+        }
+
+        if (!filterParser.joinsMultiValuedAttribute(filterTree)) {
+            return filterParser.createPredicateAndJoin(filterTree, query, root, parameters);
+        }
+
+        Subquery<Long> existsQuery = query.subquery(Long.class);
+        Root<T> existsRoot = existsQuery.from(clazz);
+        Predicate predicate = filterParser.createPredicateAndJoin(filterTree, existsQuery, existsRoot, parameters);
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        existsQuery.select(existsRoot.get(ResourceEntity_.internalId)).where(predicate,
+                cb.equal(existsRoot.get(ResourceEntity_.internalId), root.get(ResourceEntity_.internalId)));
+
+        return cb.exists(existsQuery);
+    }
+
+    /**
+     * Selects the resources after the cursor position in the order (sort key, internal id). PostgreSQL sorts null
+     * values last in ascending and first in descending order, so resources without a sort key form the end of an
+     * ascending and the beginning of a descending scan. The internal id of the cursor has to be bound to the given
+     * parameter.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate createAfterCursorPredicate(CriteriaBuilder cb, Expression<?> sortByField,
+            Path<Long> internalId, ParameterExpression<Long> cursorInternalId, SearchCursor cursor) {
+
+        boolean descending = cursor.isDescending();
+        Predicate afterInternalId = descending
+                ? cb.lessThan(internalId, cursorInternalId)
+                : cb.greaterThan(internalId, cursorInternalId);
+
+        if (sortByField == null) {
+            return afterInternalId;
+        }
+
+        Expression<Comparable> field = (Expression<Comparable>) sortByField;
+        Comparable value = (Comparable) cursor.getSortValue();
+
+        if (value == null) {
+            Predicate sameValue = cb.and(cb.isNull(field), afterInternalId);
+            return descending ? cb.or(sameValue, cb.isNotNull(field)) : sameValue;
+        }
+
+        Predicate sameValue = cb.and(cb.equal(field, value), afterInternalId);
+        if (descending) {
+            return cb.or(cb.lessThan(field, value), sameValue);
+        }
+        return cb.or(cb.greaterThan(field, value), sameValue, cb.isNull(field));
+    }
+
+    private <T extends ResourceEntity> SearchResult<T> createSearchResult(Class<T> clazz, ParseTree filterTree,
+            FilterParser<T> filterParser, CountMode countMode, List<T> results, long pageEnd, String nextCursor) {
+
+        if (countMode == CountMode.NONE) {
+            return new SearchResult<>(results, pageEnd, nextCursor, CountMode.NONE);
+        }
+
+        if (countMode == CountMode.ESTIMATED && (filterTree == null || filterTree.getChildCount() == 0)
+                && isPostgreSql()) {
+            Long estimate = getEstimatedTotalResults(clazz);
+            if (estimate != null) {
+                return new SearchResult<>(results, Math.max(estimate, pageEnd), nextCursor, CountMode.ESTIMATED);
+            }
+        }
+
+        if (countMode != CountMode.EXACT) {
+            long totalResult = getCappedTotalResults(clazz, filterTree, filterParser);
+            CountMode usedCountMode = totalResult < countCap ? CountMode.EXACT : CountMode.CAPPED;
+            return new SearchResult<>(results, totalResult, nextCursor, usedCountMode);
+        }
 
-        long totalResult = getTotalResults(clazz, internalIdQuery);
+        return new SearchResult<>(results, getTotalResults(clazz, filterTree, filterParser), nextCursor,
+                CountMode.EXACT);
+    }
 
-        return new SearchResult<>(results, totalResult);
+    /**
+     * The estimate is read from the catalog of PostgreSQL. Other databases, e.g. H2 in tests and benchmarks, fall back
+     * to a capped count.
+     */
+    private boolean isPostgreSql() {
+        Dialect dialect = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getDialect();
+        return dialect instanceof PostgreSQL81Dialect;
     }
 
-    private <T extends ResourceEntity> long getTotalResults(Class<T> clazz, Subquery<Long> internalIdQuery) {
+    /**
+     * Reads the row estimate PostgreSQL keeps for the table of the given resource type. Tables that have never been
+     * analyzed report -1, or 0 before PostgreSQL 14, so a non-positive estimate is not used; an empty table is cheap
+     * to count anyway.
+     *
+     * @return the estimate or null if the table has not been analyzed yet
+     */
+    private <T extends ResourceEntity> Long getEstimatedTotalResults(Class<T> clazz) {
+        Query query = em.createNativeQuery("SELECT reltuples FROM pg_class WHERE relname = ?1");
+        query.setParameter(1, clazz.getAnnotation(Table.class).name());
+
+        List<?> estimates = query.getResultList();
+        if (estimates.isEmpty() || ((Number) estimates.get(0)).longValue() <= 0) {
+            return null;
+        }
+        return ((Number) estimates.get(0)).longValue();
+    }
+
+    /**
+     * Counts the matching resources up to the cap. The ids are read with a forward-only cursor limited to the cap and
+     * counted while scrolling, so neither the database nor the server process more than the cap.
+     */
+    private <T extends ResourceEntity> long getCappedTotalResults(Class<T> clazz, ParseTree filterTree,
+            FilterParser<T> filterParser) {
 
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Long> resourceQuery = cb.createQuery(Long.class);
         Root<T> resourceRoot = resourceQuery.from(clazz);
 
-        resourceQuery.select(cb.count(resourceRoot)).where(
-                cb.in(resourceRoot.get(ResourceEntity_.internalId)).value(internalIdQuery));
+        resourceQuery.select(resourceRoot.get(ResourceEntity_.internalId));
 
-        Long total = em.createQuery(resourceQuery).getSingleResult();
+        FilterParameters filterParameters = new FilterParameters(cb);
+        Predicate filterPredicate = createFilterPredicate(resourceQuery, resourceRoot, clazz, filterTree, filterParser,
+                filterParameters);
+        if (filterPredicate != null) {
+            resourceQuery.where(filterPredicate);
+        }
+
+        TypedQuery<Long> query = em.createQuery(resourceQuery);
+        filterParameters.bindTo(query);
+        ScrollableResults ids = query.setMaxResults(countCap)
+                .unwrap(org.hibernate.Query.class)
+                .setFetchSize(exportChunkSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            long total = 0;
+            while (ids.next()) {
+                total++;
+            }
+            return total;
+        } finally {
+            ids.close();
+        }
+    }
+
+    private <T extends ResourceEntity> long getTotalResults(Class<T> clazz, ParseTree filterTree,
+            FilterParser<T> filterParser) {
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> resourceQuery = cb.createQuery(Long.class);
+        Root<T> resourceRoot = resourceQuery.from(clazz);
+
+        resourceQuery.select(cb.count(resourceRoot));
+
+        FilterParameters filterParameters = new FilterParameters(cb);
+        Predicate filterPredicate = createFilterPredicate(resourceQuery, resourceRoot, clazz, filterTree, filterParser,
+                filterParameters);
+        if (filterPredicate != null) {
+            resourceQuery.where(filterPredicate);
+        }
+
+        TypedQuery<Long> query = em.createQuery(resourceQuery);
+        filterParameters.bindTo(query);
+        Long total = query.getSingleResult();
 
         return total;
     }
@@ -131,6 +509,59 @@ public class ResourceDao {
         return getByAttribute(ResourceEntity_.id, id, clazz);
     }
 
+    /**
+     * Returns the resource with the given id and loads its associations according to the fetch plan.
+     */
+    public <T extends ResourceEntity> T getById(String id, Class<T> clazz, FetchPlan fetchPlan) {
+        return getByAttribute(ResourceEntity_.id, id, clazz, fetchPlan);
+    }
+
+    /**
+     * Returns the entity tag of the resource with the given id. Only the meta data of the resource is read, by its
+     * indexed id, so this is a cheap check for conditional requests.
+     *
+     * @param id
+     *        the id of the resource
+     * @param clazz
+     *        the concrete resource entity class (may also be {@link ResourceEntity})
+     * @return the entity tag, see {@link ResourceEntity#getETag()}
+     * @throws ResourceNotFoundException
+     *         if no {@link ResourceEntity} with the given id could be found
+     */
+    public <T extends ResourceEntity> String getETag(String id, Class<T> clazz) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<T> resource = cq.from(clazz);
+        Join<T, MetaEntity> meta = resource.join(ResourceEntity_.meta);
+
+        cq.multiselect(meta.get(MetaEntity_.lastModified), meta.get(MetaEntity_.version))
+                .where(cb.equal(resource.get(ResourceEntity_.id), id));
+
+        try {
+            Object[] result = em.createQuery(cq).getSingleResult();
+            long version = (Long) result[1];
+            if (UserEntity.class.equals(clazz)) {
+                version += getGroupsVersion(id);
+            }
+            return MetaEntity.createETag((Date) result[0], version);
+        } catch (NoResultException nre) {
+            throw new ResourceNotFoundException(String.format("Resource with attribute '%s' set to '%s' not found",
+                    ResourceEntity_.id.getName(), id), nre);
+        }
+    }
+
+    private long getGroupsVersion(String id) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<ResourceEntity> resource = cq.from(ResourceEntity.class);
+        Join<GroupEntity, MetaEntity> groupMeta = resource.join(ResourceEntity_.groups).join(ResourceEntity_.meta);
+
+        cq.select(cb.coalesce(cb.sum(groupMeta.get(MetaEntity_.version)), 0L))
+                .where(cb.equal(resource.get(ResourceEntity_.id), id));
+
+        return em.createQuery(cq).getSingleResult();
+    }
+
     /**
      * Retrieves a single {@link ResourceEntity} by the given attribute and value.
      * 
@@ -148,17 +579,25 @@ public class ResourceDao {
      */
     public <T extends ResourceEntity, V> T getByAttribute(SingularAttribute<? super T, V> attribute, V value,
             Class<T> clazz) {
+        return getByAttribute(attribute, value, clazz, FetchPlan.NONE);
+    }
+
+    private <T extends ResourceEntity, V> T getByAttribute(SingularAttribute<? super T, V> attribute, V value,
+            Class<T> clazz, FetchPlan fetchPlan) {
 
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<T> cq = cb.createQuery(clazz);
         Root<T> resource = cq.from(clazz);
 
         cq.select(resource).where(cb.equal(resource.get(attribute), value));
+        fetchJoins(resource, fetchPlan);
 
         TypedQuery<T> q = em.createQuery(cq);
 
         try {
-            return q.getSingleResult();
+            T result = q.getSingleResult();
+            loadCollections(clazz, Collections.singletonList(result), fetchPlan);
+            return result;
         } catch (NoResultException nre) {
             throw new ResourceNotFoundException(String.format("Resource with attribute '%s' set to '%s' not found",
                     attribute.getName(), value), nre);
@@ -207,11 +646,32 @@ public class ResourceDao {
      *         if the instance is not a managed {@link ResourceEntity}
      */
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    /**
+     * Removes a {@link ResourceEntity} from the database by its id if it matches the given entity tags.
+     *
+     * @param id
+     *        id of the {@link ResourceEntity}
+     * @param ifMatch
+     *        the entity tags of the precondition, see {@link ResourceEntity#checkETag(String)}
+     * @throws ResourceNotFoundException
+     *         if no {@link ResourceEntity} could be found with the given id
+     * @throws org.osiam.resources.exceptions.PreconditionFailedException
+     *         if the precondition is not met
+     */
+    public void delete(String id, String ifMatch) {
         ResourceEntity resourceEntity = getById(id, ResourceEntity.class);
+        resourceEntity.checkETag(ifMatch);
 
         Set<GroupEntity> groups = resourceEntity.getGroups();
         for (GroupEntity group : groups) {
             group.removeMember(resourceEntity);
+            group.touch();
+        }
+        if (resourceEntity instanceof GroupEntity) {
+            ((GroupEntity) resourceEntity).removeAllMembers();
         }
 
         em.remove(resourceEntity);
@@ -225,4 +685,26 @@ public class ResourceDao {
         em.persist(resourceEntity);
     }
 
+    /**
+     * Writes all pending changes to the database.
+     */
+    public void flush() {
+        em.flush();
+    }
+
+    /**
+     * Detaches all managed entities, pending changes are discarded.
+     */
+    public void clear() {
+        em.clear();
+    }
+
+    /**
+     * Writes all pending changes to the database and detaches all managed entities afterwards.
+     */
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
 }
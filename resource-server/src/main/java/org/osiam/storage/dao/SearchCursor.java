@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.dao;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.binary.Base64;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Position of a keyset paginated search: the sort key and the internal id of the last returned resource. The next
+ * page starts right after this position, so it is read with an index range scan instead of skipping all previous
+ * rows, and it stays stable while resources are created or deleted in between.
+ * <p>
+ * The cursor is handed to clients as an opaque, URL safe string.
+ */
+public final class SearchCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> CURSOR_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final String sortBy;
+    private final boolean descending;
+    private final Object sortValue;
+    private final long internalId;
+
+    public SearchCursor(String sortBy, boolean descending, Object sortValue, long internalId) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.sortValue = sortValue;
+        this.internalId = internalId;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return the sort key of the last returned resource, a {@link String}, {@link Date} or {@link Boolean}, or null if
+     *         the search is not sorted or the resource has no value for the sort key
+     */
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    public long getInternalId() {
+        return internalId;
+    }
+
+    /**
+     * Checks that the cursor was created by a search with the same sorting, because the position it describes is
+     * meaningless otherwise.
+     *
+     * @throws IllegalArgumentException
+     *         if the sorting differs
+     */
+    public void checkSorting(String sortBy, boolean descending) {
+        if (!equalsIgnoreCase(this.sortBy, sortBy) || this.descending != descending) {
+            throw new IllegalArgumentException("The cursor does not belong to a search with this sortBy and sortOrder");
+        }
+    }
+
+    public String encode() {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("sortBy", sortBy);
+        content.put("descending", descending);
+        if (sortValue instanceof Date) {
+            content.put("date", ((Date) sortValue).getTime());
+        } else {
+            content.put("value", sortValue);
+        }
+        content.put("internalId", internalId);
+
+        try {
+            return Base64.encodeBase64URLSafeString(MAPPER.writeValueAsBytes(content));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode the search cursor", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *         if the given string is not a cursor returned by a previous search
+     */
+    public static SearchCursor decode(String cursor) {
+        Map<String, Object> content;
+        try {
+            content = MAPPER.readValue(Base64.decodeBase64(cursor), CURSOR_TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (content == null) {
+            // the JSON literal null
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        Object sortBy = content.get("sortBy");
+        Object internalId = content.get("internalId");
+        Object sortValue = content.get("value");
+        if (content.get("date") instanceof Number) {
+            sortValue = new Date(((Number) content.get("date")).longValue());
+        }
+
+        if (!(internalId instanceof Number) || (sortBy != null && !(sortBy instanceof String))
+                || (sortValue != null && !(sortValue instanceof String || sortValue instanceof Boolean
+                || sortValue instanceof Date))) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+
+        return new SearchCursor((String) sortBy, Boolean.TRUE.equals(content.get("descending")), sortValue,
+                ((Number) internalId).longValue());
+    }
+
+    private static boolean equalsIgnoreCase(String first, String second) {
+        return first == null ? second == null : first.equalsIgnoreCase(second);
+    }
+}
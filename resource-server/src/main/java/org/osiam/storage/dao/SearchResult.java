@@ -31,9 +31,23 @@ public class SearchResult<T extends ResourceEntity> {
 
     public final List<T> results; // NOSONAR - field is final and can be public
     public final long totalResults; // NOSONAR - field is final and can be public
+    public final String nextCursor; // NOSONAR - field is final and can be public
+    public final CountMode countMode; // NOSONAR - field is final and can be public
 
     public SearchResult(List<T> results, long totalResults) {
+        this(results, totalResults, null, CountMode.EXACT);
+    }
+
+    /**
+     * @param nextCursor
+     *        the cursor of the next page of a keyset paginated search, or null if there is no next page
+     * @param countMode
+     *        the way totalResults was determined
+     */
+    public SearchResult(List<T> results, long totalResults, String nextCursor, CountMode countMode) {
         this.results = results;
         this.totalResults = totalResults;
+        this.nextCursor = nextCursor;
+        this.countMode = countMode;
     }
 }
@@ -23,6 +23,10 @@
 
 package org.osiam.storage.dao;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.antlr.v4.runtime.tree.ParseTree;
@@ -35,6 +39,15 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class UserDao implements GenericDao<UserEntity> {
 
+    private static final String EXTENSION_VALUES = "extensionFieldValues.extensionField.extension";
+
+    /**
+     * Everything {@link org.osiam.resources.converter.UserConverter} reads from a user.
+     */
+    static final FetchPlan FETCH_PLAN = new FetchPlan(Arrays.asList("meta", "name"), Arrays.asList("emails",
+            "phoneNumbers", "ims", "photos", "addresses", "entitlements", "roles", "x509Certificates",
+            EXTENSION_VALUES, "groups"));
+
     @Inject
     private UserFilterParser filterParser;
 
@@ -49,7 +62,16 @@ public class UserDao implements GenericDao<UserEntity> {
     @Override
     public UserEntity getById(String id) {
         try {
-            return resourceDao.getById(id, UserEntity.class);
+            return resourceDao.getById(id, UserEntity.class, FETCH_PLAN);
+        } catch (ResourceNotFoundException rnfe) {
+            throw new ResourceNotFoundException(String.format("User with id '%s' not found", id), rnfe);
+        }
+    }
+
+    @Override
+    public String getETag(String id) {
+        try {
+            return resourceDao.getETag(id, UserEntity.class);
         } catch (ResourceNotFoundException rnfe) {
             throw new ResourceNotFoundException(String.format("User with id '%s' not found", id), rnfe);
         }
@@ -118,16 +140,53 @@ public class UserDao implements GenericDao<UserEntity> {
 
     @Override
     public void delete(String id) {
+        delete(id, null);
+    }
+
+    @Override
+    public void delete(String id, String ifMatch) {
         try {
-            resourceDao.delete(id);
+            resourceDao.delete(id, ifMatch);
         } catch (ResourceNotFoundException rnfe) {
             throw new ResourceNotFoundException(String.format("User with id '%s' not found", id), rnfe);
         }
     }
 
     @Override
-    public SearchResult<UserEntity> search(ParseTree filterTree, String sortBy, String sortOrder, int count, int startIndex) {
-        return resourceDao.search(UserEntity.class, filterTree, count, startIndex, sortBy, sortOrder, filterParser);
+    public SearchResult<UserEntity> search(ParseTree filterTree, String sortBy, String sortOrder, int count,
+            int startIndex, String cursor, CountMode countMode, RequestedAttributes attributes) {
+        return resourceDao.search(UserEntity.class, filterTree, count, startIndex, sortBy, sortOrder, cursor, countMode,
+                createFetchPlan(attributes), filterParser);
+    }
+
+    @Override
+    public ResourceChunkIterator<UserEntity> export() {
+        return resourceDao.export(UserEntity.class, FETCH_PLAN);
+    }
+
+    /**
+     * Restricts the {@link #FETCH_PLAN} to the requested attributes.
+     */
+    static FetchPlan createFetchPlan(RequestedAttributes attributes) {
+        if (attributes.isAll()) {
+            return FETCH_PLAN;
+        }
+
+        List<String> joins = new ArrayList<>();
+        for (String join : FETCH_PLAN.getJoins()) {
+            if (attributes.contains(join)) {
+                joins.add(join);
+            }
+        }
+
+        List<String> collections = new ArrayList<>();
+        for (String collection : FETCH_PLAN.getCollections()) {
+            if (collection.equals(EXTENSION_VALUES) ? attributes.containsExtension() : attributes.contains(collection)) {
+                collections.add(collection);
+            }
+        }
+
+        return new FetchPlan(joins, collections);
     }
 
 }
\ No newline at end of file
@@ -35,7 +35,7 @@ public abstract class BaseMultiValuedAttributeEntity {
     @Id
     @SequenceGenerator(name = "sequence_scim_multi_valued_attribute",
             sequenceName = "resource_server_sequence_scim_multi_valued_attribute",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_multi_valued_attribute")
     @Column(name = "multi_value_id")
@@ -51,7 +51,7 @@ public class ExtensionEntity {
     @Id
     @SequenceGenerator(name = "sequence_scim_extension",
             sequenceName = "resource_server_sequence_scim_extension",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_extension")
     @Column(name = "internal_id")
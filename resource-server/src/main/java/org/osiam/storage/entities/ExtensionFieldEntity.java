@@ -52,7 +52,7 @@ public class ExtensionFieldEntity { // NOSONAR - will be constructed by jackson
     @Id
     @SequenceGenerator(name = "sequence_scim_extension_field",
             sequenceName = "resource_server_sequence_scim_extension_field",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_extension_field")
     @Column(name = "internal_id")
@@ -23,6 +23,11 @@
 
 package org.osiam.storage.entities;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Objects;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -33,23 +38,39 @@ import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 
 import org.hibernate.annotations.Type;
+import org.osiam.resources.scim.ExtensionFieldType;
 
 /**
  * Defines a value of a field of a scim-extension. It's user-dependent!
+ *
+ * <p>
+ * The value is stored in the column that matches the type of the field: integers and decimals in
+ * <code>numeric_value</code>, dates in <code>timestamp_value</code>, booleans in <code>boolean_value</code> and all
+ * other types as text in <code>value</code>. The other columns are null.
+ * </p>
+ * <p>
+ * Text values are unbounded, so the text column is not indexed as a whole but by the first
+ * {@link org.osiam.storage.query.ExtensionQueryField#INDEXED_PREFIX_LENGTH} characters, see <code>init_ddl.sql</code>.
+ * </p>
  */
 @Entity
 @Table(name = "scim_extension_field_value",
         indexes = {
                 @Index(columnList = UserEntity.JOIN_COLUMN_NAME + ", extension_field_internal_id"),
+                @Index(columnList = "extension_field_internal_id, numeric_value"),
+                @Index(columnList = "extension_field_internal_id, timestamp_value"),
+                @Index(columnList = "extension_field_internal_id, boolean_value"),
         })
 public class ExtensionFieldValueEntity {
 
     @Id
     @SequenceGenerator(name = "sequence_scim_extension_field_value",
             sequenceName = "resource_server_sequence_scim_extension_field_value",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_extension_field_value")
     @Column(name = "internal_id")
@@ -61,9 +82,18 @@ public class ExtensionFieldValueEntity {
 
     @Lob
     @Type(type = "org.hibernate.type.StringClobType")
-    @Column(nullable = false)
     private String value;
 
+    @Column(name = "numeric_value")
+    private BigDecimal numericValue;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "timestamp_value")
+    private Date timestampValue;
+
+    @Column(name = "boolean_value")
+    private Boolean booleanValue;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = UserEntity.JOIN_COLUMN_NAME, nullable = false, insertable = false, updatable = false)
     private UserEntity user; // NOSONAR: set by Hibernate and used by building Query
@@ -92,6 +122,88 @@ public class ExtensionFieldValueEntity {
         this.value = value;
     }
 
+    /**
+     * Returns the value of this field, read from the column of the given type.
+     *
+     * @param type
+     *        the type of the extension field
+     * @return the value or null if this field has no value of the given type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getValue(ExtensionFieldType<T> type) {
+        if (type == ExtensionFieldType.INTEGER) {
+            return numericValue == null ? null : (T) numericValue.toBigIntegerExact();
+        } else if (type == ExtensionFieldType.DECIMAL) {
+            return (T) numericValue;
+        } else if (type == ExtensionFieldType.DATE_TIME) {
+            return timestampValue == null ? null : (T) new Date(timestampValue.getTime());
+        } else if (type == ExtensionFieldType.BOOLEAN) {
+            return (T) booleanValue;
+        }
+        return value == null ? null : type.fromString(value);
+    }
+
+    /**
+     * Sets the value of this field into the column of the given type and clears the other columns.
+     *
+     * @param type
+     *        the type of the extension field
+     * @param typedValue
+     *        the value
+     */
+    public <T> void setValue(ExtensionFieldType<T> type, T typedValue) {
+        value = null;
+        numericValue = null;
+        timestampValue = null;
+        booleanValue = null;
+
+        if (type == ExtensionFieldType.INTEGER) {
+            numericValue = new BigDecimal((BigInteger) typedValue);
+        } else if (type == ExtensionFieldType.DECIMAL) {
+            numericValue = (BigDecimal) typedValue;
+        } else if (type == ExtensionFieldType.DATE_TIME) {
+            timestampValue = new Date(((Date) typedValue).getTime());
+        } else if (type == ExtensionFieldType.BOOLEAN) {
+            booleanValue = (Boolean) typedValue;
+        } else {
+            value = type.toString(typedValue);
+        }
+    }
+
+    /**
+     * Copies the value of the given field value into this one.
+     *
+     * @param other
+     *        the field value to copy the value of
+     * @return true if the value of this field value changed
+     */
+    public boolean copyValueFrom(ExtensionFieldValueEntity other) {
+        if (hasSameValue(other)) {
+            return false;
+        }
+        value = other.value;
+        numericValue = other.numericValue;
+        timestampValue = other.timestampValue == null ? null : new Date(other.timestampValue.getTime());
+        booleanValue = other.booleanValue;
+        return true;
+    }
+
+    private boolean hasSameValue(ExtensionFieldValueEntity other) {
+        // a Timestamp loaded from the database never equals a Date, so the times are compared
+        Long time = timestampValue == null ? null : timestampValue.getTime();
+        Long otherTime = other.timestampValue == null ? null : other.timestampValue.getTime();
+        return Objects.equals(value, other.value) && hasSameNumericValue(other)
+                && Objects.equals(time, otherTime) && Objects.equals(booleanValue, other.booleanValue);
+    }
+
+    private boolean hasSameNumericValue(ExtensionFieldValueEntity other) {
+        // BigDecimal#equals considers the scale, but 1.5 and 1.50 are the same value
+        if (numericValue == null || other.numericValue == null) {
+            return numericValue == other.numericValue;
+        }
+        return numericValue.compareTo(other.numericValue) == 0;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -126,7 +238,8 @@ public class ExtensionFieldValueEntity {
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append("ExtensionFieldValueEntity [extensionField=").append(extensionField).append(", value=")
-                .append(value).append("]");
+                .append(value).append(", numericValue=").append(numericValue).append(", timestampValue=")
+                .append(timestampValue).append(", booleanValue=").append(booleanValue).append("]");
         return builder.toString();
     }
 
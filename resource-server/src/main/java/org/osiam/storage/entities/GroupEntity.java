@@ -58,20 +58,30 @@ public class GroupEntity extends ResourceEntity {
         return ImmutableSet.copyOf(members);
     }
 
+    /**
+     * Adds a member to this group. The groups are part of the representation of the member, so the member is
+     * touched.
+     */
     public void addMember(ResourceEntity member) {
         if (members.contains(member)) {
             return;
         }
         members.add(member);
         member.addToGroup(this);
+        member.touch();
     }
 
+    /**
+     * Removes a member from this group. The groups are part of the representation of the member, so the member is
+     * touched.
+     */
     public void removeMember(ResourceEntity member) {
         if (!members.contains(member)) {
             return;
         }
         members.remove(member);
         member.removeFromGroup(this);
+        member.touch();
     }
 
     /**
@@ -85,6 +95,21 @@ public class GroupEntity extends ResourceEntity {
         }
     }
 
+    /**
+     * Replaces the members of this group with the given ones. Only the members that are actually added or removed
+     * are touched.
+     */
+    public void replaceMembers(Set<ResourceEntity> newMembers) {
+        for (ResourceEntity member : ImmutableSet.copyOf(members)) {
+            if (!newMembers.contains(member)) {
+                removeMember(member);
+            }
+        }
+        for (ResourceEntity member : newMembers) {
+            addMember(member);
+        }
+    }
+
     @Override
     public String getDisplayName() {
         return displayName;
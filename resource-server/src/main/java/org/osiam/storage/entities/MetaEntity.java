@@ -34,9 +34,20 @@ import javax.persistence.Lob;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.OptimisticLockType;
+import org.hibernate.annotations.OptimisticLocking;
 import org.hibernate.annotations.Type;
 
+/**
+ * The meta data of a resource. Its version takes part in the optimistic locking of the resource: the update of a
+ * touched resource only succeeds if the version in the database is still the one that was loaded, otherwise it fails
+ * with an {@link javax.persistence.OptimisticLockException}.
+ */
 @Entity
+@DynamicUpdate
+@OptimisticLocking(type = OptimisticLockType.DIRTY)
 @Table(name = "scim_meta",
         indexes = {
                 @Index(columnList = "created"),
@@ -47,21 +58,25 @@ public class MetaEntity {
     @Id
     @SequenceGenerator(name = "sequence_scim_meta",
             sequenceName = "resource_server_sequence_scim_meta",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_meta")
     private long id;
 
+    @OptimisticLock(excluded = true)
     private Date created;
 
+    @OptimisticLock(excluded = true)
     private Date lastModified;
 
     @Lob
     @Type(type = "org.hibernate.type.StringClobType")
+    @OptimisticLock(excluded = true)
     private String location;
 
-    private String version;
+    private long version;
 
+    @OptimisticLock(excluded = true)
     private String resourceType;
 
     public MetaEntity(Calendar instance) {
@@ -104,14 +119,45 @@ public class MetaEntity {
         this.location = location;
     }
 
-    public String getVersion() {
+    /**
+     * @return the number of modifications of the resource since its creation
+     */
+    public long getVersion() {
         return version;
     }
 
-    public void setVersion(String version) {
+    public void setVersion(long version) {
         this.version = version;
     }
 
+    /**
+     * Counts a modification of the resource.
+     */
+    public void incrementVersion() {
+        version++;
+    }
+
+    /**
+     * @return a strong entity tag of the resource, see {@link #createETag(Date, long)}
+     */
+    public String getETag() {
+        return createETag(lastModified, version);
+    }
+
+    /**
+     * Creates a strong entity tag from the version and the last modification date of a resource. Both change with
+     * every modification of the resource, see {@link ResourceEntity#touch()}.
+     *
+     * @param lastModified
+     *            the last modification date of the resource
+     * @param version
+     *            the version of the resource
+     * @return the quoted entity tag
+     */
+    public static String createETag(Date lastModified, long version) {
+        return String.format("\"%d-%x\"", version, lastModified != null ? lastModified.getTime() : 0);
+    }
+
     public String getResourceType() {
         return resourceType;
     }
@@ -128,7 +174,7 @@ public class MetaEntity {
         result = prime * result + ((lastModified == null) ? 0 : lastModified.hashCode());
         result = prime * result + ((location == null) ? 0 : location.hashCode());
         result = prime * result + ((resourceType == null) ? 0 : resourceType.hashCode());
-        result = prime * result + ((version == null) ? 0 : version.hashCode());
+        result = prime * result + (int) (version ^ (version >>> 32));
         return result;
     }
 
@@ -173,14 +219,7 @@ public class MetaEntity {
         } else if (!resourceType.equals(other.resourceType)) {
             return false;
         }
-        if (version == null) {
-            if (other.version != null) {
-                return false;
-            }
-        } else if (!version.equals(other.version)) {
-            return false;
-        }
-        return true;
+        return version == other.version;
     }
 
     @Override
@@ -42,7 +42,7 @@ public class NameEntity {
     @Id
     @SequenceGenerator(name = "sequence_scim_name",
             sequenceName = "resource_server_sequence_scim_name",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_name")
     private long id;
@@ -31,6 +31,7 @@ import java.util.UUID;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Inheritance;
@@ -41,6 +42,9 @@ import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
+import org.osiam.resources.exceptions.PreconditionFailedException;
+
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
 
 @Entity
@@ -54,7 +58,7 @@ public abstract class ResourceEntity {
     @Id
     @SequenceGenerator(name = "sequence_scim_id",
             sequenceName = "resource_server_sequence_scim_id",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 100)
     @GeneratedValue(generator = "sequence_scim_id")
     @Column(name = "internal_id")
@@ -63,7 +67,7 @@ public abstract class ResourceEntity {
     @Column(name = "external_id", unique = true)
     private String externalId;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private MetaEntity meta = new MetaEntity(GregorianCalendar.getInstance());
 
     @ManyToMany(mappedBy = "members")
@@ -103,10 +107,41 @@ public abstract class ResourceEntity {
     public abstract String getDisplayName();
 
     /**
-     * Update the last modified date for this entity.
+     * Update the last modified date and the version for this entity.
      */
     public void touch() {
         getMeta().setLastModified(GregorianCalendar.getInstance().getTime());
+        getMeta().incrementVersion();
+    }
+
+    /**
+     * Returns the entity tag of this resource, see {@link MetaEntity#getETag()}.
+     */
+    public String getETag() {
+        return getMeta().getETag();
+    }
+
+    /**
+     * Checks the precondition of a conditional modification against the current entity tag of this resource.
+     *
+     * @param ifMatch
+     *            a comma separated list of entity tags or <code>*</code> as in an <code>If-Match</code> header, no
+     *            precondition if <code>null</code>
+     * @throws PreconditionFailedException
+     *             if none of the entity tags matches
+     */
+    public void checkETag(String ifMatch) {
+        if (ifMatch == null) {
+            return;
+        }
+        String eTag = getETag();
+        for (String candidate : Splitter.on(',').trimResults().omitEmptyStrings().split(ifMatch)) {
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return;
+            }
+        }
+        throw new PreconditionFailedException(String.format(
+                "The resource with id '%s' has been modified, its current ETag is %s", id, eTag));
     }
 
     public Set<GroupEntity> getGroups() {
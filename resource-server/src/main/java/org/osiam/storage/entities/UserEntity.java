@@ -29,6 +29,7 @@ import java.util.Set;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
 import javax.persistence.OneToMany;
@@ -52,7 +53,7 @@ public class UserEntity extends ResourceEntity {
     @Column(nullable = false, unique = true)
     private String userName;
 
-    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private NameEntity name;
 
     private String nickName;
@@ -633,6 +634,20 @@ public class UserEntity extends ResourceEntity {
         x509Certificates.clear();
     }
 
+    /**
+     * The groups are part of the representation of a user, so the versions of its groups are added to the version of
+     * the user. A renamed group changes the entity tag of its members without touching them, see
+     * {@link org.osiam.storage.dao.ResourceDao#getETag(String, Class)}.
+     */
+    @Override
+    public String getETag() {
+        long version = getMeta().getVersion();
+        for (GroupEntity group : getGroups()) {
+            version += group.getMeta().getVersion();
+        }
+        return MetaEntity.createETag(getMeta().getLastModified(), version);
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
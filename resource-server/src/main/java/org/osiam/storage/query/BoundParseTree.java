@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.query;
+
+import java.util.List;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeVisitor;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * The parse tree of a filter, made of the parse tree of a filter with the same shape, i.e. the same tokens apart from
+ * the values, and the tokens of this filter. The structure is shared by all filters with the same shape and must not
+ * be changed; the values of this filter are bound to it by the index of their tokens and can be read with
+ * {@link #getText(TerminalNode)}.
+ */
+public class BoundParseTree implements ParseTree {
+
+    private final ParseTree template;
+    private final List<? extends Token> tokens;
+
+    public BoundParseTree(ParseTree template, List<? extends Token> tokens) {
+        this.template = template;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Returns the text of the given terminal node of the shared structure as found in this filter.
+     *
+     * @param node
+     *            a terminal node of this tree
+     * @return the text of the token at the same index in this filter
+     */
+    public String getText(TerminalNode node) {
+        return tokens.get(node.getSymbol().getTokenIndex()).getText();
+    }
+
+    @Override
+    public String getText() {
+        Interval interval = template.getSourceInterval();
+        StringBuilder text = new StringBuilder();
+        for (int i = interval.a; i <= interval.b && i < tokens.size(); i++) {
+            text.append(tokens.get(i).getText());
+        }
+        return text.toString();
+    }
+
+    @Override
+    public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+        return template.accept(visitor);
+    }
+
+    @Override
+    public ParseTree getParent() {
+        return template.getParent();
+    }
+
+    @Override
+    public ParseTree getChild(int i) {
+        return template.getChild(i);
+    }
+
+    @Override
+    public int getChildCount() {
+        return template.getChildCount();
+    }
+
+    @Override
+    public Object getPayload() {
+        return template.getPayload();
+    }
+
+    @Override
+    public Interval getSourceInterval() {
+        return template.getSourceInterval();
+    }
+
+    @Override
+    public String toStringTree(Parser parser) {
+        return template.toStringTree(parser);
+    }
+
+    @Override
+    public String toStringTree() {
+        return template.toStringTree();
+    }
+}
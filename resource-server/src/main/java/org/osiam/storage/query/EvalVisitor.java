@@ -23,6 +23,7 @@
 
 package org.osiam.storage.query;
 
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
@@ -37,11 +38,32 @@ import org.osiam.storage.parser.LogicalOperatorRulesParser;
 public class EvalVisitor<T extends ResourceEntity> extends LogicalOperatorRulesBaseVisitor<Predicate> {
 
     private final FilterParser<T> filterParser;
+    private final CommonAbstractCriteria query;
     private final Root<T> root;
+    private final FilterParameters parameters;
+    private final BoundParseTree boundTree;
 
-    public EvalVisitor(FilterParser<T> filterParser, Root<T> root) {
+    public EvalVisitor(FilterParser<T> filterParser, CommonAbstractCriteria query, Root<T> root,
+            FilterParameters parameters) {
+        this(filterParser, query, root, parameters, null);
+    }
+
+    /**
+     * @param query
+     *            the query or subquery the root belongs to, filters on extension fields add their subqueries to it
+     * @param parameters
+     *            collects the values that have to be bound to the query
+     * @param boundTree
+     *            the tree that is visited if the values of the filter are bound to a shared parse tree, otherwise
+     *            null
+     */
+    public EvalVisitor(FilterParser<T> filterParser, CommonAbstractCriteria query, Root<T> root,
+            FilterParameters parameters, BoundParseTree boundTree) {
         this.filterParser = filterParser;
+        this.query = query;
         this.root = root;
+        this.parameters = parameters;
+        this.boundTree = boundTree;
     }
 
     @Override
@@ -61,12 +83,12 @@ public class EvalVisitor<T extends ResourceEntity> extends LogicalOperatorRulesB
     public Predicate visitSimpleExp(@NotNull LogicalOperatorRulesParser.SimpleExpContext ctx) {
         ScimExpression scimExpression = getScimExpressionFromContext(ctx);
         FilterChain<T> filterChain = filterParser.createFilterChain(scimExpression);
-        return filterChain.createPredicateAndJoin(root);
+        return filterChain.createPredicateAndJoin(query, root, parameters);
     }
 
     private ScimExpression getScimExpressionFromContext(LogicalOperatorRulesParser.SimpleExpContext ctx) {
         String fieldName = ctx.FIELD().getText();
-        String value = ctx.VALUE().getText();
+        String value = boundTree != null ? boundTree.getText(ctx.VALUE()) : ctx.VALUE().getText();
         value = value.substring(1, value.length() - 1); // removed first and last quote
         value = value.replace("\\\"", "\""); // replaced \" with "
         FilterConstraint operator = FilterConstraint.fromString(ctx.OPERATOR().getText());
@@ -80,7 +102,7 @@ public class EvalVisitor<T extends ResourceEntity> extends LogicalOperatorRulesB
         ScimExpression scimExpression = new ScimExpression(fieldName, operator, null);
 
         FilterChain<T> filterChain = filterParser.createFilterChain(scimExpression);
-        return filterChain.createPredicateAndJoin(root);
+        return filterChain.createPredicateAndJoin(query, root, parameters);
     }
 
     @Override
@@ -23,87 +23,118 @@
 
 package org.osiam.storage.query;
 
+import java.math.BigDecimal;
+import java.util.Date;
+
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.Join;
-import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import javax.persistence.criteria.SetJoin;
-import javax.persistence.metamodel.SetAttribute;
+import javax.persistence.criteria.Subquery;
 
 import org.osiam.resources.scim.ExtensionFieldType;
 import org.osiam.storage.entities.ExtensionFieldEntity;
 import org.osiam.storage.entities.ExtensionFieldEntity_;
 import org.osiam.storage.entities.ExtensionFieldValueEntity;
 import org.osiam.storage.entities.ExtensionFieldValueEntity_;
+import org.osiam.storage.entities.ResourceEntity_;
 import org.osiam.storage.entities.UserEntity;
-import org.osiam.storage.entities.UserEntity_;
-import org.osiam.storage.helper.NumberPadder;
 
 public class ExtensionQueryField {
 
-    private final String urn;
+    /**
+     * The number of characters of text values that are indexed. A b-tree entry is limited to about 2.7 kB in
+     * PostgreSQL, so the index covers an expression of this length instead of the unbounded value.
+     */
+    public static final int INDEXED_PREFIX_LENGTH = 255;
+
     private final ExtensionFieldEntity field;
-    private final NumberPadder numberPadder;
 
-    public ExtensionQueryField(String urn, ExtensionFieldEntity field, NumberPadder numberPadder) {
-        this.urn = urn;
+    public ExtensionQueryField(ExtensionFieldEntity field) {
         this.field = field;
-        this.numberPadder = numberPadder;
     }
 
-    public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
-            String value, CriteriaBuilder cb) {
+    /**
+     * Creates an IN subquery that looks up the users with a value of the field matching the filter. The subquery is
+     * not correlated with the user, it selects by field and value, which is covered by the index on the field and
+     * the prefix of the value, and the users are then fetched by their ids. The user is never joined with all of its
+     * extension values.
+     */
+    public Predicate addFilter(CommonAbstractCriteria query, Root<UserEntity> root, FilterConstraint constraint,
+            String value, CriteriaBuilder cb, FilterParameters parameters) {
 
-        if (constraint != FilterConstraint.PRESENT && (field.getType() == ExtensionFieldType.INTEGER ||
-                field.getType() == ExtensionFieldType.DECIMAL)) {
+        Subquery<Long> valueQuery = query.subquery(Long.class);
+        Root<ExtensionFieldValueEntity> fieldValue = valueQuery.from(ExtensionFieldValueEntity.class);
 
-            value = numberPadder.pad(value); // NOSONAR - We want our modify our parameters
-        }
+        Predicate valueBelongsToField = cb.equal(fieldValue.get(ExtensionFieldValueEntity_.extensionField)
+                .get(ExtensionFieldEntity_.internalId), parameters.add(Long.class, field.getInternalId()));
+        Predicate filterPredicate = createTypedPredicate(fieldValue, constraint, value, cb, parameters);
 
-        final SetJoin<UserEntity, ExtensionFieldValueEntity> join = createOrGetJoin(
-                generateAlias(urn + "." + field.getName()), root, UserEntity_.extensionFieldValues);
-        
-        Predicate filterPredicate = constraint.createPredicateForExtensionField(
-                join.get(ExtensionFieldValueEntity_.value), // NOSONAR - XEntity_.X will be filled by JPA provider
-                value, field, cb);
-        
-        Predicate valueBelongsToField = cb.equal(join.get(ExtensionFieldValueEntity_.extensionField)
-                .get(ExtensionFieldEntity_.internalId), field.getInternalId());
-        
-        join.on(valueBelongsToField);
-
-        return filterPredicate;
+        valueQuery.select(fieldValue.get(ExtensionFieldValueEntity_.user).get(ResourceEntity_.internalId))
+                .where(valueBelongsToField, filterPredicate);
+
+        return root.get(ResourceEntity_.internalId).in(valueQuery);
     }
 
-    private String generateAlias(String value) {
-        int hashCode = value.hashCode();
-        if (hashCode < 0) {
-            hashCode *= -1;
+    /**
+     * Compares the column that holds values of the type of the field with the value converted to that type.
+     */
+    private Predicate createTypedPredicate(Root<ExtensionFieldValueEntity> fieldValue,
+            FilterConstraint constraint, String value, CriteriaBuilder cb, FilterParameters parameters) {
+        ExtensionFieldType<?> type = field.getType();
+        boolean hasValue = constraint != FilterConstraint.PRESENT;
+
+        if (type == ExtensionFieldType.INTEGER || type == ExtensionFieldType.DECIMAL) {
+            BigDecimal number = hasValue ? ExtensionFieldType.DECIMAL.fromString(value) : null;
+            return constraint.createPredicateForExtensionField(
+                    fieldValue.get(ExtensionFieldValueEntity_.numericValue), number, field, cb,
+                    parameters);
+        } else if (type == ExtensionFieldType.DATE_TIME) {
+            Date date = hasValue ? ExtensionFieldType.DATE_TIME.fromString(value) : null;
+            return constraint.createPredicateForExtensionField(
+                    fieldValue.get(ExtensionFieldValueEntity_.timestampValue), date, field, cb,
+                    parameters);
+        } else if (type == ExtensionFieldType.BOOLEAN) {
+            Boolean bool = hasValue ? ExtensionFieldType.BOOLEAN.fromString(value) : null;
+            return constraint.createPredicateForExtensionField(
+                    fieldValue.get(ExtensionFieldValueEntity_.booleanValue), bool, field, cb,
+                    parameters);
         }
-
-        return "extensionFieldAlias" + hashCode;
+        Path<String> text = fieldValue.get(ExtensionFieldValueEntity_.value);
+        Predicate predicate = constraint.createPredicateForExtensionField(text, value, field, cb, parameters);
+        Predicate prefixPredicate = createIndexedPrefixPredicate(text, constraint, value, cb, parameters);
+        return prefixPredicate == null ? predicate : cb.and(prefixPredicate, predicate);
     }
 
-    @SuppressWarnings("unchecked")
-    protected SetJoin<UserEntity, ExtensionFieldValueEntity> createOrGetJoin(String alias, Root<UserEntity> root,
-            SetAttribute<UserEntity, ExtensionFieldValueEntity> attribute) {
-
-        for (Join<UserEntity, ?> currentJoin : root.getJoins()) {
-            if (currentJoin.getAlias() == null) {
-                // if alias is null, it is not an alias for an extension join, so we ignore it
-                continue;
-            }
-
-            if (currentJoin.getAlias().equals(alias)) {
-                return (SetJoin<UserEntity, ExtensionFieldValueEntity>) currentJoin;
-            }
+    /**
+     * Creates a predicate on the indexed prefix of the text value that holds for every value the filter matches, so
+     * the index narrows down the values before the whole values are compared.
+     *
+     * @return the predicate or null if the filter cannot be narrowed down by the prefix
+     */
+    private Predicate createIndexedPrefixPredicate(Path<String> text, FilterConstraint constraint, String value,
+            CriteriaBuilder cb, FilterParameters parameters) {
+        Expression<String> indexedPrefix = cb.substring(text, 1, INDEXED_PREFIX_LENGTH);
+        if (constraint == FilterConstraint.EQUALS) {
+            return cb.equal(indexedPrefix, parameters.add(String.class, truncate(value)));
         }
+        // a longer prefix or a wildcard that matches more than one character would not fit into the indexed prefix
+        if (constraint == FilterConstraint.STARTS_WITH && value.indexOf('%') < 0
+                && value.codePointCount(0, value.length()) <= INDEXED_PREFIX_LENGTH) {
+            return cb.like(indexedPrefix, parameters.add(String.class, value + "%"));
+        }
+        return null;
+    }
 
-        final SetJoin<UserEntity, ExtensionFieldValueEntity> join = root.join(attribute, JoinType.LEFT);
-
-        join.alias(alias);
-
-        return join;
+    /**
+     * Cuts the value to the indexed prefix. PostgreSQL counts characters, which are code points in Java.
+     */
+    static String truncate(String value) {
+        if (value.codePointCount(0, value.length()) <= INDEXED_PREFIX_LENGTH) {
+            return value;
+        }
+        return value.substring(0, value.offsetByCodePoints(0, INDEXED_PREFIX_LENGTH));
     }
 }
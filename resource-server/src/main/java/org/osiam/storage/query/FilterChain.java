@@ -23,11 +23,12 @@
 
 package org.osiam.storage.query;
 
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import org.osiam.storage.entities.ResourceEntity;
 
 public interface FilterChain<T extends ResourceEntity> {
-    Predicate createPredicateAndJoin(Root<T> root);
+    Predicate createPredicateAndJoin(CommonAbstractCriteria query, Root<T> root, FilterParameters parameters);
 }
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 
@@ -54,12 +55,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return cb.equal(path, bindable(path, value, parameters));
         }
 
         @Override
@@ -86,12 +87,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return createPredicateForStringField(textPath(path), (String) value, cb);
         }
 
         @Override
@@ -118,12 +119,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return createPredicateForStringField(textPath(path), (String) value, cb);
         }
 
         @Override
@@ -149,12 +150,16 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            if (String.class.equals(path.getJavaType())) {
+                // only the text column can hold an empty value, the typed columns are null or set
+                return cb.and(cb.isNotNull(path), cb.notEqual(path, ""));
+            }
+            return cb.isNotNull(path);
         }
 
         @Override
@@ -180,12 +185,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return cb.greaterThan(path, bindable(path, value, parameters));
         }
 
         @Override
@@ -211,12 +216,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return cb.greaterThanOrEqualTo(path, bindable(path, value, parameters));
         }
 
         @Override
@@ -243,12 +248,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return cb.lessThan(path, bindable(path, value, parameters));
         }
 
         @Override
@@ -274,12 +279,12 @@ public enum FilterConstraint {
         }
 
         @Override
-        public Predicate createPredicateForExtensionField(Path<String> path, String value, ExtensionFieldEntity field,
-                CriteriaBuilder cb) {
+        public <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path, T value,
+                ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters) {
             if (!field.isConstrainedValid(toString())) {
                 throw new InvalidConstraintException(toString());
             }
-            return createPredicateForStringField(path, value, cb);
+            return cb.lessThanOrEqualTo(path, bindable(path, value, parameters));
         }
 
         @Override
@@ -321,7 +326,20 @@ public enum FilterConstraint {
     public abstract <T extends MultiValuedAttributeType> Predicate createPredicateForMultiValuedAttributeTypeField(
             Path<T> path, T value, CriteriaBuilder cb);
 
-    public abstract Predicate createPredicateForExtensionField(Path<String> path, String value,
-            ExtensionFieldEntity field, CriteriaBuilder cb);
+    /**
+     * Creates the predicate for the value column of an extension field. Only text fields allow "co" and "sw".
+     */
+    public abstract <T extends Comparable<? super T>> Predicate createPredicateForExtensionField(Path<T> path,
+            T value, ExtensionFieldEntity field, CriteriaBuilder cb, FilterParameters parameters);
+
+    @SuppressWarnings("unchecked")
+    private static Path<String> textPath(Path<?> path) {
+        return (Path<String>) path;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<T> bindable(Path<T> path, T value, FilterParameters parameters) {
+        return parameters.add((Class<T>) path.getJavaType(), value);
+    }
 
 }
\ No newline at end of file
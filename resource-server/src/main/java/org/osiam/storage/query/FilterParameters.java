@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.ParameterExpression;
+
+/**
+ * Collects the values a filter compares with as parameters of the criteria query. Hibernate renders numeric literals
+ * into the query, so every number a filter compares with would compile to a query plan and a prepared statement of
+ * its own. The values are bound with {@link #bindTo(Query)} after the query has been created.
+ */
+public class FilterParameters {
+
+    private final CriteriaBuilder cb;
+    private final Map<ParameterExpression<?>, Object> values = new LinkedHashMap<>();
+
+    public FilterParameters(CriteriaBuilder cb) {
+        this.cb = cb;
+    }
+
+    /**
+     * Creates a parameter of the given type that is bound to the given value.
+     */
+    public <T> ParameterExpression<T> add(Class<T> type, T value) {
+        ParameterExpression<T> parameter = cb.parameter(type);
+        values.put(parameter, value);
+        return parameter;
+    }
+
+    /**
+     * Binds the values of all parameters to the query that was created from the criteria query.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void bindTo(Query query) {
+        for (Map.Entry<ParameterExpression<?>, Object> value : values.entrySet()) {
+            query.setParameter((Parameter) value.getKey(), value.getValue());
+        }
+    }
+}
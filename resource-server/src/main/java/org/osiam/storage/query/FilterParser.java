@@ -25,6 +25,7 @@ package org.osiam.storage.query;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
@@ -37,12 +38,27 @@ public abstract class FilterParser<T extends ResourceEntity> {
     @PersistenceContext
     protected EntityManager entityManager; // NOSONAR - doesn't need to be private
 
-    public Predicate createPredicateAndJoin(ParseTree filterTree, Root<T> root) {
-        EvalVisitor<T> visitor = new EvalVisitor<>(this, root);
+    /**
+     * Creates the predicate of the filter for the given root. The values the predicate compares with are collected
+     * in the given parameters and have to be bound to the query once it has been created.
+     */
+    public Predicate createPredicateAndJoin(ParseTree filterTree, CommonAbstractCriteria query, Root<T> root,
+            FilterParameters parameters) {
+        EvalVisitor<T> visitor = filterTree instanceof BoundParseTree
+                ? new EvalVisitor<>(this, query, root, parameters, (BoundParseTree) filterTree)
+                : new EvalVisitor<>(this, query, root, parameters);
 
         return visitor.visit(filterTree);
     }
 
+    /**
+     * Tells whether the given filter joins a multi-valued attribute of the resource, decided from the parse tree
+     * alone.
+     */
+    public boolean joinsMultiValuedAttribute(ParseTree filterTree) {
+        return new MultiValuedAttributeVisitor<>(this).visit(filterTree);
+    }
+
     public Expression<?> createSortByField(String sortBy, Root<T> root) {
         QueryField<T> filterField = getFilterField(sortBy);
 
@@ -111,7 +111,7 @@ public enum GroupQueryField implements QueryField<GroupEntity> {
             return root.get(GroupEntity_.displayName);
         }
     },
-    MEMBERS("members") {
+    MEMBERS("members", true) {
 
         @Override
         public Predicate addFilter(Root<GroupEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
@@ -125,7 +125,7 @@ public enum GroupQueryField implements QueryField<GroupEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    MEMBERS_VALUE("members.value") {
+    MEMBERS_VALUE("members.value", true) {
 
         @Override
         public Predicate addFilter(Root<GroupEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
@@ -149,9 +149,20 @@ public enum GroupQueryField implements QueryField<GroupEntity> {
     }
 
     private final String name;
+    private final boolean multiValued;
 
     private GroupQueryField(String name) {
+        this(name, false);
+    }
+
+    private GroupQueryField(String name, boolean multiValued) {
         this.name = name;
+        this.multiValued = multiValued;
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return multiValued;
     }
 
     @Override
@@ -25,6 +25,7 @@ package org.osiam.storage.query;
 
 import java.util.Locale;
 
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
@@ -45,7 +46,8 @@ public class GroupSimpleFilterChain implements FilterChain<GroupEntity> {
     }
 
     @Override
-    public Predicate createPredicateAndJoin(Root<GroupEntity> root) {
+    public Predicate createPredicateAndJoin(CommonAbstractCriteria query, Root<GroupEntity> root,
+            FilterParameters parameters) {
         if (filterField == null) {
             throw new IllegalArgumentException("Filtering not possible. Field '" + scimExpression.getField() + "' not available.");
         }
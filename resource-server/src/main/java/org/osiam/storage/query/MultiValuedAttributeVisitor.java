@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.query;
+
+import org.antlr.v4.runtime.misc.NotNull;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.osiam.storage.entities.ResourceEntity;
+import org.osiam.storage.parser.LogicalOperatorRulesBaseVisitor;
+import org.osiam.storage.parser.LogicalOperatorRulesParser;
+
+/**
+ * Finds out from the parse tree of a filter whether one of its expressions filters on a multi-valued attribute,
+ * without creating any criteria.
+ */
+class MultiValuedAttributeVisitor<T extends ResourceEntity> extends LogicalOperatorRulesBaseVisitor<Boolean> {
+
+    private final FilterParser<T> filterParser;
+
+    MultiValuedAttributeVisitor(FilterParser<T> filterParser) {
+        this.filterParser = filterParser;
+    }
+
+    @Override
+    public Boolean visitAndExp(@NotNull LogicalOperatorRulesParser.AndExpContext ctx) {
+        return visit(ctx.expression(0)) || visit(ctx.expression(1));
+    }
+
+    @Override
+    public Boolean visitBraceExp(@NotNull LogicalOperatorRulesParser.BraceExpContext ctx) {
+        return visit(ctx.expression());
+    }
+
+    @Override
+    public Boolean visitSimpleExp(@NotNull LogicalOperatorRulesParser.SimpleExpContext ctx) {
+        return isMultiValued(ctx.FIELD());
+    }
+
+    @Override
+    public Boolean visitSimplePresentExp(@NotNull LogicalOperatorRulesParser.SimplePresentExpContext ctx) {
+        return isMultiValued(ctx.FIELD());
+    }
+
+    @Override
+    public Boolean visitNotExp(@NotNull LogicalOperatorRulesParser.NotExpContext ctx) {
+        return visit(ctx.expression());
+    }
+
+    @Override
+    public Boolean visitOrExp(@NotNull LogicalOperatorRulesParser.OrExpContext ctx) {
+        return visit(ctx.expression(0)) || visit(ctx.expression(1));
+    }
+
+    @Override
+    protected Boolean defaultResult() {
+        return Boolean.FALSE;
+    }
+
+    private boolean isMultiValued(TerminalNode field) {
+        // extension fields are filtered in a subquery and unknown fields are rejected when the predicate is created
+        QueryField<T> queryField = filterParser.getFilterField(field.getText());
+        return queryField != null && queryField.isMultiValued();
+    }
+}
@@ -35,4 +35,9 @@ public interface QueryField<T extends ResourceEntity> {
             CriteriaBuilder cb);
 
     Expression<?> createSortByField(Root<T> root, CriteriaBuilder cb);
+
+    /**
+     * @return true if the filter on this field joins a multi-valued attribute, which multiplies the rows of the root
+     */
+    boolean isMultiValued();
 }
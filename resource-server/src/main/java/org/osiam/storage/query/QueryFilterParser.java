@@ -23,27 +23,115 @@
 
 package org.osiam.storage.query;
 
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.osiam.metrics.CacheGaugeSet;
 import org.osiam.storage.parser.LogicalOperatorRulesLexer;
 import org.osiam.storage.parser.LogicalOperatorRulesParser;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
+/**
+ * Parses filters into parse trees. The parse tree of a filter only depends on its tokens apart from the values, so
+ * the parse trees are kept in a bounded LRU cache keyed by this template, and the values of a filter are bound to the
+ * cached tree as a {@link BoundParseTree}. Filters are parsed with SLL prediction first and only fall back to full LL
+ * prediction if that fails, which also produces the error message for an invalid filter.
+ */
 @Service
 public class QueryFilterParser {
 
+    private static final String VALUE_PLACEHOLDER = "?";
+
+    @Value("${org.osiam.resource-server.filter-cache.max-size:1000}")
+    private long cacheMaxSize = 1000;
+
+    @Value("${org.osiam.resource-server.filter-cache.max-filter-length:1024}")
+    private int cacheMaxFilterLength = 1024;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private Cache<String, ParseTree> parseTreeCache;
+
+    @PostConstruct
+    private void createParseTreeCache() {
+        parseTreeCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+
+        metricRegistry.register(MetricRegistry.name(getClass(), "cache"), new CacheGaugeSet(parseTreeCache));
+    }
+
     public ParseTree getParseTree(String filter) {
         if (Strings.isNullOrEmpty(filter)) {
             return null;
         }
 
         LogicalOperatorRulesLexer lexer = new LogicalOperatorRulesLexer(new ANTLRInputStream(filter));
-        LogicalOperatorRulesParser parser = new LogicalOperatorRulesParser(new CommonTokenStream(lexer));
-        parser.addErrorListener(new OsiamAntlrErrorListener());
-        return parser.parse();
+        List<? extends Token> tokens = lexer.getAllTokens();
+
+        if (filter.length() > cacheMaxFilterLength) {
+            return parse(tokens);
+        }
+
+        String template = getTemplate(tokens);
+        ParseTree parseTree = parseTreeCache.getIfPresent(template);
+        if (parseTree == null) {
+            parseTree = parse(tokens);
+            parseTreeCache.put(template, parseTree);
+        }
+        return new BoundParseTree(parseTree, tokens);
+    }
+
+    private String getTemplate(List<? extends Token> tokens) {
+        StringBuilder template = new StringBuilder();
+        for (Token token : tokens) {
+            template.append(token.getType()).append(':');
+            if (token.getType() == LogicalOperatorRulesLexer.VALUE) {
+                template.append(VALUE_PLACEHOLDER);
+            } else {
+                template.append(token.getText());
+            }
+            template.append(' ');
+        }
+        return template.toString();
     }
 
+    private ParseTree parse(List<? extends Token> tokens) {
+        CommonTokenStream tokenStream = new CommonTokenStream(new ListTokenSource(tokens));
+        LogicalOperatorRulesParser parser = new LogicalOperatorRulesParser(tokenStream);
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        try {
+            return parser.parse();
+        } catch (ParseCancellationException e) {
+            // either a syntax error or an SLL conflict, retry with full LL to be sure
+            tokenStream.reset();
+            parser.reset();
+            parser.addErrorListener(new OsiamAntlrErrorListener());
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return parser.parse();
+        }
+    }
 }
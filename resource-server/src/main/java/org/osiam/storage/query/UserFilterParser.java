@@ -27,23 +27,19 @@ import java.util.Locale;
 
 import javax.inject.Inject;
 
-import org.osiam.storage.dao.ExtensionDao;
+import org.osiam.storage.dao.ExtensionRegistry;
 import org.osiam.storage.entities.UserEntity;
-import org.osiam.storage.helper.NumberPadder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserFilterParser extends FilterParser<UserEntity> {
 
     @Inject
-    private ExtensionDao extensionDao;
-
-    @Inject
-    private NumberPadder numberPadder;
+    private ExtensionRegistry extensionRegistry;
 
     @Override
     protected FilterChain<UserEntity> createFilterChain(ScimExpression filter) {
-        return new UserSimpleFilterChain(entityManager.getCriteriaBuilder(), extensionDao, filter, numberPadder);
+        return new UserSimpleFilterChain(entityManager.getCriteriaBuilder(), extensionRegistry, filter);
     }
 
     @Override
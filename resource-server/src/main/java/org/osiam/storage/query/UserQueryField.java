@@ -349,7 +349,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    EMAILS("emails") {
+    EMAILS("emails", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -362,7 +362,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
         }
 
     },
-    EMAILS_VALUE("emails.value") {
+    EMAILS_VALUE("emails.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -378,7 +378,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
         }
 
     },
-    EMAILS_TYPE("emails.type") {
+    EMAILS_TYPE("emails.type", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -401,7 +401,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
         }
 
     },
-    EMAILS_PRIMARY("emails.primary") {
+    EMAILS_PRIMARY("emails.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -420,7 +420,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
         }
 
     },
-    PHONENUMBERS("phonenumbers") {
+    PHONENUMBERS("phonenumbers", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -432,7 +432,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return PHONENUMBERS_VALUE.createSortByField(root, cb);
         }
     },
-    PHONENUMBERS_VALUE("phonenumbers.value") {
+    PHONENUMBERS_VALUE("phonenumbers.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -446,7 +446,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    PHONENUMBERS_TYPE("phonenumbers.type") {
+    PHONENUMBERS_TYPE("phonenumbers.type", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -467,7 +467,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    PHONENUMBERS_PRIMARY("phonenumbers.primary") {
+    PHONENUMBERS_PRIMARY("phonenumbers.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, PhoneNumberEntity> join = root.join(UserEntity_.phoneNumbers, JoinType.LEFT);
@@ -480,7 +480,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    IMS("ims") {
+    IMS("ims", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -492,7 +492,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return IMS_VALUE.createSortByField(root, cb);
         }
     },
-    IMS_VALUE("ims.value") {
+    IMS_VALUE("ims.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -507,7 +507,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
         }
 
     },
-    IMS_TYPE("ims.type") {
+    IMS_TYPE("ims.type", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -528,7 +528,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    IMS_PRIMARY("ims.primary") {
+    IMS_PRIMARY("ims.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, ImEntity> join = root.join(UserEntity_.ims, JoinType.LEFT);
@@ -540,7 +540,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    PHOTOS("photos") {
+    PHOTOS("photos", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -552,7 +552,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return PHOTOS_VALUE.createSortByField(root, cb);
         }
     },
-    PHOTOS_VALUE("photos.value") {
+    PHOTOS_VALUE("photos.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -566,7 +566,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    PHOTOS_TYPE("photos.type") {
+    PHOTOS_TYPE("photos.type", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -587,7 +587,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    PHOTOS_PRIMARY("photos.primary") {
+    PHOTOS_PRIMARY("photos.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, PhotoEntity> join = root.join(UserEntity_.photos, JoinType.LEFT);
@@ -600,7 +600,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_REGION("addresses.region") {
+    ADDRESSES_REGION("addresses.region", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -612,7 +612,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_STREETADDRESS("addresses.streetaddress") {
+    ADDRESSES_STREETADDRESS("addresses.streetaddress", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -624,7 +624,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_FORMATTED("addresses.formatted") {
+    ADDRESSES_FORMATTED("addresses.formatted", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -636,7 +636,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_POSTALCODE("addresses.postalcode") {
+    ADDRESSES_POSTALCODE("addresses.postalcode", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -648,7 +648,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_LOCALITY("addresses.locality") {
+    ADDRESSES_LOCALITY("addresses.locality", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -660,7 +660,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_TYPE("addresses.type") {
+    ADDRESSES_TYPE("addresses.type", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             Address.Type addressType = null;
@@ -679,7 +679,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_COUNTRY("addresses.country") {
+    ADDRESSES_COUNTRY("addresses.country", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -691,7 +691,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ADDRESSES_PRIMARY("addresses.primary") {
+    ADDRESSES_PRIMARY("addresses.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, AddressEntity> join = root.join(UserEntity_.addresses, JoinType.LEFT);
@@ -704,7 +704,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ENTITLEMENTS("entitlements") {
+    ENTITLEMENTS("entitlements", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -716,7 +716,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return ENTITLEMENTS_VALUE.createSortByField(root, cb);
         }
     },
-    ENTITLEMENTS_VALUE("entitlements.value") {
+    ENTITLEMENTS_VALUE("entitlements.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -730,7 +730,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ENTITLEMENTS_TYPE("entitlements.type") {
+    ENTITLEMENTS_TYPE("entitlements.type", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             Entitlement.Type type = null;
@@ -749,7 +749,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ENTITLEMENTS_PRIMARY("entitlements.primary") {
+    ENTITLEMENTS_PRIMARY("entitlements.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, EntitlementEntity> join = root.join(UserEntity_.entitlements, JoinType.LEFT);
@@ -762,7 +762,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ROLES("roles") {
+    ROLES("roles", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -774,7 +774,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return ROLES_VALUE.createSortByField(root, cb);
         }
     },
-    ROLES_VALUE("roles.value") {
+    ROLES_VALUE("roles.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -788,7 +788,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    ROLES_PRIMARY("roles.primary") {
+    ROLES_PRIMARY("roles.primary", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint, String value, CriteriaBuilder cb) {
             SetJoin<UserEntity, RoleEntity> join = root.join(UserEntity_.roles, JoinType.LEFT);
@@ -800,7 +800,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    X509CERTIFICATES("x509certificates") {
+    X509CERTIFICATES("x509certificates", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -814,7 +814,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    X509CERTIFICATES_VALUE("x509certificates.value") {
+    X509CERTIFICATES_VALUE("x509certificates.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -826,7 +826,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return X509CERTIFICATES_VALUE.createSortByField(root, cb);
         }
     },
-    GROUPS("groups") {
+    GROUPS("groups", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -838,7 +838,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             return GROUPS_VALUE.createSortByField(root, cb);
         }
     },
-    GROUPS_VALUE("groups.value") {
+    GROUPS_VALUE("groups.value", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -851,7 +851,7 @@ public enum UserQueryField implements QueryField<UserEntity> {
             throw handleSortByFieldNotSupported(toString());
         }
     },
-    GROUPS_DISPLAY("groups.display") {
+    GROUPS_DISPLAY("groups.display", true) {
         @Override
         public Predicate addFilter(Root<UserEntity> root, FilterConstraint constraint,
                 String value, CriteriaBuilder cb) {
@@ -874,9 +874,20 @@ public enum UserQueryField implements QueryField<UserEntity> {
     }
 
     private final String name;
+    private final boolean multiValued;
 
     private UserQueryField(String name) {
+        this(name, false);
+    }
+
+    private UserQueryField(String name, boolean multiValued) {
         this.name = name;
+        this.multiValued = multiValued;
+    }
+
+    @Override
+    public boolean isMultiValued() {
+        return multiValued;
     }
 
     protected RuntimeException handleSortByFieldNotSupported(String fieldName) {
@@ -25,16 +25,16 @@ package org.osiam.storage.query;
 
 import java.util.Locale;
 
+import javax.persistence.criteria.CommonAbstractCriteria;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import org.osiam.resources.exceptions.OsiamException;
-import org.osiam.storage.dao.ExtensionDao;
+import org.osiam.storage.dao.ExtensionRegistry;
 import org.osiam.storage.entities.ExtensionEntity;
 import org.osiam.storage.entities.ExtensionFieldEntity;
 import org.osiam.storage.entities.UserEntity;
-import org.osiam.storage.helper.NumberPadder;
 
 public class UserSimpleFilterChain implements FilterChain<UserEntity> {
 
@@ -44,16 +44,13 @@ public class UserSimpleFilterChain implements FilterChain<UserEntity> {
 
     private ExtensionQueryField extensionFilterField;
 
-    private final ExtensionDao extensionDao;
+    private final ExtensionRegistry extensionRegistry;
     private final CriteriaBuilder criteriaBuilder;
-    private final NumberPadder numberPadder;
 
-    public UserSimpleFilterChain(CriteriaBuilder criteriaBuilder, ExtensionDao extensionDao,
-            ScimExpression scimExpression,
-            NumberPadder numberPadder) {
+    public UserSimpleFilterChain(CriteriaBuilder criteriaBuilder, ExtensionRegistry extensionRegistry,
+            ScimExpression scimExpression) {
         this.criteriaBuilder = criteriaBuilder;
-        this.extensionDao = extensionDao;
-        this.numberPadder = numberPadder;
+        this.extensionRegistry = extensionRegistry;
         this.scimExpression = scimExpression;
         
         String field = scimExpression.getField();
@@ -79,22 +76,23 @@ public class UserSimpleFilterChain implements FilterChain<UserEntity> {
         String fieldName = fieldString.substring(lastIndexOf + 1);
         final ExtensionEntity extension;
         try {
-            extension = extensionDao.getExtensionByUrn(urn, true);
+            extension = extensionRegistry.getExtension(urn, true);
         } catch (OsiamException ex) {
             return null;
         }
-        final ExtensionFieldEntity fieldEntity = extension.getFieldForName(fieldName, true);
-        return new ExtensionQueryField(urn, fieldEntity, numberPadder);
+        final ExtensionFieldEntity fieldEntity = extensionRegistry.getField(extension, fieldName, true);
+        return new ExtensionQueryField(fieldEntity);
     }
 
     @Override
-    public Predicate createPredicateAndJoin(Root<UserEntity> root) {
+    public Predicate createPredicateAndJoin(CommonAbstractCriteria query, Root<UserEntity> root,
+            FilterParameters parameters) {
         if (userFilterField != null) {
             return userFilterField.addFilter(root, scimExpression.getConstraint(), scimExpression.getValue(),
                     criteriaBuilder);
         } else if (extensionFilterField != null) {
-            return extensionFilterField.addFilter(root, scimExpression.getConstraint(), scimExpression.getValue(),
-                    criteriaBuilder);
+            return extensionFilterField.addFilter(query, root, scimExpression.getConstraint(), scimExpression.getValue(),
+                    criteriaBuilder, parameters);
         } else {
             throw new IllegalArgumentException("Filtering not possible. Field '" + scimExpression.getField()
                     + "' not available.");
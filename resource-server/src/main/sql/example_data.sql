@@ -2,7 +2,7 @@
 -- Example User: marissa, pw: koala
 --
 INSERT INTO scim_meta (id, created, lastmodified, location, resourcetype, version)
-    VALUES (1, '2011-10-10', '2011-10-10', NULL, 'User', NULL);
+    VALUES (1, '2011-10-10', '2011-10-10', NULL, 'User', 0);
 
 INSERT INTO scim_id (internal_id, external_id, id, meta_id)
     VALUES (1, NULL, 'cef9452e-00a9-4cec-a086-d171374ffbef', 1);
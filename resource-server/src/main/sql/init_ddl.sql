@@ -21,7 +21,7 @@ SET default_with_oids = false;
 
 CREATE SEQUENCE resource_server_sequence_scim_extension
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -34,7 +34,7 @@ CREATE SEQUENCE resource_server_sequence_scim_extension
 
 CREATE SEQUENCE resource_server_sequence_scim_extension_field
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -47,7 +47,7 @@ CREATE SEQUENCE resource_server_sequence_scim_extension_field
 
 CREATE SEQUENCE resource_server_sequence_scim_extension_field_value
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -60,7 +60,7 @@ CREATE SEQUENCE resource_server_sequence_scim_extension_field_value
 
 CREATE SEQUENCE resource_server_sequence_scim_id
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -73,7 +73,7 @@ CREATE SEQUENCE resource_server_sequence_scim_id
 
 CREATE SEQUENCE resource_server_sequence_scim_meta
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -86,7 +86,7 @@ CREATE SEQUENCE resource_server_sequence_scim_meta
 
 CREATE SEQUENCE resource_server_sequence_scim_multi_valued_attribute
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -99,7 +99,7 @@ CREATE SEQUENCE resource_server_sequence_scim_multi_valued_attribute
 
 CREATE SEQUENCE resource_server_sequence_scim_name
     START WITH 100
-    INCREMENT BY 1
+    INCREMENT BY 50
     NO MINVALUE
     NO MAXVALUE
     CACHE 1;
@@ -198,7 +198,10 @@ CREATE TABLE scim_extension_field (
 
 CREATE TABLE scim_extension_field_value (
     internal_id bigint NOT NULL,
-    value text NOT NULL,
+    value text,
+    numeric_value numeric,
+    timestamp_value timestamp without time zone,
+    boolean_value boolean,
     extension_field_internal_id bigint NOT NULL,
     user_internal_id bigint NOT NULL
 );
@@ -264,7 +267,7 @@ CREATE TABLE scim_meta (
     lastmodified timestamp without time zone,
     location text,
     resourcetype character varying(255),
-    version character varying(255)
+    version bigint DEFAULT 0 NOT NULL
 );
 
 
@@ -755,6 +758,41 @@ CREATE INDEX uk_nxxhl5vhce96gwm0se9spjjjv ON scim_entitlements USING btree (valu
 CREATE INDEX uk_p2y10qxtuqdvbl5spxu98akx2 ON scim_extension_field_value USING btree (user_internal_id, extension_field_internal_id);
 
 
+--
+-- Name: idx_extension_field_value; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX idx_extension_field_value ON scim_extension_field_value USING btree (extension_field_internal_id, "substring"(value, 1, 255));
+
+
+--
+-- Name: idx_extension_field_value_prefix; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX idx_extension_field_value_prefix ON scim_extension_field_value USING btree (extension_field_internal_id, "substring"(value, 1, 255) text_pattern_ops);
+
+
+--
+-- Name: uk_6ck4bbibg4sxgihwq27wfusbs; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX uk_6ck4bbibg4sxgihwq27wfusbs ON scim_extension_field_value USING btree (extension_field_internal_id, numeric_value);
+
+
+--
+-- Name: uk_9ypyosagx5y6cpvr1io7ohy9d; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX uk_9ypyosagx5y6cpvr1io7ohy9d ON scim_extension_field_value USING btree (extension_field_internal_id, timestamp_value);
+
+
+--
+-- Name: uk_h4als3dxb0vg86vurkflduy30; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX uk_h4als3dxb0vg86vurkflduy30 ON scim_extension_field_value USING btree (extension_field_internal_id, boolean_value);
+
+
 --
 -- TOC entry 2211 (class 1259 OID 109062)
 -- Name: uk_tb6nu6msjqh1qb2ne5e4ghnp0; Type: INDEX; Schema: public; Owner: -
@@ -0,0 +1,60 @@
+-- Migrationscript from release server version 1.0 to 1.1
+
+-- The ids of the resources and their attributes are allocated in blocks of 50.
+-- The increment of the sequences must match the allocationSize of the entities,
+-- the next block starts after the last value handed out, so existing ids are kept.
+ALTER SEQUENCE resource_server_sequence_scim_extension INCREMENT BY 50;
+ALTER SEQUENCE resource_server_sequence_scim_extension_field INCREMENT BY 50;
+ALTER SEQUENCE resource_server_sequence_scim_extension_field_value INCREMENT BY 50;
+ALTER SEQUENCE resource_server_sequence_scim_id INCREMENT BY 50;
+ALTER SEQUENCE resource_server_sequence_scim_meta INCREMENT BY 50;
+ALTER SEQUENCE resource_server_sequence_scim_multi_valued_attribute INCREMENT BY 50;
+ALTER SEQUENCE resource_server_sequence_scim_name INCREMENT BY 50;
+
+-- The version of a resource counts its modifications, it is part of the ETag.
+ALTER TABLE scim_meta ALTER COLUMN version TYPE bigint USING 0;
+ALTER TABLE scim_meta ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE scim_meta ALTER COLUMN version SET NOT NULL;
+
+-- Extension values are stored in a column of their type. Integers and decimals
+-- were stored as text with an offset of 10^20 and padded to 21 digits, the sign
+-- of negative numbers applies to the fractional part as well. Dates were stored
+-- in UTC and are converted to the time zone of the session, which has to be the
+-- time zone of the resource-server like for all other timestamps.
+ALTER TABLE scim_extension_field_value ADD COLUMN numeric_value numeric;
+ALTER TABLE scim_extension_field_value ADD COLUMN timestamp_value timestamp without time zone;
+ALTER TABLE scim_extension_field_value ADD COLUMN boolean_value boolean;
+ALTER TABLE scim_extension_field_value ALTER COLUMN value DROP NOT NULL;
+
+UPDATE scim_extension_field_value v
+    SET numeric_value = CASE
+            WHEN trunc(CAST(v.value AS numeric)) < 100000000000000000000
+            THEN 2 * trunc(CAST(v.value AS numeric)) - CAST(v.value AS numeric) - 100000000000000000000
+            ELSE CAST(v.value AS numeric) - 100000000000000000000
+        END,
+        value = NULL
+    FROM scim_extension_field f
+    WHERE v.extension_field_internal_id = f.internal_id AND f.type IN ('INTEGER', 'DECIMAL');
+
+UPDATE scim_extension_field_value v
+    SET timestamp_value = CAST(v.value AS timestamp with time zone), value = NULL
+    FROM scim_extension_field f
+    WHERE v.extension_field_internal_id = f.internal_id AND f.type = 'DATE_TIME';
+
+UPDATE scim_extension_field_value v
+    SET boolean_value = CAST(v.value AS boolean), value = NULL
+    FROM scim_extension_field f
+    WHERE v.extension_field_internal_id = f.internal_id AND f.type = 'BOOLEAN';
+
+CREATE INDEX uk_6ck4bbibg4sxgihwq27wfusbs ON scim_extension_field_value USING btree (extension_field_internal_id, numeric_value);
+CREATE INDEX uk_9ypyosagx5y6cpvr1io7ohy9d ON scim_extension_field_value USING btree (extension_field_internal_id, timestamp_value);
+CREATE INDEX uk_h4als3dxb0vg86vurkflduy30 ON scim_extension_field_value USING btree (extension_field_internal_id, boolean_value);
+
+-- Filters on extension fields look up the values of a field by value. Values
+-- are unbounded and a b-tree entry is limited to about 2.7 kB, so only the
+-- first 255 characters are indexed and the filters compare the whole value
+-- afterwards. The second index serves the prefix search of the 'sw'
+-- operator, which cannot use the first one unless the database runs with the
+-- C collation.
+CREATE INDEX idx_extension_field_value ON scim_extension_field_value USING btree (extension_field_internal_id, "substring"(value, 1, 255));
+CREATE INDEX idx_extension_field_value_prefix ON scim_extension_field_value USING btree (extension_field_internal_id, "substring"(value, 1, 255) text_pattern_ops);
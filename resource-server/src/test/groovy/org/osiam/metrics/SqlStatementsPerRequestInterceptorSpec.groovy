@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.metrics
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+import spock.lang.Specification
+
+class SqlStatementsPerRequestInterceptorSpec extends Specification {
+
+    def interceptor = new SqlStatementsPerRequestInterceptor()
+    def counter = new SqlStatementCounter()
+    def request = Mock(HttpServletRequest)
+    def response = Mock(HttpServletResponse)
+
+    def 'the statements prepared during a request are recorded once the request completes'() {
+        given:
+        counter.onPrepareStatement('select 1')
+
+        when:
+        interceptor.preHandle(request, response, null)
+        3.times { counter.onPrepareStatement('select 1') }
+        interceptor.afterCompletion(request, response, null, null)
+
+        then:
+        interceptor.statementsPerRequest.count == 1
+        interceptor.statementsPerRequest.snapshot.max == 3
+    }
+
+    def 'the statement is passed to Hibernate unchanged'() {
+        expect:
+        counter.onPrepareStatement('select 1') == 'select 1'
+    }
+}
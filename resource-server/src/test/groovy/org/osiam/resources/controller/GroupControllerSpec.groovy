@@ -28,12 +28,16 @@ import org.osiam.resources.helper.JsonInputValidator
 import org.osiam.resources.helper.RequestParamHelper
 import org.osiam.resources.provisioning.SCIMGroupProvisioning
 import org.osiam.resources.scim.Group
+import org.osiam.resources.scim.Meta
 import org.osiam.resources.scim.SCIMSearchResult
+import org.osiam.storage.dao.CountMode
+import org.osiam.storage.dao.RequestedAttributes
 import org.springframework.http.HttpStatus
 import org.springframework.web.bind.annotation.RequestMapping
 import org.springframework.web.bind.annotation.RequestMethod
 import org.springframework.web.bind.annotation.ResponseBody
 import org.springframework.web.bind.annotation.ResponseStatus
+import org.springframework.web.context.request.WebRequest
 import spock.lang.Specification
 
 import javax.servlet.http.HttpServletRequest
@@ -50,7 +54,9 @@ class GroupControllerSpec extends Specification {
     def underTest = new GroupController(scimGroupProvisioning: provisioning, requestParamHelper: requestParamHelper,
             jsonInputValidator: jsonInputValidator, attributesRemovalHelper: attributesRemovalHelper)
     def httpServletResponse = Mock(HttpServletResponse)
-    Group group = new Group.Builder("group1").setId(UUID.randomUUID().toString()).build()
+    def webRequest = Mock(WebRequest)
+    Group group = new Group.Builder("group1").setId(UUID.randomUUID().toString())
+            .setMeta(new Meta.Builder().setVersion('"1-2"').build()).build()
 
     def "should contain a method to POST a group"() {
         given:
@@ -82,7 +88,7 @@ class GroupControllerSpec extends Specification {
 
     def "should contain a method to GET a group"() {
         given:
-        Method method = GroupController.class.getDeclaredMethod("get", String)
+        Method method = GroupController.class.getDeclaredMethod("get", String, WebRequest, HttpServletResponse)
         when:
         RequestMapping mapping = method.getAnnotation(RequestMapping)
         ResponseBody body = method.getAnnotation(ResponseBody)
@@ -94,15 +100,28 @@ class GroupControllerSpec extends Specification {
 
     def "should call provisioning get on get call"() {
         when:
-        def result = underTest.get("id")
+        def result = underTest.get("id", webRequest, httpServletResponse)
         then:
+        1 * provisioning.getETag("id") >> '"1-2"'
+        1 * webRequest.checkNotModified('"1-2"') >> false
         1 * provisioning.getById("id") >> group
+        1 * httpServletResponse.setHeader("ETag", '"1-2"')
         result == group
     }
 
+    def "should answer get with not modified without loading the group"() {
+        when:
+        def result = underTest.get("id", webRequest, httpServletResponse)
+        then:
+        1 * provisioning.getETag("id") >> '"1-2"'
+        1 * webRequest.checkNotModified('"1-2"') >> true
+        0 * provisioning.getById(_)
+        result == null
+    }
+
     def "should contain a method to DELETE a user"() {
         given:
-        Method method = UserController.class.getDeclaredMethod("delete", String)
+        Method method = UserController.class.getDeclaredMethod("delete", String, HttpServletRequest)
         when:
         RequestMapping mapping = method.getAnnotation(RequestMapping)
         ResponseStatus defaultStatus = method.getAnnotation(ResponseStatus)
@@ -113,9 +132,9 @@ class GroupControllerSpec extends Specification {
 
     def "should call provisioning delete on DELETE"() {
         when:
-        underTest.delete("id")
+        underTest.delete("id", httpServletRequest)
         then:
-        1 * provisioning.delete("id")
+        1 * provisioning.delete("id", null)
 
     }
 
@@ -142,7 +161,7 @@ class GroupControllerSpec extends Specification {
 
         then:
         1 * httpServletRequest.getRequestURL() >> new StringBuffer(location)
-        1 * provisioning.replace(group.id, group) >> group
+        1 * provisioning.replace(group.id, group, null) >> group
 
         1 * httpServletResponse.setHeader("Location", location)
         result == group
@@ -171,7 +190,7 @@ class GroupControllerSpec extends Specification {
 
         then:
         1 * httpServletRequest.getRequestURL() >> new StringBuffer(location)
-        1 * provisioning.update(group.id, group) >> group
+        1 * provisioning.update(group.id, group, null) >> group
 
         1 * httpServletResponse.setHeader("Location", location)
         result == group
@@ -189,10 +208,12 @@ class GroupControllerSpec extends Specification {
         map.get("sortOrder") >> "sortOrder"
         map.get("count") >> 10
         map.get("startIndex") >> 1
+        map.get("countMode") >> CountMode.EXACT
+        map.get("requestedAttributes") >> RequestedAttributes.ALL
 
         def scimSearchResultMock = Mock(SCIMSearchResult)
         def set = ["schemas"] as Set
-        provisioning.search("filter", "sortBy", "sortOrder", 10, 1) >> scimSearchResultMock
+        provisioning.search("filter", "sortBy", "sortOrder", 10, 1, null, CountMode.EXACT, RequestedAttributes.ALL) >> scimSearchResultMock
         scimSearchResultMock.getSchemas() >> set
 
         when:
@@ -219,10 +240,12 @@ class GroupControllerSpec extends Specification {
         map.get("sortOrder") >> "sortOrder"
         map.get("count") >> 10
         map.get("startIndex") >> 1
+        map.get("countMode") >> CountMode.EXACT
+        map.get("requestedAttributes") >> RequestedAttributes.ALL
 
         def scimSearchResultMock = Mock(SCIMSearchResult)
         def set = ["schemas"] as Set
-        provisioning.search("filter", "sortBy", "sortOrder", 10, 1) >> scimSearchResultMock
+        provisioning.search("filter", "sortBy", "sortOrder", 10, 1, null, CountMode.EXACT, RequestedAttributes.ALL) >> scimSearchResultMock
         scimSearchResultMock.getSchemas() >> set
 
         when:
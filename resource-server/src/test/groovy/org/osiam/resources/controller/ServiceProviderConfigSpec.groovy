@@ -28,7 +28,11 @@ import org.osiam.resources.scim.Constants
 import spock.lang.Specification
 
 class ServiceProviderConfigSpec extends Specification {
-    def underTest = new ServiceProviderConfigsController()
+    def underTest = new ServiceProviderConfigsController(bulkMaxOperations: 1000, bulkMaxPayloadSize: 1048576)
+
+    def setup() {
+        underTest.createServiceProviderConfig()
+    }
 
     def "should return a ServiceProviderConfig"() {
         given:
@@ -41,14 +45,14 @@ class ServiceProviderConfigSpec extends Specification {
         then:
         config.schemas == schemas
         config.patch.supported
-        !config.bulk.supported
-        !config.bulk.maxOperations
-        !config.bulk.maxPayloadSize
+        config.bulk.supported
+        config.bulk.maxOperations == 1000
+        config.bulk.maxPayloadSize == 1048576
         config.filter.supported
         config.filter.maxResults == 100
         !config.changePassword.supported
         config.sort.supported
-        !config.etag.supported
+        config.etag.supported
         !config.xmlDataFormat.supported
         config.authenticationSchemes.authenticationSchemes.length == 1
         config.authenticationSchemes.authenticationSchemes[0].name == "Oauth2 Bearer"
@@ -35,6 +35,8 @@ import org.osiam.resources.scim.User
 
 import spock.lang.Specification
 
+import com.fasterxml.jackson.databind.ObjectMapper
+
 class ShowComplexAttributeFilterSpec extends Specification {
     def provisioning = Mock(SCIMUserProvisioning)
     def underTest = new UserController(scimUserProvisioning: provisioning, requestParamHelper: new RequestParamHelper())
@@ -54,9 +56,9 @@ class ShowComplexAttributeFilterSpec extends Specification {
 
         then:
         2 * servletRequestMock.getParameter("attributes") >> "meta.created"
-        1 * provisioning.search(_, _, _, _, _) >> scimSearchResult
+        1 * provisioning.search(_, _, _, _, _, _, _, _) >> scimSearchResult
 
-        result.getResources() == [[meta:[created:created], schemas:['urn:scim:schemas:core:2.0:User']]] as List
+        new ObjectMapper().convertValue(result, Map).Resources == [[meta:[created:created], schemas:['urn:scim:schemas:core:2.0:User']]] as List
         result.getItemsPerPage() == 100
         result.getStartIndex() == 0
         result.getTotalResults() == 23
@@ -31,6 +31,8 @@ import org.osiam.resources.scim.Meta
 import org.osiam.resources.scim.Name
 import org.osiam.resources.scim.SCIMSearchResult
 import org.osiam.resources.scim.User
+import org.osiam.storage.dao.CountMode
+import org.osiam.storage.dao.RequestedAttributes
 import org.osiam.storage.entities.EmailEntity
 import org.osiam.storage.entities.MetaEntity
 import org.osiam.storage.entities.NameEntity
@@ -40,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestMapping
 import org.springframework.web.bind.annotation.RequestMethod
 import org.springframework.web.bind.annotation.ResponseBody
 import org.springframework.web.bind.annotation.ResponseStatus
+import org.springframework.web.context.request.WebRequest
 import spock.lang.Specification
 
 import javax.servlet.http.HttpServletRequest
@@ -57,6 +60,7 @@ class UserControllerSpec extends Specification {
             scimUserProvisioning: scimUserProvisioning)
     def httpServletRequest = Mock(HttpServletRequest)
     def httpServletResponse = Mock(HttpServletResponse)
+    def webRequest = Mock(WebRequest)
 
     User user = new User.Builder("test").setActive(true)
             .setDisplayName("display")
@@ -87,17 +91,36 @@ class UserControllerSpec extends Specification {
     def 'getting a user calls getById on provisioning bean'() {
         given:
         def id = 'irrelevant'
+        def user = new User.Builder(provisionedUser).setMeta(new Meta.Builder().setVersion('"1-2"').build()).build()
 
         when:
-        userController.getUser(id)
+        def result = userController.getUser(id, webRequest, httpServletResponse)
 
         then:
-        1 * scimUserProvisioning.getById(id) >> provisionedUser
+        1 * scimUserProvisioning.getETag(id) >> '"1-2"'
+        1 * webRequest.checkNotModified('"1-2"') >> false
+        1 * scimUserProvisioning.getById(id) >> user
+        1 * httpServletResponse.setHeader('ETag', '"1-2"')
+        result == user
+    }
+
+    def 'getting a user that was not modified does not load it'() {
+        given:
+        def id = 'irrelevant'
+
+        when:
+        def result = userController.getUser(id, webRequest, httpServletResponse)
+
+        then:
+        1 * scimUserProvisioning.getETag(id) >> '"1-2"'
+        1 * webRequest.checkNotModified('"1-2"') >> true
+        0 * scimUserProvisioning.getById(_)
+        result == null
     }
 
     def "should contain a method to GET a user"() {
         given:
-        Method method = UserController.class.getDeclaredMethod("getUser", String)
+        Method method = UserController.class.getDeclaredMethod("getUser", String, WebRequest, HttpServletResponse)
         when:
         RequestMapping mapping = method.getAnnotation(RequestMapping)
         ResponseBody body = method.getAnnotation(ResponseBody)
@@ -122,7 +145,7 @@ class UserControllerSpec extends Specification {
 
     def "should contain a method to DELETE a user"() {
         given:
-        Method method = UserController.class.getDeclaredMethod("delete", String)
+        Method method = UserController.class.getDeclaredMethod("delete", String, HttpServletRequest)
         when:
         RequestMapping mapping = method.getAnnotation(RequestMapping)
         ResponseStatus defaultStatus = method.getAnnotation(ResponseStatus)
@@ -133,9 +156,9 @@ class UserControllerSpec extends Specification {
 
     def "should call provisioning on DELETE"() {
         when:
-        userController.delete("id")
+        userController.delete("id", httpServletRequest)
         then:
-        1 * scimUserProvisioning.delete("id")
+        1 * scimUserProvisioning.delete("id", null)
     }
 
     def "should contain a method to PUT a user"() {
@@ -229,12 +252,28 @@ class UserControllerSpec extends Specification {
         def result = userController.replace(id, httpServletRequest, httpServletResponse)
 
         then:
-        1 * scimUserProvisioning.replace(id, user) >> provisionedUser
+        1 * scimUserProvisioning.replace(id, user, null) >> provisionedUser
         1 * httpServletRequest.getRequestURL() >> new StringBuffer("http://localhorst/horst/" + id)
         1 * httpServletResponse.setHeader("Location", "http://localhorst/horst/" + id)
         validateUser(result, true)
     }
 
+    def "should pass the If-Match header to the provisioning and return the new ETag"() {
+        given:
+        def id = UUID.randomUUID().toString()
+        def replacedUser = new User.Builder(provisionedUser).setMeta(new Meta.Builder().setVersion('"2-3"').build()).build()
+        jsonInputValidator.validateJsonUser(httpServletRequest) >> user
+        httpServletRequest.getRequestURL() >> new StringBuffer("http://localhorst/horst/" + id)
+
+        when:
+        userController.replace(id, httpServletRequest, httpServletResponse)
+
+        then:
+        1 * httpServletRequest.getHeader("If-Match") >> '"1-2"'
+        1 * scimUserProvisioning.replace(id, user, '"1-2"') >> replacedUser
+        1 * httpServletResponse.setHeader("ETag", '"2-3"')
+    }
+
     def "should update an user and set location header"() {
         given:
         def id = UUID.randomUUID().toString()
@@ -244,7 +283,7 @@ class UserControllerSpec extends Specification {
         def result = userController.update(id, httpServletRequest, httpServletResponse)
 
         then:
-        1 * scimUserProvisioning.update(id, user) >> provisionedUser
+        1 * scimUserProvisioning.update(id, user, null) >> provisionedUser
         1 * httpServletRequest.getRequestURL() >> new StringBuffer("http://localhorst/horst/yo")
         1 * httpServletResponse.setHeader("Location", "http://localhorst/horst/yo")
         validateUser(result, true)
@@ -262,10 +301,12 @@ class UserControllerSpec extends Specification {
         map.get("sortOrder") >> "sortOrder"
         map.get("count") >> 10
         map.get("startIndex") >> 1
+        map.get("countMode") >> CountMode.EXACT
+        map.get("requestedAttributes") >> RequestedAttributes.ALL
 
         SCIMSearchResult scimSearchResultMock = Mock()
         def set = ["schemas"] as Set
-        scimUserProvisioning.search("filter", "sortBy", "sortOrder", 10, 1) >> scimSearchResultMock
+        scimUserProvisioning.search("filter", "sortBy", "sortOrder", 10, 1, null, CountMode.EXACT, RequestedAttributes.ALL) >> scimSearchResultMock
         scimSearchResultMock.getSchemas() >> set
 
         when:
@@ -292,10 +333,12 @@ class UserControllerSpec extends Specification {
         map.get("sortOrder") >> "sortOrder"
         map.get("count") >> 10
         map.get("startIndex") >> 1
+        map.get("countMode") >> CountMode.EXACT
+        map.get("requestedAttributes") >> RequestedAttributes.ALL
 
         def scimSearchResultMock = Mock(SCIMSearchResult)
         def set = ["schemas"] as Set
-        scimUserProvisioning.search("filter", "sortBy", "sortOrder", 10, 1) >> scimSearchResultMock
+        scimUserProvisioning.search("filter", "sortBy", "sortOrder", 10, 1, null, CountMode.EXACT, RequestedAttributes.ALL) >> scimSearchResultMock
         scimSearchResultMock.getSchemas() >> set
 
         when:
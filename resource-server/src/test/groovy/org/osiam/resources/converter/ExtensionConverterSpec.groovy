@@ -26,11 +26,10 @@ package org.osiam.resources.converter
 import org.joda.time.format.ISODateTimeFormat
 import org.osiam.resources.scim.Extension
 import org.osiam.resources.scim.ExtensionFieldType
-import org.osiam.storage.dao.ExtensionDao
+import org.osiam.storage.dao.ExtensionRegistry
 import org.osiam.storage.entities.ExtensionEntity
 import org.osiam.storage.entities.ExtensionFieldEntity
 import org.osiam.storage.entities.ExtensionFieldValueEntity
-import org.osiam.storage.helper.NumberPadder
 
 import spock.lang.Specification
 
@@ -39,10 +38,9 @@ class ExtensionConverterSpec extends Specification {
     private static String URN1 = "urn:org.osiam.extensions:Test01:1.0"
     private static String URN2 = "urn:org.osiam.extensions:Test02:1.0"
 
-    private ExtensionDao extensionDao = Mock()
-    private NumberPadder numberPadder = Mock()
+    private ExtensionRegistry extensionRegistry = Mock()
 
-    private ExtensionConverter converter = new ExtensionConverter(extensionDao: extensionDao, numberPadder: numberPadder)
+    private ExtensionConverter converter = new ExtensionConverter(extensionRegistry: extensionRegistry)
 
     Map fixtures = [(URN1): [
             [fieldname: 'gender', valueAsString: 'male', value: 'male', type: ExtensionFieldType.STRING],
@@ -65,8 +63,6 @@ class ExtensionConverterSpec extends Specification {
         Set<Extension> extensions = converter.toScim(extensionFieldValueEntitySet)
 
         then:
-        1 * numberPadder.unpad('1.78') >> '1.78'
-        1 * numberPadder.unpad('2') >> '2'
         extensions == scimExtensionSet
     }
 
@@ -80,13 +76,29 @@ class ExtensionConverterSpec extends Specification {
         Set<ExtensionFieldEntity> extensions = converter.fromScim(scimExtensionSet)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN1) >> extensionMap[URN1]
-        1 * extensionDao.getExtensionByUrn(URN2) >> extensionMap[URN2]
-        1 * numberPadder.pad('1.78') >> '1.78'
-        1 * numberPadder.pad('2') >> '2'
+        1 * extensionRegistry.getExtension(URN1) >> extensionMap[URN1]
+        1 * extensionRegistry.getExtension(URN2) >> extensionMap[URN2]
         extensions == extensionFieldValueEntitySet
     }
 
+    def 'values are converted into the column of their type'() {
+        given:
+        Set<Extension> scimExtensionSet = getFilledScimExtension(fixtures, URN1)
+
+        when:
+        Set<ExtensionFieldValueEntity> values = converter.fromScim(scimExtensionSet)
+
+        then:
+        1 * extensionRegistry.getExtension(URN1) >> createExtension(URN1)
+        def valuesByName = values.collectEntries { [(it.extensionField.name): it] }
+        valuesByName.size.numericValue == new BigDecimal('1.78')
+        valuesByName.numberChildren.numericValue == new BigDecimal('2')
+        valuesByName.birth.timestampValue == fixtures[URN1][3].value
+        valuesByName.newsletter.booleanValue == true
+        valuesByName.gender.value == 'male'
+        valuesByName.size.value == null
+    }
+
     def 'convert empty extensionEntity set to empty extension set works'() {
         given:
         Set<ExtensionFieldValueEntity> extensionFieldValueEntitySet = Collections.emptySet()
@@ -170,7 +182,7 @@ class ExtensionConverterSpec extends Specification {
         fieldEntity.setType(type)
 
         ExtensionFieldValueEntity valueEntity = new ExtensionFieldValueEntity()
-        valueEntity.setValue(value)
+        valueEntity.setValue(type, type.fromString(value))
         fieldEntity.setExtension(extensionEntity)
         valueEntity.setExtensionField(fieldEntity)
 
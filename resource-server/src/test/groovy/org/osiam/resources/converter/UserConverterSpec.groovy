@@ -24,6 +24,7 @@
 package org.osiam.resources.converter
 
 import org.osiam.resources.scim.*
+import org.osiam.storage.dao.RequestedAttributes
 import org.osiam.storage.dao.UserDao
 import org.osiam.storage.entities.*
 
@@ -92,7 +93,7 @@ class UserConverterSpec extends Specification {
         1 * emailConverter.toScim(_) >> ([] as Set)
         1 * addressConverter.toScim(_) >> ([] as Set)
         1 * nameConverter.toScim(_) >> (new Name())
-        1 * metaConverter.toScim(_) >> (new Meta())
+        1 * metaConverter.toScim(_, _) >> (new Meta())
 
         user.id == uuid.toString()
         user.isActive()
@@ -109,6 +110,27 @@ class UserConverterSpec extends Specification {
         user.userType == fixtures["userType"]
     }
 
+    def 'converting user entity to scim only converts the requested attributes'() {
+        given:
+        UserEntity userEntity = getFilledUserEntity(UUID.randomUUID())
+
+        when:
+        def user = userConverter.toScim(userEntity, RequestedAttributes.fromParameter('userName,emails.value'))
+
+        then:
+        1 * emailConverter.toScim(_) >> new Email.Builder().setValue('marissa@example.com').build()
+        0 * extensionConverter.toScim(_)
+        0 * nameConverter.toScim(_)
+        0 * metaConverter.toScim(*_)
+        0 * addressConverter.toScim(_)
+
+        user.userName == fixtures["userName"]
+        user.emails.size() == 1
+        user.name == null
+        user.meta == null
+        user.groups.empty
+    }
+
     def 'converting scim user to entity works as expected'() {
         given:
         def uuid = UUID.randomUUID()
@@ -175,6 +197,7 @@ class UserConverterSpec extends Specification {
         UserEntity userEntity = new UserEntity(fixtures)
         GroupEntity groupEntity = Mock(GroupEntity)
         groupEntity.getId() >> { UUID.randomUUID() }
+        groupEntity.getMeta() >> new MetaEntity()
 
         userEntity.setId(internalId)
         userEntity.addAddress(Mock(AddressEntity))
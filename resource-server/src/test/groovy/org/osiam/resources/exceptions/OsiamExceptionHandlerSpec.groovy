@@ -24,12 +24,14 @@
 package org.osiam.resources.exceptions
 
 import com.fasterxml.jackson.databind.ObjectMapper
+import javax.persistence.OptimisticLockException
 import org.osiam.resources.scim.User
 import org.osiam.storage.entities.EmailEntity
 import org.osiam.storage.entities.ImEntity
 import org.osiam.storage.entities.PhoneNumberEntity
 import org.osiam.storage.entities.PhotoEntity
 import org.springframework.http.HttpStatus
+import org.springframework.orm.ObjectOptimisticLockingFailureException
 import org.springframework.web.context.request.WebRequest
 import spock.lang.Shared
 import spock.lang.Specification
@@ -81,6 +83,30 @@ class OsiamExceptionHandlerSpec extends Specification {
         (result.getBody() as OsiamExceptionHandler.JsonErrorResult).error_code == HttpStatus.I_AM_A_TEAPOT.name()
     }
 
+    def "status is set to PRECONDITION_FAILED when a precondition fails"() {
+        when:
+        def result = exceptionHandler.handleConflict(new PreconditionFailedException(IRRELEVANT), request)
+        then:
+        result.getStatusCode() == HttpStatus.PRECONDITION_FAILED
+        (result.getBody() as OsiamExceptionHandler.JsonErrorResult).error_code == HttpStatus.PRECONDITION_FAILED.name()
+    }
+
+    def "status is set to CONFLICT when a JPA optimistic lock fails"() {
+        when:
+        def result = exceptionHandler.handleConflict(new OptimisticLockException(IRRELEVANT), request)
+        then:
+        result.getStatusCode() == HttpStatus.CONFLICT
+        (result.getBody() as OsiamExceptionHandler.JsonErrorResult).error_code == HttpStatus.CONFLICT.name()
+    }
+
+    def "status is set to CONFLICT when a Spring optimistic locking failure occurs"() {
+        when:
+        def result = exceptionHandler.handleConflict(new ObjectOptimisticLockingFailureException(IRRELEVANT, null), request)
+        then:
+        result.getStatusCode() == HttpStatus.CONFLICT
+        (result.getBody() as OsiamExceptionHandler.JsonErrorResult).error_code == HttpStatus.CONFLICT.name()
+    }
+
     def get_exception(Closure c) {
         try {
             c.call()
@@ -25,12 +25,16 @@ package org.osiam.resources.helper
 
 import org.joda.time.DateTime
 import org.joda.time.format.ISODateTimeFormat
+import org.osiam.resources.provisioning.OsiamSearchResult
+import org.osiam.resources.scim.Extension
 import org.osiam.resources.scim.Meta
 import org.osiam.resources.scim.SCIMSearchResult
 import org.osiam.resources.scim.User
 
 import spock.lang.Specification
 
+import com.fasterxml.jackson.databind.ObjectMapper
+
 class AttributesRemovalHelperSpec extends Specification {
 
     def attributesRemovalHelperTest = new AttributesRemovalHelper()
@@ -55,7 +59,7 @@ class AttributesRemovalHelperSpec extends Specification {
         result.startIndex == 0
         result.itemsPerPage == 0
         result.totalResults == 1337
-        result.getResources() == userList
+        toJson(result).Resources == null
     }
 
     def "should return Json string with additional values for searches on users, groups and filtering for userName"() {
@@ -80,7 +84,7 @@ class AttributesRemovalHelperSpec extends Specification {
         result.startIndex == 0
         result.itemsPerPage == 0
         result.totalResults == 1337
-        result.getResources() == [[schemas:['urn:scim:schemas:core:2.0:User'], userName: 'username']]
+        toJson(result).Resources == [[schemas:['urn:scim:schemas:core:2.0:User'], userName: 'username']]
     }
 
     def "should not filter the search result if attributes are empty"() {
@@ -102,13 +106,7 @@ class AttributesRemovalHelperSpec extends Specification {
         def result = attributesRemovalHelperTest.removeSpecifiedAttributes(scimSearchResult, parameterMapMock)
 
         then:
-        result.startIndex == 0
-        result.itemsPerPage == 0
-        result.totalResults == 1337
-        result.getResources() == [
-            ["schemas": [
-                    "schemas:urn:scim:schemas:core:1.0"
-                ], "userName": "username"]] as List
+        result.is(scimSearchResult)
     }
 
     def "should return only data of a complex type"() {
@@ -133,8 +131,46 @@ class AttributesRemovalHelperSpec extends Specification {
         result.startIndex == 1
         result.itemsPerPage == 23
         result.totalResults == 1
-        result.getResources() == [[meta:[created:created], schemas:['urn:scim:schemas:core:2.0:User']]] as List
+        toJson(result).Resources == [[meta:[created:created], schemas:['urn:scim:schemas:core:2.0:User']]] as List
         result.getSchemas() == [
             'urn:scim:schemas:core:2.0:User'] as Set
     }
+
+    def "should keep the paging information of a cursor search"() {
+        given:
+        def user = new User.Builder("username").build()
+        def scimSearchResult = new OsiamSearchResult([user], 5000, 1, 1, 'urn:scim:schemas:core:2.0:User', 'next',
+                'capped')
+
+        when:
+        def json = toJson(attributesRemovalHelperTest.removeSpecifiedUserAttributes(scimSearchResult,
+                [attributes: ['userName'] as String[]]))
+
+        then:
+        json.nextCursor == 'next'
+        json.countMode == 'capped'
+        json.totalResults == 5000
+        json.Resources == [[schemas:['urn:scim:schemas:core:2.0:User'], userName: 'username']]
+    }
+
+    def "should only keep the requested extension schemas of users"() {
+        given:
+        def user = new User.Builder("username")
+                .addExtension(new Extension.Builder('urn:scim:schemas:osiam:2.0:Test').setField('field', 'value').build())
+                .addExtension(new Extension.Builder('urn:scim:schemas:osiam:2.0:Other').setField('field', 'value').build())
+                .build()
+        def scimSearchResult = new SCIMSearchResult([user], 1, 1, 1, 'urn:scim:schemas:core:2.0:User')
+
+        when:
+        def json = toJson(attributesRemovalHelperTest.removeSpecifiedUserAttributes(scimSearchResult,
+                [attributes: ['userName', 'urn:scim:schemas:osiam:2.0:Test'] as String[]]))
+
+        then:
+        json.Resources[0].schemas as Set == ['urn:scim:schemas:core:2.0:User', 'urn:scim:schemas:osiam:2.0:Test'] as Set
+    }
+
+    private Map toJson(SCIMSearchResult result) {
+        ObjectMapper mapper = new ObjectMapper()
+        mapper.readValue(mapper.writeValueAsString(result), Map)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.helper
+
+import javax.servlet.ServletOutputStream
+import javax.servlet.http.HttpServletResponse
+
+import org.osiam.resources.scim.User
+
+import spock.lang.Specification
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+class ExportResponseWriterSpec extends Specification {
+
+    def output = new ByteArrayOutputStream()
+    HttpServletResponse response = Mock()
+
+    def setup() {
+        response.getOutputStream() >> new ServletOutputStream() {
+            @Override
+            void write(int b) {
+                output.write(b)
+            }
+        }
+    }
+
+    def 'resources are exported as one JSON document per line'() {
+        when:
+        def writer = new ExportResponseWriter<User>(null, 'urn:scim:schemas:core:2.0:User', response)
+        writer.write([new User.Builder('marissa').build(), new User.Builder('arthur').build()])
+        writer.write([new User.Builder('ford').build()])
+        writer.finish()
+
+        then:
+        1 * response.setContentType(ExportResponseWriter.NDJSON_CONTENT_TYPE)
+        def lines = output.toString('UTF-8').split('\n')
+        lines.collect { new ObjectMapper().readValue(it, Map).userName } == ['marissa', 'arthur', 'ford']
+    }
+
+    def 'resources are exported as a SCIM list response'() {
+        when:
+        def writer = new ExportResponseWriter<User>('SCIM', 'urn:scim:schemas:core:2.0:User', response)
+        writer.write([new User.Builder('marissa').build()])
+        writer.write([new User.Builder('arthur').build()])
+        writer.finish()
+
+        then:
+        1 * response.setContentType('application/json')
+        def json = new ObjectMapper().readValue(output.toString('UTF-8'), Map)
+        json.schemas == ['urn:scim:schemas:core:2.0:User']
+        json.Resources*.userName == ['marissa', 'arthur']
+        json.totalResults == 2
+        json.startIndex == 1
+    }
+
+    def 'each chunk is flushed to the response'() {
+        given:
+        def writer = new ExportResponseWriter<User>('ndjson', 'urn:scim:schemas:core:2.0:User', response)
+
+        when:
+        writer.write([new User.Builder('marissa').build()])
+
+        then:
+        output.toString('UTF-8').contains('marissa')
+    }
+
+    def 'an unknown format raises an exception'() {
+        when:
+        new ExportResponseWriter<User>('csv', 'urn:scim:schemas:core:2.0:User', response)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
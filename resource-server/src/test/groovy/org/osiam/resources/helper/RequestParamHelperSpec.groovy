@@ -25,6 +25,8 @@ package org.osiam.resources.helper
 
 import javax.servlet.http.HttpServletRequest
 
+import org.osiam.storage.dao.CountMode
+import org.osiam.storage.dao.RequestedAttributes
 import org.osiam.storage.dao.ResourceDao
 
 import spock.lang.Ignore
@@ -200,4 +202,56 @@ class RequestParamHelperSpec extends Specification {
             "created"
         ]
     }
+
+    def "should request all attributes if no attributes are given"() {
+        when:
+        Map result = requestParamHelper.getRequestParameterValues(servletRequestMock)
+
+        then:
+        result.get("requestedAttributes") == RequestedAttributes.ALL
+    }
+
+    def "should put the top-level attributes to load into the parameter map"() {
+        given:
+        servletRequestMock.getParameter("attributes") >> "userName, name.givenName"
+
+        when:
+        Map result = requestParamHelper.getRequestParameterValues(servletRequestMock)
+        RequestedAttributes attributes = result.get("requestedAttributes")
+
+        then:
+        attributes.contains("name")
+        attributes.contains("userName")
+        !attributes.contains("emails")
+    }
+
+    def "should use exact counting if no countMode is given"() {
+        when:
+        Map result = requestParamHelper.getRequestParameterValues(servletRequestMock)
+
+        then:
+        result.get("countMode") == CountMode.EXACT
+    }
+
+    def "should accept the countMode case insensitively"() {
+        given:
+        servletRequestMock.getParameter("countMode") >> "Estimated"
+
+        when:
+        Map result = requestParamHelper.getRequestParameterValues(servletRequestMock)
+
+        then:
+        result.get("countMode") == CountMode.ESTIMATED
+    }
+
+    def "should throw exception for an unknown countMode"() {
+        given:
+        servletRequestMock.getParameter("countMode") >> "roughly"
+
+        when:
+        requestParamHelper.getRequestParameterValues(servletRequestMock)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
 }
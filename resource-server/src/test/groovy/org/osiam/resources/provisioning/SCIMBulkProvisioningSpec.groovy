@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.resources.provisioning
+
+import org.osiam.resources.exceptions.PreconditionFailedException
+import org.osiam.resources.exceptions.ResourceNotFoundException
+import org.osiam.resources.helper.JsonInputValidator
+import org.osiam.resources.scim.Constants
+import org.osiam.resources.scim.Group
+import org.osiam.resources.scim.User
+import org.osiam.storage.dao.ResourceDao
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.SimpleTransactionStatus
+
+import spock.lang.Specification
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+class SCIMBulkProvisioningSpec extends Specification {
+
+    static final String BASE_URI = 'http://localhost:8080/osiam-resource-server'
+    static final Set<String> ALL_METHODS = ['GET', 'POST', 'PUT', 'PATCH', 'DELETE'] as Set
+
+    SCIMUserProvisioning scimUserProvisioning = Mock()
+    SCIMGroupProvisioning scimGroupProvisioning = Mock()
+    ResourceDao resourceDao = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+
+    SCIMBulkProvisioning scimBulkProvisioning = new SCIMBulkProvisioning(scimUserProvisioning: scimUserProvisioning,
+            scimGroupProvisioning: scimGroupProvisioning, jsonInputValidator: new JsonInputValidator(),
+            resourceDao: resourceDao, transactionManager: transactionManager, flushInterval: 100)
+
+    def setup() {
+        transactionManager.getTransaction(_) >> { new SimpleTransactionStatus() }
+        scimBulkProvisioning.createOperationTransaction()
+    }
+
+    def 'a group referencing a user of the same request is created after the user'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'POST', bulkId: 'group', path: '/Groups', data: [schemas: [Constants.GROUP_CORE_SCHEMA],
+                        displayName: 'admins', members: [[value: 'bulkId:user']]]],
+                [method: 'POST', bulkId: 'user', path: '/Users', data: [schemas: [Constants.USER_CORE_SCHEMA], userName: 'marissa']])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        1 * scimUserProvisioning.create({ it.userName == 'marissa' }) >> new User.Builder('marissa').setId('u1').build()
+
+        then:
+        1 * scimGroupProvisioning.create({ it.members*.value == ['u1'] }) >>
+                new Group.Builder('admins').setId('g1').build()
+
+        response.operations*.bulkId == ['user', 'group']
+        response.operations*.status*.code == ['201', '201']
+        response.operations*.location == [BASE_URI + '/Users/u1', BASE_URI + '/Groups/g1']
+    }
+
+    def 'a bulkId in the path is replaced by the id of the created resource'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'DELETE', path: '/Users/bulkId:user'],
+                [method: 'POST', bulkId: 'user', path: '/Users', data: [schemas: [Constants.USER_CORE_SCHEMA], userName: 'marissa']])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        1 * scimUserProvisioning.create(_) >> new User.Builder('marissa').setId('u1').build()
+
+        then:
+        1 * scimUserProvisioning.delete('u1', null)
+        response.operations*.status*.code == ['201', '200']
+    }
+
+    def 'operations with circular references are rejected with 409'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'POST', bulkId: 'a', path: '/Groups', data: [schemas: [Constants.GROUP_CORE_SCHEMA], displayName: 'a',
+                        members: [[value: 'bulkId:b']]]],
+                [method: 'POST', bulkId: 'b', path: '/Groups', data: [schemas: [Constants.GROUP_CORE_SCHEMA], displayName: 'b',
+                        members: [[value: 'bulkId:a']]]])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        0 * scimGroupProvisioning.create(_)
+        response.operations*.status*.code == ['409', '409']
+    }
+
+    def 'a reference to a bulkId that no operation created is rejected with 409'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'PATCH', path: '/Users/bulkId:unknown', data: [schemas: [Constants.USER_CORE_SCHEMA]]])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        0 * scimUserProvisioning.update(_, _, _)
+        response.operations[0].status.code == '409'
+        response.operations[0].status.description.contains('unknown')
+    }
+
+    def 'a failed operation is reported with the status of the single request'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'PUT', path: '/Users/u1', data: [schemas: [Constants.USER_CORE_SCHEMA], userName: 'marissa']])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        1 * scimUserProvisioning.replace('u1', _, null) >> { throw new ResourceNotFoundException('not found') }
+        response.operations[0].status.code == '404'
+        response.operations[0].status.description == 'not found'
+        response.operations[0].location == null
+    }
+
+    def 'the changes of a PATCH that fails halfway are discarded and rolled back to its savepoint'() {
+        given:
+        def failedOperation = new SimpleTransactionStatus()
+        def succeededOperation = new SimpleTransactionStatus()
+        def request = bulkRequest(null,
+                [method: 'PATCH', path: '/Users/u1', data: [schemas: [Constants.USER_CORE_SCHEMA],
+                        displayName: 'marissa', active: false]],
+                [method: 'DELETE', path: '/Users/u2'])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        1 * transactionManager.getTransaction({ it.propagationBehavior == TransactionDefinition.PROPAGATION_NESTED }) >>
+                failedOperation
+        1 * scimUserProvisioning.update('u1', _, null) >> { throw new IllegalArgumentException('invalid active') }
+
+        then:
+        1 * resourceDao.clear()
+
+        then:
+        1 * transactionManager.commit(failedOperation)
+
+        then:
+        1 * transactionManager.getTransaction({ it.propagationBehavior == TransactionDefinition.PROPAGATION_NESTED }) >>
+                succeededOperation
+        1 * scimUserProvisioning.delete('u2', null)
+
+        then:
+        1 * resourceDao.flush()
+        1 * transactionManager.commit(succeededOperation)
+
+        and:
+        failedOperation.rollbackOnly
+        !succeededOperation.rollbackOnly
+        response.operations*.status*.code == ['409', '200']
+    }
+
+    def 'the version of an operation is its If-Match precondition'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'PATCH', path: '/Users/u1', version: '"1-2"', data: [schemas: [Constants.USER_CORE_SCHEMA]]],
+                [method: 'DELETE', path: '/Users/u2', version: '"3-4"'])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        1 * scimUserProvisioning.update('u1', _, '"1-2"') >> { throw new PreconditionFailedException('modified') }
+        1 * scimUserProvisioning.delete('u2', '"3-4"')
+        response.operations*.status*.code == ['412', '200']
+    }
+
+    def 'the processing stops after failOnErrors errors'() {
+        given:
+        def request = bulkRequest(1,
+                [method: 'DELETE', path: '/Users/u1'],
+                [method: 'DELETE', path: '/Users/u2'])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        1 * scimUserProvisioning.delete('u1', null) >> { throw new ResourceNotFoundException('not found') }
+        0 * scimUserProvisioning.delete('u2', _)
+        response.operations.size() == 1
+    }
+
+    def 'an operation needs the scope of its method'() {
+        given:
+        def request = bulkRequest(null, [method: 'DELETE', path: '/Groups/g1'])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ['POST'] as Set, BASE_URI)
+
+        then:
+        0 * scimGroupProvisioning.delete(_, _)
+        response.operations[0].status.code == '403'
+    }
+
+    def 'the persistence context is flushed and cleared every flush interval operations'() {
+        given:
+        scimBulkProvisioning.flushInterval = 2
+        def request = bulkRequest(null, (1..5).collect { [method: 'DELETE', path: '/Users/u' + it] } as Map[])
+
+        when:
+        scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        2 * resourceDao.flushAndClear()
+    }
+
+    def 'a POST needs a bulkId'() {
+        given:
+        def request = bulkRequest(null,
+                [method: 'POST', path: '/Users', data: [schemas: [Constants.USER_CORE_SCHEMA], userName: 'marissa']])
+
+        when:
+        def response = scimBulkProvisioning.process(request, ALL_METHODS, BASE_URI)
+
+        then:
+        0 * scimUserProvisioning.create(_)
+        response.operations[0].status.code == '409'
+    }
+
+    private BulkRequest bulkRequest(Integer failOnErrors, Map... operations) {
+        def request = [schemas: [BulkRequest.SCHEMA], Operations: operations as List]
+        if (failOnErrors != null) {
+            request.failOnErrors = failOnErrors
+        }
+        new ObjectMapper().convertValue(request, BulkRequest)
+    }
+}
@@ -33,21 +33,26 @@ import org.osiam.resources.exceptions.ResourceNotFoundException
 import org.osiam.resources.provisioning.update.GroupUpdater
 import org.osiam.resources.scim.Group
 import org.osiam.resources.scim.MemberRef
+import org.osiam.storage.dao.CountMode
+import org.osiam.storage.dao.RequestedAttributes
 import org.osiam.storage.dao.GroupDao
 import org.osiam.storage.dao.SearchResult
 import org.osiam.storage.entities.GroupEntity
+import org.osiam.storage.entities.ResourceEntity
 import org.osiam.storage.entities.MetaEntity
 import org.osiam.storage.query.QueryFilterParser
 import org.springframework.dao.DataIntegrityViolationException
 
 import spock.lang.Specification
 
+import com.codahale.metrics.MetricRegistry
+
 class SCIMGroupProvisioningBeanSpec extends Specification {
 
     GroupDao groupDao = Mock()
     GroupConverter groupConverter = Mock()
     GroupUpdater groupUpdater = Mock()
-    QueryFilterParser queryFilterParser = new QueryFilterParser()
+    QueryFilterParser queryFilterParser = new QueryFilterParser(metricRegistry: new MetricRegistry())
 
     SCIMGroupProvisioning scimGroupProvisioning = new SCIMGroupProvisioning(groupDao: groupDao, groupConverter: groupConverter,
     groupUpdater: groupUpdater, queryFilterParser: queryFilterParser)
@@ -58,6 +63,10 @@ class SCIMGroupProvisioningBeanSpec extends Specification {
     def groupUuid = UUID.randomUUID().toString()
     def memberId = UUID.randomUUID().toString()
 
+    def setup() {
+        queryFilterParser.createParseTreeCache()
+    }
+
     def 'retrieving a group works as expected'() {
         when:
         scimGroupProvisioning.getById(groupUuid)
@@ -135,7 +144,9 @@ class SCIMGroupProvisioningBeanSpec extends Specification {
         scimGroupProvisioning.replace(groupUuid.toString(), group)
 
         then:
-        1 * groupConverter.fromScim(_) >> { throw new ResourceNotFoundException('') }
+        1 * groupDao.getById(groupUuid.toString()) >> groupEntity
+        1 * groupConverter.membersFromScim(_) >> { throw new ResourceNotFoundException('') }
+        0 * groupEntity.replaceMembers(_)
         thrown(ResourceNotFoundException)
     }
 
@@ -146,16 +157,21 @@ class SCIMGroupProvisioningBeanSpec extends Specification {
         group = new Group.Builder()
                 .setMembers([member] as Set)
                 .build()
+        ResourceEntity newMember = Mock()
 
         when:
         scimGroupProvisioning.replace(groupUuid.toString(), group)
 
-        then:
-        1 * groupConverter.fromScim(_) >> groupEntity
-        1 * groupDao.getById(groupUuid.toString()) >> groupEntity   // <- is not the same as above, but doesn't really matter here
-        1 * groupDao.update(groupEntity) >> groupEntity
-        1 * groupConverter.toScim(groupEntity) >> new Group.Builder(group).build()
+        then: 'the existing group is changed in place'
+        1 * groupDao.getById(groupUuid.toString()) >> groupEntity
+        1 * groupEntity.checkETag(null)
+        1 * groupConverter.membersFromScim(group.getMembers()) >> ([newMember] as Set)
+        1 * groupEntity.replaceMembers([newMember] as Set)
         1 * groupEntity.touch()
+        1 * groupConverter.toScim(groupEntity) >> new Group.Builder(group).build()
+        and: 'the group is neither converted again nor merged'
+        0 * groupConverter.fromScim(_)
+        0 * groupDao.update(_)
     }
 
     def 'deleting an unknown group raises exception'() {
@@ -164,7 +180,7 @@ class SCIMGroupProvisioningBeanSpec extends Specification {
         scimGroupProvisioning.delete(groupUuid)
 
         then:
-        1 * groupDao.delete(groupUuid) >> { throw new NoResultException() }
+        1 * groupDao.delete(groupUuid, null) >> { throw new NoResultException() }
         def rnfe = thrown(ResourceNotFoundException)
 
         rnfe.getMessage().with {
@@ -179,7 +195,7 @@ class SCIMGroupProvisioningBeanSpec extends Specification {
         scimGroupProvisioning.delete(groupUuid)
 
         then:
-        1 * groupDao.delete(groupUuid)
+        1 * groupDao.delete(groupUuid, null)
     }
 
     def 'searching for groups calls groupDao.search(), converts each entity to scim and returns the SCIM search result'() {
@@ -187,11 +203,11 @@ class SCIMGroupProvisioningBeanSpec extends Specification {
         def groupList = [groupEntity] as List
         
         when:
-        def result = scimGroupProvisioning.search("externalId eq \"group\"", "userName", "ascending", 100, 1)
+        def result = scimGroupProvisioning.search("externalId eq \"group\"", "userName", "ascending", 100, 1, null, CountMode.EXACT, RequestedAttributes.ALL)
 
         then:
-        1 * groupDao.search(_, "userName", "ascending", 100, 0) >> new SearchResult(groupList, 1000)
-        1 * groupConverter.toScim(groupEntity) >> group
+        1 * groupDao.search(_, "userName", "ascending", 100, 0, null, CountMode.EXACT, RequestedAttributes.ALL) >> new SearchResult(groupList, 1000)
+        1 * groupConverter.toScim(groupEntity, RequestedAttributes.ALL) >> group
 
         result.resources.size() == 1
         result.resources.first() == group
@@ -27,25 +27,36 @@ import org.antlr.v4.runtime.tree.ParseTree
 import org.hibernate.hql.spi.FilterTranslator
 import org.osiam.resources.converter.UserConverter
 import org.osiam.resources.exceptions.ResourceExistsException
+import org.osiam.resources.provisioning.update.UserUpdater
 import org.osiam.resources.scim.User
+import org.osiam.storage.dao.CountMode
+import org.osiam.storage.dao.RequestedAttributes
+import org.osiam.storage.dao.ResourceChunkIterator
 import org.osiam.storage.dao.SearchResult
 import org.osiam.storage.dao.UserDao
-import org.osiam.storage.entities.MetaEntity
 import org.osiam.storage.entities.UserEntity
 import org.osiam.storage.query.QueryFilterParser
 import org.springframework.security.authentication.encoding.PasswordEncoder
 
 import spock.lang.Specification
 
+import com.codahale.metrics.MetricRegistry
+
 class SCIMUserProvisioningBeanSpec extends Specification {
 
     PasswordEncoder passwordEncoder = Mock()
     UserDao userDao = Mock()
     UserConverter userConverter = Mock()
-    QueryFilterParser queryFilterParser = new QueryFilterParser()
+    UserUpdater userUpdater = Mock()
+    QueryFilterParser queryFilterParser = new QueryFilterParser(metricRegistry: new MetricRegistry())
 
     SCIMUserProvisioning scimUserProvisioningBean = new SCIMUserProvisioning(userDao: userDao,
-            userConverter: userConverter, passwordEncoder: passwordEncoder, queryFilterParser: queryFilterParser)
+            userConverter: userConverter, passwordEncoder: passwordEncoder, userUpdater: userUpdater,
+            queryFilterParser: queryFilterParser)
+
+    def setup() {
+        queryFilterParser.createParseTreeCache()
+    }
 
     def 'should be possible to get a user by his id'() {
         given:
@@ -121,29 +132,28 @@ class SCIMUserProvisioningBeanSpec extends Specification {
         e.getMessage().contains(externalId)
     }
 
-    def 'replacing a user converts it from scim, updates last modified, updates the db and returns the replaced user as scim'() {
+    def 'replacing a user applies the changes to the original user, updates last modified and returns it as scim'() {
         given:
         def idString = UUID.randomUUID().toString()
         def userScim = new User()
 
-        UserEntity userEntity = Mock()
-        userDao.getById(idString) >> Mock(UserEntity)
+        UserEntity existingEntity = Mock()
+        userDao.getById(idString) >> existingEntity
 
         when:
         scimUserProvisioningBean.replace(idString, userScim)
 
         then:
-        1 * userConverter.fromScim(userScim) >> userEntity
-        1 * userEntity.touch()
-        1 * userDao.update(userEntity) >> userEntity
-        1 * userConverter.toScim(userEntity) >> userScim
+        1 * userUpdater.replace(userScim, existingEntity) >> true
+        1 * existingEntity.touch()
+        0 * userDao.update(_)
+        1 * userConverter.toScim(existingEntity) >> userScim
     }
 
     def 'replacing a user retrieves the original user from db'() {
         given:
         def idString = UUID.randomUUID().toString()
         def userScim = new User()
-        userConverter.fromScim(userScim) >> Mock(UserEntity)
         userConverter.toScim(_) >> userScim
 
         when:
@@ -153,121 +163,129 @@ class SCIMUserProvisioningBeanSpec extends Specification {
         1 * userDao.getById(idString) >> Mock(UserEntity)
     }
 
-    def 'replacing a user copies its unmodifiable values, i.e. internalId, meta and UUID'() {
+    def 'replacing a user without any change keeps its last modified date'() {
         given:
-        def id = UUID.randomUUID()
-        def idString = id.toString()
-        def internalId = 1L
-        def meta = new MetaEntity()
+        def idString = UUID.randomUUID().toString()
         def userScim = new User()
 
         UserEntity existingEntity = Mock()
-        UserEntity userEntity = Mock()
         userDao.getById(idString) >> existingEntity
-        userConverter.fromScim(userScim) >> userEntity
-        userConverter.toScim(_) >> userScim
+        userConverter.toScim(existingEntity) >> userScim
 
         when:
         scimUserProvisioningBean.replace(idString, userScim)
 
         then:
-
-        1 * existingEntity.getInternalId() >>internalId
-        1 * existingEntity.getMeta() >> meta
-        1 * existingEntity.getId() >> id
-        1 * userEntity.setInternalId(internalId)
-        1 * userEntity.setMeta(meta)
-        1 * userEntity.setId(id)
+        1 * userUpdater.replace(userScim, existingEntity) >> false
+        0 * existingEntity.touch()
     }
 
-    def 'replacing a user with a password set, encodes and stores the new password' (){
+    def 'replacing a user return the replaced user with its password removed' () {
         given:
         def id = UUID.randomUUID()
         def password = 'irrelevant'
-        def hashedPassword = 'hashed password'
+        def userScim = new User()
 
-        User userScim = Mock()
-        UserEntity userEntity = Mock()
-        userDao.getById(id.toString()) >> new UserEntity(id: id)
-        userConverter.fromScim(userScim) >> userEntity
-        userConverter.toScim(_) >> userScim
+        UserEntity existingEntity = Mock()
+
+        userDao.getById(id.toString()) >> existingEntity
+        existingEntity.getPassword() >> password
+        existingEntity.getId() >> id
+        userConverter.toScim(existingEntity) >> { UserEntity it ->
+            new User.Builder(id: it.getId(), password: it.getPassword()).build()
+        }
 
         when:
-        scimUserProvisioningBean.replace(id.toString(), userScim)
+        User user = scimUserProvisioningBean.replace(id.toString(), userScim)
 
         then:
-        3 * userScim.getPassword() >> password
-        1 * userEntity.getId() >> id
-        1 * passwordEncoder.encodePassword(password, id) >> hashedPassword
-        1 * userEntity.setPassword(hashedPassword)
+        user.password == null
     }
 
-    def 'replacing a user without a password set, copies the original password' () {
+    def 'should call dao delete on delete'() {
         given:
-        def id = UUID.randomUUID()
-        def password = 'irrelevant'
-        def userScim = new User()
+        def id = UUID.randomUUID().toString()
+        when:
+        scimUserProvisioningBean.delete(id)
+        then:
+        1 * userDao.delete(id, null)
+    }
 
-        UserEntity existingEntity = Mock()
-        UserEntity userEntity = Mock()
-        userDao.getById(id.toString()) >> existingEntity
-        userConverter.fromScim(userScim) >> userEntity
-        userConverter.toScim(_) >> userScim
+    def 'searching for users calls search on dao'() {
+        given:
+        UserEntity userEntity = new UserEntity()
+        User userScim = new User()
+        SearchResult searchResult = new SearchResult([userEntity] as List, 1000L)
+        userConverter.toScim(userEntity, RequestedAttributes.ALL) >> userScim
 
         when:
-        scimUserProvisioningBean.replace(id.toString(), userScim)
+        def result = scimUserProvisioningBean.search('userName eq "marissa"', 'userName', 'ascending', 100, 1, null,
+                CountMode.EXACT, RequestedAttributes.ALL)
 
         then:
-        1 * existingEntity.getPassword() >> password
-        1 * userEntity.setPassword(password)
+        1 * userDao.search(_, 'userName', 'ascending', 100, 0, null, CountMode.EXACT, RequestedAttributes.ALL) >>
+                searchResult
     }
 
-    def 'replacing a user return the replaced user with its password removed' () {
+    def 'searching for users by cursor passes the cursor to the dao and returns the next cursor'() {
         given:
-        def id = UUID.randomUUID()
-        def password = 'irrelevant'
-        def userScim = new User()
+        UserEntity userEntity = new UserEntity()
+        userConverter.toScim(userEntity, _) >> new User()
+        userDao.search(_, 'userName', 'ascending', 1, 0, '', CountMode.EXACT, _) >>
+                new SearchResult([userEntity] as List, 2L, 'next', CountMode.EXACT)
 
-        UserEntity existingEntity = Mock()
-        UserEntity userEntity = Mock()
+        when:
+        def result = scimUserProvisioningBean.search('userName pr', 'userName', 'ascending', 1, 1, '', CountMode.EXACT,
+                RequestedAttributes.ALL)
 
-        userDao.getById(id.toString()) >> existingEntity
-        userConverter.fromScim(userScim) >> userEntity
-        userEntity.getPassword() >> password
-        userEntity.getId() >> id
-        userConverter.toScim(userEntity) >> { UserEntity it ->
-            new User.Builder(id: it.getId(), password: it.getPassword()).build()
-        }
-        userDao.update(userEntity) >> userEntity
+        then:
+        result instanceof OsiamSearchResult
+        result.nextCursor == 'next'
+        result.countMode == null
+    }
+
+    def 'searching for users with a count mode reports the count mode used by the dao'() {
+        given:
+        userDao.search(_, _, _, _, _, _, CountMode.ESTIMATED, _) >> new SearchResult([], 5000L, null, CountMode.CAPPED)
 
         when:
-        User user = scimUserProvisioningBean.replace(id.toString(), userScim)
+        def result = scimUserProvisioningBean.search('userName pr', null, 'ascending', 100, 1, null,
+                CountMode.ESTIMATED, RequestedAttributes.ALL)
 
         then:
-        user.password == null
+        result.totalResults == 5000L
+        result.countMode == 'capped'
     }
 
-    def 'should call dao delete on delete'() {
+    def 'searching for users converts only the requested attributes'() {
         given:
-        def id = UUID.randomUUID().toString()
+        UserEntity userEntity = new UserEntity()
+        RequestedAttributes attributes = RequestedAttributes.fromParameter('userName')
+        userDao.search(_, _, _, _, _, _, _, attributes) >> new SearchResult([userEntity] as List, 1L)
+
         when:
-        scimUserProvisioningBean.delete(id)
+        scimUserProvisioningBean.search('userName pr', null, 'ascending', 100, 1, null, CountMode.EXACT, attributes)
+
         then:
-        1 * userDao.delete(id)
+        1 * userConverter.toScim(userEntity, attributes) >> new User()
     }
 
-    def 'searching for users calls search on dao'() {
+    def 'exporting users passes the converted chunks without passwords to the writer'() {
         given:
-        UserEntity userEntity = new UserEntity()
-        User userScim = new User()
-        SearchResult searchResult = new SearchResult([userEntity] as List, 1000L)
-        userConverter.toScim(userEntity) >> userScim
+        ResourceChunkIterator<UserEntity> chunks = Mock()
+        ExportWriter<User> writer = Mock()
+        userDao.export() >> chunks
+        chunks.hasNext() >>> [true, true, false]
+        chunks.next() >>> [[new UserEntity(), new UserEntity()], [new UserEntity()]]
+        userConverter.toScim(_) >> new User.Builder('marissa').setPassword('secret').build()
 
         when:
-        def result = scimUserProvisioningBean.search('userName eq "marissa"', 'userName', 'ascending', 100, 1)
+        scimUserProvisioningBean.export(writer)
 
         then:
-        1 * userDao.search(_, 'userName', 'ascending', 100, 0) >> searchResult
+        1 * writer.write({ it.size() == 2 && it.every { it.password == null } })
+        1 * writer.write({ it.size() == 1 })
+        1 * chunks.close()
     }
 
     def 'creating a user returns the new user with its password removed'() {
@@ -43,7 +43,7 @@ class UserDeleteSpec extends Specification {
         scimUserProvisioning.delete(uuidAsString)
 
         then:
-        1 * userDao.delete(uuidAsString) >> { throw new NoResultException() }
+        1 * userDao.delete(uuidAsString, null) >> { throw new NoResultException() }
         def rnfe = thrown(ResourceNotFoundException)
 
         rnfe.getMessage().with {
@@ -58,6 +58,6 @@ class UserDeleteSpec extends Specification {
         scimUserProvisioning.delete(uuidAsString)
 
         then:
-        1 * userDao.delete(uuidAsString)
+        1 * userDao.delete(uuidAsString, null)
     }
 }
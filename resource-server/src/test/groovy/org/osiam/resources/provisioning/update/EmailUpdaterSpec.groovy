@@ -95,4 +95,55 @@ class EmailUpdaterSpec extends Specification {
         1 * userEntity.addEmail(newPrimaryEmailEntity)
         1 * oldPrimaryEmailEntity.setPrimary(false)
     }
+
+    def 'replacing the emails with the same emails changes nothing'() {
+        given:
+        Email email = new Email.Builder(value : IRRELEVANT, type : Email.Type.WORK).build()
+        EmailEntity existingEmail = new EmailEntity(value : IRRELEVANT, type : Email.Type.WORK)
+        EmailEntity replacingEmail = new EmailEntity(value : IRRELEVANT, type : Email.Type.WORK)
+        userEntity.getEmails() >> ([existingEmail] as Set)
+
+        when:
+        def changed = emailUpdater.replace([email] as List, userEntity)
+
+        then:
+        1 * emailConverter.fromScim(email) >> replacingEmail
+        0 * userEntity.removeEmail(_)
+        0 * userEntity.addEmail(_)
+        !changed
+    }
+
+    def 'replacing the emails removes the missing and adds the new ones'() {
+        given:
+        Email email = new Email.Builder(value : IRRELEVANT_02).build()
+        EmailEntity existingEmail = new EmailEntity(value : IRRELEVANT)
+        EmailEntity replacingEmail = new EmailEntity(value : IRRELEVANT_02)
+        userEntity.getEmails() >> ([existingEmail] as Set)
+
+        when:
+        def changed = emailUpdater.replace([email] as List, userEntity)
+
+        then:
+        1 * emailConverter.fromScim(email) >> replacingEmail
+        1 * userEntity.removeEmail(existingEmail)
+        1 * userEntity.addEmail(replacingEmail)
+        changed
+    }
+
+    def 'replacing the emails takes over a changed primary attribute of a kept email'() {
+        given:
+        Email email = new Email.Builder(value : IRRELEVANT, primary : true).build()
+        EmailEntity existingEmail = new EmailEntity(value : IRRELEVANT, primary : false)
+        EmailEntity replacingEmail = new EmailEntity(value : IRRELEVANT, primary : true)
+        userEntity.getEmails() >> ([existingEmail] as Set)
+
+        when:
+        def changed = emailUpdater.replace([email] as List, userEntity)
+
+        then:
+        1 * emailConverter.fromScim(email) >> replacingEmail
+        0 * userEntity.addEmail(_)
+        existingEmail.primary
+        changed
+    }
 }
@@ -28,7 +28,7 @@ import org.osiam.resources.exceptions.NoSuchElementException
 import org.osiam.resources.exceptions.OsiamException
 import org.osiam.resources.scim.Extension
 import org.osiam.resources.scim.ExtensionFieldType
-import org.osiam.storage.dao.ExtensionDao
+import org.osiam.storage.dao.ExtensionRegistry
 import org.osiam.storage.entities.ExtensionEntity
 import org.osiam.storage.entities.ExtensionFieldEntity
 import org.osiam.storage.entities.ExtensionFieldValueEntity
@@ -49,15 +49,22 @@ class ExtensionUpdaterSpec extends Specification {
     UserEntity userEntity = Mock()
     ExtensionEntity extensionEntity = Mock()
     ExtensionConverter extensionConverter = Mock()
-    ExtensionDao extensionDao = Mock()
-    ExtensionUpdater extensionUpdater = new ExtensionUpdater(extensionDao : extensionDao)
+    ExtensionRegistry extensionRegistry = Mock()
+    ExtensionUpdater extensionUpdater = new ExtensionUpdater(extensionRegistry : extensionRegistry,
+            extensionConverter : extensionConverter)
+
+    def setup() {
+        extensionRegistry.getField(_, _, _) >> { ExtensionEntity extension, String fieldName, boolean caseInsensitive ->
+            extension.getFieldForName(fieldName, caseInsensitive)
+        }
+    }
 
     def 'removing an extension is possible'(){
         when:
         extensionUpdater.update(null, userEntity, [URN] as Set)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN, true) >> createExtensionEntity()
+        1 * extensionRegistry.getExtension(URN, true) >> createExtensionEntity()
         1 * userEntity.removeAllExtensionFieldValues(URN)
     }
 
@@ -66,7 +73,7 @@ class ExtensionUpdaterSpec extends Specification {
         extensionUpdater.update(null, userEntity, [URN + "." + FIELD] as Set)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN, true) >> createExtensionEntity()
+        1 * extensionRegistry.getExtension(URN, true) >> createExtensionEntity()
         1 * userEntity.getExtensionFieldValues() >> ([getExtensionValueEntity()] as Set)
         1 * userEntity.removeExtensionFieldValue(_)
     }
@@ -79,7 +86,7 @@ class ExtensionUpdaterSpec extends Specification {
         extensionUpdater.update([(URN) : extension] as Map, userEntity, [] as Set)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN) >> { throw new OsiamException() }
+        1 * extensionRegistry.getExtension(URN) >> { throw new OsiamException() }
         thrown(OsiamException)
     }
 
@@ -93,7 +100,7 @@ class ExtensionUpdaterSpec extends Specification {
         extensionUpdater.update([(URN) : extension] as Map, userEntity, [] as Set)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN) >> extensionEntity
+        1 * extensionRegistry.getExtension(URN) >> extensionEntity
         thrown(NoSuchElementException)
     }
 
@@ -106,7 +113,7 @@ class ExtensionUpdaterSpec extends Specification {
         extensionUpdater.update([(URN) : extension] as Map, userEntity, [] as Set)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN) >> extensionEntity
+        1 * extensionRegistry.getExtension(URN) >> extensionEntity
         1 * userEntity.getExtensionFieldValues() >> ([getExtensionValueEntity()] as Set)
         1 * userEntity.addOrUpdateExtensionValue(_)
     }
@@ -120,11 +127,57 @@ class ExtensionUpdaterSpec extends Specification {
         extensionUpdater.update([(URN) : extension] as Map, userEntity, [] as Set)
 
         then:
-        1 * extensionDao.getExtensionByUrn(URN) >> extensionEntity
+        1 * extensionRegistry.getExtension(URN) >> extensionEntity
         1 * userEntity.getExtensionFieldValues() >> ([] as Set)
         1 * userEntity.addOrUpdateExtensionValue(_)
     }
 
+    def 'replacing the extensions with the same values changes nothing'(){
+        given:
+        def existingValue = getExtensionValueEntity()
+        userEntity.getExtensionFieldValues() >> ([existingValue] as Set)
+
+        when:
+        def changed = extensionUpdater.replace([(URN): extensionWithValue()], userEntity)
+
+        then:
+        1 * extensionConverter.fromScim(_) >> ([getExtensionValueEntity()] as Set)
+        0 * userEntity.removeExtensionFieldValue(_)
+        0 * userEntity.addExtensionFieldValue(_)
+        !changed
+    }
+
+    def 'replacing the extensions updates a changed value in place'(){
+        given:
+        def existingValue = getExtensionValueEntity()
+        def replacingValue = getExtensionValueEntity()
+        replacingValue.value = IRRELEVANT
+        userEntity.getExtensionFieldValues() >> ([existingValue] as Set)
+
+        when:
+        def changed = extensionUpdater.replace([(URN): extensionWithValue()], userEntity)
+
+        then:
+        1 * extensionConverter.fromScim(_) >> ([replacingValue] as Set)
+        0 * userEntity.addExtensionFieldValue(_)
+        existingValue.value == IRRELEVANT
+        changed
+    }
+
+    def 'replacing the extensions removes the values that are not present anymore'(){
+        given:
+        def existingValue = getExtensionValueEntity()
+        userEntity.getExtensionFieldValues() >> ([existingValue] as Set)
+
+        when:
+        def changed = extensionUpdater.replace(null, userEntity)
+
+        then:
+        0 * extensionConverter.fromScim(_)
+        1 * userEntity.removeExtensionFieldValue(existingValue)
+        changed
+    }
+
     def createExtensionEntity() {
         ExtensionFieldEntity extensionFieldEntity = new ExtensionFieldEntity(name: FIELD, type: ExtensionFieldType.STRING)
         ExtensionFieldValueEntity extensionFieldValueEntity = getExtensionValueEntity()
@@ -80,11 +80,65 @@ class GroupUpdaterSpec extends Specification {
 
         then: 'only the displayName was changed'
         1 * groupEntity.getId() >> uuid
+        1 * groupEntity.getDisplayName() >> 'former'
         1 * groupEntity.setDisplayName(IRRELEVANT)
         and: 'nothing else was changed'
         0 * groupEntity._
     }
 
+    def 'updating displayName does not touch the members'() {
+        given:
+        ResourceEntity member = Mock()
+        group = new Group.Builder(displayName: IRRELEVANT).build()
+        groupEntity.getId() >> UUID.randomUUID()
+        groupEntity.getDisplayName() >> 'former'
+        groupEntity.getMembers() >> ([member] as Set)
+
+        when:
+        groupUpdater.update(group, groupEntity)
+
+        then:
+        0 * member.touch()
+    }
+
+    def 'keeping the displayName does not touch the members'() {
+        given:
+        ResourceEntity member = Mock()
+        group = new Group.Builder(displayName: IRRELEVANT).build()
+        groupEntity.getId() >> UUID.randomUUID()
+        groupEntity.getDisplayName() >> IRRELEVANT
+        groupEntity.getMembers() >> ([member] as Set)
+
+        when:
+        groupUpdater.update(group, groupEntity)
+
+        then:
+        0 * groupEntity.setDisplayName(_)
+        0 * member.touch()
+    }
+
+    def 'clearing and adding the same member again does not touch it'() {
+        given:
+        def memberId = UUID.randomUUID()
+        ResourceEntity member = Mock()
+        member.getId() >> memberId
+        GroupEntity group = new GroupEntity(displayName: IRRELEVANT)
+        group.addMember(member)
+
+        Meta meta = new Meta(attributes: ['members'] as Set)
+        MemberRef memberRef = new MemberRef.Builder(value: memberId.toString()).build()
+        this.group = new Group.Builder(meta: meta, members: [memberRef] as Set).build()
+        resourceDao.getById(memberId.toString(), ResourceEntity) >> member
+
+        when:
+        groupUpdater.update(this.group, group)
+
+        then:
+        0 * member.touch()
+        0 * member.removeFromGroup(_)
+        group.members == [member] as Set
+    }
+
     @Unroll
     def 'updating displayName to #value is not possible'() {
         given:
@@ -111,7 +165,7 @@ class GroupUpdaterSpec extends Specification {
         groupUpdater.update(group, groupEntity)
 
         then: 'all members were removed'
-        1 * groupEntity.removeAllMembers()
+        1 * groupEntity.replaceMembers([] as Set)
         and: 'nothing else was changed'
         0 * groupEntity._
     }
@@ -130,7 +184,8 @@ class GroupUpdaterSpec extends Specification {
         then: 'the member was retrieved via the ResourceDao'
         1 * resourceDao.getById(memberId, ResourceEntity) >> member
         and: 'the retrieved member was added to the group'
-        1 * groupEntity.addMember(member)
+        1 * groupEntity.getMembers() >> ([] as Set)
+        1 * groupEntity.replaceMembers([member] as Set)
         and: 'nothing else was changed'
         0 * groupEntity._
     }
@@ -149,7 +204,7 @@ class GroupUpdaterSpec extends Specification {
         then: 'the member to remove was looked up in the current set of members of the group'
         1 * groupEntity.getMembers() >> ([member] as Set)
         and: 'the looked up member was removed'
-        1 * groupEntity.removeMember(member)
+        1 * groupEntity.replaceMembers([] as Set)
         and: 'nothing else was changed'
         0 * groupEntity._
     }
@@ -159,6 +214,7 @@ class GroupUpdaterSpec extends Specification {
         def uuid = UUID.randomUUID()
         Group group = new Group.Builder(displayName : IRRELEVANT).build()
         groupEntity.getId() >> uuid
+        groupEntity.getMembers() >> ([] as Set)
 
         when:
         groupUpdater.update(group, groupEntity)
@@ -307,4 +307,41 @@ class NameUpdaterSpec extends Specification {
         'null'         | null
         'empty string' | ''
     }
+
+    def 'replacing the name with the same name reports no change'() {
+        given:
+        userEntity = new UserEntity(name : new NameEntity(givenName : IRRELEVANT, familyName : IRRELEVANT))
+        name = new Name(givenName : IRRELEVANT, familyName : IRRELEVANT)
+
+        expect:
+        !nameUpdater.replace(name, userEntity)
+    }
+
+    def 'replacing the name with a different name changes the existing name entity'() {
+        given:
+        def existingName = new NameEntity(givenName : IRRELEVANT, familyName : IRRELEVANT)
+        userEntity = new UserEntity(name : existingName)
+        name = new Name(givenName : 'other')
+
+        when:
+        def changed = nameUpdater.replace(name, userEntity)
+
+        then:
+        changed
+        userEntity.name.is(existingName)
+        existingName.givenName == 'other'
+        existingName.familyName == null
+    }
+
+    def 'replacing the name with an empty name removes the name'() {
+        given:
+        userEntity = new UserEntity(name : new NameEntity(givenName : IRRELEVANT))
+
+        when:
+        def changed = nameUpdater.replace(null, userEntity)
+
+        then:
+        changed
+        userEntity.name == null
+    }
 }
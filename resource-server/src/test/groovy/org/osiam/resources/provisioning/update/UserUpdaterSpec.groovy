@@ -28,10 +28,8 @@ import org.osiam.resources.exceptions.ResourceExistsException
 import org.osiam.resources.scim.Group
 import org.osiam.resources.scim.Meta
 import org.osiam.resources.scim.User
-import org.osiam.storage.dao.ExtensionDao
 import org.osiam.storage.dao.UserDao
 import org.osiam.storage.entities.UserEntity
-import org.osiam.storage.helper.NumberPadder
 import org.springframework.security.authentication.encoding.PasswordEncoder
 
 import spock.lang.Specification
@@ -690,4 +688,72 @@ class UserUpdaterSpec extends Specification {
         1 * userDao.isUserNameAlreadyTaken(IRRELEVANT, uuid.toString()) >> true
         thrown(ResourceExistsException)
     }
+
+    def 'replacing a user with the same attributes reports no change'() {
+        given:
+        def userEntity = new UserEntity(userName: IRRELEVANT, displayName: IRRELEVANT, active: true)
+        user = new User.Builder(IRRELEVANT).setDisplayName(IRRELEVANT).setActive(true).build()
+
+        when:
+        def changed = userUpdater.replace(user, userEntity)
+
+        then:
+        !changed
+        userEntity.userName == IRRELEVANT
+        userEntity.displayName == IRRELEVANT
+    }
+
+    def 'replacing a user with a different attribute reports a change'() {
+        given:
+        def userEntity = new UserEntity(userName: IRRELEVANT, displayName: IRRELEVANT, active: true)
+        user = new User.Builder(IRRELEVANT).setDisplayName('other').setActive(true).build()
+
+        when:
+        def changed = userUpdater.replace(user, userEntity)
+
+        then:
+        changed
+        userEntity.displayName == 'other'
+    }
+
+    def 'replacing a user reports a change if only a multi-valued attribute changed'() {
+        given:
+        def userEntity = new UserEntity(userName: IRRELEVANT, active: true)
+        user = new User.Builder(IRRELEVANT).setActive(true).build()
+
+        when:
+        def changed = userUpdater.replace(user, userEntity)
+
+        then:
+        1 * emailUpdater.replace(user.emails, userEntity) >> true
+        changed
+    }
+
+    def 'replacing a user with a password set, encodes and stores the new password'() {
+        given:
+        def id = UUID.randomUUID()
+        def userEntity = new UserEntity(id: id, userName: IRRELEVANT, password: 'old hash')
+        user = new User.Builder(IRRELEVANT).setPassword('secret').build()
+
+        when:
+        def changed = userUpdater.replace(user, userEntity)
+
+        then:
+        1 * passwordEncoder.encodePassword('secret', id) >> 'new hash'
+        userEntity.password == 'new hash'
+        changed
+    }
+
+    def 'replacing a user without a password set keeps the original password'() {
+        given:
+        def userEntity = new UserEntity(userName: IRRELEVANT, password: 'old hash')
+        user = new User.Builder(IRRELEVANT).build()
+
+        when:
+        userUpdater.replace(user, userEntity)
+
+        then:
+        0 * passwordEncoder.encodePassword(_, _)
+        userEntity.password == 'old hash'
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.authorization
+
+import org.osiam.client.oauth.AccessToken
+import org.osiam.client.oauth.Scope
+import org.osiam.security.helper.AccessTokenKey
+import org.osiam.security.helper.OsiamHttpClient
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException
+
+import spock.lang.Specification
+
+import com.codahale.metrics.MetricRegistry
+
+class AccessTokenValidationServiceSpec extends Specification {
+
+    MetricRegistry metricRegistry = new MetricRegistry()
+    OsiamHttpClient httpClient = new OsiamHttpClient(metricRegistry: metricRegistry)
+    AccessTokenValidationService service = new AccessTokenValidationService(
+            authServerHome: 'http://localhost:1/osiam-auth-server', metricRegistry: metricRegistry,
+            httpClient: httpClient, signedAccessTokenVerifier: new SignedAccessTokenVerifier())
+
+    def setup() {
+        httpClient.createHttpClient()
+        service.createAccessTokenCache()
+    }
+
+    def 'a cached access token is served without asking the auth-server'() {
+        given:
+        service.accessTokenCache.put('token', createAccessToken(new Date(System.currentTimeMillis() + 60000)))
+
+        when:
+        def authentication = service.loadAuthentication('token')
+
+        then:
+        authentication.authorizationRequest.clientId == 'client'
+        authentication.principal.userName == 'marissa'
+        metricRegistry.gauges['org.osiam.security.authorization.AccessTokenValidationService.cache.hits'].value == 1
+    }
+
+    def 'an expired access token is removed from the cache and validated again'() {
+        given:
+        service.accessTokenCache.put('token', createAccessToken(new Date(System.currentTimeMillis() - 1000)))
+
+        when:
+        service.loadAuthentication('token')
+
+        then:
+        thrown(InvalidTokenException)
+        service.accessTokenCache.getIfPresent('token') == null
+    }
+
+    def 'a revoked access token is evicted from the cache'() {
+        given:
+        service.accessTokenCache.put('token', createAccessToken(new Date(System.currentTimeMillis() + 60000)))
+
+        when:
+        service.evictAccessToken('token')
+        service.loadAuthentication('token')
+
+        then:
+        thrown(InvalidTokenException)
+        metricRegistry.counters['org.osiam.security.authorization.AccessTokenValidationService.cache.revocations'].count == 1
+    }
+
+    def 'a cached access token that was revoked on another node is validated again'() {
+        given:
+        service.accessTokenCache.put('token', createAccessToken(new Date(System.currentTimeMillis() + 60000)))
+        service.signedAccessTokenVerifier.revokedTokens.put(AccessTokenKey.of('token'),
+                new Date(System.currentTimeMillis() + 60000))
+
+        when:
+        service.loadAuthentication('token')
+
+        then:
+        thrown(InvalidTokenException)
+        service.accessTokenCache.getIfPresent('token') == null
+    }
+
+    private AccessToken createAccessToken(Date expiresAt) {
+        new AccessToken.Builder('token').setClientId('client').setUserId('userId').setUserName('marissa')
+                .setExpiresAt(expiresAt).addScope(Scope.GET).build()
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.authorization
+
+import org.springframework.security.access.AccessDecisionVoter
+import org.springframework.security.access.SecurityConfig
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.oauth2.provider.DefaultAuthorizationRequest
+import org.springframework.security.oauth2.provider.OAuth2Authentication
+
+import spock.lang.Specification
+
+class AuthServerClientVoterSpec extends Specification {
+
+    def authServerClient = new SecurityConfig(AuthServerClientVoter.AUTH_SERVER_CLIENT)
+    def scopePost = new SecurityConfig('SCOPE_POST')
+    def underTest = new AuthServerClientVoter()
+
+    def 'the auth-server client is granted access'() {
+        expect:
+        underTest.vote(authentication('auth-server'), null, [scopePost, authServerClient]) ==
+                AccessDecisionVoter.ACCESS_GRANTED
+    }
+
+    def 'other clients are denied access, whatever their scopes'() {
+        expect:
+        underTest.vote(authentication('example-client'), null, [scopePost, authServerClient]) ==
+                AccessDecisionVoter.ACCESS_DENIED
+    }
+
+    def 'an authentication that is not from an access token is denied access'() {
+        expect:
+        underTest.vote(new UsernamePasswordAuthenticationToken('marissa', null), null, [authServerClient]) ==
+                AccessDecisionVoter.ACCESS_DENIED
+    }
+
+    def 'the voter abstains from resources that are not restricted to the auth-server client'() {
+        expect:
+        underTest.vote(authentication('example-client'), null, [scopePost]) == AccessDecisionVoter.ACCESS_ABSTAIN
+    }
+
+    def 'only the auth-server client attribute is supported'() {
+        expect:
+        underTest.supports(authServerClient)
+        !underTest.supports(scopePost)
+    }
+
+    private OAuth2Authentication authentication(String clientId) {
+        def authorizationRequest = new DefaultAuthorizationRequest(clientId, ['GET', 'POST'])
+        authorizationRequest.approved = true
+        new OAuth2Authentication(authorizationRequest, null)
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.authorization
+
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+
+import org.apache.commons.codec.binary.Base64
+import org.apache.http.client.methods.HttpGet
+import org.osiam.security.helper.AccessTokenKey
+import org.osiam.security.helper.OsiamHttpClient
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException
+
+import spock.lang.Specification
+
+import com.fasterxml.jackson.databind.ObjectMapper
+
+class SignedAccessTokenVerifierSpec extends Specification {
+
+    OsiamHttpClient httpClient = Mock()
+    SignedAccessTokenVerifier verifier = new SignedAccessTokenVerifier(enabled: true, secret: 'secret',
+            authServerHome: 'http://localhost:8080/osiam-auth-server', httpClient: httpClient)
+
+    def setup() {
+        verifier.createSigningKey()
+    }
+
+    def 'a correctly signed token is verified without asking the auth-server'() {
+        given:
+        def token = sign([jti: 'random', client_id: 'client', user_name: 'marissa', user_id: 'id',
+            scope: 'GET POST', expires_at: System.currentTimeMillis() + 60000], 'secret')
+
+        when:
+        def accessToken = verifier.verify(token)
+
+        then:
+        verifier.isSignedToken(token)
+        accessToken.token == token
+        accessToken.clientId == 'client'
+        accessToken.userName == 'marissa'
+        accessToken.userId == 'id'
+        accessToken.scopes*.toString() as Set == ['GET', 'POST'] as Set
+    }
+
+    def 'a token signed with another secret is rejected'() {
+        given:
+        def token = sign([jti: 'random', client_id: 'client', scope: 'GET',
+            expires_at: System.currentTimeMillis() + 60000], 'other secret')
+
+        when:
+        verifier.verify(token)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def 'an expired signed token is rejected'() {
+        given:
+        def token = sign([jti: 'random', client_id: 'client', scope: 'GET',
+            expires_at: System.currentTimeMillis() - 1000], 'secret')
+
+        when:
+        verifier.verify(token)
+
+        then:
+        thrown(InvalidTokenException)
+    }
+
+    def 'a revoked signed token is rejected until it expires'() {
+        given:
+        def token = sign([jti: 'random', client_id: 'client', scope: 'GET',
+            expires_at: System.currentTimeMillis() + 60000], 'secret')
+
+        when:
+        verifier.revoke(token)
+        verifier.verify(token)
+
+        then:
+        thrown(InvalidTokenException)
+        verifier.revokedTokens.size() == 1
+    }
+
+    def 'a signed token on the revocation list of the auth-server is rejected'() {
+        given:
+        def token = sign([jti: 'random', client_id: 'client', scope: 'GET',
+            expires_at: System.currentTimeMillis() + 60000], 'secret')
+        def revocations = [(AccessTokenKey.of(token)): System.currentTimeMillis() + 60000]
+
+        when:
+        verifier.refreshRevokedTokens()
+        verifier.verify(token)
+
+        then:
+        1 * httpClient.execute({ HttpGet request ->
+            request.URI.toString() == 'http://localhost:8080/osiam-auth-server/token/revocations'
+        }, _) >> new ObjectMapper().writeValueAsString(revocations)
+        thrown(InvalidTokenException)
+    }
+
+    def 'expired revocations pulled from the auth-server are dropped'() {
+        given:
+        def revocations = [key: System.currentTimeMillis() - 1000]
+        httpClient.execute(_, _) >> new ObjectMapper().writeValueAsString(revocations)
+
+        when:
+        verifier.refreshRevokedTokens()
+
+        then:
+        verifier.revokedTokens.isEmpty()
+    }
+
+    def 'a failed pull of the revocation list keeps the known revocations'() {
+        given:
+        def token = sign([jti: 'random', client_id: 'client', scope: 'GET',
+            expires_at: System.currentTimeMillis() + 60000], 'secret')
+        verifier.revoke(token)
+        httpClient.execute(_, _) >> { throw new IOException('connection refused') }
+
+        when:
+        verifier.refreshRevokedTokens()
+
+        then:
+        verifier.revokedTokens.size() == 1
+    }
+
+    def 'the revocation list is pulled for the token cache even if signed tokens are disabled'() {
+        given:
+        def cacheOnlyVerifier = new SignedAccessTokenVerifier(enabled: false, tokenCacheEnabled: true,
+                authServerHome: 'http://localhost:8080/osiam-auth-server', httpClient: httpClient)
+        def token = 'c5d116cb-2758-4e7c-9aa5-1b8fdd3cbf4b'
+        def revocations = [(AccessTokenKey.of(token)): System.currentTimeMillis() + 60000]
+
+        when:
+        cacheOnlyVerifier.refreshRevokedTokens()
+
+        then:
+        1 * httpClient.execute(_, _) >> new ObjectMapper().writeValueAsString(revocations)
+        cacheOnlyVerifier.isRevoked(token)
+    }
+
+    def 'nothing is pulled if neither signed tokens nor the token cache are enabled'() {
+        given:
+        def disabledVerifier = new SignedAccessTokenVerifier(enabled: false, tokenCacheEnabled: false,
+                httpClient: httpClient)
+
+        when:
+        disabledVerifier.refreshRevokedTokens()
+
+        then:
+        0 * httpClient.execute(_, _)
+    }
+
+    def 'unsigned tokens are not treated as signed tokens'() {
+        expect:
+        !verifier.isSignedToken('c5d116cb-2758-4e7c-9aa5-1b8fdd3cbf4b')
+        !new SignedAccessTokenVerifier(enabled: false).isSignedToken('payload.signature')
+    }
+
+    private String sign(Map content, String key) {
+        def payload = Base64.encodeBase64URLSafeString(new ObjectMapper().writeValueAsBytes(content))
+        def mac = Mac.getInstance('HmacSHA256')
+        mac.init(new SecretKeySpec(key.getBytes('UTF-8'), 'HmacSHA256'))
+        payload + '.' + Base64.encodeBase64URLSafeString(mac.doFinal(payload.getBytes('UTF-8')))
+    }
+}
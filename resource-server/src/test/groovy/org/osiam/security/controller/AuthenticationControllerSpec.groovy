@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.security.controller
+
+import org.osiam.resources.converter.RoleConverter
+import org.osiam.resources.exceptions.ResourceNotFoundException
+import org.osiam.storage.dao.UserDao
+import org.osiam.storage.entities.RoleEntity
+import org.osiam.storage.entities.UserEntity
+import org.springframework.http.HttpStatus
+import org.springframework.security.authentication.encoding.ShaPasswordEncoder
+
+import spock.lang.Specification
+
+class AuthenticationControllerSpec extends Specification {
+
+    UserDao userDao = Mock()
+    ShaPasswordEncoder passwordEncoder = new ShaPasswordEncoder(512)
+    AuthenticationController underTest = new AuthenticationController(userDao: userDao,
+            passwordEncoder: passwordEncoder, roleConverter: new RoleConverter())
+
+    UUID id = UUID.randomUUID()
+    UserEntity user = new UserEntity(id: id, userName: 'marissa', active: true,
+            password: passwordEncoder.encodePassword('koala', id), roles: [new RoleEntity(value: 'USER')] as Set)
+
+    def 'valid credentials return the id, userName and roles of the user'() {
+        when:
+        def result = underTest.checkCredentials('marissa', 'koala')
+
+        then:
+        1 * userDao.getByUsername('marissa') >> user
+        result.statusCode == HttpStatus.OK
+        result.body.id == id.toString()
+        result.body.userName == 'marissa'
+        result.body.roles*.value == ['USER']
+    }
+
+    def 'a wrong password is rejected'() {
+        given:
+        userDao.getByUsername('marissa') >> user
+
+        expect:
+        underTest.checkCredentials('marissa', 'wrong').statusCode == HttpStatus.NOT_FOUND
+    }
+
+    def 'an inactive user is rejected'() {
+        given:
+        user.active = false
+        userDao.getByUsername('marissa') >> user
+
+        expect:
+        underTest.checkCredentials('marissa', 'koala').statusCode == HttpStatus.NOT_FOUND
+    }
+
+    def 'an unknown user is rejected'() {
+        given:
+        userDao.getByUsername('unknown') >> { throw new ResourceNotFoundException('not found') }
+
+        expect:
+        underTest.checkCredentials('unknown', 'koala').statusCode == HttpStatus.NOT_FOUND
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.dao
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+import javax.persistence.TypedQuery
+
+import org.osiam.resources.exceptions.NoSuchElementException
+import org.osiam.resources.exceptions.OsiamException
+import org.osiam.storage.entities.ExtensionEntity
+import org.osiam.storage.entities.ExtensionFieldEntity
+
+import spock.lang.Specification
+
+class ExtensionRegistrySpec extends Specification {
+
+    static final String URN = 'urn:org.osiam:scim:extensions:Test'
+
+    EntityManager em = Mock()
+    EntityManager loadingEm = Mock()
+    EntityManagerFactory emf = Mock()
+    TypedQuery<ExtensionEntity> query = Mock()
+
+    ExtensionRegistry registry = new ExtensionRegistry(em: em)
+
+    def setup() {
+        em.getEntityManagerFactory() >> emf
+        emf.createEntityManager() >> loadingEm
+        loadingEm.createQuery(_, ExtensionEntity) >> query
+    }
+
+    def 'extensions and their fields are looked up by exact and case-insensitive name'() {
+        given:
+        def extension = createExtension(URN, 'gender')
+        query.getResultList() >> [extension]
+        registry.refresh()
+
+        expect:
+        registry.getExtension(URN).is(extension)
+        registry.getExtension(URN.toUpperCase(), true).is(extension)
+        registry.getField(extension, 'gender', false).name == 'gender'
+        registry.getField(extension, 'GENDER', true).name == 'gender'
+    }
+
+    def 'looking up an unknown extension raises an exception'() {
+        given:
+        query.getResultList() >> [createExtension(URN, 'gender')]
+        registry.refresh()
+
+        when:
+        registry.getExtension(URN.toUpperCase())
+
+        then:
+        thrown(OsiamException)
+    }
+
+    def 'looking up an unknown field raises an exception'() {
+        given:
+        def extension = createExtension(URN, 'gender')
+        query.getResultList() >> [extension]
+        registry.refresh()
+
+        when:
+        registry.getField(extension, 'GENDER', false)
+
+        then:
+        thrown(NoSuchElementException)
+    }
+
+    def 'lookups do not query the database until the snapshot expires'() {
+        given:
+        query.getResultList() >> [createExtension(URN, 'gender')]
+        registry.refresh()
+
+        when:
+        10.times { registry.getExtension(URN) }
+
+        then:
+        0 * loadingEm.createQuery(*_)
+    }
+
+    def 'an expired snapshot is replaced on the next lookup'() {
+        given:
+        registry.refreshIntervalSeconds = 0
+        query.getResultList() >>> [[], [createExtension(URN, 'gender')]]
+        registry.refresh()
+
+        expect:
+        registry.getExtension(URN) != null
+    }
+
+    def 'the entity manager used for loading is closed'() {
+        when:
+        registry.refresh()
+
+        then:
+        1 * query.getResultList() >> []
+        1 * loadingEm.close()
+    }
+
+    private static ExtensionEntity createExtension(String urn, String... fieldNames) {
+        def extension = new ExtensionEntity(urn: urn)
+        extension.fields = fieldNames.collect { name ->
+            new ExtensionFieldEntity(name: name, extension: extension)
+        } as Set
+        extension
+    }
+}
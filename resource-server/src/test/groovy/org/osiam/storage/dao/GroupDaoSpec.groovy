@@ -39,7 +39,7 @@ class GroupDaoSpec extends Specification {
         groupDao.getById(IRRELEVANT)
 
         then:
-        1 * resourceDao.getById(IRRELEVANT, GroupEntity)
+        1 * resourceDao.getById(IRRELEVANT, GroupEntity, GroupDao.FETCH_PLAN)
     }
 
     def 'creating a group calls resourceDao.create()'() {
@@ -58,7 +58,15 @@ class GroupDaoSpec extends Specification {
         groupDao.delete(IRRELEVANT)
 
         then:
-        1 * resourceDao.delete(IRRELEVANT)
+        1 * resourceDao.delete(IRRELEVANT, null)
     }
 
+    def 'searching a group without members requested does not fetch the members'() {
+        when:
+        FetchPlan fetchPlan = GroupDao.createFetchPlan(RequestedAttributes.fromParameter('displayName,meta'))
+
+        then:
+        fetchPlan.joins == ['meta']
+        fetchPlan.collections == []
+    }
 }
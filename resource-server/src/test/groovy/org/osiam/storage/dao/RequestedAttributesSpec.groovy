@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.dao
+
+import spock.lang.Specification
+
+class RequestedAttributesSpec extends Specification {
+
+    def 'all attributes are requested if no attributes are given'() {
+        expect:
+        RequestedAttributes.fromParameter(parameter).is(RequestedAttributes.ALL)
+        RequestedAttributes.ALL.contains('emails')
+        RequestedAttributes.ALL.containsExtension()
+
+        where:
+        parameter << [null, '', ' , ']
+    }
+
+    def 'sub attributes request their parent attribute'() {
+        when:
+        def attributes = RequestedAttributes.fromParameter('name.givenName|emails.value')
+
+        then:
+        attributes.contains('name')
+        attributes.contains('emails')
+        !attributes.contains('givenName')
+        !attributes.contains('userName')
+    }
+
+    def 'attributes are compared case insensitively'() {
+        expect:
+        RequestedAttributes.fromParameter(' UserName ').contains('username')
+        RequestedAttributes.fromParameter('phonenumbers').contains('phoneNumbers')
+    }
+
+    def 'only the URN of an extension requests the extensions'() {
+        expect:
+        RequestedAttributes.fromParameter(parameter).containsExtension() == expected
+
+        where:
+        parameter                                  | expected
+        'userName'                                 | false
+        'urn:scim:schemas:core:2.0:User'           | false
+        'userName,urn:scim:schemas:osiam:2.0:Test' | true
+        'urn:org.osiam:scim:extensions:auth-server' | true
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.dao
+
+import javax.persistence.EntityManager
+
+import org.hibernate.ScrollableResults
+import org.osiam.storage.entities.UserEntity
+
+import spock.lang.Specification
+
+class ResourceChunkIteratorSpec extends Specification {
+
+    ScrollableResults results = Mock()
+    EntityManager em = Mock()
+    ResourceDao resourceDao = Mock()
+
+    def 'the rows are returned in chunks of the given size'() {
+        given:
+        def users = (1..5).collect { new UserEntity() }
+        def iterator = createIterator(users, 2)
+
+        when:
+        def chunks = []
+        while (iterator.hasNext()) {
+            chunks << iterator.next()
+        }
+
+        then:
+        chunks*.size() == [2, 2, 1]
+        chunks.flatten() == users
+    }
+
+    def 'the collections are loaded and the persistence context is cleared per chunk'() {
+        given:
+        def users = (1..3).collect { new UserEntity() }
+        def iterator = createIterator(users, 2)
+
+        when:
+        iterator.next()
+
+        then:
+        1 * em.clear()
+        1 * resourceDao.loadCollections(UserEntity, { it.size() == 2 }, FetchPlan.NONE)
+
+        when:
+        iterator.hasNext()
+        iterator.hasNext()
+
+        then:
+        1 * em.clear()
+    }
+
+    def 'calling next after the last chunk raises an exception'() {
+        given:
+        def iterator = createIterator([], 2)
+
+        when:
+        iterator.next()
+
+        then:
+        thrown(NoSuchElementException)
+    }
+
+    def 'closing the iterator closes the cursor'() {
+        when:
+        createIterator([], 2).close()
+
+        then:
+        1 * results.close()
+    }
+
+    private ResourceChunkIterator<UserEntity> createIterator(List<UserEntity> rows, int chunkSize) {
+        def remaining = new LinkedList(rows)
+        def current = null
+        results.next() >> {
+            current = remaining.poll()
+            current != null
+        }
+        results.get(0) >> { current }
+        new ResourceChunkIterator(results, UserEntity, FetchPlan.NONE, chunkSize, resourceDao, em)
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.dao
+
+import spock.lang.Specification
+
+class ResourceDaoSpec extends Specification {
+
+    def 'the ids of a collection query are padded to the next power of two with the last id'() {
+        expect:
+        ResourceDao.padToPowerOfTwo(ids) == padded
+
+        where:
+        ids                  | padded
+        []                   | []
+        [1L]                 | [1L]
+        [1L, 2L]             | [1L, 2L]
+        [1L, 2L, 3L]         | [1L, 2L, 3L, 3L]
+        [1L, 2L, 3L, 4L, 5L] | [1L, 2L, 3L, 4L, 5L, 5L, 5L, 5L]
+    }
+
+    def 'padding keeps the number of distinct list sizes logarithmic in the page size'() {
+        when:
+        def sizes = (1..100).collect { n -> ResourceDao.padToPowerOfTwo((1L..n).toList()).size() } as Set
+
+        then:
+        sizes == [1, 2, 4, 8, 16, 32, 64, 128] as Set
+    }
+}
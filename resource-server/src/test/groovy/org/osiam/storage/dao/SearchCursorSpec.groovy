@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.dao
+
+import org.apache.commons.codec.binary.Base64
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class SearchCursorSpec extends Specification {
+
+    def 'a cursor survives encoding and decoding'() {
+        given:
+        def cursor = new SearchCursor(sortBy, true, sortValue, 42L)
+
+        when:
+        def decoded = SearchCursor.decode(cursor.encode())
+
+        then:
+        decoded.sortBy == sortBy
+        decoded.descending
+        decoded.sortValue == sortValue
+        decoded.internalId == 42L
+
+        where:
+        sortBy          | sortValue
+        'userName'      | 'marissa'
+        'meta.created'  | new Date(1400000000000L)
+        'active'        | true
+        'name.formatted'| null
+        null            | null
+    }
+
+    def 'an encoded cursor is url safe'() {
+        when:
+        def encoded = new SearchCursor('userName', false, '???>>>', 1L).encode()
+
+        then:
+        encoded ==~ /[A-Za-z0-9_=-]+/
+    }
+
+    def 'decoding a malformed cursor raises an exception'() {
+        when:
+        SearchCursor.decode(cursor)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        cursor << ['not a cursor', 'e30', 'eyJpbnRlcm5hbElkIjoiMSJ9']
+    }
+
+    @Unroll
+    def 'decoding a cursor with #description payload raises an exception'() {
+        when:
+        SearchCursor.decode(Base64.encodeBase64URLSafeString(payload.getBytes('UTF-8')))
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        description | payload
+        'a null'    | 'null'
+        'an empty'  | ''
+    }
+
+    def 'a cursor can only be used with the sorting it was created for'() {
+        given:
+        def cursor = new SearchCursor('userName', false, 'marissa', 1L)
+
+        when:
+        cursor.checkSorting(sortBy, descending)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        sortBy        | descending
+        'userName'    | true
+        'displayName' | false
+        null          | false
+    }
+
+    def 'the sort attribute of a cursor is compared case insensitively'() {
+        when:
+        new SearchCursor('userName', false, 'marissa', 1L).checkSorting('USERNAME', false)
+
+        then:
+        noExceptionThrown()
+    }
+}
@@ -48,7 +48,7 @@ class UserDaoSpec extends Specification {
         userDao.getById(IRRELEVANT)
 
         then:
-        1 * resourceDao.getById(IRRELEVANT, UserEntity)
+        1 * resourceDao.getById(IRRELEVANT, UserEntity, UserDao.FETCH_PLAN)
     }
 
     def 'retrieving a user by userName calls resourceDao.getByAttribute()'() {
@@ -76,7 +76,28 @@ class UserDaoSpec extends Specification {
         userDao.delete(IRRELEVANT)
 
         then:
-        1 * resourceDao.delete(IRRELEVANT)
+        1 * resourceDao.delete(IRRELEVANT, null)
     }
 
-}
\ No newline at end of file
+    def 'searching with all attributes requested uses the full fetch plan'() {
+        expect:
+        UserDao.createFetchPlan(RequestedAttributes.ALL).is(UserDao.FETCH_PLAN)
+    }
+
+    def 'searching with some attributes requested only fetches these attributes'() {
+        when:
+        FetchPlan fetchPlan = UserDao.createFetchPlan(RequestedAttributes.fromParameter(attributes))
+
+        then:
+        fetchPlan.joins == joins
+        fetchPlan.collections == collections
+
+        where:
+        attributes                             | joins    | collections
+        'userName'                             | []       | []
+        'id,name.givenName,emails'             | ['name'] | ['emails']
+        'meta.created,groups'                  | ['meta'] | ['groups']
+        'urn:scim:schemas:osiam:2.0:Extension' | []       | ['extensionFieldValues.extensionField.extension']
+        'urn:scim:schemas:core:2.0:User'       | []       | []
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.entities
+
+import java.sql.Timestamp
+
+import org.osiam.resources.scim.ExtensionFieldType
+
+import spock.lang.Specification
+
+class ExtensionFieldValueEntitySpec extends Specification {
+
+    def 'a value of type #type is stored in the #column column and read back'() {
+        given:
+        def fieldValue = new ExtensionFieldValueEntity()
+
+        when:
+        fieldValue.setValue(type, value)
+
+        then:
+        fieldValue."$column" != null
+        (['value', 'numericValue', 'timestampValue', 'booleanValue'] - column).every { fieldValue."$it" == null }
+        fieldValue.getValue(type) == value
+
+        where:
+        type                          | value                          | column
+        ExtensionFieldType.STRING     | 'male'                         | 'value'
+        ExtensionFieldType.INTEGER    | BigInteger.valueOf(-42)        | 'numericValue'
+        ExtensionFieldType.DECIMAL    | new BigDecimal('1.78')         | 'numericValue'
+        ExtensionFieldType.DATE_TIME  | new Date(1200000000000)        | 'timestampValue'
+        ExtensionFieldType.BOOLEAN    | true                           | 'booleanValue'
+        ExtensionFieldType.REFERENCE  | new URI('https://example.com') | 'value'
+    }
+
+    def 'a text value of several kB is stored and read back whole'() {
+        given:
+        def fieldValue = new ExtensionFieldValueEntity()
+        def value = 'x' * 8192
+
+        when:
+        fieldValue.setValue(ExtensionFieldType.STRING, value)
+
+        then:
+        fieldValue.value.length() == 8192
+        fieldValue.getValue(ExtensionFieldType.STRING) == value
+    }
+
+    def 'setting a value of another type clears the former column'() {
+        given:
+        def fieldValue = new ExtensionFieldValueEntity()
+        fieldValue.setValue(ExtensionFieldType.INTEGER, BigInteger.ONE)
+
+        when:
+        fieldValue.setValue(ExtensionFieldType.STRING, '1')
+
+        then:
+        fieldValue.numericValue == null
+        fieldValue.value == '1'
+    }
+
+    def 'a date loaded as timestamp has the same value as the date'() {
+        given:
+        def loaded = new ExtensionFieldValueEntity(timestampValue: new Timestamp(1200000000000))
+        def replacement = new ExtensionFieldValueEntity()
+        replacement.setValue(ExtensionFieldType.DATE_TIME, new Date(1200000000000))
+
+        expect:
+        !loaded.copyValueFrom(replacement)
+    }
+
+    def 'copying a changed value replaces all columns'() {
+        given:
+        def existing = new ExtensionFieldValueEntity()
+        existing.setValue(ExtensionFieldType.DECIMAL, new BigDecimal('1.5'))
+        def replacement = new ExtensionFieldValueEntity()
+        replacement.setValue(ExtensionFieldType.DECIMAL, new BigDecimal('2.5'))
+
+        when:
+        def changed = existing.copyValueFrom(replacement)
+
+        then:
+        changed
+        existing.getValue(ExtensionFieldType.DECIMAL) == new BigDecimal('2.5')
+    }
+
+    def 'a decimal with another scale has the same value'() {
+        given:
+        def loaded = new ExtensionFieldValueEntity(numericValue: new BigDecimal('1.50'))
+        def replacement = new ExtensionFieldValueEntity()
+        replacement.setValue(ExtensionFieldType.DECIMAL, new BigDecimal('1.5'))
+
+        expect:
+        !loaded.copyValueFrom(replacement)
+    }
+
+    def 'a missing numeric value differs from a set one'() {
+        given:
+        def existing = new ExtensionFieldValueEntity()
+        def replacement = new ExtensionFieldValueEntity()
+        replacement.setValue(ExtensionFieldType.INTEGER, BigInteger.ZERO)
+
+        expect:
+        existing.copyValueFrom(replacement)
+    }
+}
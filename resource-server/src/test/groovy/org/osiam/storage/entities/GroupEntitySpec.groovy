@@ -47,4 +47,24 @@ class GroupEntitySpec extends Specification {
         then:
         groupEntity.meta.lastModified.time > 0
     }
-}
\ No newline at end of file
+
+    def 'replacing the members touches only the members that were added or removed'() {
+        given:
+        ResourceEntity kept = Mock()
+        ResourceEntity removed = Mock()
+        ResourceEntity added = Mock()
+        groupEntity.addMember(kept)
+        groupEntity.addMember(removed)
+
+        when:
+        groupEntity.replaceMembers([kept, added] as Set)
+
+        then:
+        0 * kept.touch()
+        1 * removed.removeFromGroup(groupEntity)
+        1 * removed.touch()
+        1 * added.addToGroup(groupEntity)
+        1 * added.touch()
+        groupEntity.members == [kept, added] as Set
+    }
+}
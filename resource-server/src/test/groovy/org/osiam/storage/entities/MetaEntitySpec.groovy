@@ -46,4 +46,27 @@ class MetaEntitySpec extends Specification {
         metaEntity.getLastModified() == null
     }
 
+    def "the ETag is a quoted combination of version and last modification date"() {
+        given:
+        metaEntity.setLastModified(new Date(255))
+        metaEntity.setVersion(3)
+
+        expect:
+        metaEntity.getETag() == '"3-ff"'
+    }
+
+    def "touching a resource changes its ETag"() {
+        given:
+        UserEntity user = new UserEntity(meta: metaEntity)
+        metaEntity.setLastModified(new Date(Long.MAX_VALUE))
+        def eTag = metaEntity.getETag()
+
+        when:
+        user.touch()
+
+        then:
+        metaEntity.getVersion() == 1
+        metaEntity.getETag() != eTag
+    }
+
 }
\ No newline at end of file
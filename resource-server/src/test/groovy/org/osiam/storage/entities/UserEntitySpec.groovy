@@ -23,7 +23,10 @@
 
 package org.osiam.storage.entities
 
+import org.osiam.resources.exceptions.PreconditionFailedException
+
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class UserEntitySpec extends Specification {
 
@@ -66,4 +69,62 @@ class UserEntitySpec extends Specification {
         then:
         emptySet != null
     }
-}
\ No newline at end of file
+
+    @Unroll
+    def 'checking the ETag accepts #ifMatch'() {
+        given:
+        userEntity.meta = new MetaEntity(lastModified: new Date(255), version: 3)
+
+        when:
+        userEntity.checkETag(ifMatch)
+
+        then:
+        notThrown(PreconditionFailedException)
+
+        where:
+        ifMatch << [null, '"3-ff"', '*', '"1-ff", "3-ff"']
+    }
+
+    @Unroll
+    def 'checking the ETag rejects #ifMatch'() {
+        given:
+        userEntity.meta = new MetaEntity(lastModified: new Date(255), version: 3)
+
+        when:
+        userEntity.checkETag(ifMatch)
+
+        then:
+        thrown(PreconditionFailedException)
+
+        where:
+        ifMatch << ['"2-ff"', 'W/"3-ff"', '3-ff', '']
+    }
+
+    def 'the ETag of a user contains the versions of its groups'() {
+        given:
+        userEntity.meta = new MetaEntity(lastModified: new Date(255), version: 3)
+        GroupEntity group = new GroupEntity(id: UUID.randomUUID(), displayName: VALUE)
+        group.meta.version = 4
+        userEntity.addToGroup(group)
+
+        expect:
+        userEntity.getETag() == '"7-ff"'
+    }
+
+    def 'renaming a group changes the ETag of its members without touching them'() {
+        given:
+        userEntity.meta = new MetaEntity(lastModified: new Date(255), version: 3)
+        GroupEntity group = new GroupEntity(id: UUID.randomUUID(), displayName: VALUE)
+        group.addMember(userEntity)
+        def memberVersion = userEntity.meta.version
+        def eTag = userEntity.getETag()
+
+        when:
+        group.displayName = 'renamed'
+        group.touch()
+
+        then:
+        userEntity.meta.version == memberVersion
+        userEntity.getETag() != eTag
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.query
+
+import spock.lang.Specification
+
+class ExtensionQueryFieldSpec extends Specification {
+
+    def 'a value of several kB is cut to the indexed prefix'() {
+        given:
+        def value = 'x' * 8192
+
+        expect:
+        ExtensionQueryField.truncate(value) == 'x' * ExtensionQueryField.INDEXED_PREFIX_LENGTH
+    }
+
+    def 'a value that fits into the indexed prefix is kept'() {
+        given:
+        def value = 'x' * ExtensionQueryField.INDEXED_PREFIX_LENGTH
+
+        expect:
+        ExtensionQueryField.truncate(value).is(value)
+    }
+
+    def 'the indexed prefix is counted in characters like the database does'() {
+        given:
+        def character = new String(Character.toChars(0x1F600))
+        def value = character * 300
+
+        when:
+        def prefix = ExtensionQueryField.truncate(value)
+
+        then:
+        prefix.codePointCount(0, prefix.length()) == ExtensionQueryField.INDEXED_PREFIX_LENGTH
+        prefix == character * ExtensionQueryField.INDEXED_PREFIX_LENGTH
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.query
+
+import javax.persistence.Query
+import javax.persistence.criteria.CriteriaBuilder
+import javax.persistence.criteria.ParameterExpression
+
+import spock.lang.Specification
+
+class FilterParametersSpec extends Specification {
+
+    CriteriaBuilder cb = Mock()
+    Query query = Mock()
+    FilterParameters filterParameters = new FilterParameters(cb)
+
+    def 'every value is bound to the parameter that was created for it'() {
+        given:
+        ParameterExpression<Long> fieldId = Mock()
+        ParameterExpression<BigDecimal> number = Mock()
+        cb.parameter(Long) >> fieldId
+        cb.parameter(BigDecimal) >> number
+
+        when:
+        def first = filterParameters.add(Long, 42L)
+        def second = filterParameters.add(BigDecimal, new BigDecimal('1.78'))
+        filterParameters.bindTo(query)
+
+        then:
+        first.is(fieldId)
+        second.is(number)
+        1 * query.setParameter(fieldId, 42L)
+        1 * query.setParameter(number, new BigDecimal('1.78'))
+    }
+}
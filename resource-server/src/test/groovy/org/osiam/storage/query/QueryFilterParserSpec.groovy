@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.osiam.storage.query
+
+import org.antlr.v4.runtime.tree.ParseTree
+import org.antlr.v4.runtime.tree.TerminalNode
+import org.osiam.storage.parser.LogicalOperatorRulesParser
+
+import spock.lang.Specification
+
+import com.codahale.metrics.MetricRegistry
+
+class QueryFilterParserSpec extends Specification {
+
+    MetricRegistry metricRegistry = new MetricRegistry()
+    QueryFilterParser queryFilterParser = new QueryFilterParser(metricRegistry: metricRegistry)
+
+    def setup() {
+        queryFilterParser.createParseTreeCache()
+    }
+
+    def 'filters with the same shape share the parse tree but keep their own values'() {
+        when:
+        BoundParseTree first = queryFilterParser.getParseTree('userName eq "marissa" and active eq "true"')
+        BoundParseTree second = queryFilterParser.getParseTree('userName  eq "bjensen" and active eq "false"')
+
+        then:
+        first.getChild(0).is(second.getChild(0))
+        values(second) == ['"bjensen"', '"false"']
+        values(first) == ['"marissa"', '"true"']
+        second.text == 'userNameeq"bjensen"andactiveeq"false"'
+        gauge('hits') == 1
+        gauge('misses') == 1
+    }
+
+    def 'filters with a different shape get their own parse tree'() {
+        when:
+        queryFilterParser.getParseTree('userName eq "marissa"')
+        queryFilterParser.getParseTree('userName co "marissa"')
+        queryFilterParser.getParseTree('displayName eq "marissa"')
+
+        then:
+        gauge('hits') == 0
+        gauge('size') == 3
+    }
+
+    def 'an invalid filter raises an exception and is not cached'() {
+        when:
+        queryFilterParser.getParseTree('userName eq marissa')
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.contains('Please make sure that all values are surrounded by double quotes.')
+        gauge('size') == 0
+    }
+
+    def 'a filter that is longer than the maximum filter length is not cached'() {
+        given:
+        queryFilterParser = new QueryFilterParser(metricRegistry: new MetricRegistry(), cacheMaxFilterLength: 10)
+        queryFilterParser.createParseTreeCache()
+
+        when:
+        ParseTree parseTree = queryFilterParser.getParseTree('userName eq "marissa"')
+
+        then:
+        !(parseTree instanceof BoundParseTree)
+        parseTree.getChild(0) instanceof LogicalOperatorRulesParser.SimpleExpContext
+        queryFilterParser.parseTreeCache.size() == 0
+    }
+
+    def 'an empty filter has no parse tree'() {
+        expect:
+        queryFilterParser.getParseTree(filter) == null
+
+        where:
+        filter << [null, '']
+    }
+
+    private values(BoundParseTree tree) {
+        collectValues(tree.getChild(0)).collect { tree.getText(it) }
+    }
+
+    private collectValues(ParseTree node) {
+        if (node instanceof TerminalNode) {
+            return node.symbol.type == LogicalOperatorRulesParser.VALUE ? [node] : []
+        }
+        (0..<node.childCount).collectMany { collectValues(node.getChild(it)) }
+    }
+
+    private gauge(String name) {
+        metricRegistry.gauges['org.osiam.storage.query.QueryFilterParser.cache.' + name].value
+    }
+}
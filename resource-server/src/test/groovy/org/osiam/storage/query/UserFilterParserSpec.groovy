@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2013 tarent AG
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY
+ * CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.osiam.storage.query
+
+import spock.lang.Specification
+
+import com.codahale.metrics.MetricRegistry
+
+class UserFilterParserSpec extends Specification {
+
+    QueryFilterParser queryFilterParser = new QueryFilterParser(metricRegistry: new MetricRegistry())
+    UserFilterParser userFilterParser = new UserFilterParser()
+
+    def setup() {
+        queryFilterParser.createParseTreeCache()
+    }
+
+    def 'a filter on single-valued attributes does not join a multi-valued attribute'() {
+        expect:
+        !userFilterParser.joinsMultiValuedAttribute(queryFilterParser.getParseTree(filter))
+
+        where:
+        filter << [
+                'userName eq "marissa"',
+                'name.familyName co "Doe" and not (active eq "false")',
+                'meta.created gt "2013-01-01T00:00:00.000Z" or displayName pr',
+                'urn:org.osiam:scim:extensions:auth-server.gender eq "male"'
+        ]
+    }
+
+    def 'a filter joins a multi-valued attribute if any of its expressions does'() {
+        expect:
+        userFilterParser.joinsMultiValuedAttribute(queryFilterParser.getParseTree(filter))
+
+        where:
+        filter << [
+                'emails.value eq "marissa@example.com"',
+                'userName eq "marissa" or (groups.display eq "admins")',
+                'not (active eq "true") and addresses.country pr'
+        ]
+    }
+}
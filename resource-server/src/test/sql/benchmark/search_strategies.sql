@@ -0,0 +1,86 @@
+--
+-- Compares the query shapes ResourceDao.search can generate for a user search.
+--
+--   1. legacy: the filter in an IN (subquery) over the whole resource table
+--   2. root:   the filter applied to the root directly (no multi-valued joins)
+--   3. exists: the filter in a correlated EXISTS subquery (multi-valued joins)
+--
+-- Run it against a database created with init_ddl.sql:
+--
+--   psql -v users=200000 -f search_strategies.sql <database>
+--
+-- The test data is created in a transaction that is rolled back at the end.
+--
+
+\set ON_ERROR_STOP on
+\timing on
+
+BEGIN;
+
+INSERT INTO scim_meta (id, created, lastmodified, resourcetype)
+    SELECT 1000000 + n, now() - n * interval '1 minute', now(), 'User'
+    FROM generate_series(1, :users) n;
+
+INSERT INTO scim_id (internal_id, id, meta_id)
+    SELECT 1000000 + n, md5(n::text), 1000000 + n
+    FROM generate_series(1, :users) n;
+
+INSERT INTO scim_user (internal_id, username, password, active)
+    SELECT 1000000 + n, 'user' || n, 'password', n % 10 <> 0
+    FROM generate_series(1, :users) n;
+
+INSERT INTO scim_email (multi_value_id, value, type, is_primary, user_internal_id)
+    SELECT 1000000 + 2 * n + k, 'user' || n || '@' || (CASE k WHEN 0 THEN 'work' ELSE 'home' END) || '.example',
+            CASE k WHEN 0 THEN 'work' ELSE 'home' END, k = 0, 1000000 + n
+    FROM generate_series(1, :users) n, generate_series(0, 1) k;
+
+ANALYZE scim_meta;
+ANALYZE scim_id;
+ANALYZE scim_user;
+ANALYZE scim_email;
+
+-- filter userName sw "user1" and active eq "true", sortBy userName, count 100, startIndex 1
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT u.internal_id FROM scim_user u JOIN scim_id i ON u.internal_id = i.internal_id
+WHERE u.internal_id IN (
+    SELECT su.internal_id FROM scim_user su JOIN scim_id si ON su.internal_id = si.internal_id
+    WHERE su.username LIKE 'user1%' AND su.active = true)
+ORDER BY u.username LIMIT 100;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT u.internal_id FROM scim_user u JOIN scim_id i ON u.internal_id = i.internal_id
+WHERE u.username LIKE 'user1%' AND u.active = true
+ORDER BY u.username LIMIT 100;
+
+-- the count queries of the same search
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(u.internal_id) FROM scim_user u JOIN scim_id i ON u.internal_id = i.internal_id
+WHERE u.internal_id IN (
+    SELECT su.internal_id FROM scim_user su JOIN scim_id si ON su.internal_id = si.internal_id
+    WHERE su.username LIKE 'user1%' AND su.active = true);
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(u.internal_id) FROM scim_user u JOIN scim_id i ON u.internal_id = i.internal_id
+WHERE u.username LIKE 'user1%' AND u.active = true;
+
+-- filter emails.type eq "work" and emails.value co "user1", sortBy userName, count 100, startIndex 1
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT u.internal_id FROM scim_user u JOIN scim_id i ON u.internal_id = i.internal_id
+WHERE u.internal_id IN (
+    SELECT su.internal_id FROM scim_user su JOIN scim_id si ON su.internal_id = si.internal_id
+    LEFT JOIN scim_email e ON su.internal_id = e.user_internal_id
+    WHERE e.type = 'work' AND e.value LIKE '%user1%')
+ORDER BY u.username LIMIT 100;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT u.internal_id FROM scim_user u JOIN scim_id i ON u.internal_id = i.internal_id
+WHERE EXISTS (
+    SELECT su.internal_id FROM scim_user su JOIN scim_id si ON su.internal_id = si.internal_id
+    LEFT JOIN scim_email e ON su.internal_id = e.user_internal_id
+    WHERE e.type = 'work' AND e.value LIKE '%user1%' AND su.internal_id = u.internal_id)
+ORDER BY u.username LIMIT 100;
+
+ROLLBACK;